@@ -0,0 +1,139 @@
+package com.example.omega.config;
+
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that hashes on a small dedicated pool instead of the request thread, so a burst of sign-ins
+ * can use at most that many CPUs. At most {@code capacity} hashes are running or waiting; any more are
+ * rejected right away with a 503, instead of holding every web thread until unrelated requests starve.
+ * <p>
+ * A stored hash whose cost differs from the current one is reported for upgrade, so it's rehashed on the
+ * user's next sign-in.
+ */
+@Slf4j
+public class BoundedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    private final ExecutorService workers;
+
+    private final Semaphore capacity;
+
+    private final Timer hashTimer;
+
+    private final Counter rejected;
+
+    public BoundedBCryptPasswordEncoder(int strength, int workerCount, int capacity, MeterRegistry meterRegistry) {
+        super(strength);
+        this.strength = strength;
+        this.capacity = new Semaphore(capacity);
+
+        var threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet()));
+
+        this.hashTimer = Timer.builder("omega.auth.password-hash").register(meterRegistry);
+        this.rejected = meterRegistry.counter("omega.auth.password-hash.rejected");
+        meterRegistry.gauge("omega.auth.password-hash.in-flight", this.capacity, semaphore -> capacity - semaphore.availablePermits());
+    }
+
+    /**
+     * Picks the highest cost whose hash takes no longer than the target on this machine. Every step of the
+     * cost doubles the work, so the cost is extrapolated from the fastest of a few hashes at the minimum.
+     *
+     * @param target      The longest a single hash should take.
+     * @param minStrength The lowest cost to use, even if hashing at it is slower than the target.
+     * @param maxStrength The highest cost to use.
+     * @return The calibrated cost.
+     */
+    public static int calibrateStrength(Duration target, int minStrength, int maxStrength) {
+        var salt = BCrypt.gensalt(minStrength);
+        BCrypt.hashpw("calibration", salt);
+        var fastestNanos = Long.MAX_VALUE;
+        for (var sample = 0; sample < 3; sample++) {
+            var start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+
+        var strength = minStrength;
+        var estimatedNanos = fastestNanos;
+        while (strength < maxStrength && estimatedNanos * 2 <= target.toNanos()) {
+            strength++;
+            estimatedNanos *= 2;
+        }
+        log.info("Calibrated BCrypt cost to {}, about {} ms per hash (cost {} took {} ms)",
+                strength, TimeUnit.NANOSECONDS.toMillis(estimatedNanos), minStrength, TimeUnit.NANOSECONDS.toMillis(fastestNanos));
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> super.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> super.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        var matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private <T> T hash(Callable<T> task) {
+        if (!capacity.tryAcquire()) {
+            rejected.increment();
+            throw new BadRequestException("Too many sign-ins are being processed, try again later!", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        try {
+            return workers.submit(() -> hashTimer.recordCallable(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Couldn't hash a password", e.getCause());
+        } finally {
+            capacity.release();
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.example.omega.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
+
 
 @Configuration
 public class PasswordEncoder {
 
+    /**
+     * BCrypt encoder hashing on a bounded pool. A strength of {@code 0} calibrates the cost to the target
+     * latency on startup; pin it when nodes run on different hardware, or users are rehashed back and forth.
+     */
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder bCryptPasswordEncoder(MeterRegistry meterRegistry,
+                                                       @Value("${omega.app.password.strength:0}") int strength,
+                                                       @Value("${omega.app.password.target-ms:250}") long targetMs,
+                                                       @Value("${omega.app.password.min-strength:10}") int minStrength,
+                                                       @Value("${omega.app.password.max-strength:14}") int maxStrength,
+                                                       @Value("${omega.app.password.workers:0}") int workerCount,
+                                                       @Value("${omega.app.password.capacity:64}") int capacity) {
+        var cost = strength > 0 ? strength : BoundedBCryptPasswordEncoder.calibrateStrength(Duration.ofMillis(targetMs), minStrength, maxStrength);
+        // By default hashing can take half of the CPUs, the rest stay with the other requests
+        var workers = workerCount > 0 ? workerCount : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedBCryptPasswordEncoder(cost, workers, capacity, meterRegistry);
     }
 }
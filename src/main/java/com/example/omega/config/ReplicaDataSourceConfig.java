@@ -0,0 +1,70 @@
+package com.example.omega.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to a replica when {@code omega.datasource.replica.url} is set.
+ * Without it the single {@code spring.datasource} is used as before.
+ */
+@Configuration
+@ConditionalOnProperty("omega.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("omega.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${omega.datasource.replica.url}") String url,
+                                              @Value("${omega.datasource.replica.username:}") String username,
+                                              @Value("${omega.datasource.replica.password:}") String password) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 @Value("${omega.datasource.replica.lag-query}") String lagQuery,
+                                 @Value("${omega.datasource.replica.max-lag-ms:10000}") long maxLagMs,
+                                 @Value("${omega.datasource.replica.read-your-writes-ms:5000}") long readYourWritesMs) {
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, lagQuery, maxLagMs, readYourWritesMs);
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.checkReplicaLag();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${omega.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkReplicaLag() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicaLag();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.omega.config;
+
+import com.example.omega.service.util.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * Reads still go to the primary when the replica lags more than the allowed limit, when the current user
+ * committed a write within the read-your-writes window, or inside {@link #onPrimary}. The data source must
+ * be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the
+ * connection is only picked once the read-only flag of the transaction is known.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final int MAX_TRACKED_WRITERS = 100_000;
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final JdbcTemplate replicaJdbcTemplate;
+
+    private final String lagQuery;
+
+    private final long maxLagMs;
+
+    private final long readYourWritesMs;
+
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private volatile boolean replicaUsable = true;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String lagQuery, long maxLagMs, long readYourWritesMs) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.readYourWritesMs = readYourWritesMs;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs an action whose reads must see every committed write, such as loading a transaction that
+     * another node just created.
+     *
+     * @param action The action.
+     * @return The result of the action.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        var previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    /**
+     * Measures the replication lag and stops reading from the replica while it is above the limit
+     * or can't be measured.
+     */
+    public void checkReplicaLag() {
+        boolean usable;
+        try {
+            var lagMs = replicaJdbcTemplate.queryForObject(lagQuery, Long.class);
+            usable = lagMs == null || lagMs <= maxLagMs;
+            if (!usable) {
+                log.warn("Replica lags {} ms behind the primary, reading from the primary", lagMs);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Couldn't measure the replica lag, reading from the primary: {}", e.getMessage());
+            usable = false;
+        }
+
+        if (usable && !replicaUsable) {
+            log.info("Replica caught up, reading from the replica again");
+        }
+        replicaUsable = usable;
+
+        var now = System.currentTimeMillis();
+        recentWriters.values().removeIf(until -> until < now);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriterOnCommit();
+            return Target.PRIMARY;
+        }
+        if (!replicaUsable || FORCE_PRIMARY.get() != null || wroteRecently()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    private boolean wroteRecently() {
+        var login = SecurityUtils.getCurrentUserLogin();
+        if (login.isEmpty()) {
+            return false;
+        }
+        var until = recentWriters.get(login.get());
+        return until != null && until >= System.currentTimeMillis();
+    }
+
+    private void rememberWriterOnCommit() {
+        var login = SecurityUtils.getCurrentUserLogin();
+        if (login.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (recentWriters.size() < MAX_TRACKED_WRITERS || recentWriters.containsKey(login.get())) {
+                    recentWriters.put(login.get(), System.currentTimeMillis() + readYourWritesMs);
+                }
+            }
+        });
+    }
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.omega.config;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
@@ -7,7 +9,9 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -19,6 +23,35 @@ import java.util.List;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    @Value("${omega.statement.export-timeout-ms:1800000}")
+    private long asyncRequestTimeout;
+
+    @Value("${omega.statement.max-concurrent-exports:4}")
+    private int maxConcurrentExports;
+
+    private ThreadPoolTaskExecutor asyncRequestExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Statement exports stream for as long as the cursor has rows. They are the only asynchronous requests,
+        // one thread per export slot; the queue only absorbs a thread that released its slot but isn't back yet.
+        asyncRequestExecutor = new ThreadPoolTaskExecutor();
+        asyncRequestExecutor.setCorePoolSize(maxConcurrentExports);
+        asyncRequestExecutor.setMaxPoolSize(maxConcurrentExports);
+        asyncRequestExecutor.setQueueCapacity(maxConcurrentExports);
+        asyncRequestExecutor.setThreadNamePrefix("statement-export-");
+        asyncRequestExecutor.initialize();
+        configurer.setTaskExecutor(asyncRequestExecutor);
+        configurer.setDefaultTimeout(asyncRequestTimeout);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (asyncRequestExecutor != null) {
+            asyncRequestExecutor.shutdown();
+        }
+    }
+
     @Override
     public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
         configurer
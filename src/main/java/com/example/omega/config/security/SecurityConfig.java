@@ -49,6 +49,7 @@ public class SecurityConfig {
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/management/health").permitAll() // Permit unauthenticated access to /management/health.
                         .requestMatchers("/management/info").permitAll()
+                        .requestMatchers("/management/**").hasRole("ADMIN")
                         .requestMatchers("/api/v1/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/v3/**").permitAll() // Permit unauthenticated access to /management/info.
                         .requestMatchers("/api/**").authenticated()) // Permit unauthenticated access to /management/info.
                 .sessionManagement(session -> session
@@ -87,7 +88,8 @@ public class SecurityConfig {
     }
 
     /**
-     * Configures the authentication provider with user details service and password encoder.
+     * Configures the authentication provider with user details service and password encoder. Passwords
+     * hashed with another BCrypt cost are rehashed on sign-in.
      *
      * @return A DaoAuthenticationProvider.
      */
@@ -96,6 +98,7 @@ public class SecurityConfig {
         var authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(bCryptPasswordEncoder);
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -1,14 +1,17 @@
 package com.example.omega.config.security.jwt;
 
 
+import com.example.omega.domain.UserDetailsImpl;
 import com.example.omega.service.UserDetailsServiceImpl;
+import com.example.omega.service.token.TokenRevocationList;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -20,16 +23,41 @@ import java.io.IOException;
 /**
  * AuthTokenFilter is responsible for processing JWT authentication tokens and setting the
  * user's authentication in the Spring Security context if a valid token is provided.
+ * <p>
+ * In stateless mode the user is built from the ID and role claims of the token instead of being read from
+ * the database on every request; the token epoch is checked against the {@link TokenEpochCache}, so the
+ * tokens of a locked user or issued before a password change are still rejected. Tokens issued without the
+ * user claims fall back to the lookup.
+ * <p>
+ * Refresh tokens are never accepted as access tokens, and access tokens revoked on sign-out are rejected
+ * through the {@link TokenRevocationList}.
  */
 @Slf4j
-@AllArgsConstructor
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
 
-    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    private final TokenEpochCache tokenEpochCache;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final boolean statelessAuthentication;
+
+    public AuthTokenFilter(VerifiedTokenCache verifiedTokenCache,
+                           UserDetailsServiceImpl userDetailsService,
+                           TokenEpochCache tokenEpochCache,
+                           TokenRevocationList tokenRevocationList,
+                           @Value("${omega.app.stateless-auth:false}") boolean statelessAuthentication) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userDetailsService = userDetailsService;
+        this.tokenEpochCache = tokenEpochCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.statelessAuthentication = statelessAuthentication;
+    }
+
     /**
      * Processes the authentication token in the HTTP request and sets the user's authentication if valid.
      *
@@ -49,9 +77,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 filterChain.doFilter(request, response);
                 return;
             }
-            if (jwtUtils.validateJwtToken(jwtAccessToken) && !isSignUpRequest(request)) {
-                var username = jwtUtils.getUsernameFromJwtToken(jwtAccessToken);
-                var userDetails = userDetailsService.loadUserByUsername(username);
+            var verifiedToken = jwtAccessToken == null || isSignUpRequest(request) ? null : verifiedTokenCache.verify(jwtAccessToken).orElse(null);
+            var userDetails = verifiedToken == null ? null : authenticate(verifiedToken);
+            if (userDetails != null) {
                 var passwordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
@@ -65,6 +93,41 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Builds the user of a verified token, from its claims in stateless mode or from the database otherwise.
+     *
+     * @param verifiedToken The verified token.
+     * @return The user, or null if the token was revoked or the user is locked.
+     */
+    private UserDetailsImpl authenticate(VerifiedToken verifiedToken) {
+        if (verifiedToken.isRefresh()) {
+            log.warn("Refresh token of User: {} used as an access token. Rejecting!", verifiedToken.getUsername());
+            return null;
+        }
+        if (verifiedToken.getTokenId() != null && tokenRevocationList.isRevoked(verifiedToken.getTokenId())) {
+            log.warn("Token of User: {} was revoked. Rejecting!", verifiedToken.getUsername());
+            return null;
+        }
+        var tokenEpoch = verifiedToken.getTokenEpoch() == null ? 0 : verifiedToken.getTokenEpoch();
+        if (statelessAuthentication && verifiedToken.getUserId() != null && !verifiedToken.getRoles().isEmpty()) {
+            if (!tokenEpochCache.isCurrent(verifiedToken.getUserId(), tokenEpoch)) {
+                log.warn("Token of User: {} was revoked. Rejecting!", verifiedToken.getUsername());
+                return null;
+            }
+            var authorities = verifiedToken.getRoles().stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .toList();
+            return new UserDetailsImpl(verifiedToken.getUserId(), verifiedToken.getUsername(), null, authorities, tokenEpoch, true);
+        }
+
+        var userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(verifiedToken.getUsername());
+        if (userDetails.getTokenEpoch() != tokenEpoch || !userDetails.isAccountNonLocked()) {
+            log.warn("Token of User: {} was revoked. Rejecting!", verifiedToken.getUsername());
+            return null;
+        }
+        return userDetails;
+    }
+
     /**
      * Parses the JWT token from the HTTP request's AUTHORIZATION header.
      *
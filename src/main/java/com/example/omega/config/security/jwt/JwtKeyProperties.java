@@ -0,0 +1,29 @@
+package com.example.omega.config.security.jwt;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The JWT signing keys, bound from {@code omega.app.jwt-keys}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "omega.app.jwt-keys")
+public class JwtKeyProperties {
+
+    /**
+     * The ID of the key new tokens are signed with.
+     */
+    private String active;
+
+    /**
+     * Base64 encoded HMAC secrets of at least 512 bits, by key ID. Every key verifies the tokens signed with it.
+     */
+    private Map<String, String> secrets = new LinkedHashMap<>();
+}
@@ -0,0 +1,103 @@
+package com.example.omega.config.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The keys JWT tokens are signed and verified with. Every key is decoded once into a {@link SecretKey}, tokens
+ * are signed with the active key and name it in their {@code kid} header, and a single thread-safe parser picks
+ * the verification key by that header.
+ * <p>
+ * A key is rotated without downtime in three rolling deployments: add the new key to every node, make it the
+ * active key, and drop the old key once the tokens signed with it have expired. Tokens without a {@code kid}
+ * are verified with the active key.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+
+    private final String activeKeyId;
+
+    private final SecretKey activeKey;
+
+    private final Map<String, SecretKey> keys = new HashMap<>();
+
+    private final JwtParser parser;
+
+    public JwtKeyRing(JwtKeyProperties properties) {
+        if (!StringUtils.hasText(properties.getActive()) || !properties.getSecrets().containsKey(properties.getActive())) {
+            throw new IllegalStateException("The active JWT key must be one of omega.app.jwt-keys.secrets");
+        }
+        properties.getSecrets().forEach((keyId, secret) -> {
+            if (!StringUtils.hasText(secret)) {
+                throw new IllegalStateException("The JWT key " + keyId + " has no secret, set omega.app.jwt-keys.secrets." + keyId);
+            }
+        });
+
+        properties.getSecrets().forEach((keyId, secret) -> keys.put(keyId, decode(keyId, secret)));
+        this.activeKeyId = properties.getActive();
+        this.activeKey = keys.get(activeKeyId);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolve(header.getKeyId());
+                    }
+                })
+                .build();
+        log.info("Signing JWT tokens with key: {}, accepting keys: {}", activeKeyId, keys.keySet());
+    }
+
+    /**
+     * @return A builder for a new token, signed with the active key.
+     */
+    public JwtBuilder builder() {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
+                .signWith(activeKey, ALGORITHM);
+    }
+
+    /**
+     * @return The parser verifying tokens signed with any of the keys, safe to share between threads.
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    private Key resolve(String keyId) {
+        if (keyId == null) {
+            return activeKey;
+        }
+        var key = keys.get(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT signing key: " + keyId);
+        }
+        return key;
+    }
+
+    private static SecretKey decode(String keyId, String secret) {
+        var bytes = Decoders.BASE64.decode(secret);
+        if (bytes.length * 8 < ALGORITHM.getMinKeyLength()) {
+            throw new IllegalStateException("The JWT key " + keyId + " must be at least " + ALGORITHM.getMinKeyLength() + " bits");
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+}
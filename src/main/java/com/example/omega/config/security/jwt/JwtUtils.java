@@ -2,29 +2,52 @@ package com.example.omega.config.security.jwt;
 
 
 import com.example.omega.domain.UserDetailsImpl;
-import io.jsonwebtoken.*;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 @Slf4j
 public class JwtUtils {
 
-    @Value("${omega.app.jwt-secret}")
-    private String jwtSecret;
+    static final String USER_ID_CLAIM = "uid";
 
-    @Value("${omega.app.jwt-expiration-ms}")
-    private int jwtExpiration;
+    static final String ROLES_CLAIM = "roles";
 
-    @Value("${omega.app.jwt-refresh-expirations-ms}")
-    private int jwtRefreshExpiration;
+    static final String TOKEN_EPOCH_CLAIM = "epoch";
+
+    static final String TOKEN_TYPE_CLAIM = "typ";
+
+    static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    private final JwtKeyRing keyRing;
+
+    private final int jwtExpiration;
+
+    private final int jwtRefreshExpiration;
+
+    public JwtUtils(JwtKeyRing keyRing,
+                    @Value("${omega.app.jwt-expiration-ms}") int jwtExpiration,
+                    @Value("${omega.app.jwt-refresh-expirations-ms}") int jwtRefreshExpiration) {
+        this.keyRing = keyRing;
+        this.jwtExpiration = jwtExpiration;
+        this.jwtRefreshExpiration = jwtRefreshExpiration;
+    }
 
     /**
-     * Generates a JWT token for the provided authentication.
+     * Generates a JWT token for the provided authentication. The token carries the user ID, roles and
+     * token epoch, so a request can be authenticated from the token alone.
      *
      * @param authentication The authentication object containing user details.
      * @return The generated JWT token.
@@ -32,71 +55,100 @@ public class JwtUtils {
     public String generateJwtToken(Authentication authentication) {
         // Extracts user details from the authentication object.
         var userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        return generateJwtToken(userPrincipal, UUID.randomUUID().toString(), new Date());
+    }
 
-        // Builds a JWT token with user subject, issued and expiration dates, and signs it with the specified algorithm and secret.
-        return Jwts.builder()
+    /**
+     * Generates an access token for a user.
+     *
+     * @param userPrincipal The user the token is issued to.
+     * @param tokenId       The unique ID of the token, used to revoke it.
+     * @param issuedAt      When the token is issued.
+     * @return The generated JWT token.
+     */
+    public String generateJwtToken(UserDetailsImpl userPrincipal, String tokenId, Date issuedAt) {
+        // Builds a JWT token with user subject, user claims, issued and expiration dates, signed with the active key of the ring.
+        return keyRing.builder()
+                .setId(tokenId)
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpiration))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(ROLES_CLAIM, roleNames(userPrincipal.getAuthorities()))
+                .claim(TOKEN_EPOCH_CLAIM, userPrincipal.getTokenEpoch())
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + jwtExpiration))
                 .compact();
     }
 
     /**
-     * Generates a refresh JWT token for the provided authentication.
+     * Generates a refresh token for a user. It can only be exchanged for new tokens, never used as an access token.
      *
-     * @param authentication The authentication object containing user details.
+     * @param userPrincipal The user the token is issued to.
+     * @param tokenId       The unique ID of the token, under which it's registered.
+     * @param issuedAt      When the token is issued.
      * @return The generated refresh JWT token.
      */
-    public String generateRefreshJwtToken(Authentication authentication) {
-        // Extracts user details from the authentication object.
-        var userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
-
-        // Builds a refresh JWT token with user subject, issued and expiration dates, and signs it with the specified algorithm and secret.
-        return Jwts.builder()
+    public String generateRefreshJwtToken(UserDetailsImpl userPrincipal, String tokenId, Date issuedAt) {
+        // Builds a refresh JWT token with user subject, issued and expiration dates, signed with the active key of the ring.
+        return keyRing.builder()
+                .setId(tokenId)
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtRefreshExpiration))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(TOKEN_EPOCH_CLAIM, userPrincipal.getTokenEpoch())
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + jwtRefreshExpiration))
                 .compact();
     }
 
-    /**
-     * Retrieves the username from a given JWT token.
-     *
-     * @param token The JWT token.
-     * @return The username extracted from the token.
-     */
-    public String getUsernameFromJwtToken(String token) {
-        // Parses the JWT token, retrieves the subject (username) from the claims, and returns it.
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public Duration getAccessTokenLifetime() {
+        return Duration.ofMillis(jwtExpiration);
+    }
+
+    public Duration getRefreshTokenLifetime() {
+        return Duration.ofMillis(jwtRefreshExpiration);
     }
 
     /**
-     * Validates a JWT token for integrity, expiration, and other potential issues.
+     * Verifies a JWT token and reads its claims with a single parse, so the signature is checked only once.
      *
-     * @param authToken The JWT token to be validated.
-     * @return True if the token is valid, false otherwise.
+     * @param token The JWT token.
+     * @return The verified claims, or empty if the token is invalid or expired.
      */
-    public boolean validateJwtToken(String authToken) {
+    public Optional<VerifiedToken> verifyJwtToken(String token) {
         try {
-            // Parses the JWT token to check for validity. If successful, returns true.
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
+            var claims = keyRing.parser()
+                    .parseClaimsJws(token)
+                    .getBody();
+            var userId = claims.get(USER_ID_CLAIM, Number.class);
+            var tokenEpoch = claims.get(TOKEN_EPOCH_CLAIM, Number.class);
+            return Optional.of(new VerifiedToken(claims.getId(),
+                    REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM)),
+                    claims.getSubject(),
+                    userId == null ? null : userId.longValue(),
+                    roles(claims.get(ROLES_CLAIM)),
+                    tokenEpoch == null ? null : tokenEpoch.intValue(),
+                    claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                    claims.getExpiration() == null ? null : claims.getExpiration().toInstant()));
         } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty: {}", e.getMessage());
+            log.debug("JWT token is expired: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Invalid JWT token: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static List<String> roleNames(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    private static List<String> roles(Object claim) {
+        if (!(claim instanceof Collection)) {
+            return List.of();
         }
-        // If any exception occurs during validation, returns false.
-        return false;
+        return ((Collection<?>) claim).stream()
+                .map(String::valueOf)
+                .toList();
     }
 }
@@ -0,0 +1,119 @@
+package com.example.omega.config.security.jwt;
+
+import com.example.omega.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the current token epoch of recently active users, so stateless authentication can reject the tokens
+ * of a locked user, or issued before a password change, without reading the user on every request. An epoch
+ * is read again once its TTL passes, which bounds how long another node keeps accepting a revoked token.
+ */
+@Slf4j
+@Component
+public class TokenEpochCache {
+
+    private final UserRepository userRepository;
+
+    private final long ttlMs;
+
+    private final int maxEntries;
+
+    private final Map<Long, CachedEpoch> cache = new ConcurrentHashMap<>();
+
+    private final Counter staleTokens;
+
+    public TokenEpochCache(UserRepository userRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${omega.app.token-epoch.ttl-ms:30000}") long ttlMs,
+                           @Value("${omega.app.token-epoch.max-entries:100000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.staleTokens = meterRegistry.counter("omega.auth.stale-tokens");
+    }
+
+    /**
+     * Checks that a token was issued in the user's current epoch.
+     *
+     * @param userId     The ID of the user the token was issued to.
+     * @param tokenEpoch The epoch stamped into the token.
+     * @return {@code false} if the user no longer exists or the token was revoked.
+     */
+    public boolean isCurrent(Long userId, int tokenEpoch) {
+        var now = System.currentTimeMillis();
+        var cached = cache.get(userId);
+        if (cached == null || cached.expiresAt <= now) {
+            var epoch = userRepository.findTokenEpochById(userId);
+            if (epoch.isEmpty()) {
+                cache.remove(userId);
+                staleTokens.increment();
+                return false;
+            }
+            cached = new CachedEpoch(epoch.get(), now + ttlMs);
+            cache.put(userId, cached);
+            evictIfNecessary(now);
+        }
+
+        if (cached.epoch != tokenEpoch) {
+            staleTokens.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a new epoch of a user on this node once the current transaction commits.
+     *
+     * @param userId The ID of the user.
+     * @param epoch  The new epoch.
+     */
+    public void updateAfterCommit(Long userId, int epoch) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(userId, new CachedEpoch(epoch, System.currentTimeMillis() + ttlMs));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(userId, new CachedEpoch(epoch, System.currentTimeMillis() + ttlMs));
+            }
+        });
+    }
+
+    /**
+     * Drops expired epochs, and then arbitrary ones, until the cache is back under its limit.
+     */
+    private void evictIfNecessary(long now) {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+
+        cache.values().removeIf(cached -> cached.expiresAt <= now);
+        var iterator = cache.values().iterator();
+        while (cache.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class CachedEpoch {
+
+        private final int epoch;
+
+        private final long expiresAt;
+
+        private CachedEpoch(int epoch, long expiresAt) {
+            this.epoch = epoch;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
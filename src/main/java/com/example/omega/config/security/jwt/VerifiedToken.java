@@ -0,0 +1,45 @@
+package com.example.omega.config.security.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a JWT token whose signature and expiration were verified.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class VerifiedToken {
+
+    /**
+     * The unique ID of the token, {@code null} for tokens issued without it.
+     */
+    private final String tokenId;
+
+    /**
+     * Whether it's a refresh token, which can't be used as an access token.
+     */
+    private final boolean refresh;
+
+    private final String username;
+
+    /**
+     * The ID of the user, {@code null} for tokens issued without the user claims.
+     */
+    private final Long userId;
+
+    private final List<String> roles;
+
+    /**
+     * The token epoch of the user when the token was issued, {@code null} for tokens issued without it.
+     */
+    private final Integer tokenEpoch;
+
+    private final Instant issuedAt;
+
+    private final Instant expiresAt;
+}
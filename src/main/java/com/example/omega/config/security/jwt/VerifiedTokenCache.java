@@ -0,0 +1,122 @@
+package com.example.omega.config.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers recently verified JWT tokens, so a client that sends the same bearer token with every request
+ * pays for parsing and the HMAC only once. Tokens are kept by their SHA-256 digest, never in plain text.
+ * An entry lives until the token expires or the cache TTL passes, whichever comes first; the cache is
+ * bounded, dropping expired entries first when it's full.
+ * <p>
+ * The {@link JwtKeyRing} only changes with a restart, which starts with an empty cache, so an entry never
+ * outlives the key its token was verified with.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtils jwtUtils;
+
+    private final int maxEntries;
+
+    private final long ttlMs;
+
+    private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public VerifiedTokenCache(JwtUtils jwtUtils,
+                              MeterRegistry meterRegistry,
+                              @Value("${omega.app.jwt-cache.max-entries:10000}") int maxEntries,
+                              @Value("${omega.app.jwt-cache.ttl-ms:300000}") long ttlMs) {
+        this.jwtUtils = jwtUtils;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.hits = meterRegistry.counter("omega.auth.token-cache", "result", "hit");
+        this.misses = meterRegistry.counter("omega.auth.token-cache", "result", "miss");
+        meterRegistry.gauge("omega.auth.token-cache.size", cache, Map::size);
+    }
+
+    /**
+     * Verifies a JWT token, or returns its claims from the cache if it was verified recently.
+     *
+     * @param token The JWT token.
+     * @return The verified claims, or empty if the token is invalid or expired.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (ttlMs <= 0) {
+            return jwtUtils.verifyJwtToken(token);
+        }
+
+        var now = System.currentTimeMillis();
+        var digest = digest(token);
+        var cached = cache.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return Optional.of(cached.token);
+            }
+            cache.remove(digest, cached);
+        }
+
+        misses.increment();
+        var verifiedToken = jwtUtils.verifyJwtToken(token);
+        verifiedToken.ifPresent(claims -> {
+            var expiresAt = claims.getExpiresAt() == null ? now + ttlMs : Math.min(now + ttlMs, claims.getExpiresAt().toEpochMilli());
+            cache.put(digest, new CachedToken(claims, expiresAt));
+            evictIfNecessary(now);
+        });
+        return verifiedToken;
+    }
+
+    /**
+     * Drops expired entries, and then arbitrary ones, until the cache is back under its limit.
+     */
+    private void evictIfNecessary(long now) {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+
+        cache.values().removeIf(cached -> cached.expiresAt <= now);
+        var iterator = cache.values().iterator();
+        while (cache.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedToken {
+
+        private final VerifiedToken token;
+
+        private final long expiresAt;
+
+        private CachedToken(VerifiedToken token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.math.BigDecimal;
 
 
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_account_balance_user_currency_shard", columnNames = {"user_id", "currency", "shard"}))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -18,7 +18,7 @@ public class AccountBalance {
 
     @Id
     @GeneratedValue(generator = "account_balance_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "account_balance_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @SequenceGenerator(name = "account_balance_sequence_generator", initialValue = 1000, allocationSize = 50)
     private Long id;
 
     @JoinColumn(name = "user_id")
@@ -29,6 +29,16 @@ public class AccountBalance {
     @Enumerated(EnumType.STRING)
     private Currency currency;
 
+    /**
+     * Sub-balance of a hot account. Credits are spread over the shards, the balance of the account is their sum.
+     */
+    @Column(nullable = false)
+    private Integer shard;
+
     @Column
     private BigDecimal balance;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
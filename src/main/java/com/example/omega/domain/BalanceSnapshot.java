@@ -0,0 +1,37 @@
+package com.example.omega.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The balance of an account after every journal entry created before {@code coveredUntil}.
+ */
+@Entity
+@Table
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(generator = "balance_snapshot_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "balance_snapshot_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_balance_id", nullable = false, updatable = false)
+    private Long accountBalanceId;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false, updatable = false)
+    private Instant coveredUntil;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
@@ -0,0 +1,48 @@
+package com.example.omega.domain;
+
+import com.example.omega.domain.enumeration.Currency;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Number and sum of the successful transfers a user sent and received in one currency on one UTC day.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_daily_volume_user_currency_day", columnNames = {"user_id", "currency", "volume_day"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class DailyVolume {
+
+    @Id
+    @GeneratedValue(generator = "daily_volume_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "daily_volume_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "volume_day", nullable = false, updatable = false)
+    private LocalDate day;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency currency;
+
+    @Column(nullable = false)
+    private Long sentCount;
+
+    @Column(nullable = false)
+    private BigDecimal sentAmount;
+
+    @Column(nullable = false)
+    private Long receivedCount;
+
+    @Column(nullable = false)
+    private BigDecimal receivedAmount;
+}
@@ -0,0 +1,37 @@
+package com.example.omega.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Remembers which transaction a client supplied Idempotency-Key created, so retries of the
+ * same request return that transaction instead of moving money again.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_idempotency_key_user_key", columnNames = {"user_id", "idempotency_key"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(generator = "idempotency_key_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "idempotency_key_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, updatable = false, length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private Long transactionId;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
@@ -0,0 +1,44 @@
+package com.example.omega.domain;
+
+import com.example.omega.domain.enumeration.JournalEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One side of a money movement. Entries are only ever inserted; the balance of an account is the
+ * sum of its credits minus the sum of its debits.
+ */
+@Entity
+@Table
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(generator = "journal_entry_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "journal_entry_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_balance_id", nullable = false, updatable = false)
+    private Long accountBalanceId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", updatable = false)
+    private Transaction transaction;
+
+    @Column(nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private JournalEntryType entryType;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
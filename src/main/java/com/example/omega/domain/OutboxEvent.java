@@ -0,0 +1,40 @@
+package com.example.omega.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An event written in the same database transaction as the change it describes and deleted once the
+ * {@link com.example.omega.service.outbox.OutboxRelay} delivered it to downstream systems.
+ */
+@Entity
+@Table(name = "outbox_event")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = "outbox_event_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "outbox_event_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    /**
+     * The account the event belongs to. Events of the same account are delivered in the order they were written.
+     */
+    @Column(name = "aggregate_id", nullable = false, updatable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, updatable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
@@ -0,0 +1,58 @@
+package com.example.omega.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A refresh token that was issued to a user. Every refresh replaces the token with a new one of the same
+ * family; presenting a replaced token again means it leaked, so the whole family is revoked.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_refresh_token_token_id", columnNames = "token_id"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(generator = "refresh_token_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "refresh_token_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "token_id", nullable = false, updatable = false, length = 36)
+    private String tokenId;
+
+    /**
+     * The ID of the first token of the rotation chain, shared by every token refreshed from it.
+     */
+    @Column(name = "family_id", nullable = false, updatable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false, updatable = false)
+    private Instant expiresAt;
+
+    /**
+     * The access token issued together with this refresh token, revoked with its family.
+     */
+    @Column(length = 36, updatable = false)
+    private String accessTokenId;
+
+    @Column(updatable = false)
+    private Instant accessExpiresAt;
+
+    @Column
+    private Instant revokedAt;
+
+    @Column(length = 36)
+    private String replacedBy;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
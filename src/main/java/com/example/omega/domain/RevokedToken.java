@@ -0,0 +1,33 @@
+package com.example.omega.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An access token that was revoked before it expired. Rows are kept only until the token would have expired.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_revoked_token_token_id", columnNames = "token_id"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(generator = "revoked_token_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "revoked_token_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "token_id", nullable = false, updatable = false, length = 36)
+    private String tokenId;
+
+    @Column(nullable = false, updatable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdDate;
+}
@@ -0,0 +1,95 @@
+package com.example.omega.domain;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Recurrence;
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A standing order: a transfer that runs once at a given time or repeats until it's cancelled or reaches its end.
+ */
+@Entity
+@Table
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ScheduledTransfer extends AbstractAuditingEntity {
+
+    @Id
+    @GeneratedValue(generator = "scheduled_transfer_sequence_generator", strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(name = "scheduled_transfer_sequence_generator", initialValue = 1000, allocationSize = 50)
+    private Long id;
+
+    @Column(name = "sender_id", nullable = false, updatable = false)
+    private Long senderId;
+
+    @Column(name = "recipient_id", nullable = false, updatable = false)
+    private Long recipientId;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency currency;
+
+    @Column(updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency recipientCurrency;
+
+    @Column(updatable = false)
+    private String description;
+
+    @Column(nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Recurrence recurrence;
+
+    @Column(nullable = false, updatable = false)
+    private Instant firstRunAt;
+
+    /**
+     * No run is made after this time, {@code null} if the transfer repeats until it's cancelled.
+     */
+    @Column(updatable = false)
+    private Instant endAt;
+
+    /**
+     * When the next run is due, {@code null} once the transfer is no longer active.
+     */
+    @Column
+    private Instant nextRunAt;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ScheduledTransferStatus status;
+
+    /**
+     * The number of finished runs, it's also the number of the next run.
+     */
+    @Column(nullable = false)
+    private int runCount;
+
+    /**
+     * The failed attempts of the next run.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column
+    private Instant lastRunAt;
+
+    @Column
+    private Long lastTransactionId;
+
+    @Column
+    private String lastError;
+
+    @Version
+    private Long version;
+}
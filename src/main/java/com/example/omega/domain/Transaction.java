@@ -20,14 +20,14 @@ public class Transaction extends AbstractAuditingEntity{
 
     @Id
     @GeneratedValue(generator = "transaction_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "transaction_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @SequenceGenerator(name = "transaction_sequence_generator", initialValue = 1000, allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id")
     private User sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipient_id")
     private User recipient;
 
@@ -41,6 +41,19 @@ public class Transaction extends AbstractAuditingEntity{
     @Enumerated(EnumType.STRING)
     private Currency currency;
 
+    /**
+     * Currency the recipient is credited in, when it differs from {@link #currency}.
+     */
+    @Column
+    @Enumerated(EnumType.STRING)
+    private Currency recipientCurrency;
+
+    @Column
+    private BigDecimal convertedAmount;
+
+    @Column
+    private BigDecimal fxRate;
+
     @Column
     @Enumerated(EnumType.STRING)
     private TransactionStatus transactionStatus;
@@ -49,6 +62,12 @@ public class Transaction extends AbstractAuditingEntity{
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
 
+    /**
+     * Points the transfer scored in the risk assessment, {@code null} if it wasn't assessed.
+     */
+    @Column
+    private Integer riskScore;
+
     @Column
     @OneToMany(mappedBy = "transaction")
     private List<TransactionStateHistory> transactionStateHistories;
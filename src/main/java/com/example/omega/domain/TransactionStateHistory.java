@@ -1,6 +1,7 @@
 package com.example.omega.domain;
 
 import com.example.omega.domain.enumeration.TransactionStatus;
+import com.example.omega.domain.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -15,8 +16,7 @@ import lombok.*;
 public class TransactionStateHistory extends AbstractAuditingEntity{
 
     @Id
-    @GeneratedValue(generator = "transaction_state_history_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "transaction_state_history_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @TimeOrderedId
     private Long id;
 
     @Column
@@ -18,7 +18,7 @@ public class User extends AbstractAuditingEntity {
 
     @Id
     @GeneratedValue(generator = "user_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "user_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @SequenceGenerator(name = "user_sequence_generator", initialValue = 1000, allocationSize = 50)
     private Long id;
 
     @Column
@@ -78,6 +78,12 @@ public class User extends AbstractAuditingEntity {
     @Column
     private Boolean twoFactorAuthentication;
 
+    /**
+     * Stamped into every issued token; raising it invalidates all tokens issued before.
+     */
+    @Column(nullable = false)
+    private int tokenEpoch;
+
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL)
     @JoinColumn(name = "verification_code_id")
     private VerificationCode verificationCode;
@@ -19,10 +19,12 @@ public class UserDetailsImpl implements UserDetails {
 
     private Collection<? extends GrantedAuthority> authorities;
 
+    private int tokenEpoch;
+
+    private boolean accountNonLocked;
+
 //    private boolean accountNonExpired;
 //
-//    private boolean accountNonLocked;
-//
 //    private boolean credentialsNonExpired;
 //
 //    private boolean enabled;
@@ -49,7 +51,7 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return accountNonLocked;
     }
 
     @Override
@@ -15,7 +15,7 @@ public class UserDocument extends AbstractAuditingEntity {
 
     @Id
     @GeneratedValue(generator = "user_document_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "user_document_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @SequenceGenerator(name = "user_document_sequence_generator", initialValue = 1000, allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -16,7 +16,7 @@ public class VerificationCode extends AbstractAuditingEntity {
 
     @Id
     @GeneratedValue(generator = "verification_code_sequence_generator", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "verification_code_sequence_generator", initialValue = 1000, allocationSize = 1)
+    @SequenceGenerator(name = "verification_code_sequence_generator", initialValue = 1000, allocationSize = 50)
     private Long id;
 
     @Column
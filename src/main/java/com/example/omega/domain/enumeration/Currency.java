@@ -1,5 +1,20 @@
 package com.example.omega.domain.enumeration;
 
 public enum Currency {
-    USD, BGN, EUR, GBP, JPY
+    USD(2), BGN(2), EUR(2), GBP(2), JPY(0);
+
+    private final int minorUnits;
+
+    Currency(int minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * The number of decimals amounts in this currency are rounded to, as in ISO 4217.
+     *
+     * @return The number of minor unit digits.
+     */
+    public int getMinorUnits() {
+        return minorUnits;
+    }
 }
@@ -0,0 +1,5 @@
+package com.example.omega.domain.enumeration;
+
+public enum JournalEntryType {
+    DEBIT, CREDIT
+}
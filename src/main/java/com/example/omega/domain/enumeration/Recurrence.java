@@ -0,0 +1,37 @@
+package com.example.omega.domain.enumeration;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * How often a scheduled transfer repeats. Every run is computed from the first run, so a monthly transfer
+ * starting on the 31st runs on the last day of shorter months without drifting to the 28th afterwards.
+ */
+public enum Recurrence {
+    ONCE, DAILY, WEEKLY, MONTHLY;
+
+    /**
+     * Computes the time of a run.
+     *
+     * @param firstRunAt The time of the first run.
+     * @param run        The zero-based number of the run.
+     * @return The time of the run, or {@code null} if the transfer doesn't run that often.
+     */
+    public Instant runAt(Instant firstRunAt, long run) {
+        if (run == 0) {
+            return firstRunAt;
+        }
+
+        var first = firstRunAt.atOffset(ZoneOffset.UTC);
+        switch (this) {
+            case DAILY:
+                return first.plusDays(run).toInstant();
+            case WEEKLY:
+                return first.plusWeeks(run).toInstant();
+            case MONTHLY:
+                return first.plusMonths(run).toInstant();
+            default:
+                return null;
+        }
+    }
+}
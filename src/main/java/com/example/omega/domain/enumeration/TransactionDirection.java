@@ -0,0 +1,10 @@
+package com.example.omega.domain.enumeration;
+
+/**
+ * INCOMING - transactions received by the user
+ * OUTGOING - transactions sent by the user
+ * ALL - both of them
+ */
+public enum TransactionDirection {
+    INCOMING, OUTGOING, ALL
+}
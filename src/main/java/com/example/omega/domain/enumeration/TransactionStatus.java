@@ -1,5 +1,5 @@
 package com.example.omega.domain.enumeration;
 
 public enum TransactionStatus {
-    PENDING, PROCESSING, SUCCESSFUL, FAILED
+    PENDING, PROCESSING, SUCCESSFUL, FAILED, UNDER_REVIEW
 }
@@ -0,0 +1,20 @@
+package com.example.omega.domain.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Assigns a {@link TimeOrderedIdGenerator time-ordered} 64-bit ID without a database round trip.
+ * The node ID is read from the {@value TimeOrderedIdGenerator#NODE_ID_SETTING} JPA property, which every node sets to its own value.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TimeOrderedId {
+}
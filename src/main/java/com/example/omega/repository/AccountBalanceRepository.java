@@ -1,9 +1,40 @@
 package com.example.omega.repository;
 
 import com.example.omega.domain.AccountBalance;
+import com.example.omega.domain.enumeration.Currency;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountBalanceRepository extends JpaRepository<AccountBalance, Long> {
+
+    Optional<AccountBalance> findByUserIdAndCurrencyAndShard(Long userId, Currency currency, Integer shard);
+
+    List<AccountBalance> findAllByUserIdAndCurrencyOrderByShard(Long userId, Currency currency);
+
+    @Query("select distinct a from AccountBalance a where a.shard = 0 and exists " +
+            "(select s.id from AccountBalance s where s.user = a.user and s.currency = a.currency and s.shard > 0)")
+    List<AccountBalance> findShardedAccounts();
+
+    @Modifying
+    @Query("update AccountBalance a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.version = :version and a.balance >= :amount")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("version") Long version);
+
+    @Modifying
+    @Query("update AccountBalance a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.version = :version")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("version") Long version);
+
+    @Modifying
+    @Query("update AccountBalance a set a.balance = :balance, a.version = a.version + 1 " +
+            "where a.id = :id and a.version = :version")
+    int overwrite(@Param("id") Long id, @Param("balance") BigDecimal balance, @Param("version") Long version);
 }
@@ -0,0 +1,25 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByAccountBalanceIdOrderByCoveredUntilDesc(Long accountBalanceId);
+
+    @Query("select s from BalanceSnapshot s where s.accountBalanceId in :accountBalanceIds and s.coveredUntil = " +
+            "(select max(l.coveredUntil) from BalanceSnapshot l where l.accountBalanceId = s.accountBalanceId)")
+    List<BalanceSnapshot> findLatestByAccountBalanceIds(@Param("accountBalanceIds") Collection<Long> accountBalanceIds);
+
+    @Query("select max(s.coveredUntil) from BalanceSnapshot s")
+    Optional<Instant> findLastCoveredUntil();
+}
@@ -0,0 +1,97 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.DailyVolume;
+import com.example.omega.domain.enumeration.Currency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyVolumeRepository extends JpaRepository<DailyVolume, Long> {
+
+    @Query("select v from DailyVolume v where v.userId = :userId " +
+            "and (:currency is null or v.currency = :currency) " +
+            "and v.day between :from and :to order by v.day, v.currency")
+    List<DailyVolume> findByUser(@Param("userId") Long userId,
+                                 @Param("currency") Currency currency,
+                                 @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+
+    @Query("select v.day as day, v.currency as currency, count(v) as users, " +
+            "sum(v.sentCount) as sentCount, sum(v.sentAmount) as sentAmount, " +
+            "sum(v.receivedCount) as receivedCount, sum(v.receivedAmount) as receivedAmount " +
+            "from DailyVolume v where (:currency is null or v.currency = :currency) " +
+            "and v.day between :from and :to group by v.day, v.currency order by v.day, v.currency")
+    List<DayTotal> sumByDay(@Param("currency") Currency currency,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("update DailyVolume v set v.sentCount = v.sentCount + :sentCount, v.sentAmount = v.sentAmount + :sentAmount, " +
+            "v.receivedCount = v.receivedCount + :receivedCount, v.receivedAmount = v.receivedAmount + :receivedAmount " +
+            "where v.userId = :userId and v.currency = :currency and v.day = :day")
+    int increment(@Param("userId") Long userId,
+                  @Param("currency") Currency currency,
+                  @Param("day") LocalDate day,
+                  @Param("sentCount") long sentCount,
+                  @Param("sentAmount") BigDecimal sentAmount,
+                  @Param("receivedCount") long receivedCount,
+                  @Param("receivedAmount") BigDecimal receivedAmount);
+
+    @Modifying
+    @Query("delete from DailyVolume v where v.day = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+
+    @Query("select t.sender.id as userId, t.currency as currency, count(t) as count, sum(t.amount) as amount " +
+            "from Transaction t where t.transactionStatus = com.example.omega.domain.enumeration.TransactionStatus.SUCCESSFUL " +
+            "and t.createdDate >= :from and t.createdDate < :to group by t.sender.id, t.currency")
+    List<UserTotal> sumSentBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select t.recipient.id as userId, coalesce(t.recipientCurrency, t.currency) as currency, count(t) as count, " +
+            "sum(coalesce(t.convertedAmount, t.amount)) as amount " +
+            "from Transaction t where t.transactionStatus = com.example.omega.domain.enumeration.TransactionStatus.SUCCESSFUL " +
+            "and t.createdDate >= :from and t.createdDate < :to " +
+            "group by t.recipient.id, coalesce(t.recipientCurrency, t.currency)")
+    List<UserTotal> sumReceivedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Volume of all users in one currency on one day.
+     */
+    interface DayTotal {
+
+        LocalDate getDay();
+
+        Currency getCurrency();
+
+        Long getUsers();
+
+        Long getSentCount();
+
+        BigDecimal getSentAmount();
+
+        Long getReceivedCount();
+
+        BigDecimal getReceivedAmount();
+    }
+
+    /**
+     * Transfers of one user in one currency over a period, read from the transaction table.
+     */
+    interface UserTotal {
+
+        Long getUserId();
+
+        Currency getCurrency();
+
+        Long getCount();
+
+        BigDecimal getAmount();
+    }
+}
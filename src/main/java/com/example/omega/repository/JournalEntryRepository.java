@@ -0,0 +1,36 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    @Query("select coalesce(sum(case when e.entryType = com.example.omega.domain.enumeration.JournalEntryType.CREDIT " +
+            "then e.amount else -e.amount end), 0) " +
+            "from JournalEntry e where e.accountBalanceId = :accountBalanceId and e.createdDate >= :from")
+    BigDecimal sumSince(@Param("accountBalanceId") Long accountBalanceId, @Param("from") Instant from);
+
+    @Query("select e.accountBalanceId as accountBalanceId, " +
+            "sum(case when e.entryType = com.example.omega.domain.enumeration.JournalEntryType.CREDIT " +
+            "then e.amount else -e.amount end) as delta " +
+            "from JournalEntry e where e.createdDate >= :from and e.createdDate < :to group by e.accountBalanceId")
+    List<AccountDelta> sumByAccountBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Net movement of a single account over a period.
+     */
+    interface AccountDelta {
+
+        Long getAccountBalanceId();
+
+        BigDecimal getDelta();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Finds a token and locks it, so two concurrent refreshes of the same token can't both succeed.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from RefreshToken r where r.tokenId = :tokenId")
+    Optional<RefreshToken> findByTokenIdForUpdate(@Param("tokenId") String tokenId);
+
+    List<RefreshToken> findAllByFamilyIdAndRevokedAtIsNull(String familyId);
+
+    List<RefreshToken> findAllByUserIdAndRevokedAtIsNull(Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken r where r.expiresAt < :before")
+    int deleteByExpiresAtBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,29 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    boolean existsByTokenId(String tokenId);
+
+    /**
+     * Finds the IDs of the tokens revoked since the given time that haven't expired yet.
+     */
+    @Query("select r.tokenId from RevokedToken r where r.createdDate >= :since and r.expiresAt > :now")
+    List<String> findTokenIdsRevokedSince(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt < :before")
+    int deleteByExpiresAtBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,39 @@
+package com.example.omega.repository;
+
+import com.example.omega.domain.ScheduledTransfer;
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    List<ScheduledTransfer> findAllBySenderIdOrderByIdAsc(Long senderId);
+
+    /**
+     * Finds a page of the transfers due before the end of the window, continuing after the given
+     * run time and id so every page is an index range scan.
+     */
+    @Query("select s.id as id, s.nextRunAt as nextRunAt from ScheduledTransfer s " +
+            "where s.status = :status and s.nextRunAt < :windowEnd " +
+            "and (s.nextRunAt > :afterRunAt or (s.nextRunAt = :afterRunAt and s.id > :afterId)) " +
+            "order by s.nextRunAt, s.id")
+    List<DueRun> findDueRuns(@Param("status") ScheduledTransferStatus status,
+                             @Param("windowEnd") Instant windowEnd,
+                             @Param("afterRunAt") Instant afterRunAt,
+                             @Param("afterId") Long afterId,
+                             Pageable pageable);
+
+    interface DueRun {
+
+        Long getId();
+
+        Instant getNextRunAt();
+    }
+}
@@ -2,10 +2,16 @@ package com.example.omega.repository;
 
 import com.example.omega.domain.Transaction;
 import com.example.omega.domain.User;
+import com.example.omega.domain.enumeration.Currency;
 import com.example.omega.domain.enumeration.TransactionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -16,4 +22,33 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findAllBySender(User sender);
 
     List<Transaction> findAllByTransactionStatus(TransactionStatus transactionStatus);
+
+    List<Transaction> findAllByTransactionStatusOrderByCreatedDateAscIdAsc(TransactionStatus transactionStatus, Pageable pageable);
+
+    @Query("select t from Transaction t where t.sender.id = :userId " +
+            "and (:currency is null or t.currency = :currency) " +
+            "and (t.createdDate < :createdDate or (t.createdDate = :createdDate and t.id < :id)) " +
+            "order by t.createdDate desc, t.id desc")
+    List<Transaction> findOutgoingBefore(@Param("userId") Long userId,
+                                         @Param("currency") Currency currency,
+                                         @Param("createdDate") Instant createdDate,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    // The recipient is credited in the recipient currency, when there is one
+    @Query("select t from Transaction t where t.recipient.id = :userId " +
+            "and (:currency is null or coalesce(t.recipientCurrency, t.currency) = :currency) " +
+            "and (t.createdDate < :createdDate or (t.createdDate = :createdDate and t.id < :id)) " +
+            "order by t.createdDate desc, t.id desc")
+    List<Transaction> findIncomingBefore(@Param("userId") Long userId,
+                                         @Param("currency") Currency currency,
+                                         @Param("createdDate") Instant createdDate,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    @Modifying
+    @Query("update Transaction t set t.transactionStatus = :next where t.id = :id and t.transactionStatus = :current")
+    int updateTransactionStatus(@Param("id") Long id,
+                                @Param("current") TransactionStatus current,
+                                @Param("next") TransactionStatus next);
 }
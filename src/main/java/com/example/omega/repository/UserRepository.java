@@ -2,6 +2,8 @@ package com.example.omega.repository;
 
 import com.example.omega.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -21,4 +23,7 @@ public interface UserRepository extends JpaRepository<User, Long>, CrudRepositor
     Optional<User> findOneWithAuthoritiesByUsername(String username);
 
     Optional<User> findByEmail(String email);
+
+    @Query("select u.tokenEpoch from User u where u.id = :id")
+    Optional<Integer> findTokenEpochById(@Param("id") Long id);
 }
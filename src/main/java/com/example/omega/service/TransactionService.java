@@ -1,36 +1,74 @@
 package com.example.omega.service;
 
 import com.example.omega.domain.AccountBalance;
-import com.example.omega.domain.TransactionStateHistory;
+import com.example.omega.domain.Transaction;
 import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.TransactionDirection;
 import com.example.omega.domain.enumeration.TransactionStatus;
 import com.example.omega.mapper.TransactionMapper;
-import com.example.omega.mapper.UserMapper;
 import com.example.omega.repository.TransactionRepository;
-import com.example.omega.repository.TransactionStateHistoryRepository;
 import com.example.omega.service.dto.TransactionDTO;
-import com.example.omega.service.dto.UserDTO;
+import com.example.omega.service.dto.TransferResultDTO;
 import com.example.omega.service.exception.BadRequestException;
-import lombok.AllArgsConstructor;
+import com.example.omega.service.fx.FxService;
+import com.example.omega.service.history.StateHistoryWriter;
+import com.example.omega.service.idempotency.IdempotencyKeyStore;
+import com.example.omega.service.ledger.LedgerEngine;
+import com.example.omega.service.ledger.LedgerTransfer;
+import com.example.omega.service.ledger.TransferRetryTemplate;
+import com.example.omega.service.limits.VelocityLimiter;
+import com.example.omega.service.outbox.TransactionOutbox;
+import com.example.omega.service.risk.RiskAssessment;
+import com.example.omega.service.risk.RiskScorer;
+import com.example.omega.service.util.KeysetPage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+@Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class TransactionService {
 
     //TODO: check Activities in ARTool: history
 
-    private final UserService userService;
+    private static final KeysetPage.Position FIRST_PAGE = new KeysetPage.Position(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE);
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator.comparing(Transaction::getCreatedDate)
+            .thenComparing(Transaction::getId)
+            .reversed();
+
+    private final LedgerEngine ledgerEngine;
 
-    private final UserMapper userMapper;
+    private final TransferRetryTemplate transferRetryTemplate;
 
     private final TransactionRepository transactionRepository;
 
-    private final TransactionStateHistoryRepository transactionStateHistoryRepository;
+    private final StateHistoryWriter stateHistoryWriter;
+
+    private final VelocityLimiter velocityLimiter;
+
+    private final RiskScorer riskScorer;
+
+    private final TransactionOutbox transactionOutbox;
 
     private final TransactionMapper transactionMapper;
 
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
+    private final FxService fxService;
+
+    @Value("${omega.transfer.batch.max-size:5000}")
+    private int maxBatchSize;
 
     /**
      * Save a transaction based on the provided TransactionDTO.
@@ -43,45 +81,521 @@ public class TransactionService {
         return transactionMapper.toDTO(transactionRepository.save(transaction));
     }
 
-    @Transactional
+    /**
+     * Transfer money between two accounts, converting it when the recipient is credited in another
+     * currency. Both balances are updated through the
+     * {@link LedgerEngine}, which serializes concurrent transfers touching the same account. The transfer
+     * runs in its own transaction and is retried when another writer changed one of the accounts first.
+     * A transfer flagged by the {@link RiskScorer} is stored as UNDER_REVIEW without moving any money.
+     *
+     * @param transactionDTO The TransactionDTO describing the transfer.
+     * @return A TransactionDTO representing the created transaction.
+     * @throws BadRequestException If one of the accounts doesn't exist, the sender has insufficient funds or a limit would be exceeded.
+     */
     public TransactionDTO sendMoney(TransactionDTO transactionDTO) {
-        var sender = userService.getUserById(transactionDTO.getSenderId());
-        var recipient = userService.getUserById(transactionDTO.getRecipientId());
-
-        var senderBalance = findAccountBalance(sender, transactionDTO.getCurrency());
-        var transferAmount = transactionDTO.getAmount();
+        return sendMoney(transactionDTO, null);
+    }
 
-        if (senderBalance.getBalance().compareTo(transferAmount) < 0) {
-            throw new BadRequestException("Insufficient funds");
+    /**
+     * Transfer money between two accounts at most once per idempotency key.
+     * A repeated key returns the transaction created by the first request without touching any balance.
+     *
+     * @param transactionDTO The TransactionDTO describing the transfer.
+     * @param idempotencyKey The Idempotency-Key sent by the client, or {@code null}.
+     * @return A TransactionDTO representing the created, or the original, transaction.
+     * @throws BadRequestException If one of the accounts doesn't exist, the sender has insufficient funds or a limit would be exceeded.
+     */
+    public TransactionDTO sendMoney(TransactionDTO transactionDTO, String idempotencyKey) {
+        log.debug("Request to send money from User: {} to User: {}", transactionDTO.getSenderId(), transactionDTO.getRecipientId());
+        return idempotencyKeyStore.execute(transactionDTO.getSenderId(), idempotencyKey,
+                () -> transferRetryTemplate.executeInTransaction(() -> executeTransfer(transactionDTO, idempotencyKey)),
+                this::getTransactionById);
+    }
 
+    /**
+     * Transfer money for a whole batch of transfers in one database transaction. Every item is validated
+     * on its own and gets its own result, so a bad item doesn't fail the rest of the batch. Accepted
+     * transfers are netted per account and written with JDBC statement batching. Items flagged by the
+     * {@link RiskScorer} are stored as UNDER_REVIEW without moving any money.
+     *
+     * @param transactionDTOs The transfers, in the order they should be applied.
+     * @return The result of every transfer, in the same order.
+     * @throws BadRequestException If the batch is empty or larger than the configured maximum.
+     */
+    public List<TransferResultDTO> sendMoneyBatch(List<TransactionDTO> transactionDTOs) {
+        if (transactionDTOs == null || transactionDTOs.isEmpty()) {
+            throw new BadRequestException("The batch doesn't contain any transfers!");
+        }
+        if (transactionDTOs.size() > maxBatchSize) {
+            throw new BadRequestException("The batch can't contain more than " + maxBatchSize + " transfers!");
         }
 
-        senderBalance.setBalance(senderBalance.getBalance().subtract(transferAmount));
+        log.debug("Request to send a batch of {} transfers", transactionDTOs.size());
+        return transferRetryTemplate.executeInTransaction(() -> executeBatch(transactionDTOs));
+    }
 
-        var transactionStateHistory = TransactionStateHistory.builder()
-                .previousState(TransactionStatus.PENDING)
-                .newState(TransactionStatus.PENDING)
-                .transaction(transactionMapper.toEntity(transactionDTO))
-                .build();
+    /**
+     * Accept a transfer without moving any money yet. The transaction is stored as PENDING
+     * and settled later by the {@link com.example.omega.service.pipeline.TransferPipeline},
+     * or as UNDER_REVIEW if it was flagged by the {@link RiskScorer}.
+     *
+     * @param transactionDTO The TransactionDTO describing the transfer.
+     * @param idempotencyKey The Idempotency-Key sent by the client, or {@code null}.
+     * @return A TransactionDTO representing the pending or held transaction.
+     * @throws BadRequestException                                       If the transfer is invalid.
+     * @throws org.springframework.dao.DataIntegrityViolationException If the idempotency key was already used.
+     */
+    @Transactional
+    public TransactionDTO acceptTransfer(TransactionDTO transactionDTO, String idempotencyKey) {
+        var error = validateTransfer(transactionDTO);
+        if (error != null) {
+            throw new BadRequestException(error);
+        }
 
-        transactionStateHistoryRepository.save(transactionStateHistory);
+        velocityLimiter.reserve(transactionDTO.getSenderId(), transactionDTO.getCurrency(), transactionDTO.getAmount());
+        var assessment = riskScorer.assess(transactionDTO);
+        if (assessment.isFlagged()) {
+            return holdForReview(transactionDTO, assessment, idempotencyKey);
+        }
 
         transactionDTO.setTransactionStatus(TransactionStatus.PENDING);
+        var transaction = toTransaction(transactionDTO);
+        transaction.setRiskScore(assessment.getScore());
+        transaction = transactionRepository.save(transaction);
+        stateHistoryWriter.append(transaction.getId(), null, TransactionStatus.PENDING);
+        idempotencyKeyStore.record(transaction.getSender().getId(), idempotencyKey, transaction.getId());
+        return publish(transactionMapper.toDTO(transaction));
+    }
 
-        saveTransaction(transactionDTO);
+    /**
+     * Move a pending transaction to PROCESSING.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return {@code true} if the transaction was PENDING, {@code false} if another worker already took it.
+     */
+    @Transactional
+    public boolean startProcessing(Long transactionId) {
+        return transition(transactionId, TransactionStatus.PENDING, TransactionStatus.PROCESSING);
+    }
 
-        var recipientBalance = findAccountBalance(recipient, transactionDTO.getCurrency());
-        recipientBalance.setBalance(recipientBalance.getBalance().add(transferAmount));
+    /**
+     * Move the money of a transaction that is being processed and mark it SUCCESSFUL.
+     * The status change and the balance updates are committed together, so a transaction
+     * that is still PROCESSING after a crash has not moved any money.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return {@code true} if the transaction was settled, {@code false} if it wasn't PROCESSING anymore.
+     * @throws BadRequestException If one of the accounts doesn't exist or the sender has insufficient funds.
+     */
+    public boolean settleTransfer(Long transactionId) {
+        return transferRetryTemplate.executeInTransaction(() -> {
+            var transaction = transactionRepository.findById(transactionId)
+                    .orElseThrow(() -> new BadRequestException("Transaction not found for ID: " + transactionId));
 
-        return transactionDTO;
+            if (!transition(transactionId, TransactionStatus.PROCESSING, TransactionStatus.SUCCESSFUL)) {
+                return false;
+            }
+
+            var transfer = LedgerTransfer.of(transaction);
+            ledgerEngine.transfer(transfer);
+            riskScorer.record(transfer);
+            publish(transactionMapper.toDTO(transaction), TransactionStatus.SUCCESSFUL);
+            return true;
+        });
     }
 
-    private AccountBalance findAccountBalance(UserDTO userDTO, Currency currency) {
-        return userDTO.getAccountBalances()
+    /**
+     * Move the money of a transaction that was held for review and mark it SUCCESSFUL.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return The approved transaction.
+     * @throws BadRequestException If the transaction isn't under review, one of the accounts doesn't exist or the sender has insufficient funds.
+     */
+    public TransactionDTO approveTransfer(Long transactionId) {
+        log.debug("Request to approve Transaction: {}", transactionId);
+        return transferRetryTemplate.executeInTransaction(() -> {
+            var transaction = transactionRepository.findById(transactionId)
+                    .orElseThrow(() -> new BadRequestException("Transaction not found for ID: " + transactionId));
+
+            if (!transition(transactionId, TransactionStatus.UNDER_REVIEW, TransactionStatus.SUCCESSFUL)) {
+                throw new BadRequestException("Transaction: " + transactionId + " isn't under review!");
+            }
+
+            var transfer = LedgerTransfer.of(transaction);
+            ledgerEngine.transfer(transfer);
+            riskScorer.record(transfer);
+            return publish(transactionMapper.toDTO(transaction), TransactionStatus.SUCCESSFUL);
+        });
+    }
+
+    /**
+     * Mark a transaction that was held for review as FAILED without moving any money.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return The rejected transaction.
+     * @throws BadRequestException If the transaction isn't under review.
+     */
+    @Transactional
+    public TransactionDTO rejectTransfer(Long transactionId) {
+        log.debug("Request to reject Transaction: {}", transactionId);
+        if (!transition(transactionId, TransactionStatus.UNDER_REVIEW, TransactionStatus.FAILED)) {
+            throw new BadRequestException("Transaction: " + transactionId + " isn't under review!");
+        }
+        return publish(releaseLimits(getTransactionById(transactionId)));
+    }
+
+    /**
+     * Retrieve the transactions held for review, oldest first.
+     *
+     * @param size The maximum number of transactions to return.
+     * @return The transactions under review.
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> getTransactionsUnderReview(int size) {
+        return transactionRepository.findAllByTransactionStatusOrderByCreatedDateAscIdAsc(TransactionStatus.UNDER_REVIEW, PageRequest.of(0, size))
                 .stream()
-                .filter(balance -> balance.getCurrency() == currency)
-                .findFirst()
-                .orElseThrow(() -> new BadRequestException("Account balance not found"));
+                .map(transactionMapper::toDTO)
+                .toList();
     }
 
+    /**
+     * Mark a transaction that couldn't be settled as FAILED.
+     *
+     * @param transactionId The ID of the transaction.
+     */
+    @Transactional
+    public void failTransfer(Long transactionId) {
+        if (transition(transactionId, TransactionStatus.PROCESSING, TransactionStatus.FAILED)) {
+            publish(releaseLimits(getTransactionById(transactionId)));
+        }
+    }
+
+    /**
+     * Retrieve the IDs of all transactions with a status, for example those that were accepted or picked up but never finished.
+     *
+     * @param status The status of the transactions.
+     * @return The IDs of the transactions, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findTransactionIds(TransactionStatus status) {
+        return transactionRepository.findAllByTransactionStatus(status).stream()
+                .map(Transaction::getId)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Retrieve a transaction by its ID.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return The TransactionDTO.
+     * @throws BadRequestException If the transaction is not found.
+     */
+    @Transactional(readOnly = true)
+    public TransactionDTO getTransactionById(Long transactionId) {
+        return transactionRepository.findById(transactionId)
+                .map(transactionMapper::toDTO)
+                .orElseThrow(() -> new BadRequestException("Transaction not found for ID: " + transactionId));
+    }
+
+    /**
+     * Retrieve a page of a user's transactions, newest first, using keyset pagination on (created date, id).
+     * For both directions a page is read from each direction and the two are merged, so each query can
+     * seek through its own index. Incoming transactions show the amount and currency credited to the user,
+     * and the currency filter applies to those.
+     *
+     * @param userId    The ID of the user.
+     * @param direction Whether to return incoming, outgoing or all transactions.
+     * @param currency  Optional currency filter.
+     * @param cursor    Optional cursor returned with the previous page.
+     * @param size      The maximum number of transactions to return.
+     * @return The page and the cursor of the next page, if there is one.
+     * @throws BadRequestException If the cursor is malformed.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TransactionDTO> getTransactionHistory(Long userId, TransactionDirection direction, Currency currency,
+                                                            String cursor, int size) {
+        log.debug("Request to get {} transactions of User: {}", direction, userId);
+        var position = cursor == null ? FIRST_PAGE : KeysetPage.decodeCursor(cursor);
+        var pageable = PageRequest.of(0, size + 1);
+
+        var transactions = new ArrayList<Transaction>();
+        if (direction != TransactionDirection.INCOMING) {
+            transactions.addAll(transactionRepository.findOutgoingBefore(userId, currency, position.getCreatedDate(), position.getId(), pageable));
+        }
+        if (direction != TransactionDirection.OUTGOING) {
+            transactions.addAll(transactionRepository.findIncomingBefore(userId, currency, position.getCreatedDate(), position.getId(), pageable));
+        }
+
+        var page = transactions.stream()
+                .sorted(NEWEST_FIRST)
+                .distinct()
+                .limit(size + 1L)
+                .toList();
+
+        String nextCursor = null;
+        if (page.size() > size) {
+            page = page.subList(0, size);
+            var last = page.get(size - 1);
+            nextCursor = KeysetPage.encodeCursor(last.getCreatedDate(), last.getId());
+        }
+
+        return new KeysetPage<>(page.stream().map(transaction -> toHistoryDTO(userId, transaction)).toList(), nextCursor);
+    }
+
+    private TransactionDTO toHistoryDTO(Long userId, Transaction transaction) {
+        var transactionDTO = transactionMapper.toDTO(transaction);
+        if (!userId.equals(transactionDTO.getSenderId())) {
+            if (transaction.getConvertedAmount() != null) {
+                transactionDTO.setAmount(transaction.getConvertedAmount());
+            }
+            if (transaction.getRecipientCurrency() != null) {
+                transactionDTO.setCurrency(transaction.getRecipientCurrency());
+            }
+        }
+        return transactionDTO;
+    }
+
+    /**
+     * Retrieve the balance of a user's account in the given currency.
+     *
+     * @param userId   The ID of the account owner.
+     * @param currency The currency of the account.
+     * @return The account balance.
+     * @throws BadRequestException If the account doesn't exist.
+     */
+    public AccountBalance findAccountBalance(Long userId, Currency currency) {
+        return ledgerEngine.getAccountBalance(userId, currency);
+    }
+
+    /**
+     * Split a hot account into shards, so credits to it no longer queue up on a single row.
+     * Debits and {@link #findAccountBalance} keep treating the shards as one balance.
+     *
+     * @param userId     The ID of the account owner.
+     * @param currency   The currency of the account.
+     * @param shardCount The new number of shards.
+     * @return The account balance.
+     * @throws BadRequestException If the account doesn't exist or already has at least that many shards.
+     */
+    public AccountBalance shardAccountBalance(Long userId, Currency currency, int shardCount) {
+        log.debug("Request to split the {} balance of User: {} into {} shards", currency, userId, shardCount);
+        transferRetryTemplate.executeInTransaction(() -> {
+            ledgerEngine.addShards(userId, currency, shardCount);
+            return null;
+        });
+        return ledgerEngine.getAccountBalance(userId, currency);
+    }
+
+    /**
+     * Rebuild the balance of a user's account from the journal, replaying the entries since its latest snapshot.
+     *
+     * @param userId   The ID of the account owner.
+     * @param currency The currency of the account.
+     * @return The rebuilt account balance.
+     * @throws BadRequestException If the account doesn't exist.
+     */
+    public AccountBalance rebuildAccountBalance(Long userId, Currency currency) {
+        log.debug("Request to rebuild the {} balance of User: {}", currency, userId);
+        return transferRetryTemplate.executeInTransaction(() -> ledgerEngine.rebuild(userId, currency));
+    }
+
+    private TransactionDTO executeTransfer(TransactionDTO transactionDTO, String idempotencyKey) {
+        var error = validateTransfer(transactionDTO);
+        if (error != null) {
+            throw new BadRequestException(error);
+        }
+
+        velocityLimiter.reserve(transactionDTO.getSenderId(), transactionDTO.getCurrency(), transactionDTO.getAmount());
+        var assessment = riskScorer.assess(transactionDTO);
+        if (assessment.isFlagged()) {
+            return holdForReview(transactionDTO, assessment, idempotencyKey);
+        }
+
+        transactionDTO.setTransactionStatus(TransactionStatus.SUCCESSFUL);
+        var transaction = toTransaction(transactionDTO);
+        transaction.setRiskScore(assessment.getScore());
+        var transfer = LedgerTransfer.of(transaction);
+        ledgerEngine.transfer(transfer);
+        riskScorer.record(transfer);
+
+        transaction = transactionRepository.save(transaction);
+        stateHistoryWriter.append(transaction.getId(), TransactionStatus.PENDING, TransactionStatus.SUCCESSFUL);
+        idempotencyKeyStore.record(transaction.getSender().getId(), idempotencyKey, transaction.getId());
+
+        return publish(transactionMapper.toDTO(transaction));
+    }
+
+    /**
+     * Stores a flagged transfer as UNDER_REVIEW without moving any money. It stays there until an admin approves or rejects it.
+     */
+    private TransactionDTO holdForReview(TransactionDTO transactionDTO, RiskAssessment assessment, String idempotencyKey) {
+        transactionDTO.setTransactionStatus(TransactionStatus.UNDER_REVIEW);
+        var transaction = toTransaction(transactionDTO);
+        transaction.setRiskScore(assessment.getScore());
+        transaction = transactionRepository.save(transaction);
+        stateHistoryWriter.append(transaction.getId(), null, TransactionStatus.UNDER_REVIEW);
+        idempotencyKeyStore.record(transaction.getSender().getId(), idempotencyKey, transaction.getId());
+        return publish(transactionMapper.toDTO(transaction));
+    }
+
+    /**
+     * Adds the transaction to the outbox, so downstream systems learn about it once the current transaction commits.
+     */
+    private TransactionDTO publish(TransactionDTO transactionDTO) {
+        transactionOutbox.append(transactionDTO);
+        return transactionDTO;
+    }
+
+    /**
+     * Takes a transaction that ended FAILED back out of the sender's velocity limits.
+     */
+    private TransactionDTO releaseLimits(TransactionDTO transactionDTO) {
+        velocityLimiter.release(transactionDTO.getSenderId(), transactionDTO.getCurrency(), transactionDTO.getAmount(),
+                transactionDTO.getCreatedDate());
+        return transactionDTO;
+    }
+
+    /**
+     * Adds the transaction to the outbox with a status it was just moved to by an update query,
+     * leaving the already loaded entity untouched.
+     */
+    private TransactionDTO publish(TransactionDTO transactionDTO, TransactionStatus status) {
+        transactionDTO.setTransactionStatus(status);
+        return publish(transactionDTO);
+    }
+
+    /**
+     * Changes the status of a transaction only if it still has the expected status,
+     * and records the change in its state history.
+     */
+    private boolean transition(Long transactionId, TransactionStatus current, TransactionStatus next) {
+        if (transactionRepository.updateTransactionStatus(transactionId, current, next) == 0) {
+            return false;
+        }
+        stateHistoryWriter.append(transactionId, current, next);
+        return true;
+    }
+
+    private List<TransferResultDTO> executeBatch(List<TransactionDTO> transactionDTOs) {
+        var results = new TransferResultDTO[transactionDTOs.size()];
+        var validIndexes = new ArrayList<Integer>();
+        var transfers = new ArrayList<LedgerTransfer>();
+        var reservations = new ArrayList<VelocityLimiter.Reservation>();
+        var heldIndexes = new ArrayList<Integer>();
+        var heldTransactions = new ArrayList<Transaction>();
+
+        for (var i = 0; i < transactionDTOs.size(); i++) {
+            var transactionDTO = transactionDTOs.get(i);
+            var error = validateTransfer(transactionDTO);
+            if (error != null) {
+                results[i] = TransferResultDTO.failure(i, transactionDTO, error);
+                continue;
+            }
+            VelocityLimiter.Reservation reservation = null;
+            try {
+                reservation = velocityLimiter.reserve(transactionDTO.getSenderId(), transactionDTO.getCurrency(), transactionDTO.getAmount());
+                var assessment = riskScorer.assess(transactionDTO);
+                var transaction = toTransaction(transactionDTO);
+                transaction.setRiskScore(assessment.getScore());
+                if (assessment.isFlagged()) {
+                    transaction.setTransactionStatus(TransactionStatus.UNDER_REVIEW);
+                    heldIndexes.add(i);
+                    heldTransactions.add(transaction);
+                    continue;
+                }
+                transfers.add(LedgerTransfer.of(transaction));
+            } catch (BadRequestException e) {
+                if (reservation != null) {
+                    reservation.release();
+                }
+                results[i] = TransferResultDTO.failure(i, transactionDTO, e.getMessage());
+                continue;
+            }
+            validIndexes.add(i);
+            reservations.add(reservation);
+        }
+
+        var rejections = ledgerEngine.transferAll(transfers);
+
+        var appliedIndexes = new ArrayList<Integer>();
+        var transactions = new ArrayList<Transaction>();
+        for (var i = 0; i < validIndexes.size(); i++) {
+            var index = validIndexes.get(i);
+            if (rejections.get(i) != null) {
+                reservations.get(i).release();
+                results[index] = TransferResultDTO.failure(index, transactionDTOs.get(index), rejections.get(i));
+                continue;
+            }
+            // Journal entries of applied transfers reference these entities, so they have to be saved.
+            var transaction = transfers.get(i).getTransaction();
+            transaction.setTransactionStatus(TransactionStatus.SUCCESSFUL);
+            riskScorer.record(transfers.get(i));
+            appliedIndexes.add(index);
+            transactions.add(transaction);
+        }
+        appliedIndexes.addAll(heldIndexes);
+        transactions.addAll(heldTransactions);
+
+        var savedTransactions = transactionRepository.saveAll(transactions);
+        for (var transaction : savedTransactions) {
+            if (transaction.getTransactionStatus() == TransactionStatus.UNDER_REVIEW) {
+                stateHistoryWriter.append(transaction.getId(), null, TransactionStatus.UNDER_REVIEW);
+            } else {
+                stateHistoryWriter.append(transaction.getId(), TransactionStatus.PENDING, TransactionStatus.SUCCESSFUL);
+            }
+        }
+
+        var savedTransactionDTOs = new ArrayList<TransactionDTO>(savedTransactions.size());
+        for (var i = 0; i < appliedIndexes.size(); i++) {
+            var index = appliedIndexes.get(i);
+            var transactionDTO = transactionMapper.toDTO(savedTransactions.get(i));
+            savedTransactionDTOs.add(transactionDTO);
+            results[index] = TransferResultDTO.success(index, transactionDTO);
+        }
+        transactionOutbox.appendAll(savedTransactionDTOs);
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Maps the transfer to an entity and, for a cross-currency transfer, converts the amount with the current
+     * exchange rates. The quote is stored with the transaction, so settling it later uses the same rate.
+     */
+    private Transaction toTransaction(TransactionDTO transactionDTO) {
+        var transaction = transactionMapper.toEntity(transactionDTO);
+        transaction.setConvertedAmount(null);
+        transaction.setFxRate(null);
+        if (transaction.getRecipientCurrency() == null || transaction.getRecipientCurrency() == transaction.getCurrency()) {
+            transaction.setRecipientCurrency(null);
+            return transaction;
+        }
+
+        var quote = fxService.quote(transaction.getAmount(), transaction.getCurrency(), transaction.getRecipientCurrency());
+        transaction.setConvertedAmount(quote.getAmount());
+        transaction.setFxRate(quote.getRate());
+        return transaction;
+    }
+
+    private String validateTransfer(TransactionDTO transactionDTO) {
+        if (transactionDTO == null) {
+            return "The transfer is empty";
+        }
+        if (transactionDTO.getSenderId() == null || transactionDTO.getRecipientId() == null) {
+            return "Sender and recipient are required";
+        }
+        if (transactionDTO.getSenderId().equals(transactionDTO.getRecipientId())) {
+            return "Sender and recipient must be different";
+        }
+        if (transactionDTO.getCurrency() == null) {
+            return "Currency is required";
+        }
+        if (transactionDTO.getAmount() == null || transactionDTO.getAmount().signum() <= 0) {
+            return "Amount must be positive";
+        }
+        if (transactionDTO.getAmount().stripTrailingZeros().scale() > transactionDTO.getCurrency().getMinorUnits()) {
+            return "Amount can't have more than " + transactionDTO.getCurrency().getMinorUnits() + " decimals in " + transactionDTO.getCurrency();
+        }
+        return null;
+    }
 }
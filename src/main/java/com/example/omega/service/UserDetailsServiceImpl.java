@@ -1,10 +1,13 @@
 package com.example.omega.service;
 
+import com.example.omega.domain.User;
 import com.example.omega.domain.UserDetailsImpl;
 import com.example.omega.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,9 +15,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Set;
 
+@Slf4j
 @Service
 @AllArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -26,6 +30,32 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                         .findByUsername(username)
                         .orElseThrow(() -> new UsernameNotFoundException(String.format("User with username: %s not found!", username)));
 
-        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getPassword(), Set.of(new SimpleGrantedAuthority(user.getRole().name())));
+        return toUserDetails(user);
+    }
+
+    /**
+     * Stores the password of a user hashed again with the current BCrypt cost, called on sign-in when the
+     * stored hash used another cost. The password itself doesn't change, so the user's tokens stay valid.
+     *
+     * @param userDetails The signed in user.
+     * @param newPassword The password hashed with the current cost.
+     * @return The user with the new hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        var user =
+                userRepository
+                        .findByUsername(userDetails.getUsername())
+                        .orElseThrow(() -> new UsernameNotFoundException(String.format("User with username: %s not found!", userDetails.getUsername())));
+
+        log.debug("Rehashing the password of User: {}", user.getUsername());
+        user.setPassword(newPassword);
+        return toUserDetails(userRepository.save(user));
+    }
+
+    private static UserDetailsImpl toUserDetails(User user) {
+        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getPassword(), Set.of(new SimpleGrantedAuthority(user.getRole().name())),
+                user.getTokenEpoch(), !Boolean.TRUE.equals(user.getLocked()));
     }
 }
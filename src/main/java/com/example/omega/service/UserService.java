@@ -1,11 +1,13 @@
 package com.example.omega.service;
 
+import com.example.omega.config.security.jwt.TokenEpochCache;
 import com.example.omega.domain.User;
 import com.example.omega.domain.enumeration.Roles;
 import com.example.omega.mapper.UserMapper;
 import com.example.omega.repository.UserRepository;
 import com.example.omega.service.dto.UserDTO;
 import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.token.RefreshTokenService;
 import com.example.omega.service.util.UserServiceUtil;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +37,10 @@ public class UserService {
 
     private final VerificationCodeService verificationCodeService;
 
+    private final TokenEpochCache tokenEpochCache;
+
+    private final RefreshTokenService refreshTokenService;
+
     /**
      * Creates a new user.
      *
@@ -70,6 +76,7 @@ public class UserService {
      * @throws BadRequestException If the provided userId is invalid or null
      *                             or if the user with the specified ID is not found.
      */
+    @Transactional(readOnly = true)
     public UserDTO getUserById(Long userId) {
         log.debug("Request to get User by ID: {}", userId);
         return userMapper.toDTO(userServiceUtil.validateAndGetUser(userId));
@@ -94,6 +101,7 @@ public class UserService {
      * @param pageable Pagination information to control the size and page of the result.
      * @return A page of UserDTOs containing user information.
      */
+    @Transactional(readOnly = true)
     public Page<UserDTO> getAllUsers(Pageable pageable) {
         log.debug("Request to get all Users");
         return userRepository.findAll(pageable)
@@ -111,8 +119,7 @@ public class UserService {
         log.debug("Request to User: {}", userDTO);
         var user = userServiceUtil.validateAndGetUser(userDTO.getId());
         userServiceUtil.fieldsToBeUpdated(userDTO, user);
-        var updatedUser = userMapper.toEntity(userDTO);
-        userRepository.save(updatedUser);
+        userRepository.save(user);
         return userDTO;
     }
 
@@ -123,6 +130,7 @@ public class UserService {
      * @return UserSearchDTO The User object with the specified nameTag.
      * @throws BadRequestException If no user with the given nameTag is found.
      */
+    @Transactional(readOnly = true)
     public UserDTO getUserByNameTag(String nameTag) {
         log.debug("Request to get user by nameTag: {}", nameTag);
         var user = userRepository.findByNameTag(nameTag);
@@ -170,7 +178,6 @@ public class UserService {
      * @throws BadRequestException If the provided user ID is invalid, the old password is incorrect,
      *                             or there is an issue with the password change process.
      */
-    //TODO: logout user after password change, change token.
     public UserDTO changePassword(UserDTO userDTO) {
         log.debug("Request to update password!");
         var user = userServiceUtil.validateAndGetUser(userDTO.getId());
@@ -184,12 +191,41 @@ public class UserService {
         }
 
         user.setPassword(passwordEncoder.encode(userDTO.getNewPassword()));
+        revokeTokens(user);
         userRepository.save(user);
 
         log.debug("Password update was successful!");
         return userMapper.toDTO(user);
     }
 
+    /**
+     * Lock or unlock a user. Locking also revokes every token issued to the user.
+     *
+     * @param userId The ID of the user.
+     * @param locked True to lock the user, false to unlock.
+     * @return The updated user.
+     * @throws BadRequestException If the user is not found.
+     */
+    public UserDTO setUserLocked(Long userId, boolean locked) {
+        log.debug("Request to {} User with ID: {}", locked ? "lock" : "unlock", userId);
+        var user = userServiceUtil.validateAndGetUser(userId);
+        user.setLocked(locked);
+        if (locked) {
+            revokeTokens(user);
+        }
+        return userMapper.toDTO(userRepository.save(user));
+    }
+
+    /**
+     * Raises the token epoch of a user, so every token issued before is rejected, and revokes the user's
+     * refresh tokens.
+     */
+    private void revokeTokens(User user) {
+        user.setTokenEpoch(user.getTokenEpoch() + 1);
+        tokenEpochCache.updateAfterCommit(user.getId(), user.getTokenEpoch());
+        refreshTokenService.revokeAllTokens(user.getId());
+    }
+
     //TODO: what if we want to change only the 2FA and not the email, same goes for phone number
     // if the newEmail is empty and the email is null -> email becomes null -> NullPointerException
     public UserDTO updateUserSecurityData(UserDTO userDTO) {
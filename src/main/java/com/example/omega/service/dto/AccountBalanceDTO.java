@@ -0,0 +1,32 @@
+package com.example.omega.service.dto;
+
+import com.example.omega.domain.AccountBalance;
+import com.example.omega.domain.enumeration.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountBalanceDTO {
+
+    private Long id;
+
+    private Long userId;
+
+    private Currency currency;
+
+    private BigDecimal balance;
+
+    public static AccountBalanceDTO of(AccountBalance accountBalance) {
+        return new AccountBalanceDTO(accountBalance.getId(),
+                accountBalance.getUser() == null ? null : accountBalance.getUser().getId(),
+                accountBalance.getCurrency(),
+                accountBalance.getBalance());
+    }
+}
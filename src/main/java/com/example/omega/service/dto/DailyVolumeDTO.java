@@ -0,0 +1,50 @@
+package com.example.omega.service.dto;
+
+import com.example.omega.domain.DailyVolume;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.DailyVolumeRepository;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyVolumeDTO {
+
+    private LocalDate day;
+
+    @Schema(description = "The user, or null for the volume of all users")
+    private Long userId;
+
+    private Currency currency;
+
+    @Schema(description = "The number of users with transfers on the day")
+    private Long users;
+
+    private Long sentCount;
+
+    private BigDecimal sentAmount;
+
+    private Long receivedCount;
+
+    private BigDecimal receivedAmount;
+
+    public static DailyVolumeDTO of(DailyVolume dailyVolume) {
+        return new DailyVolumeDTO(dailyVolume.getDay(), dailyVolume.getUserId(), dailyVolume.getCurrency(), 1L,
+                dailyVolume.getSentCount(), dailyVolume.getSentAmount(),
+                dailyVolume.getReceivedCount(), dailyVolume.getReceivedAmount());
+    }
+
+    public static DailyVolumeDTO of(DailyVolumeRepository.DayTotal dayTotal) {
+        return new DailyVolumeDTO(dayTotal.getDay(), null, dayTotal.getCurrency(), dayTotal.getUsers(),
+                dayTotal.getSentCount(), dayTotal.getSentAmount(),
+                dayTotal.getReceivedCount(), dayTotal.getReceivedAmount());
+    }
+}
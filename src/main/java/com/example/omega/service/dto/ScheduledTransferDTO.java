@@ -0,0 +1,95 @@
+package com.example.omega.service.dto;
+
+import com.example.omega.domain.ScheduledTransfer;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Recurrence;
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import com.example.omega.service.util.StringNormalizationDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ScheduledTransferDTO {
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Long id;
+
+    @NotNull
+    private Long senderId;
+
+    @NotNull
+    private Long recipientId;
+
+    @Positive
+    @NotNull
+    private BigDecimal amount;
+
+    @Schema(type = "String", allowableValues = {"USD", "BGN", "EUR", "GBP", "JPY"}, description = "Currency")
+    private Currency currency;
+
+    @Schema(type = "String", allowableValues = {"USD", "BGN", "EUR", "GBP", "JPY"}, description = "Currency the recipient is credited in, defaults to the currency")
+    private Currency recipientCurrency;
+
+    @Size(max = 100)
+    @JsonDeserialize(using = StringNormalizationDeserializer.class)
+    private String description;
+
+    @NotNull
+    @Schema(type = "String", allowableValues = {"ONCE", "DAILY", "WEEKLY", "MONTHLY"}, description = "How often the transfer repeats")
+    private Recurrence recurrence;
+
+    @NotNull
+    @Schema(description = "When the first transfer is made")
+    private Instant firstRunAt;
+
+    @Schema(description = "No transfer is made after this time, repeats until cancelled if it's empty")
+    private Instant endAt;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Instant nextRunAt;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private ScheduledTransferStatus status;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "The number of runs made so far")
+    private Integer runCount;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Instant lastRunAt;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "The transaction created by the last run")
+    private Long lastTransactionId;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Why the last attempt failed")
+    private String lastError;
+
+    public static ScheduledTransferDTO of(ScheduledTransfer scheduledTransfer) {
+        var dto = new ScheduledTransferDTO();
+        dto.setId(scheduledTransfer.getId());
+        dto.setSenderId(scheduledTransfer.getSenderId());
+        dto.setRecipientId(scheduledTransfer.getRecipientId());
+        dto.setAmount(scheduledTransfer.getAmount());
+        dto.setCurrency(scheduledTransfer.getCurrency());
+        dto.setRecipientCurrency(scheduledTransfer.getRecipientCurrency());
+        dto.setDescription(scheduledTransfer.getDescription());
+        dto.setRecurrence(scheduledTransfer.getRecurrence());
+        dto.setFirstRunAt(scheduledTransfer.getFirstRunAt());
+        dto.setEndAt(scheduledTransfer.getEndAt());
+        dto.setNextRunAt(scheduledTransfer.getNextRunAt());
+        dto.setStatus(scheduledTransfer.getStatus());
+        dto.setRunCount(scheduledTransfer.getRunCount());
+        dto.setLastRunAt(scheduledTransfer.getLastRunAt());
+        dto.setLastTransactionId(scheduledTransfer.getLastTransactionId());
+        dto.setLastError(scheduledTransfer.getLastError());
+        return dto;
+    }
+}
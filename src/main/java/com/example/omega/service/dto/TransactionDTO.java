@@ -40,9 +40,22 @@ public class TransactionDTO extends AbstractAuditingDTO {
     @Schema(type = "String", allowableValues = {"USD", "BGN", "EUR", "GBP", "JPY"}, description = "Currency")
     private Currency currency;
 
+    @Enumerated(EnumType.STRING)
+    @Schema(type = "String", allowableValues = {"USD", "BGN", "EUR", "GBP", "JPY"}, description = "Currency the recipient is credited in, defaults to the currency")
+    private Currency recipientCurrency;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Amount credited to the recipient after conversion")
+    private BigDecimal convertedAmount;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Exchange rate used for the conversion")
+    private BigDecimal fxRate;
+
     @Enumerated(EnumType.STRING)
     @Schema(type = "String", allowableValues = {"PURCHASE", "TRANSFER", "WITHDRAWAL"}, description = "Transaction Type")
     private TransactionType type;
 
     private TransactionStatus transactionStatus;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Points the transfer scored in the risk assessment")
+    private Integer riskScore;
 }
@@ -0,0 +1,32 @@
+package com.example.omega.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of a single item of a batch transfer.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferResultDTO {
+
+    private int index;
+
+    private boolean successful;
+
+    private TransactionDTO transaction;
+
+    private String error;
+
+    public static TransferResultDTO success(int index, TransactionDTO transaction) {
+        return new TransferResultDTO(index, true, transaction, null);
+    }
+
+    public static TransferResultDTO failure(int index, TransactionDTO transaction, String error) {
+        return new TransferResultDTO(index, false, transaction, error);
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.omega.service.dto;
 
 import com.example.omega.domain.AccountBalance;
-import com.example.omega.domain.Transaction;
 import com.example.omega.domain.enumeration.Roles;
 import com.example.omega.service.Views;
 import com.example.omega.service.util.StringNormalizationDeserializer;
@@ -96,10 +95,4 @@ public class UserDTO extends AbstractAuditingDTO {
 
     @JsonView(Views.AllUsersWithDetails.class)
     private List<AccountBalance> accountBalances;
-
-    @JsonView(Views.AllUsersWithDetails.class)
-    private List<Transaction> outgoingTransactions;
-
-    @JsonView(Views.AllUsersWithDetails.class)
-    private List<Transaction> incomingTransactions;
 }
\ No newline at end of file
@@ -24,7 +24,7 @@ public class GlobalExceptionHandler {
         var formatter = DateTimeFormatter.ofPattern(DATE_FORMATTER);
         var formattedInstant = formatter.format(LocalDateTime.now());
         var errorResponse = new ErrorResponse(ex.getStatus(), ex.getMessage(), formattedInstant);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        return ResponseEntity.status(ex.getStatus()).body(errorResponse);
     }
 
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
@@ -0,0 +1,25 @@
+package com.example.omega.service.fx;
+
+import com.example.omega.domain.enumeration.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * The result of converting an amount: the rate that was used and the rounded amount in the target currency.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class FxQuote {
+
+    private final Currency from;
+
+    private final Currency to;
+
+    private final BigDecimal rate;
+
+    private final BigDecimal amount;
+}
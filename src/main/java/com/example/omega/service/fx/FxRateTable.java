@@ -0,0 +1,86 @@
+package com.example.omega.service.fx;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable table of exchange rates between every pair of currencies. Cross rates are computed once
+ * when the table is built, so a conversion is an array lookup, a multiplication and a rounding.
+ */
+public final class FxRateTable {
+
+    private static final MathContext RATE_PRECISION = new MathContext(12, RoundingMode.HALF_EVEN);
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final BigDecimal[][] rates;
+
+    private final Instant loadedAt;
+
+    private FxRateTable(BigDecimal[][] rates, Instant loadedAt) {
+        this.rates = rates;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Builds a table from the value of one unit of a base currency in every other currency.
+     * Currencies without a rate can't be converted from or to.
+     *
+     * @param unitsPerBase How much of each currency one unit of the base currency is worth.
+     * @return The table.
+     * @throws IllegalArgumentException If a rate isn't positive.
+     */
+    public static FxRateTable of(Map<Currency, BigDecimal> unitsPerBase) {
+        var rates = new BigDecimal[CURRENCIES.length][CURRENCIES.length];
+        for (var from : CURRENCIES) {
+            for (var to : CURRENCIES) {
+                var fromUnits = unitsPerBase.get(from);
+                var toUnits = unitsPerBase.get(to);
+                if (fromUnits == null || toUnits == null) {
+                    continue;
+                }
+                if (fromUnits.signum() <= 0 || toUnits.signum() <= 0) {
+                    throw new IllegalArgumentException("Exchange rates must be positive");
+                }
+                rates[from.ordinal()][to.ordinal()] = from == to ? BigDecimal.ONE : toUnits.divide(fromUnits, RATE_PRECISION);
+            }
+        }
+        return new FxRateTable(rates, Instant.now());
+    }
+
+    public static FxRateTable empty() {
+        return new FxRateTable(new BigDecimal[CURRENCIES.length][CURRENCIES.length], Instant.now());
+    }
+
+    /**
+     * Converts an amount, rounding half-even to the minor units of the target currency.
+     *
+     * @param amount The amount in the source currency.
+     * @param from   The source currency.
+     * @param to     The target currency.
+     * @return The quote.
+     * @throws BadRequestException If there is no rate for the pair or the amount is too small to convert.
+     */
+    public FxQuote convert(BigDecimal amount, Currency from, Currency to) {
+        var rate = rates[from.ordinal()][to.ordinal()];
+        if (rate == null) {
+            throw new BadRequestException("No exchange rate from " + from + " to " + to);
+        }
+
+        var converted = amount.multiply(rate).setScale(to.getMinorUnits(), RoundingMode.HALF_EVEN);
+        if (converted.signum() <= 0) {
+            throw new BadRequestException("The amount is too small to convert from " + from + " to " + to);
+        }
+        return new FxQuote(from, to, rate, converted);
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
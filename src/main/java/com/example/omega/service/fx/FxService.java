@@ -0,0 +1,92 @@
+package com.example.omega.service.fx;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts amounts between currencies with the rates of a properties file.
+ * <p>
+ * The rates are held in an immutable {@link FxRateTable} that is swapped atomically when the file changes,
+ * so a conversion on the transfer path is a single volatile read with no locks and no database access.
+ * Every conversion uses one consistent table, even while a reload is running.
+ */
+@Slf4j
+@Service
+public class FxService {
+
+    private final Resource ratesResource;
+
+    private final AtomicReference<FxRateTable> rateTable = new AtomicReference<>(FxRateTable.empty());
+
+    private volatile long lastModified = -1;
+
+    public FxService(ResourceLoader resourceLoader,
+                     @Value("${omega.fx.rates-location:classpath:fx-rates.properties}") String ratesLocation) {
+        this.ratesResource = resourceLoader.getResource(ratesLocation);
+    }
+
+    /**
+     * Convert an amount with the current rates.
+     *
+     * @param amount The amount in the source currency.
+     * @param from   The source currency.
+     * @param to     The target currency.
+     * @return The rate used and the converted amount, rounded to the minor units of the target currency.
+     * @throws BadRequestException If there is no rate for the pair or the amount is too small to convert.
+     */
+    public FxQuote quote(BigDecimal amount, Currency from, Currency to) {
+        return rateTable.get().convert(amount, from, to);
+    }
+
+    /**
+     * Load the rates on startup and again whenever the file was modified. A file that can't be read
+     * or parsed is logged and the previous rates stay in use.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${omega.fx.reload-interval-ms:60000}", initialDelayString = "${omega.fx.reload-interval-ms:60000}")
+    public void reloadRates() {
+        try {
+            var modified = lastModified();
+            if (modified == lastModified) {
+                return;
+            }
+
+            var properties = new Properties();
+            try (var inputStream = ratesResource.getInputStream()) {
+                properties.load(inputStream);
+            }
+
+            var unitsPerBase = new EnumMap<Currency, BigDecimal>(Currency.class);
+            for (var name : properties.stringPropertyNames()) {
+                unitsPerBase.put(Currency.valueOf(name.trim()), new BigDecimal(properties.getProperty(name).trim()));
+            }
+            rateTable.set(FxRateTable.of(unitsPerBase));
+            lastModified = modified;
+            log.info("Loaded exchange rates of {} currencies from {}", unitsPerBase.size(), ratesResource.getDescription());
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Couldn't load exchange rates from {}, keeping the previous rates: {}", ratesResource.getDescription(), e.getMessage());
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return ratesResource.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar have no modification time and never change
+            return 0;
+        }
+    }
+}
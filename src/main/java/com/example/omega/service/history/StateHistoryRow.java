@@ -0,0 +1,29 @@
+package com.example.omega.service.history;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A {@link com.example.omega.domain.TransactionStateHistory} row waiting to be written.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+final class StateHistoryRow {
+
+    private final long id;
+
+    private final long transactionId;
+
+    private final TransactionStatus previousState;
+
+    private final TransactionStatus newState;
+
+    private final Instant createdDate;
+
+    private final String createdBy;
+}
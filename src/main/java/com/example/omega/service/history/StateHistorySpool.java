@@ -0,0 +1,258 @@
+package com.example.omega.service.history;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only segment files holding the state history rows that haven't been written to the database yet.
+ * <p>
+ * Rows are appended to the active segment and forced to disk before the transaction that made them commits,
+ * so they survive a crash of the application or the machine. Once the transaction completed, its rows are marked
+ * as committed or discarded in their segment; the marks aren't forced on their own, they reach the disk with the
+ * next force or rotation. A segment is forced when it's rotated out, before its rows are written, and deleted
+ * once they are all in the database. Not thread-safe, except for {@link #force()}; the {@link StateHistoryWriter}
+ * serializes everything else.
+ */
+@Slf4j
+class StateHistorySpool {
+
+    private static final String SEGMENT_PREFIX = "state-history-";
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String DISCARDED = "-";
+
+    private static final String COMMITTED = "+";
+
+    private final Path directory;
+
+    private long segmentNumber;
+
+    private volatile FileChannel activeChannel;
+
+    StateHistorySpool(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't create the state history spool " + directory, e);
+        }
+        this.segmentNumber = leftoverSegments().stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0);
+    }
+
+    /**
+     * Appends rows to the active segment, without forcing them to disk.
+     *
+     * @param committed Whether the rows are committed already, because no transaction made them.
+     * @return The number of the segment the rows were appended to.
+     */
+    long append(List<StateHistoryRow> rows, boolean committed) throws IOException {
+        if (activeChannel == null) {
+            segmentNumber++;
+            activeChannel = FileChannel.open(segment(segmentNumber), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        var lines = new StringBuilder();
+        for (var row : rows) {
+            lines.append(format(row)).append('\n');
+        }
+        if (committed) {
+            mark(lines, COMMITTED, rows);
+        }
+        write(activeChannel, lines);
+        return segmentNumber;
+    }
+
+    /**
+     * Forces everything appended to the active segment so far to disk. Safe to call while rows are appended;
+     * a segment rotated out in the meantime was forced by the rotation.
+     */
+    void force() throws IOException {
+        var channel = activeChannel;
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            log.trace("State history segment was rotated out while it was forced");
+        }
+    }
+
+    /**
+     * Marks rows of a segment as committed, so they are written when the segment is replayed.
+     */
+    void commit(long number, List<StateHistoryRow> rows) throws IOException {
+        appendTo(number, mark(new StringBuilder(), COMMITTED, rows));
+    }
+
+    /**
+     * Marks rows of a segment as discarded, so they are skipped when the segment is replayed.
+     */
+    void discard(long number, List<StateHistoryRow> rows) throws IOException {
+        appendTo(number, mark(new StringBuilder(), DISCARDED, rows));
+    }
+
+    /**
+     * Closes the active segment, so rows appended from now on go to a new one.
+     *
+     * @return The number of the closed segment, or {@code 0} if nothing was appended since the last rotation.
+     */
+    long rotate() throws IOException {
+        var channel = activeChannel;
+        if (channel == null) {
+            return 0;
+        }
+        activeChannel = null;
+        try (channel) {
+            channel.force(false);
+        }
+        return segmentNumber;
+    }
+
+    void delete(long number) {
+        try {
+            Files.deleteIfExists(segment(number));
+        } catch (IOException e) {
+            log.warn("Couldn't delete state history segment {}: {}", number, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the numbers of the segments that exist on disk and aren't being appended to.
+     */
+    List<Long> leftoverSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> numberOf(directory.resolve(name)))
+                    .filter(number -> activeChannel == null || number != segmentNumber)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't list the state history spool " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the rows of a segment, leaving out the discarded ones.
+     */
+    SpooledRows read(long number) throws IOException {
+        var rows = new ArrayList<StateHistoryRow>();
+        var committed = new HashSet<Long>();
+        var discarded = new HashSet<Long>();
+        for (var line : Files.readAllLines(segment(number), StandardCharsets.UTF_8)) {
+            if (line.startsWith(DISCARDED)) {
+                discarded.add(Long.parseLong(line.substring(DISCARDED.length())));
+            } else if (line.startsWith(COMMITTED)) {
+                committed.add(Long.parseLong(line.substring(COMMITTED.length())));
+            } else if (!line.isEmpty()) {
+                rows.add(parse(line));
+            }
+        }
+        rows.removeIf(row -> discarded.contains(row.getId()));
+        return new SpooledRows(rows, committed);
+    }
+
+    void close() throws IOException {
+        rotate();
+    }
+
+    private void appendTo(long number, CharSequence lines) throws IOException {
+        var channel = activeChannel;
+        if (channel != null && number == segmentNumber) {
+            write(channel, lines);
+            return;
+        }
+        try (var closed = FileChannel.open(segment(number), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(closed, lines);
+        }
+    }
+
+    private static StringBuilder mark(StringBuilder lines, String mark, List<StateHistoryRow> rows) {
+        for (var row : rows) {
+            lines.append(mark).append(row.getId()).append('\n');
+        }
+        return lines;
+    }
+
+    private static void write(FileChannel channel, CharSequence lines) throws IOException {
+        var buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(lines));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path segment(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private static long numberOf(Path segment) {
+        var name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String format(StateHistoryRow row) {
+        return row.getId() + SEPARATOR
+                + row.getTransactionId() + SEPARATOR
+                + (row.getPreviousState() == null ? "" : row.getPreviousState().name()) + SEPARATOR
+                + row.getNewState().name() + SEPARATOR
+                + row.getCreatedDate() + SEPARATOR
+                + (row.getCreatedBy() == null ? "" : row.getCreatedBy());
+    }
+
+    private static StateHistoryRow parse(String line) {
+        // The login is last, so it may contain anything but a line break
+        var fields = line.split(SEPARATOR, 6);
+        return new StateHistoryRow(Long.parseLong(fields[0]),
+                Long.parseLong(fields[1]),
+                fields[2].isEmpty() ? null : TransactionStatus.valueOf(fields[2]),
+                TransactionStatus.valueOf(fields[3]),
+                Instant.parse(fields[4]),
+                fields[5].isEmpty() ? null : fields[5]);
+    }
+
+    /**
+     * The rows of a segment that weren't discarded, and which of them are marked as committed.
+     */
+    static final class SpooledRows {
+
+        private final List<StateHistoryRow> rows;
+
+        private final Set<Long> committed;
+
+        private SpooledRows(List<StateHistoryRow> rows, Set<Long> committed) {
+            this.rows = rows;
+            this.committed = committed;
+        }
+
+        List<StateHistoryRow> getRows() {
+            return rows;
+        }
+
+        boolean isCommitted(StateHistoryRow row) {
+            return committed.contains(row.getId());
+        }
+    }
+}
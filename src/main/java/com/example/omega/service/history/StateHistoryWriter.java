@@ -0,0 +1,539 @@
+package com.example.omega.service.history;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import com.example.omega.domain.id.TimeOrderedIdGenerator;
+import com.example.omega.service.util.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for the state history of transactions.
+ * <p>
+ * The rows of a transition are forced to a {@link StateHistorySpool} just before the transaction that made the
+ * transition commits, marked as committed and buffered in memory once it did, so a transfer doesn't pay for an
+ * insert or a sequence call. Transactions committing at the same time share one force of the spool: the first
+ * one forces everything appended so far, and the others find their rows covered once it's done. A background
+ * thread writes the buffer as multi-row inserts every flush interval, or sooner once a full batch is waiting.
+ * A segment is kept until every transaction that spooled rows to it completed and its rows were written.
+ * <p>
+ * Row IDs are time-ordered and assigned up front, so segments left over by a crash or a failed write are
+ * replayed on the next round without creating duplicates; a stored row is only taken for the spooled one if
+ * every column matches. Replaying writes the rows marked as committed, and
+ * skips the ones marked as rolled back. A row without a mark, left by a crash between the force and the commit
+ * or by a transaction whose outcome is unknown, is only written if the transfer is in the row's new state, or
+ * a later committed row of the segment continues from it.
+ */
+@Slf4j
+@Component
+public class StateHistoryWriter {
+
+    private static final String INSERT_PREFIX = "insert into transaction_state_history " +
+            "(id, transaction_id, previous_state, new_state, created_by, created_date, last_modified_by, last_modified_date) values ";
+
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXISTING_ROWS_QUERY = "select id, transaction_id, previous_state, new_state, created_date, created_by " +
+            "from transaction_state_history where id in";
+
+    private static final String TRANSACTION_STATUS_QUERY = "select id, transaction_status from transaction where id in";
+
+    private static final int EXISTING_ID_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TimeOrderedIdGenerator idGenerator;
+
+    private final StateHistorySpool spool;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final Queue<BufferedRow> buffer = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    private final List<Long> failedSegments = new ArrayList<>();
+
+    // Segments rotated out but not written yet, and the number of uncompleted transactions per segment
+    private final List<Long> closedSegments = new ArrayList<>();
+
+    private final Map<Long, Integer> openTransactions = new HashMap<>();
+
+    // Segments with rows of transactions whose outcome is unknown, replayed instead of deleted once written
+    private final Set<Long> uncertainSegments = new HashSet<>();
+
+    // Appends are numbered under the spool lock, a force covers every append numbered before it started
+    private final Object forceLock = new Object();
+
+    private long appended;
+
+    private long forced;
+
+    private final Counter writtenRows;
+
+    private final Counter spoolForces;
+
+    private volatile Thread flusher;
+
+    private volatile boolean running;
+
+    @Autowired
+    public StateHistoryWriter(DataSource dataSource,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.jpa.properties." + TimeOrderedIdGenerator.NODE_ID_SETTING + "}") long nodeId,
+                              @Value("${omega.history.spool-dir:spool/state-history}") String spoolDirectory,
+                              @Value("${omega.history.batch-size:500}") int batchSize,
+                              @Value("${omega.history.flush-interval-ms:200}") long flushIntervalMs) {
+        this(dataSource, meterRegistry, nodeId, new StateHistorySpool(Path.of(spoolDirectory)), batchSize, flushIntervalMs);
+    }
+
+    StateHistoryWriter(DataSource dataSource, MeterRegistry meterRegistry, long nodeId, StateHistorySpool spool,
+                       int batchSize, long flushIntervalMs) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idGenerator = new TimeOrderedIdGenerator(nodeId);
+        this.spool = spool;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        // Whatever a previous run left behind is replayed by the first flush
+        this.failedSegments.addAll(spool.leftoverSegments());
+
+        this.writtenRows = meterRegistry.counter("omega.history.written");
+        this.spoolForces = meterRegistry.counter("omega.history.spool-forces");
+        meterRegistry.gauge("omega.history.buffered", buffered);
+    }
+
+    /**
+     * Records a state change of a transaction along with the current database transaction.
+     * Without an active transaction the change is recorded right away.
+     *
+     * @param transactionId The ID of the transaction.
+     * @param previousState The status before the change, or {@code null} for a new transaction.
+     * @param newState      The status after the change.
+     */
+    public void append(Long transactionId, TransactionStatus previousState, TransactionStatus newState) {
+        // Microseconds, like the database keeps them, so a replay recognizes the stored row
+        var row = new StateHistoryRow(idGenerator.nextId(), transactionId, previousState, newState,
+                Instant.now().truncatedTo(ChronoUnit.MICROS), SecurityUtils.getCurrentUserLogin().orElse(null));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(row));
+            return;
+        }
+        pendingRows().add(row);
+    }
+
+    /**
+     * Writes every row that was buffered before the call, and replays segments that couldn't be written before.
+     *
+     * @return The number of rows written.
+     */
+    public synchronized int flush() {
+        var written = replayFailedSegments();
+
+        Set<Long> segments;
+        Set<Long> uncertain;
+        synchronized (spool) {
+            try {
+                var segment = spool.rotate();
+                if (segment != 0) {
+                    closedSegments.add(segment);
+                }
+            } catch (IOException e) {
+                log.error("Couldn't rotate the state history spool: {}", e.getMessage());
+                return written;
+            }
+            // A transaction buffers its rows before it completes, so the rows of these segments are all buffered
+            segments = closedSegments.stream()
+                    .filter(segment -> !openTransactions.containsKey(segment))
+                    .collect(Collectors.toSet());
+            closedSegments.removeAll(segments);
+            uncertain = segments.stream().filter(uncertainSegments::remove).collect(Collectors.toSet());
+        }
+        if (segments.isEmpty()) {
+            return written;
+        }
+
+        var rows = new ArrayList<StateHistoryRow>();
+        for (var iterator = buffer.iterator(); iterator.hasNext(); ) {
+            var next = iterator.next();
+            if (segments.contains(next.segment)) {
+                rows.add(next.row);
+                iterator.remove();
+            }
+        }
+        buffered.addAndGet(-rows.size());
+
+        try {
+            insert(rows);
+            segments.stream().filter(segment -> !uncertain.contains(segment)).forEach(spool::delete);
+            uncertain.stream().sorted().forEach(failedSegments::add);
+            return written + rows.size();
+        } catch (RuntimeException e) {
+            log.warn("Couldn't write {} state history rows, they stay in segments {}: {}", rows.size(), segments, e.getMessage());
+            segments.stream().sorted().forEach(failedSegments::add);
+            return written;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "state-history-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        flush();
+        synchronized (spool) {
+            spool.close();
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("State history flush failed", e);
+            }
+        }
+    }
+
+    private void enqueue(List<StateHistoryRow> rows) {
+        var segment = spool(rows, false);
+        if (segment != 0) {
+            buffer(segment, rows);
+        } else {
+            // Without the spool the rows wouldn't survive a crash, so they are written right away
+            insert(rows);
+        }
+    }
+
+    /**
+     * Appends rows to the spool and waits until they are forced to disk, keeping their segment until
+     * {@link #complete} if a transaction is still to commit.
+     *
+     * @return The number of the segment, or {@code 0} if the rows couldn't be spooled.
+     */
+    private long spool(List<StateHistoryRow> rows, boolean open) {
+        long segment;
+        long ticket;
+        synchronized (spool) {
+            try {
+                segment = spool.append(rows, !open);
+            } catch (IOException e) {
+                log.error("Couldn't spool {} state history rows, writing them directly: {}", rows.size(), e.getMessage());
+                return 0;
+            }
+            ticket = ++appended;
+            if (open) {
+                openTransactions.merge(segment, 1, Integer::sum);
+            }
+        }
+
+        try {
+            awaitForced(ticket);
+            return segment;
+        } catch (IOException e) {
+            log.error("Couldn't force {} state history rows to the spool, writing them directly: {}", rows.size(), e.getMessage());
+            synchronized (spool) {
+                discard(segment, rows);
+                if (open) {
+                    release(segment);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Waits until the append with the given number is forced to disk. The first caller forces every append made so
+     * far, callers waiting meanwhile return without a force of their own if theirs was among them.
+     */
+    private void awaitForced(long ticket) throws IOException {
+        synchronized (forceLock) {
+            if (forced >= ticket) {
+                return;
+            }
+            long upTo;
+            synchronized (spool) {
+                upTo = appended;
+            }
+            spool.force();
+            spoolForces.increment();
+            forced = upTo;
+        }
+    }
+
+    private void buffer(long segment, List<StateHistoryRow> rows) {
+        for (var row : rows) {
+            buffer.add(new BufferedRow(segment, row));
+        }
+        if (buffered.addAndGet(rows.size()) >= batchSize && flusher != null) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * Marks the rows of a committed transaction as committed in their segment. The mark isn't forced, a crash before
+     * the next force leaves the rows to the status check of the replay.
+     */
+    private void commit(long segment, List<StateHistoryRow> rows) {
+        synchronized (spool) {
+            try {
+                spool.commit(segment, rows);
+            } catch (IOException e) {
+                log.warn("Couldn't mark {} committed state history rows of segment {}: {}", rows.size(), segment, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Releases the segment of a completed transaction. The rows of a transaction that rolled back are marked as
+     * discarded, and a segment with rows of a transaction whose outcome is unknown is replayed once it's written.
+     */
+    private void complete(long segment, List<StateHistoryRow> rows, int status) {
+        synchronized (spool) {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                discard(segment, rows);
+            } else if (status == TransactionSynchronization.STATUS_UNKNOWN) {
+                log.warn("Outcome of a transaction with {} state history rows in segment {} is unknown, replaying them", rows.size(), segment);
+                uncertainSegments.add(segment);
+            }
+            release(segment);
+        }
+    }
+
+    private void discard(long segment, List<StateHistoryRow> rows) {
+        try {
+            spool.discard(segment, rows);
+        } catch (IOException e) {
+            log.warn("Couldn't discard {} state history rows of segment {}: {}", rows.size(), segment, e.getMessage());
+        }
+    }
+
+    private void release(long segment) {
+        openTransactions.computeIfPresent(segment, (number, count) -> count == 1 ? null : count - 1);
+    }
+
+    private int replayFailedSegments() {
+        var written = 0;
+        for (var iterator = failedSegments.iterator(); iterator.hasNext(); ) {
+            var segment = iterator.next();
+            try {
+                var spooled = spool.read(segment);
+                var rows = missingRows(committedRows(spooled));
+                insert(rows);
+                spool.delete(segment);
+                iterator.remove();
+                written += rows.size();
+                log.info("Replayed {} state history rows of segment {}", rows.size(), segment);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Couldn't replay state history segment {}, retrying in the next round: {}", segment, e.getMessage());
+                break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Picks the rows of a segment whose transaction committed. Rows of transfers that don't exist are left out,
+     * since the transaction that created the transfer didn't commit. A row without a commit mark is kept if the
+     * transfer is in its new state, or if a later kept row of the transfer continues from that state.
+     */
+    private List<StateHistoryRow> committedRows(StateHistorySpool.SpooledRows spooled) {
+        var statuses = transactionStatuses(spooled.getRows());
+        var confirmed = new HashMap<>(statuses);
+        var rows = new ArrayList<StateHistoryRow>();
+        var newestFirst = new ArrayList<>(spooled.getRows());
+        newestFirst.sort(Comparator.comparingLong(StateHistoryRow::getId).reversed());
+        for (var row : newestFirst) {
+            if (!statuses.containsKey(row.getTransactionId())) {
+                continue;
+            }
+            if (spooled.isCommitted(row) || row.getNewState() == confirmed.get(row.getTransactionId())) {
+                rows.add(row);
+                confirmed.put(row.getTransactionId(), row.getPreviousState());
+            }
+        }
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    private Map<Long, TransactionStatus> transactionStatuses(List<StateHistoryRow> rows) {
+        var ids = rows.stream().map(StateHistoryRow::getTransactionId).distinct().collect(Collectors.toList());
+        var statuses = new HashMap<Long, TransactionStatus>();
+        for (var from = 0; from < ids.size(); from += EXISTING_ID_CHUNK) {
+            var chunk = ids.subList(from, Math.min(ids.size(), from + EXISTING_ID_CHUNK));
+            var placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(TRANSACTION_STATUS_QUERY + " (" + placeholders + ")", resultSet -> {
+                var status = resultSet.getString("transaction_status");
+                statuses.put(resultSet.getLong("id"), status == null ? null : TransactionStatus.valueOf(status));
+            }, chunk.toArray());
+        }
+        return statuses;
+    }
+
+    /**
+     * Leaves out the rows that were written already. A stored row with the same ID but other contents was written by
+     * a node sharing this node's ID, so the spooled row gets a new ID instead of being lost.
+     */
+    private List<StateHistoryRow> missingRows(List<StateHistoryRow> rows) {
+        var existing = new HashMap<Long, StateHistoryRow>();
+        for (var from = 0; from < rows.size(); from += EXISTING_ID_CHUNK) {
+            var chunk = rows.subList(from, Math.min(rows.size(), from + EXISTING_ID_CHUNK));
+            var placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(EXISTING_ROWS_QUERY + " (" + placeholders + ")", resultSet -> {
+                var previousState = resultSet.getString("previous_state");
+                var createdDate = resultSet.getTimestamp("created_date");
+                existing.put(resultSet.getLong("id"), new StateHistoryRow(resultSet.getLong("id"), resultSet.getLong("transaction_id"),
+                        previousState == null ? null : TransactionStatus.valueOf(previousState),
+                        TransactionStatus.valueOf(resultSet.getString("new_state")),
+                        createdDate == null ? null : createdDate.toInstant(), resultSet.getString("created_by")));
+            }, chunk.stream().map(StateHistoryRow::getId).toArray());
+        }
+
+        var missing = new ArrayList<StateHistoryRow>();
+        for (var row : rows) {
+            var stored = existing.get(row.getId());
+            if (stored == null) {
+                missing.add(row);
+            } else if (!sameRow(row, stored)) {
+                var replacement = new StateHistoryRow(idGenerator.nextId(), row.getTransactionId(), row.getPreviousState(),
+                        row.getNewState(), row.getCreatedDate(), row.getCreatedBy());
+                log.error("State history row {} was written by another node with the same node ID as {}, replaying it as row {}",
+                        row.getId(), stored, replacement.getId());
+                missing.add(replacement);
+            }
+        }
+        return missing;
+    }
+
+    private static boolean sameRow(StateHistoryRow spooled, StateHistoryRow stored) {
+        return spooled.getTransactionId() == stored.getTransactionId()
+                && spooled.getPreviousState() == stored.getPreviousState()
+                && spooled.getNewState() == stored.getNewState()
+                && Objects.equals(spooled.getCreatedDate(), stored.getCreatedDate())
+                && Objects.equals(spooled.getCreatedBy(), stored.getCreatedBy());
+    }
+
+    /**
+     * Inserts the rows with one multi-row statement per batch.
+     */
+    private void insert(List<StateHistoryRow> rows) {
+        for (var from = 0; from < rows.size(); from += batchSize) {
+            var chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            var sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * (INSERT_VALUES.length() + 2)).append(INSERT_PREFIX);
+            var args = new Object[chunk.size() * 8];
+            var i = 0;
+            for (var row : chunk) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(INSERT_VALUES);
+                var createdDate = Timestamp.from(row.getCreatedDate());
+                args[i++] = row.getId();
+                args[i++] = row.getTransactionId();
+                args[i++] = row.getPreviousState() == null ? null : row.getPreviousState().name();
+                args[i++] = row.getNewState().name();
+                args[i++] = row.getCreatedBy();
+                args[i++] = createdDate;
+                args[i++] = row.getCreatedBy();
+                args[i++] = createdDate;
+            }
+            jdbcTemplate.update(sql.toString(), args);
+            writtenRows.increment(chunk.size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StateHistoryRow> pendingRows() {
+        var rows = (List<StateHistoryRow>) TransactionSynchronizationManager.getResource(this);
+        if (rows != null) {
+            return rows;
+        }
+
+        var newRows = new ArrayList<StateHistoryRow>();
+        TransactionSynchronizationManager.bindResource(this, newRows);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long segment;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (!newRows.isEmpty()) {
+                    segment = spool(newRows, true);
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                if (segment != 0) {
+                    commit(segment, newRows);
+                    buffer(segment, newRows);
+                } else if (!newRows.isEmpty()) {
+                    insert(newRows);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StateHistoryWriter.this);
+                if (segment != 0) {
+                    complete(segment, newRows, status);
+                }
+            }
+        });
+        return newRows;
+    }
+
+    private static final class BufferedRow {
+
+        private final long segment;
+
+        private final StateHistoryRow row;
+
+        private BufferedRow(long segment, StateHistoryRow row) {
+            this.segment = segment;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.omega.service.idempotency;
+
+import com.example.omega.config.ReplicaRoutingDataSource;
+import com.example.omega.domain.IdempotencyKey;
+import com.example.omega.repository.IdempotencyKeyRepository;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates money movements by the Idempotency-Key a client sends with them.
+ * <p>
+ * Keys are first claimed in a bounded in-memory cache, so a retry that reaches the same node gets the
+ * original {@link TransactionDTO} without touching the database, and a retry that arrives while the
+ * original is still running waits for it. The key is also inserted, in the same database transaction
+ * as the transfer, into a table with a unique constraint. A duplicate that the cache hasn't seen (another
+ * node, a restart or an evicted entry) fails on that constraint, rolls back without moving any money and
+ * returns the transaction that owns the key.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyStore {
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final long cacheTtlMs;
+
+    private final int maxCachedKeys;
+
+    private final Duration retention;
+
+    private final Map<String, CachedKey> cache = new ConcurrentHashMap<>();
+
+    public IdempotencyKeyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                               @Value("${omega.idempotency.cache-ttl-ms:3600000}") long cacheTtlMs,
+                               @Value("${omega.idempotency.max-cached-keys:100000}") int maxCachedKeys,
+                               @Value("${omega.idempotency.retention-hours:24}") long retentionHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.cacheTtlMs = cacheTtlMs;
+        this.maxCachedKeys = maxCachedKeys;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * Runs the action once per key and user. The action must call {@link #record} inside its transaction.
+     *
+     * @param userId          The ID of the user the key belongs to.
+     * @param idempotencyKey  The key sent by the client, or {@code null} to run the action unconditionally.
+     * @param action          The money movement.
+     * @param loadTransaction Loads the transaction that owns a key recorded by another node.
+     * @return The result of the action, or the original transaction for a duplicate.
+     * @throws BadRequestException If the key is malformed.
+     */
+    public TransactionDTO execute(Long userId, String idempotencyKey, Supplier<TransactionDTO> action,
+                                  Function<Long, TransactionDTO> loadTransaction) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        validate(idempotencyKey);
+
+        var cacheKey = userId + ":" + idempotencyKey;
+        var claim = new CachedKey(System.currentTimeMillis() + cacheTtlMs);
+        while (true) {
+            var existing = cache.putIfAbsent(cacheKey, claim);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired()) {
+                log.debug("Idempotency key: {} of User: {} was already used", idempotencyKey, userId);
+                try {
+                    return existing.result.join();
+                } catch (CompletionException e) {
+                    // The original attempt failed and released the key, so this retry runs the action itself.
+                }
+            }
+            cache.remove(cacheKey, existing);
+        }
+        evictIfNecessary();
+
+        try {
+            var result = action.get();
+            claim.result.complete(result);
+            return result;
+        } catch (DataIntegrityViolationException e) {
+            var original = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (original.isEmpty()) {
+                release(cacheKey, claim, e);
+                throw e;
+            }
+            log.debug("Idempotency key: {} of User: {} was used on another node", idempotencyKey, userId);
+            // The transaction was just committed elsewhere and may not have reached a replica yet
+            var result = ReplicaRoutingDataSource.onPrimary(() -> loadTransaction.apply(original.get().getTransactionId()));
+            claim.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            release(cacheKey, claim, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Records that the key created the given transaction. Must be called in the transaction that created it,
+     * after the transaction was saved. The row is flushed right away, so a duplicate fails here.
+     *
+     * @param userId         The ID of the user the key belongs to.
+     * @param idempotencyKey The key sent by the client, or {@code null}.
+     * @param transactionId  The ID of the created transaction.
+     * @throws DataIntegrityViolationException If the key was already recorded.
+     */
+    public void record(Long userId, String idempotencyKey, Long transactionId) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .transactionId(transactionId)
+                .createdDate(Instant.now())
+                .build());
+    }
+
+    /**
+     * Scheduled task deleting keys that are older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${omega.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpiredKeys() {
+        var deleted = idempotencyKeyRepository.deleteByCreatedDateBefore(Instant.now().minus(retention));
+        log.debug("Deleted {} expired idempotency keys", deleted);
+    }
+
+    private void release(String cacheKey, CachedKey claim, RuntimeException e) {
+        cache.remove(cacheKey, claim);
+        claim.result.completeExceptionally(e);
+    }
+
+    private void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("The Idempotency-Key must contain between 1 and " + MAX_KEY_LENGTH + " characters!");
+        }
+    }
+
+    /**
+     * Drops expired keys, and then finished ones, until the cache is back under its limit.
+     * Keys whose original request is still running are never dropped.
+     */
+    private void evictIfNecessary() {
+        if (cache.size() <= maxCachedKeys) {
+            return;
+        }
+
+        cache.values().removeIf(CachedKey::isExpired);
+        var iterator = cache.values().iterator();
+        while (cache.size() > maxCachedKeys && iterator.hasNext()) {
+            if (iterator.next().result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class CachedKey {
+
+        private final CompletableFuture<TransactionDTO> result = new CompletableFuture<>();
+
+        private final long expiresAt;
+
+        private CachedKey(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.AccountBalance;
+import com.example.omega.domain.User;
+import com.example.omega.domain.enumeration.Currency;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * In-memory copy of an {@link AccountBalance} row. Instances are only read or mutated
+ * while holding the lock stripe of their {@link LedgerAccountKey}.
+ */
+@Getter
+@Setter
+class LedgerAccount {
+
+    private final Long id;
+
+    private final Long userId;
+
+    private final Currency currency;
+
+    private final int shard;
+
+    private BigDecimal balance;
+
+    private Long version;
+
+    LedgerAccount(AccountBalance accountBalance) {
+        this.id = accountBalance.getId();
+        this.userId = accountBalance.getUser().getId();
+        this.currency = accountBalance.getCurrency();
+        this.shard = accountBalance.getShard() == null ? 0 : accountBalance.getShard();
+        this.balance = accountBalance.getBalance() == null ? BigDecimal.ZERO : accountBalance.getBalance();
+        this.version = accountBalance.getVersion() == null ? 0L : accountBalance.getVersion();
+    }
+
+    /**
+     * Builds a detached {@link AccountBalance} snapshot of this account.
+     *
+     * @return The snapshot.
+     */
+    AccountBalance toAccountBalance() {
+        var user = new User();
+        user.setId(userId);
+        return AccountBalance.builder()
+                .id(id)
+                .user(user)
+                .currency(currency)
+                .shard(shard)
+                .balance(balance)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.enumeration.Currency;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifies a single balance row held by the ledger: one per user, currency and shard.
+ * Accounts that aren't sharded only have shard 0.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(staticName = "of")
+public final class LedgerAccountKey {
+
+    private final Long userId;
+
+    private final Currency currency;
+
+    private final int shard;
+
+    public static LedgerAccountKey of(Long userId, Currency currency) {
+        return new LedgerAccountKey(userId, currency, 0);
+    }
+
+    /**
+     * Returns the key of the given shard of the same account.
+     *
+     * @param shard The shard.
+     * @return The key.
+     */
+    LedgerAccountKey withShard(int shard) {
+        return shard == this.shard ? this : new LedgerAccountKey(userId, currency, shard);
+    }
+}
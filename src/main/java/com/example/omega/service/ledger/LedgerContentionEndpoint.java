@@ -0,0 +1,26 @@
+package com.example.omega.service.ledger;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the most contended accounts under /management/ledgercontention.
+ */
+@Component
+@AllArgsConstructor
+@Endpoint(id = "ledgercontention")
+public class LedgerContentionEndpoint {
+
+    private static final int TOP_ACCOUNTS = 20;
+
+    private final TransferRetryTemplate transferRetryTemplate;
+
+    @ReadOperation
+    public Map<Object, Long> topContendedAccounts() {
+        return transferRetryTemplate.getTopContendedAccounts(TOP_ACCOUNTS);
+    }
+}
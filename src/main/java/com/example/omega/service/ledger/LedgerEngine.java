@@ -0,0 +1,514 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.AccountBalance;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.AccountBalanceRepository;
+import com.example.omega.service.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps hot {@link AccountBalance} rows in memory and serializes every update of an account
+ * through a fixed set of lock stripes.
+ * <p>
+ * Stripes are always acquired in ascending index order, so two transfers touching the same
+ * pair of accounts in opposite directions can't deadlock. The stripes stay locked until the
+ * surrounding database transaction completes, which means the in-memory balance and the
+ * persisted row can never be observed out of step. On rollback the touched accounts are
+ * evicted and re-read from the database on next use.
+ * <p>
+ * Rows are written with versioned conditional updates, so writers on other nodes are detected
+ * as optimistic locking failures instead of being silently overwritten.
+ * <p>
+ * Hot accounts can be split into shards, separate rows under separate stripes. Credits go to a
+ * random shard, so they don't queue up behind each other; debits and reads see the sum of all shards.
+ * <p>
+ * The rows are a projection of the {@link LedgerJournal}: every applied transfer posts its debit
+ * and credit entries there in the same transaction, and an account can be rebuilt from it.
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+
+    private final AccountBalanceRepository accountBalanceRepository;
+
+    private final LedgerJournal ledgerJournal;
+
+    private final ReentrantLock[] stripes;
+
+    private final long lockTimeoutMs;
+
+    private final int maxCachedAccounts;
+
+    private final long layoutTtlMs;
+
+    private final Map<LedgerAccountKey, LedgerAccount> accounts = new ConcurrentHashMap<>();
+
+    private final Map<LedgerAccountKey, ShardLayout> layouts = new ConcurrentHashMap<>();
+
+    public LedgerEngine(AccountBalanceRepository accountBalanceRepository,
+                        LedgerJournal ledgerJournal,
+                        @Value("${omega.ledger.lock-stripes:1024}") int stripeCount,
+                        @Value("${omega.ledger.lock-timeout-ms:5000}") long lockTimeoutMs,
+                        @Value("${omega.ledger.max-cached-accounts:100000}") int maxCachedAccounts,
+                        @Value("${omega.ledger.shards.layout-ttl-ms:300000}") long layoutTtlMs) {
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.ledgerJournal = ledgerJournal;
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (var i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.maxCachedAccounts = maxCachedAccounts;
+        this.layoutTtlMs = layoutTtlMs;
+    }
+
+    /**
+     * Moves the amount of the transfer between two accounts. The sender's
+     * shards are debited as one balance, the recipient is credited on a random shard.
+     * Must be called inside an active transaction.
+     *
+     * @param transfer The transfer to apply.
+     * @throws BadRequestException If one of the accounts doesn't exist or the sender has insufficient funds.
+     */
+    public void transfer(LedgerTransfer transfer) {
+        var sender = layout(transfer.senderKey());
+        var recipient = layout(transfer.recipientKey());
+        var senderKeys = sender.shardKeys(transfer.senderKey());
+        var creditKey = recipient.creditKey(transfer.recipientKey());
+
+        var keys = new ArrayList<>(senderKeys);
+        keys.add(creditKey);
+        lock(keys);
+
+        var senderShards = loadAll(senderKeys);
+        if (total(senderShards).compareTo(transfer.getAmount()) < 0) {
+            throw new BadRequestException("Insufficient funds");
+        }
+
+        debitAcross(senderShards, transfer.getAmount());
+        credit(load(creditKey), transfer.getRecipientAmount());
+        ledgerJournal.post(transfer, sender.getPrimaryId(), recipient.getPrimaryId());
+    }
+
+    /**
+     * Applies a list of transfers as one unit of work. Transfers are checked in order against
+     * running balances, so a transfer can spend money credited by an earlier one. Rejected transfers
+     * are skipped without affecting the others. Accepted transfers are netted per account, so every
+     * touched account is written once per shard at most. Must be called inside an active transaction.
+     *
+     * @param transfers The transfers to apply.
+     * @return The rejection reason of every transfer, in order, or {@code null} for applied transfers.
+     */
+    public List<String> transferAll(List<LedgerTransfer> transfers) {
+        var batchLayouts = new HashMap<LedgerAccountKey, ShardLayout>();
+        var creditKeys = new HashMap<LedgerAccountKey, LedgerAccountKey>();
+        var keys = new HashSet<LedgerAccountKey>();
+        var rejections = new ArrayList<String>(transfers.size());
+        for (var transfer : transfers) {
+            try {
+                var sender = batchLayouts.computeIfAbsent(transfer.senderKey(), this::layout);
+                var recipient = batchLayouts.computeIfAbsent(transfer.recipientKey(), this::layout);
+                keys.addAll(sender.shardKeys(transfer.senderKey()));
+                keys.add(creditKeys.computeIfAbsent(transfer.recipientKey(), recipient::creditKey));
+                rejections.add(null);
+            } catch (BadRequestException e) {
+                rejections.add(e.getMessage());
+            }
+        }
+
+        lock(keys);
+
+        var totals = new HashMap<LedgerAccountKey, BigDecimal>();
+        var deltas = new HashMap<LedgerAccountKey, BigDecimal>();
+        for (var i = 0; i < transfers.size(); i++) {
+            if (rejections.get(i) != null) {
+                continue;
+            }
+            var transfer = transfers.get(i);
+            var senderKey = transfer.senderKey();
+            var available = totals.computeIfAbsent(senderKey, key -> total(loadAll(batchLayouts.get(key).shardKeys(key))))
+                    .add(deltas.getOrDefault(senderKey, BigDecimal.ZERO));
+            if (available.compareTo(transfer.getAmount()) < 0) {
+                rejections.set(i, "Insufficient funds");
+                continue;
+            }
+            deltas.merge(senderKey, transfer.getAmount().negate(), BigDecimal::add);
+            deltas.merge(transfer.recipientKey(), transfer.getRecipientAmount(), BigDecimal::add);
+            ledgerJournal.post(transfer, batchLayouts.get(senderKey).getPrimaryId(), batchLayouts.get(transfer.recipientKey()).getPrimaryId());
+        }
+
+        for (var entry : deltas.entrySet()) {
+            var delta = entry.getValue();
+            if (delta.signum() < 0) {
+                debitAcross(loadAll(batchLayouts.get(entry.getKey()).shardKeys(entry.getKey())), delta.negate());
+            } else if (delta.signum() > 0) {
+                credit(load(creditKeys.get(entry.getKey())), delta);
+            }
+        }
+
+        return rejections;
+    }
+
+    /**
+     * Returns a detached snapshot of the given account. The balance of a sharded account is the sum of its shards.
+     *
+     * @param userId   The ID of the account owner.
+     * @param currency The currency of the account.
+     * @return The current account balance.
+     * @throws BadRequestException If the account doesn't exist.
+     */
+    public AccountBalance getAccountBalance(Long userId, Currency currency) {
+        var key = LedgerAccountKey.of(userId, currency);
+        var shardKeys = layout(key).shardKeys(key);
+
+        var acquired = new ArrayList<ReentrantLock>(shardKeys.size());
+        try {
+            for (var index : stripeIndexes(shardKeys)) {
+                acquire(stripes[index]);
+                acquired.add(stripes[index]);
+            }
+            var shards = loadAll(shardKeys);
+            var accountBalance = shards.get(0).toAccountBalance();
+            accountBalance.setBalance(total(shards));
+            return accountBalance;
+        } finally {
+            unlock(acquired);
+        }
+    }
+
+    /**
+     * Replays the journal of an account and overwrites its balance if it drifted from the journal.
+     * For a sharded account the difference is applied to shard 0. Must be called inside an active transaction.
+     *
+     * @param userId   The ID of the account owner.
+     * @param currency The currency of the account.
+     * @return The rebuilt account balance.
+     * @throws BadRequestException If the account doesn't exist.
+     */
+    public AccountBalance rebuild(Long userId, Currency currency) {
+        var key = LedgerAccountKey.of(userId, currency);
+        var layout = layout(key);
+        var shardKeys = layout.shardKeys(key);
+        lock(shardKeys);
+
+        var shards = loadAll(shardKeys);
+        var primary = shards.get(0);
+        var current = total(shards);
+        var balance = ledgerJournal.replayBalance(layout.getPrimaryId());
+        if (balance.compareTo(current) != 0) {
+            log.warn("Account balance: {} was {} but the journal says {}, rebuilding it", primary.getId(), current, balance);
+            var primaryBalance = primary.getBalance().add(balance.subtract(current));
+            if (accountBalanceRepository.overwrite(primary.getId(), primaryBalance, primary.getVersion()) == 0) {
+                throw new ObjectOptimisticLockingFailureException(AccountBalance.class, primary.getId());
+            }
+            primary.setBalance(primaryBalance);
+            primary.setVersion(primary.getVersion() + 1);
+        }
+
+        var accountBalance = primary.toAccountBalance();
+        accountBalance.setBalance(balance);
+        return accountBalance;
+    }
+
+    /**
+     * Splits an account into the given number of shards, so credits to it can be applied in parallel.
+     * New shards start empty. Must be called inside an active transaction.
+     *
+     * @param userId     The ID of the account owner.
+     * @param currency   The currency of the account.
+     * @param shardCount The new number of shards.
+     * @throws BadRequestException If the account doesn't exist or already has at least that many shards.
+     */
+    public void addShards(Long userId, Currency currency, int shardCount) {
+        var key = LedgerAccountKey.of(userId, currency);
+        layouts.remove(key);
+        var layout = layout(key);
+        if (shardCount <= layout.getShardCount()) {
+            throw new BadRequestException("The account already has " + layout.getShardCount() + " shards!");
+        }
+
+        lock(List.of(key));
+        var primary = load(key);
+        var user = primary.toAccountBalance().getUser();
+        var shards = new ArrayList<AccountBalance>();
+        for (var shard = layout.getShardCount(); shard < shardCount; shard++) {
+            shards.add(AccountBalance.builder()
+                    .user(user)
+                    .currency(currency)
+                    .shard(shard)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+        accountBalanceRepository.saveAll(shards);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                layouts.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Moves the balances of all other shards of an account into shard 0, so debits mostly touch a single row.
+     * Must be called inside an active transaction.
+     *
+     * @param userId   The ID of the account owner.
+     * @param currency The currency of the account.
+     * @return The amount that was moved.
+     * @throws BadRequestException If the account doesn't exist.
+     */
+    public BigDecimal consolidate(Long userId, Currency currency) {
+        var key = LedgerAccountKey.of(userId, currency);
+        var layout = layout(key);
+        if (layout.getShardCount() == 1) {
+            return BigDecimal.ZERO;
+        }
+
+        var shardKeys = layout.shardKeys(key);
+        lock(shardKeys);
+
+        var shards = loadAll(shardKeys);
+        var moved = BigDecimal.ZERO;
+        for (var shard : shards.subList(1, shards.size())) {
+            if (shard.getBalance().signum() > 0) {
+                moved = moved.add(shard.getBalance());
+                debit(shard, shard.getBalance());
+            }
+        }
+        if (moved.signum() > 0) {
+            credit(shards.get(0), moved);
+        }
+        return moved;
+    }
+
+    /**
+     * Locks the stripes of all given accounts until the current transaction completes.
+     *
+     * @param keys The accounts to lock.
+     * @throws IllegalStateException      If there is no active transaction.
+     * @throws CannotAcquireLockException If a stripe can't be locked in time.
+     */
+    public void lock(Collection<LedgerAccountKey> keys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Ledger updates require an active transaction");
+        }
+
+        var stripeIndexes = stripeIndexes(keys);
+        var acquired = new ArrayList<ReentrantLock>(stripeIndexes.size());
+        try {
+            for (var index : stripeIndexes) {
+                acquire(stripes[index]);
+                acquired.add(stripes[index]);
+            }
+        } catch (RuntimeException e) {
+            unlock(acquired);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    keys.forEach(accounts::remove);
+                }
+                unlock(acquired);
+            }
+        });
+    }
+
+    /**
+     * Returns the cached account, reading it from the database on a miss.
+     * The caller must hold the stripe of the key.
+     */
+    LedgerAccount load(LedgerAccountKey key) {
+        var account = accounts.get(key);
+        if (account != null) {
+            return account;
+        }
+
+        var accountBalance = accountBalanceRepository.findByUserIdAndCurrencyAndShard(key.getUserId(), key.getCurrency(), key.getShard())
+                .orElseThrow(() -> new BadRequestException("Account balance not found"));
+        account = new LedgerAccount(accountBalance);
+
+        evictIfNecessary();
+        accounts.put(key, account);
+        return account;
+    }
+
+    /**
+     * Returns the shard layout of an account, reading it from the database when it's unknown or
+     * older than the layout TTL, so shards added on another node are picked up.
+     */
+    private ShardLayout layout(LedgerAccountKey key) {
+        var primaryKey = key.withShard(0);
+        var layout = layouts.get(primaryKey);
+        if (layout != null && layout.getExpiresAt() > System.currentTimeMillis()) {
+            return layout;
+        }
+
+        var shards = accountBalanceRepository.findAllByUserIdAndCurrencyOrderByShard(key.getUserId(), key.getCurrency());
+        if (shards.isEmpty()) {
+            throw new BadRequestException("Account balance not found");
+        }
+        layout = new ShardLayout(shards.get(0).getId(), shards.size(), System.currentTimeMillis() + layoutTtlMs);
+
+        if (layouts.size() >= maxCachedAccounts) {
+            layouts.clear();
+        }
+        layouts.put(primaryKey, layout);
+        return layout;
+    }
+
+    private List<LedgerAccount> loadAll(List<LedgerAccountKey> keys) {
+        var shards = new ArrayList<LedgerAccount>(keys.size());
+        keys.forEach(key -> shards.add(load(key)));
+        return shards;
+    }
+
+    private static BigDecimal total(List<LedgerAccount> shards) {
+        var total = BigDecimal.ZERO;
+        for (var shard : shards) {
+            total = total.add(shard.getBalance());
+        }
+        return total;
+    }
+
+    /**
+     * Debits the amount from the shards of an account, shard 0 first. The caller has checked that their total covers it.
+     */
+    private void debitAcross(List<LedgerAccount> shards, BigDecimal amount) {
+        var remaining = amount;
+        for (var shard : shards) {
+            if (remaining.signum() == 0) {
+                return;
+            }
+            var part = remaining.min(shard.getBalance());
+            if (part.signum() > 0) {
+                debit(shard, part);
+                remaining = remaining.subtract(part);
+            }
+        }
+    }
+
+    /**
+     * Debits the account with a conditional, versioned update. A stale cache entry (the row was changed
+     * by another node) shows up as zero updated rows and is reported as an optimistic locking failure,
+     * which rolls the transaction back and evicts the entry.
+     */
+    private void debit(LedgerAccount account, BigDecimal amount) {
+        if (accountBalanceRepository.debit(account.getId(), amount, account.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(AccountBalance.class, account.getId());
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        account.setVersion(account.getVersion() + 1);
+    }
+
+    private void credit(LedgerAccount account, BigDecimal amount) {
+        if (accountBalanceRepository.credit(account.getId(), amount, account.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(AccountBalance.class, account.getId());
+        }
+        account.setBalance(account.getBalance().add(amount));
+        account.setVersion(account.getVersion() + 1);
+    }
+
+    /**
+     * Drops cached accounts whose stripe is currently free until the cache is back under its limit.
+     */
+    private void evictIfNecessary() {
+        if (accounts.size() < maxCachedAccounts) {
+            return;
+        }
+
+        log.debug("Ledger cache reached {} accounts, evicting idle entries", accounts.size());
+        var iterator = accounts.keySet().iterator();
+        while (iterator.hasNext() && accounts.size() >= maxCachedAccounts) {
+            var stripe = stripes[stripeIndex(iterator.next())];
+            if (stripe.tryLock()) {
+                try {
+                    iterator.remove();
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        }
+    }
+
+    private void acquire(ReentrantLock stripe) {
+        try {
+            if (!stripe.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("Timed out waiting for a ledger lock");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for a ledger lock", e);
+        }
+    }
+
+    private void unlock(List<ReentrantLock> acquired) {
+        for (var i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    private TreeSet<Integer> stripeIndexes(Collection<LedgerAccountKey> keys) {
+        var stripeIndexes = new TreeSet<Integer>();
+        keys.forEach(key -> stripeIndexes.add(stripeIndex(key)));
+        return stripeIndexes;
+    }
+
+    private int stripeIndex(LedgerAccountKey key) {
+        var hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Primary row and number of shards of an account. Shards are numbered 0 to shardCount - 1.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class ShardLayout {
+
+        private final Long primaryId;
+
+        private final int shardCount;
+
+        private final long expiresAt;
+
+        List<LedgerAccountKey> shardKeys(LedgerAccountKey key) {
+            if (shardCount == 1) {
+                return List.of(key.withShard(0));
+            }
+            var keys = new ArrayList<LedgerAccountKey>(shardCount);
+            for (var shard = 0; shard < shardCount; shard++) {
+                keys.add(key.withShard(shard));
+            }
+            return keys;
+        }
+
+        LedgerAccountKey creditKey(LedgerAccountKey key) {
+            return key.withShard(shardCount == 1 ? 0 : ThreadLocalRandom.current().nextInt(shardCount));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.BalanceSnapshot;
+import com.example.omega.domain.JournalEntry;
+import com.example.omega.domain.enumeration.JournalEntryType;
+import com.example.omega.repository.BalanceSnapshotRepository;
+import com.example.omega.repository.JournalEntryRepository;
+import com.example.omega.service.volume.DailyVolumeRollup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only double-entry journal behind the {@link com.example.omega.domain.AccountBalance} projection.
+ * <p>
+ * Every transfer posts one DEBIT entry in the sender's currency and one CREDIT entry in the recipient's.
+ * Entries are collected for the duration of the database transaction and inserted in one batch right
+ * before it commits, so they are written together with the balance updates or not at all. Once the
+ * transaction commits, the transfer is also counted in the {@link DailyVolumeRollup}.
+ * <p>
+ * Snapshots of every account that moved are taken periodically. Rebuilding a balance then only
+ * replays the entries created after the latest snapshot of the account. A snapshot round only covers
+ * entries older than the settle lag, so entries of transactions that are still committing aren't missed.
+ */
+@Slf4j
+@Component
+public class LedgerJournal {
+
+    private static final int SNAPSHOT_LOOKUP_CHUNK = 1000;
+
+    private final JournalEntryRepository journalEntryRepository;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private final DailyVolumeRollup dailyVolumeRollup;
+
+    private final long settleLagMs;
+
+    public LedgerJournal(JournalEntryRepository journalEntryRepository,
+                         BalanceSnapshotRepository balanceSnapshotRepository,
+                         DailyVolumeRollup dailyVolumeRollup,
+                         @Value("${omega.ledger.snapshot.settle-lag-ms:60000}") long settleLagMs) {
+        this.journalEntryRepository = journalEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.dailyVolumeRollup = dailyVolumeRollup;
+        this.settleLagMs = settleLagMs;
+    }
+
+    /**
+     * Posts the entries of a transfer to the journal of the current transaction.
+     *
+     * @param transfer           The transfer.
+     * @param senderAccountId    The ID of the debited account.
+     * @param recipientAccountId The ID of the credited account.
+     * @throws IllegalStateException If there is no active transaction.
+     */
+    void post(LedgerTransfer transfer, Long senderAccountId, Long recipientAccountId) {
+        var postings = currentPostings();
+        postings.add(new Posting(transfer, senderAccountId, JournalEntryType.DEBIT));
+        postings.add(new Posting(transfer, recipientAccountId, JournalEntryType.CREDIT));
+        dailyVolumeRollup.record(transfer);
+    }
+
+    /**
+     * Replays the journal of an account, starting from its latest snapshot.
+     *
+     * @param accountBalanceId The ID of the account.
+     * @return The balance according to the journal.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal replayBalance(Long accountBalanceId) {
+        var snapshot = balanceSnapshotRepository.findFirstByAccountBalanceIdOrderByCoveredUntilDesc(accountBalanceId);
+        var from = snapshot.map(BalanceSnapshot::getCoveredUntil).orElse(Instant.EPOCH);
+        var opening = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        return opening.add(journalEntryRepository.sumSince(accountBalanceId, from));
+    }
+
+    /**
+     * Snapshots every account with journal entries since the previous round.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${omega.ledger.snapshot.interval-ms:3600000}",
+            initialDelayString = "${omega.ledger.snapshot.interval-ms:3600000}")
+    public void takeSnapshots() {
+        var from = balanceSnapshotRepository.findLastCoveredUntil().orElse(Instant.EPOCH);
+        var until = Instant.now().minusMillis(settleLagMs);
+        if (!until.isAfter(from)) {
+            return;
+        }
+
+        var deltas = journalEntryRepository.sumByAccountBetween(from, until);
+        var now = Instant.now();
+        var snapshots = new ArrayList<BalanceSnapshot>(deltas.size());
+        for (var i = 0; i < deltas.size(); i += SNAPSHOT_LOOKUP_CHUNK) {
+            var chunk = deltas.subList(i, Math.min(deltas.size(), i + SNAPSHOT_LOOKUP_CHUNK));
+            var previous = balanceSnapshotRepository.findLatestByAccountBalanceIds(chunk.stream()
+                            .map(JournalEntryRepository.AccountDelta::getAccountBalanceId)
+                            .toList())
+                    .stream()
+                    .collect(Collectors.toMap(BalanceSnapshot::getAccountBalanceId, Function.identity(), (a, b) -> a, HashMap::new));
+
+            for (var delta : chunk) {
+                var opening = previous.containsKey(delta.getAccountBalanceId())
+                        ? previous.get(delta.getAccountBalanceId()).getBalance()
+                        : BigDecimal.ZERO;
+                snapshots.add(BalanceSnapshot.builder()
+                        .accountBalanceId(delta.getAccountBalanceId())
+                        .balance(opening.add(delta.getDelta()))
+                        .coveredUntil(until)
+                        .createdDate(now)
+                        .build());
+            }
+        }
+
+        balanceSnapshotRepository.saveAll(snapshots);
+        log.debug("Snapshotted {} accounts with journal entries until {}", snapshots.size(), until);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Posting> currentPostings() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Journal postings require an active transaction");
+        }
+
+        var postings = (List<Posting>) TransactionSynchronizationManager.getResource(this);
+        if (postings != null) {
+            return postings;
+        }
+
+        var newPostings = new ArrayList<Posting>();
+        TransactionSynchronizationManager.bindResource(this, newPostings);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                var createdDate = Instant.now();
+                journalEntryRepository.saveAll(newPostings.stream()
+                        .map(posting -> posting.toJournalEntry(createdDate))
+                        .toList());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LedgerJournal.this);
+            }
+        });
+        return newPostings;
+    }
+
+    private static final class Posting {
+
+        private final LedgerTransfer transfer;
+
+        private final Long accountBalanceId;
+
+        private final JournalEntryType entryType;
+
+        private Posting(LedgerTransfer transfer, Long accountBalanceId, JournalEntryType entryType) {
+            this.transfer = transfer;
+            this.accountBalanceId = accountBalanceId;
+            this.entryType = entryType;
+        }
+
+        private JournalEntry toJournalEntry(Instant createdDate) {
+            return JournalEntry.builder()
+                    .accountBalanceId(accountBalanceId)
+                    .transaction(transfer.getTransaction())
+                    .entryType(entryType)
+                    .amount(entryType == JournalEntryType.DEBIT ? transfer.getAmount() : transfer.getRecipientAmount())
+                    .createdDate(createdDate)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.repository.AccountBalanceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically folds the shards of every sharded account back into shard 0. Credits keep landing on
+ * random shards, so without this the money of a hot account would be scattered and its debits would
+ * have to touch every shard.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerShardConsolidator {
+
+    private final AccountBalanceRepository accountBalanceRepository;
+
+    private final LedgerEngine ledgerEngine;
+
+    private final TransferRetryTemplate transferRetryTemplate;
+
+    @Scheduled(fixedDelayString = "${omega.ledger.shards.consolidate-interval-ms:10000}")
+    public void consolidateShards() {
+        for (var account : accountBalanceRepository.findShardedAccounts()) {
+            var userId = account.getUser().getId();
+            try {
+                var moved = transferRetryTemplate.executeInTransaction(() -> ledgerEngine.consolidate(userId, account.getCurrency()));
+                log.debug("Consolidated {} {} into shard 0 of User: {}", moved, account.getCurrency(), userId);
+            } catch (RuntimeException e) {
+                log.warn("Couldn't consolidate the {} shards of User: {}: {}", account.getCurrency(), userId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.Transaction;
+import com.example.omega.domain.enumeration.Currency;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * A single movement of money between two accounts, optionally tied to the {@link Transaction} it settles.
+ * For a cross-currency transfer the recipient is credited the converted amount in its own currency.
+ */
+@Getter
+@ToString(exclude = "transaction")
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LedgerTransfer {
+
+    private final Transaction transaction;
+
+    private final Long senderId;
+
+    private final Long recipientId;
+
+    private final Currency currency;
+
+    private final BigDecimal amount;
+
+    private final Currency recipientCurrency;
+
+    private final BigDecimal recipientAmount;
+
+    public static LedgerTransfer of(Long senderId, Long recipientId, Currency currency, BigDecimal amount) {
+        return new LedgerTransfer(null, senderId, recipientId, currency, amount, currency, amount);
+    }
+
+    /**
+     * Creates the transfer settling the given transaction. The transaction may still be unsaved,
+     * but it has to be saved before the surrounding database transaction commits.
+     *
+     * @param transaction The transaction to settle.
+     * @return The transfer.
+     */
+    public static LedgerTransfer of(Transaction transaction) {
+        var converted = transaction.getRecipientCurrency() != null;
+        return new LedgerTransfer(transaction,
+                transaction.getSender().getId(),
+                transaction.getRecipient().getId(),
+                transaction.getCurrency(),
+                transaction.getAmount(),
+                converted ? transaction.getRecipientCurrency() : transaction.getCurrency(),
+                converted ? transaction.getConvertedAmount() : transaction.getAmount());
+    }
+
+    LedgerAccountKey senderKey() {
+        return LedgerAccountKey.of(senderId, currency);
+    }
+
+    LedgerAccountKey recipientKey() {
+        return LedgerAccountKey.of(recipientId, recipientCurrency);
+    }
+}
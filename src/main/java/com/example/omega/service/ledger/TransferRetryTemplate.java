@@ -0,0 +1,130 @@
+package com.example.omega.service.ledger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs money movements in their own transaction and retries them when they lose a race
+ * on an account row. Backoff is exponential with full jitter, so colliding transfers
+ * don't keep retrying in lockstep.
+ */
+@Slf4j
+@Component
+public class TransferRetryTemplate {
+
+    private static final int MAX_TRACKED_ACCOUNTS = 10_000;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMs;
+
+    private final long maxBackoffMs;
+
+    private final Counter conflictCounter;
+
+    private final Counter retryCounter;
+
+    private final Counter exhaustedCounter;
+
+    private final Map<Object, LongAdder> conflictsByAccount = new ConcurrentHashMap<>();
+
+    public TransferRetryTemplate(TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${omega.transfer.retry.max-attempts:5}") int maxAttempts,
+                                 @Value("${omega.transfer.retry.initial-backoff-ms:5}") long initialBackoffMs,
+                                 @Value("${omega.transfer.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.conflictCounter = meterRegistry.counter("omega.transfer.conflicts");
+        this.retryCounter = meterRegistry.counter("omega.transfer.retries");
+        this.exhaustedCounter = meterRegistry.counter("omega.transfer.retries.exhausted");
+    }
+
+    /**
+     * Executes the action in a new transaction, retrying on concurrency failures.
+     * When a transaction is already active the action joins it and is not retried,
+     * because the outer transaction is already marked for rollback at that point.
+     *
+     * @param action The action to execute.
+     * @param <T>    The type of the result.
+     * @return The result of the action.
+     * @throws ConcurrencyFailureException If the action still conflicts after the last attempt.
+     */
+    public <T> T executeInTransaction(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        for (var attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                recordConflict(e);
+                if (attempt >= maxAttempts) {
+                    exhaustedCounter.increment();
+                    log.warn("Transfer failed after {} attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                retryCounter.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Returns the accounts with the most conflicts since startup.
+     *
+     * @param limit The maximum number of accounts to return.
+     * @return Conflict counts keyed by account ID, highest first.
+     */
+    public Map<Object, Long> getTopContendedAccounts(int limit) {
+        var result = new LinkedHashMap<Object, Long>();
+        conflictsByAccount.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Object, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private void recordConflict(ConcurrencyFailureException e) {
+        conflictCounter.increment();
+        if (e instanceof ObjectOptimisticLockingFailureException) {
+            var accountId = ((ObjectOptimisticLockingFailureException) e).getIdentifier();
+            if (accountId != null) {
+                if (conflictsByAccount.size() >= MAX_TRACKED_ACCOUNTS) {
+                    conflictsByAccount.clear();
+                }
+                conflictsByAccount.computeIfAbsent(accountId, id -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        var ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.omega.service.limits;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free counter of the values added over a sliding time window.
+ * <p>
+ * The window is split into a ring of fixed-width buckets, packed into a single {@code long[]} so a check touches
+ * as few cache lines as possible: each slot holds the low bits of its epoch next to its value, and is replaced
+ * with a compare-and-set, so a bucket that is reused for a new epoch is reset atomically with the first value
+ * added to it. The window slides by whole buckets.
+ * <p>
+ * The total of the window is kept next to the ring, so reading it doesn't walk the buckets. Whoever moves
+ * the head of the window forward clears the buckets that fell out of it and takes their values off the
+ * total; a bucket is only ever removed by a successful compare-and-set, so its value is taken off once.
+ */
+final class SlidingWindowCounter {
+
+    /**
+     * The largest value a single bucket can hold.
+     */
+    static final long MAX_VALUE = (1L << 47) - 1;
+
+    // A slot is a used bit, the low 15 bits of the epoch and a signed 48-bit value
+    private static final long USED = 1L << 63;
+
+    private static final int VALUE_BITS = 48;
+
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+
+    private static final long TAG_MASK = (1L << 15) - 1;
+
+    private static final long EMPTY = 0L;
+
+    private static final long NO_HEAD = Long.MIN_VALUE;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final VarHandle HEAD;
+
+    private static final VarHandle TOTAL;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SlidingWindowCounter.class, "head", long.class);
+            TOTAL = lookup.findVarHandle(SlidingWindowCounter.class, "total", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long bucketMs;
+
+    private final int bucketCount;
+
+    private final long[] slots;
+
+    // The latest epoch seen, the window covers the bucketCount epochs ending at it
+    private volatile long head = NO_HEAD;
+
+    private volatile long total;
+
+    SlidingWindowCounter(long windowMs, int bucketCount) {
+        this.bucketMs = windowMs / bucketCount;
+        this.bucketCount = bucketCount;
+        this.slots = new long[bucketCount];
+    }
+
+    /**
+     * Adds a value at the given time and returns the total of the window ending at that time.
+     * Values older than the window are ignored.
+     *
+     * @throws ArithmeticException If the bucket of that time would exceed {@link #MAX_VALUE}.
+     */
+    long add(long timeMs, long delta) {
+        var epoch = timeMs / bucketMs;
+        advance(epoch);
+        var slot = (int) (epoch % bucketCount);
+        while (true) {
+            var current = (long) SLOTS.getVolatile(slots, slot);
+            if (epoch <= head - bucketCount || current != EMPTY && tagOf(current) == tag(epoch + bucketCount)) {
+                // The window already slid past this value
+                return total;
+            }
+            long next;
+            long expired = 0;
+            if (current == EMPTY) {
+                next = pack(epoch, delta);
+            } else if (tagOf(current) == tag(epoch)) {
+                next = pack(epoch, value(current) + delta);
+            } else {
+                // The expired round wasn't cleared yet, its value leaves the total with it
+                next = pack(epoch, delta);
+                expired = value(current);
+            }
+            if (SLOTS.compareAndSet(slots, slot, current, next)) {
+                return (long) TOTAL.getAndAdd(this, delta - expired) + delta - expired;
+            }
+        }
+    }
+
+    /**
+     * Takes back a value added at the given time, unless that time already left the window.
+     * The value is taken from the bucket of that time, even if it was counted in a neighbouring one.
+     */
+    void subtract(long timeMs, long delta) {
+        add(timeMs, -delta);
+    }
+
+    /**
+     * Returns the total of the window ending at the given time.
+     */
+    long sum(long timeMs) {
+        advance(timeMs / bucketMs);
+        return total;
+    }
+
+    /**
+     * Moves the head of the window to the given epoch and clears the buckets that fell out of it.
+     * Each step of the head clears one slot, so the work is amortized over the buckets.
+     */
+    private void advance(long epoch) {
+        while (true) {
+            var previous = head;
+            if (epoch <= previous) {
+                return;
+            }
+            if (!HEAD.compareAndSet(this, previous, epoch)) {
+                continue;
+            }
+            if (previous == NO_HEAD) {
+                return;
+            }
+
+            var steps = Math.min(epoch - previous, bucketCount);
+            for (var live = epoch - steps + 1; live <= epoch; live++) {
+                clear((int) (live % bucketCount), live);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Empties a slot unless it holds the given epoch, the only one of the window that maps to it.
+     */
+    private void clear(int slot, long live) {
+        while (true) {
+            var current = (long) SLOTS.getVolatile(slots, slot);
+            if (current == EMPTY || tagOf(current) == tag(live)) {
+                return;
+            }
+            if (SLOTS.compareAndSet(slots, slot, current, EMPTY)) {
+                TOTAL.getAndAdd(this, -value(current));
+                return;
+            }
+        }
+    }
+
+    private static long pack(long epoch, long value) {
+        if (value > MAX_VALUE || value < -MAX_VALUE) {
+            throw new ArithmeticException("Bucket value out of range: " + value);
+        }
+        return USED | tag(epoch) << VALUE_BITS | value & VALUE_MASK;
+    }
+
+    private static long tag(long epoch) {
+        return epoch & TAG_MASK;
+    }
+
+    private static long tagOf(long slot) {
+        return slot >>> VALUE_BITS & TAG_MASK;
+    }
+
+    private static long value(long slot) {
+        return slot << (Long.SIZE - VALUE_BITS) >> (Long.SIZE - VALUE_BITS);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.omega.service.limits;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Roles;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Transfer limits of each role, bound from {@code omega.limits}. A role without a profile has no limits.
+ * The limits apply on each node separately, see {@link VelocityLimiter}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "omega.limits")
+public class VelocityLimitProperties {
+
+    private boolean enabled = true;
+
+    private Map<Roles, Profile> profiles = new EnumMap<>(Roles.class);
+
+    @Getter
+    @Setter
+    public static class Profile {
+
+        /**
+         * Transfers a user may send per currency in any minute, or {@code 0} for no limit.
+         */
+        private int transfersPerMinute;
+
+        /**
+         * Amount a user may send in each currency in any 24 hours. Currencies that aren't listed have no limit.
+         */
+        private Map<Currency, BigDecimal> amountPerDay = new EnumMap<>(Currency.class);
+    }
+}
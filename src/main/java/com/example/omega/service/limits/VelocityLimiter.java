@@ -0,0 +1,307 @@
+package com.example.omega.service.limits;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Roles;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.util.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces the transfer velocity limits of {@link VelocityLimitProperties} with in-memory sliding windows
+ * per sender and currency: transfers in any minute and amount in any 24 hours.
+ * <p>
+ * A transfer is added to the windows first and checked afterwards, so concurrent transfers of the same user
+ * can never exceed a limit together. A reservation is taken back when its database transaction rolls back,
+ * and a transfer that ends FAILED later is taken back with {@link #release}. The windows are rebuilt from the
+ * transfers in the transaction table that didn't fail on startup, so both count the same transfers.
+ * <p>
+ * The windows are per node and nothing is shared between nodes. Behind a load balancer that spreads a user's
+ * requests over N nodes, the user can send up to N times each limit before any node rejects a transfer.
+ * Route each sender to one node, or set the limits to the per-node share, when that matters.
+ */
+@Slf4j
+@Component
+public class VelocityLimiter {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    private static final Duration DAY = Duration.ofDays(1);
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private static final String REBUILD_QUERY = "select sender_id, currency, amount, created_date from transaction " +
+            "where created_date >= ? and created_date < ? and transaction_status <> 'FAILED'";
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final boolean enabled;
+
+    private final int[] transfersPerMinute = new int[Roles.values().length];
+
+    private final long[][] amountPerDay = new long[Roles.values().length][CURRENCIES.length];
+
+    private final Map<WindowKey, CurrencyWindows> windows = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final Counter rejectedTransfers;
+
+    private final Counter rejectedAmount;
+
+    public VelocityLimiter(VelocityLimitProperties properties,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${omega.limits.rebuild-fetch-size:1000}") int fetchSize) {
+        this.enabled = properties.isEnabled();
+        for (var role : Roles.values()) {
+            var profile = properties.getProfiles().get(role);
+            Arrays.fill(amountPerDay[role.ordinal()], NO_LIMIT);
+            if (profile == null) {
+                continue;
+            }
+            transfersPerMinute[role.ordinal()] = profile.getTransfersPerMinute();
+            profile.getAmountPerDay().forEach((currency, amount) ->
+                    amountPerDay[role.ordinal()][currency.ordinal()] = toMinorUnits(amount, currency));
+        }
+
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rejectedTransfers = meterRegistry.counter("omega.limits.rejected", "limit", "transfers-per-minute");
+        this.rejectedAmount = meterRegistry.counter("omega.limits.rejected", "limit", "amount-per-day");
+        meterRegistry.gaugeMapSize("omega.limits.tracked-windows", Collections.emptyList(), windows);
+    }
+
+    /**
+     * Counts a transfer against the limits of the current user's role. Without an authenticated user,
+     * for example in scheduled jobs, the limits of {@link Roles#ROLE_USER} apply.
+     *
+     * @param senderId The ID of the sender.
+     * @param currency The currency of the transfer.
+     * @param amount   The amount of the transfer.
+     * @return The reservation, to be released if the transfer doesn't happen after all.
+     * @throws BadRequestException With status 429 if the transfer would exceed a limit.
+     */
+    public Reservation reserve(Long senderId, Currency currency, BigDecimal amount) {
+        return reserve(senderId, currency, amount, SecurityUtils.getCurrentUserRole().orElse(Roles.ROLE_USER));
+    }
+
+    Reservation reserve(Long senderId, Currency currency, BigDecimal amount, Roles role) {
+        var now = System.currentTimeMillis();
+        var minorUnits = toMinorUnits(amount, currency);
+        var currencyWindows = windows.computeIfAbsent(new WindowKey(senderId, currency), key -> new CurrencyWindows());
+        var transfers = currencyWindows.transfers;
+        var amounts = currencyWindows.amounts;
+
+        var total = amounts.add(now, minorUnits);
+        var transferCount = transfers.add(now, 1);
+        if (!enabled) {
+            return new Reservation(transfers, amounts, now, minorUnits);
+        }
+
+        var transferLimit = transfersPerMinute[role.ordinal()];
+        if (transferLimit > 0 && transferCount > transferLimit) {
+            transfers.subtract(now, 1);
+            amounts.subtract(now, minorUnits);
+            rejectedTransfers.increment();
+            throw new BadRequestException("You can't send more than " + transferLimit + " transfers in " + currency + " per minute!",
+                    HttpStatus.TOO_MANY_REQUESTS);
+        }
+        var amountLimit = amountPerDay[role.ordinal()][currency.ordinal()];
+        if (total > amountLimit) {
+            transfers.subtract(now, 1);
+            amounts.subtract(now, minorUnits);
+            rejectedAmount.increment();
+            throw new BadRequestException("You can't send more than " + BigDecimal.valueOf(amountLimit, currency.getMinorUnits())
+                    + " " + currency + " in 24 hours!", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        var reservation = new Reservation(transfers, amounts, now, minorUnits);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Takes a transfer that ended FAILED back out of the limits, once the status change is committed.
+     * Transfers that already left the windows are ignored.
+     *
+     * @param senderId  The ID of the sender.
+     * @param currency  The currency of the transfer.
+     * @param amount    The amount of the transfer.
+     * @param createdAt When the transfer was created, which is when it was counted.
+     */
+    public void release(Long senderId, Currency currency, BigDecimal amount, Instant createdAt) {
+        if (senderId == null || currency == null || amount == null || createdAt == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    subtract(senderId, currency, amount, createdAt.toEpochMilli());
+                }
+            });
+        } else {
+            subtract(senderId, currency, amount, createdAt.toEpochMilli());
+        }
+    }
+
+    /**
+     * Rebuilds the windows from the transfers created in the last 24 hours before this node started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        var from = new Timestamp(startedAt - DAY.toMillis());
+        var to = new Timestamp(startedAt);
+        var rows = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(REBUILD_QUERY, resultSet -> {
+            if (resultSet.getString("currency") == null || resultSet.getBigDecimal("amount") == null) {
+                return;
+            }
+            var currency = Currency.valueOf(resultSet.getString("currency"));
+            var currencyWindows = windows.computeIfAbsent(new WindowKey(resultSet.getLong("sender_id"), currency), key -> new CurrencyWindows());
+            var createdAt = resultSet.getTimestamp("created_date").getTime();
+            currencyWindows.transfers.add(createdAt, 1);
+            currencyWindows.amounts.add(createdAt, toMinorUnits(resultSet.getBigDecimal("amount"), currency));
+            rows.incrementAndGet();
+        }, from, to));
+        log.info("Rebuilt {} transfer limit windows from {} transfers", windows.size(), rows.get());
+    }
+
+    /**
+     * Scheduled task dropping the windows of senders without transfers in a currency in the last 24 hours.
+     */
+    @Scheduled(fixedDelayString = "${omega.limits.eviction-interval-ms:600000}")
+    public void evictIdleUsers() {
+        var now = System.currentTimeMillis();
+        windows.values().removeIf(currencyWindows -> currencyWindows.amounts.sum(now) == 0);
+    }
+
+    private void subtract(Long senderId, Currency currency, BigDecimal amount, long timeMs) {
+        var currencyWindows = windows.get(new WindowKey(senderId, currency));
+        if (currencyWindows == null) {
+            return;
+        }
+        currencyWindows.transfers.subtract(timeMs, 1);
+        currencyWindows.amounts.subtract(timeMs, toMinorUnits(amount, currency));
+    }
+
+    private static long toMinorUnits(BigDecimal amount, Currency currency) {
+        return amount.movePointRight(currency.getMinorUnits()).longValue();
+    }
+
+    /**
+     * A transfer counted against the limits.
+     */
+    public static final class Reservation {
+
+        private final SlidingWindowCounter transfers;
+
+        private final SlidingWindowCounter amounts;
+
+        private final long timeMs;
+
+        private final long minorUnits;
+
+        private boolean released;
+
+        private Reservation(SlidingWindowCounter transfers, SlidingWindowCounter amounts, long timeMs, long minorUnits) {
+            this.transfers = transfers;
+            this.amounts = amounts;
+            this.timeMs = timeMs;
+            this.minorUnits = minorUnits;
+        }
+
+        /**
+         * Takes the transfer back out of the limits. Releasing twice has no effect.
+         */
+        public synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            transfers.subtract(timeMs, 1);
+            amounts.subtract(timeMs, minorUnits);
+        }
+    }
+
+    /**
+     * The sender and currency of a pair of windows. Looking the windows up by both at once, instead of the
+     * currency within the windows of a sender, saves the transfer check a few dependent cache misses.
+     */
+    private static final class WindowKey {
+
+        private final long senderId;
+
+        private final Currency currency;
+
+        private WindowKey(long senderId, Currency currency) {
+            this.senderId = senderId;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            var other = (WindowKey) o;
+            return senderId == other.senderId && currency == other.currency;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(senderId) * 31 + currency.ordinal();
+        }
+    }
+
+    private static final class CurrencyWindows {
+
+        // One-second buckets for the minute, 15-minute buckets for the day
+        private final SlidingWindowCounter transfers = new SlidingWindowCounter(MINUTE.toMillis(), 60);
+
+        private final SlidingWindowCounter amounts = new SlidingWindowCounter(DAY.toMillis(), 96);
+    }
+}
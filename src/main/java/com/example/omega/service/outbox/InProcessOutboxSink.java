@@ -0,0 +1,27 @@
+package com.example.omega.service.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes every message as an application event, for {@code @EventListener}s of {@link OutboxMessage} in this node.
+ * A listener that throws fails the batch, which is then delivered again.
+ */
+@Component
+@ConditionalOnProperty(name = "omega.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public InProcessOutboxSink(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        messages.forEach(applicationEventPublisher::publishEvent);
+    }
+}
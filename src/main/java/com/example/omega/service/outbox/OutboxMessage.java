@@ -0,0 +1,29 @@
+package com.example.omega.service.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * An outbox event as it is handed to an {@link OutboxSink}. The payload is already JSON and is
+ * written as is when the message is serialized.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class OutboxMessage {
+
+    private final Long id;
+
+    private final Long aggregateId;
+
+    private final String eventType;
+
+    @JsonRawValue
+    private final String payload;
+
+    private final Instant createdDate;
+}
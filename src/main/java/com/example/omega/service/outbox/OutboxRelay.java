@@ -0,0 +1,180 @@
+package com.example.omega.service.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the outbox events to the {@link OutboxSink} in batches, at least once and in order per account.
+ * <p>
+ * Accounts are spread over a fixed number of partitions. A round takes each partition in its own database
+ * transaction: it reads the oldest events, hands them to the sink and deletes them. If the sink fails, the
+ * transaction rolls back and the same events are delivered again in the next round. On PostgreSQL a
+ * partition is claimed with a transaction-scoped advisory lock, so relays on several nodes work on different
+ * partitions and never deliver the events of one account out of order; the rows are also read with
+ * {@code SKIP LOCKED}, so a relay never waits for another one. Only events older than the settle lag are
+ * read, so an event whose transaction is still committing can't be overtaken by a later one of its account.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    /**
+     * First key of the advisory locks, the second one is the partition.
+     */
+    private static final int ADVISORY_LOCK_KEY = 0x6f627872;
+
+    private static final String SELECT_BATCH = "select id, aggregate_id, event_type, payload, created_date from outbox_event " +
+            "where mod(aggregate_id, ?) = ? and created_date < ? order by created_date, id fetch first ? rows only for update";
+
+    private static final RowMapper<OutboxMessage> MESSAGE_MAPPER = (resultSet, rowNum) -> new OutboxMessage(
+            resultSet.getLong("id"),
+            resultSet.getLong("aggregate_id"),
+            resultSet.getString("event_type"),
+            resultSet.getString("payload"),
+            resultSet.getTimestamp("created_date").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutboxSink outboxSink;
+
+    private final int batchSize;
+
+    private final int partitions;
+
+    private final Duration settleLag;
+
+    private final Timer deliveryLag;
+
+    private final Counter publishedEvents;
+
+    private final Counter failedBatches;
+
+    private final AtomicLong oldestEventAgeMs = new AtomicLong();
+
+    private Boolean postgres;
+
+    public OutboxRelay(DataSource dataSource,
+                       PlatformTransactionManager transactionManager,
+                       OutboxSink outboxSink,
+                       MeterRegistry meterRegistry,
+                       @Value("${omega.outbox.batch-size:500}") int batchSize,
+                       @Value("${omega.outbox.partitions:8}") int partitions,
+                       @Value("${omega.outbox.settle-lag-ms:1000}") long settleLagMs) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxSink = outboxSink;
+        this.batchSize = batchSize;
+        this.partitions = partitions;
+        this.settleLag = Duration.ofMillis(settleLagMs);
+
+        this.deliveryLag = Timer.builder("omega.outbox.lag")
+                .description("Time from writing an event to delivering it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.publishedEvents = meterRegistry.counter("omega.outbox.published");
+        this.failedBatches = meterRegistry.counter("omega.outbox.failed");
+        meterRegistry.gauge("omega.outbox.oldest-age-ms", oldestEventAgeMs);
+    }
+
+    /**
+     * Scheduled task delivering every settled event, partition by partition.
+     *
+     * @return The number of delivered events.
+     */
+    @Scheduled(fixedDelayString = "${omega.outbox.poll-interval-ms:200}")
+    public int relay() {
+        var published = 0;
+        for (var partition = 0; partition < partitions; partition++) {
+            int batch;
+            do {
+                batch = relayBatch(partition);
+                published += batch;
+            } while (batch == batchSize);
+        }
+        updateOldestEventAge();
+        return published;
+    }
+
+    private int relayBatch(int partition) {
+        try {
+            var published = transactionTemplate.execute(status -> {
+                if (isPostgres() && !claim(partition)) {
+                    return 0;
+                }
+
+                var messages = jdbcTemplate.query(isPostgres() ? SELECT_BATCH + " skip locked" : SELECT_BATCH, MESSAGE_MAPPER,
+                        partitions, partition, Timestamp.from(Instant.now().minus(settleLag)), batchSize);
+                if (messages.isEmpty()) {
+                    return 0;
+                }
+
+                try {
+                    outboxSink.publish(messages);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                jdbcTemplate.batchUpdate("delete from outbox_event where id = ?", messages.stream()
+                        .map(message -> new Object[]{message.getId()})
+                        .collect(Collectors.toList()));
+
+                var now = System.currentTimeMillis();
+                for (var message : messages) {
+                    deliveryLag.record(Duration.ofMillis(Math.max(0, now - message.getCreatedDate().toEpochMilli())));
+                }
+                return messages.size();
+            });
+            if (published != null && published > 0) {
+                publishedEvents.increment(published);
+                log.debug("Relayed {} outbox events of partition {}", published, partition);
+            }
+            return published == null ? 0 : published;
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.warn("Couldn't relay the outbox events of partition {}, retrying in the next round: {}", partition, e.getMessage());
+            return 0;
+        }
+    }
+
+    private boolean claim(int partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?, ?)", Boolean.class,
+                ADVISORY_LOCK_KEY, partition));
+    }
+
+    private void updateOldestEventAge() {
+        try {
+            var oldest = jdbcTemplate.queryForObject("select min(created_date) from outbox_event", Timestamp.class);
+            oldestEventAgeMs.set(oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTime()));
+        } catch (RuntimeException e) {
+            log.debug("Couldn't read the age of the oldest outbox event: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        }
+        return postgres;
+    }
+}
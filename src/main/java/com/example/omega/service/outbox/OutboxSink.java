@@ -0,0 +1,22 @@
+package com.example.omega.service.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination the {@link OutboxRelay} delivers events to. Exactly one sink is active, selected with {@code omega.outbox.sink}.
+ * <p>
+ * A batch counts as delivered only if {@link #publish} returns normally. A batch that fails is delivered
+ * again, possibly after part of it was already received, so consumers must tolerate duplicates and
+ * can deduplicate by the message ID.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers a batch of messages, oldest first per account.
+     *
+     * @param messages The messages.
+     * @throws IOException If the batch couldn't be delivered completely.
+     */
+    void publish(List<OutboxMessage> messages) throws IOException;
+}
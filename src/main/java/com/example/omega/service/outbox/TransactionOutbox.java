@@ -0,0 +1,67 @@
+package com.example.omega.service.outbox;
+
+import com.example.omega.domain.OutboxEvent;
+import com.example.omega.repository.OutboxEventRepository;
+import com.example.omega.service.dto.TransactionDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes an outbox event for every transaction that was created or reached a status downstream
+ * systems care about. The event is inserted in the transaction that made the change, so it exists
+ * if and only if the change was committed. Events are keyed by the sending account.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionOutbox {
+
+    private static final String EVENT_TYPE_PREFIX = "transaction.";
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Adds an event with the current state of the transaction.
+     *
+     * @param transactionDTO The transaction, with its new status.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(TransactionDTO transactionDTO) {
+        outboxEventRepository.save(toEvent(transactionDTO, Instant.now()));
+    }
+
+    /**
+     * Adds an event with the current state of every transaction, in order.
+     *
+     * @param transactionDTOs The transactions, with their new status.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<TransactionDTO> transactionDTOs) {
+        var createdDate = Instant.now();
+        outboxEventRepository.saveAll(transactionDTOs.stream()
+                .map(transactionDTO -> toEvent(transactionDTO, createdDate))
+                .toList());
+    }
+
+    private OutboxEvent toEvent(TransactionDTO transactionDTO, Instant createdDate) {
+        try {
+            return OutboxEvent.builder()
+                    .aggregateId(transactionDTO.getSenderId())
+                    .eventType(EVENT_TYPE_PREFIX + transactionDTO.getTransactionStatus().name().toLowerCase(Locale.ROOT))
+                    .payload(objectMapper.writeValueAsString(transactionDTO))
+                    .createdDate(createdDate)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Couldn't serialize Transaction: " + transactionDTO.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.omega.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts every batch as one JSON array to a webhook. Any response other than 2xx fails the batch.
+ */
+@Component
+@ConditionalOnProperty(name = "omega.outbox.sink", havingValue = "webhook")
+public class WebhookOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+
+    private final URI url;
+
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+
+    public WebhookOutboxSink(ObjectMapper objectMapper,
+                             @Value("${omega.outbox.webhook.url}") String url,
+                             @Value("${omega.outbox.webhook.timeout-ms:5000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.url = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) throws IOException {
+        var request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(messages)))
+                .build();
+
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while posting to " + url, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook " + url + " answered with status " + response.statusCode());
+        }
+    }
+}
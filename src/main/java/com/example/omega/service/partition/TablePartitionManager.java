@@ -0,0 +1,169 @@
+package com.example.omega.service.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the transaction tables on PostgreSQL.
+ * <p>
+ * Partitions are created a few months ahead, so new rows never land in the default partition. Partitions
+ * that only hold months older than the archive age are detached and moved to the archive schema. The data
+ * of an archived month stays available to be dumped or dropped, but queries on the live tables don't
+ * read it anymore. On other databases, or before the tables were partitioned, nothing is done.
+ */
+@Slf4j
+@Component
+public class TablePartitionManager {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("transaction", "transaction_state_history");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("_(\\d{4}_\\d{2})$");
+
+    private static final String PARTITIONS_QUERY =
+            "select c.relname from pg_inherits i " +
+                    "join pg_class c on c.oid = i.inhrelid " +
+                    "join pg_class p on p.oid = i.inhparent " +
+                    "join pg_namespace n on n.oid = p.relnamespace " +
+                    "where p.relname = ? and n.nspname = current_schema() order by c.relname";
+
+    private static final String IS_PARTITIONED_QUERY =
+            "select count(*) from pg_partitioned_table pt " +
+                    "join pg_class c on c.oid = pt.partrelid " +
+                    "join pg_namespace n on n.oid = c.relnamespace " +
+                    "where c.relname = ? and n.nspname = current_schema()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final int monthsAhead;
+
+    private final int archiveAfterMonths;
+
+    private final String archiveSchema;
+
+    private volatile Boolean postgres;
+
+    @Autowired
+    public TablePartitionManager(DataSource dataSource,
+                                 @Value("${omega.partitioning.enabled:true}") boolean enabled,
+                                 @Value("${omega.partitioning.months-ahead:3}") int monthsAhead,
+                                 @Value("${omega.partitioning.archive-after-months:24}") int archiveAfterMonths,
+                                 @Value("${omega.partitioning.archive-schema:archive}") String archiveSchema) {
+        this(new JdbcTemplate(dataSource), enabled, monthsAhead, archiveAfterMonths, archiveSchema);
+    }
+
+    TablePartitionManager(JdbcTemplate jdbcTemplate, boolean enabled, int monthsAhead, int archiveAfterMonths, String archiveSchema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.archiveAfterMonths = archiveAfterMonths;
+        this.archiveSchema = archiveSchema;
+    }
+
+    /**
+     * Scheduled task creating future partitions and archiving cold ones.
+     */
+    @Scheduled(fixedDelayString = "${omega.partitioning.interval-ms:3600000}")
+    public void maintainPartitions() {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+
+        var currentMonth = YearMonth.now(ZoneOffset.UTC);
+        for (var table : PARTITIONED_TABLES) {
+            if (!isPartitioned(table)) {
+                log.debug("Table {} isn't partitioned, skipping its partition maintenance", table);
+                continue;
+            }
+            createPartitions(table, currentMonth);
+            if (archiveAfterMonths > 0) {
+                archivePartitions(table, currentMonth.minusMonths(archiveAfterMonths));
+            }
+        }
+    }
+
+    private void createPartitions(String table, YearMonth currentMonth) {
+        for (var month = currentMonth; !month.isAfter(currentMonth.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            try {
+                var created = jdbcTemplate.queryForObject("select create_monthly_partition(?, ?)", Boolean.class,
+                        table, month.atDay(1));
+                if (Boolean.TRUE.equals(created)) {
+                    log.info("Created partition {}", partitionName(table, month));
+                }
+            } catch (DataAccessException e) {
+                // Another node may have created it at the same time
+                log.warn("Couldn't create partition {}: {}", partitionName(table, month), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detaches every monthly partition of the table that ends before the given month and moves it to the archive schema.
+     */
+    private void archivePartitions(String table, YearMonth oldestLiveMonth) {
+        for (var partition : jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class, table)) {
+            var month = monthOf(table, partition);
+            if (month == null || !month.isBefore(oldestLiveMonth)) {
+                continue;
+            }
+
+            try {
+                jdbcTemplate.execute("alter table " + table + " detach partition " + partition);
+                jdbcTemplate.execute("alter table " + partition + " set schema " + archiveSchema);
+                log.info("Archived partition {} to schema {}", partition, archiveSchema);
+            } catch (DataAccessException e) {
+                log.warn("Couldn't archive partition {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        var count = jdbcTemplate.queryForObject(IS_PARTITIONED_QUERY, Long.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        }
+        return postgres;
+    }
+
+    private static String partitionName(String table, YearMonth month) {
+        return table + "_" + month.atDay(1).format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * Returns the month a partition of the table holds, or {@code null} for the default partition, partitions
+     * of other tables that happen to share the prefix and names that aren't a valid month.
+     */
+    static YearMonth monthOf(String table, String partition) {
+        var matcher = MONTHLY_PARTITION.matcher(partition);
+        if (!matcher.find() || !partition.equals(table + matcher.group())) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(matcher.group(1), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.omega.service.pipeline;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.idempotency.IdempotencyKeyStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged transfer pipeline: a transfer is acknowledged as PENDING right away and a bounded pool of
+ * workers moves it through PROCESSING to SUCCESSFUL or FAILED. The number of transfers that are
+ * accepted but not finished is capped, so a slow settlement pushes back on callers instead of
+ * growing the queue without limit.
+ * <p>
+ * On startup the transfers left unfinished by the last shutdown are requeued on a separate thread,
+ * which waits for capacity instead of holding up the startup of the application.
+ */
+@Slf4j
+@Component
+public class TransferPipeline {
+
+    private final TransactionService transactionService;
+
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
+    private final ExecutorService workers;
+
+    private final Semaphore capacity;
+
+    private final Timer acceptTimer;
+
+    private final Timer queueTimer;
+
+    private final Timer processingTimer;
+
+    private final Timer settlementTimer;
+
+    private volatile Thread recovery;
+
+    public TransferPipeline(TransactionService transactionService,
+                            IdempotencyKeyStore idempotencyKeyStore,
+                            MeterRegistry meterRegistry,
+                            @Value("${omega.transfer.pipeline.workers:8}") int workerCount,
+                            @Value("${omega.transfer.pipeline.capacity:10000}") int capacity) {
+        this.transactionService = transactionService;
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.capacity = new Semaphore(capacity);
+
+        var threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "transfer-pipeline-" + threadNumber.incrementAndGet()));
+
+        this.acceptTimer = stageTimer(meterRegistry, "accept");
+        this.queueTimer = stageTimer(meterRegistry, "queue");
+        this.processingTimer = stageTimer(meterRegistry, "processing");
+        this.settlementTimer = stageTimer(meterRegistry, "settlement");
+        meterRegistry.gauge("omega.transfer.pipeline.in-flight", this.capacity, semaphore -> capacity - semaphore.availablePermits());
+    }
+
+    /**
+     * Accept a transfer and queue it for settlement. A repeated idempotency key returns the
+     * transaction accepted by the first request and doesn't queue anything.
+     *
+     * @param transactionDTO The TransactionDTO describing the transfer.
+     * @param idempotencyKey The Idempotency-Key sent by the client, or {@code null}.
+     * @return A TransactionDTO representing the pending transaction.
+     * @throws BadRequestException If the transfer is invalid or the pipeline is full.
+     */
+    public TransactionDTO submit(TransactionDTO transactionDTO, String idempotencyKey) {
+        return idempotencyKeyStore.execute(transactionDTO.getSenderId(), idempotencyKey,
+                () -> accept(transactionDTO, idempotencyKey),
+                transactionService::getTransactionById);
+    }
+
+    /**
+     * Requeue every transaction that was accepted or picked up before the last shutdown, in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnfinishedTransfers() {
+        recovery = new Thread(this::recover, "transfer-pipeline-recovery");
+        recovery.start();
+    }
+
+    /**
+     * Requeues the unfinished transactions, waiting for capacity whenever the pipeline is full.
+     * Transactions that were already PROCESSING go straight to settlement.
+     */
+    void recover() {
+        var pending = transactionService.findTransactionIds(TransactionStatus.PENDING);
+        var processing = transactionService.findTransactionIds(TransactionStatus.PROCESSING);
+        if (pending.isEmpty() && processing.isEmpty()) {
+            return;
+        }
+
+        log.info("Recovering {} pending and {} processing transfers", pending.size(), processing.size());
+        try {
+            for (var transactionId : processing) {
+                capacity.acquire();
+                enqueue(transactionId, true);
+            }
+            for (var transactionId : pending) {
+                capacity.acquire();
+                enqueue(transactionId, false);
+            }
+        } catch (InterruptedException e) {
+            log.info("Stopped recovering transfers, the rest will be recovered on restart");
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            capacity.release();
+            log.info("Stopped recovering transfers on shutdown, the rest will be recovered on restart");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        var recoveryThread = recovery;
+        if (recoveryThread != null) {
+            recoveryThread.interrupt();
+            recoveryThread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Transfer pipeline didn't drain in time, unfinished transfers will be recovered on restart");
+            workers.shutdownNow();
+        }
+    }
+
+    private TransactionDTO accept(TransactionDTO transactionDTO, String idempotencyKey) {
+        if (!capacity.tryAcquire()) {
+            throw new BadRequestException("Too many transfers are being processed, try again later!", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        TransactionDTO pendingTransaction;
+        try {
+            pendingTransaction = acceptTimer.record(() -> transactionService.acceptTransfer(transactionDTO, idempotencyKey));
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+
+        if (pendingTransaction.getTransactionStatus() != TransactionStatus.PENDING) {
+            // Held for review, it's settled when an admin approves it
+            capacity.release();
+            return pendingTransaction;
+        }
+        try {
+            enqueue(pendingTransaction.getId(), false);
+        } catch (RejectedExecutionException e) {
+            // The transfer is committed as PENDING, so the client gets it like any accepted transfer
+            capacity.release();
+            log.info("Transaction: {} was accepted while shutting down, it will be recovered on restart", pendingTransaction.getId());
+        }
+        return pendingTransaction;
+    }
+
+    private void enqueue(Long transactionId, boolean alreadyProcessing) {
+        var enqueuedAt = System.nanoTime();
+        workers.execute(() -> {
+            queueTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                process(transactionId, alreadyProcessing);
+            } finally {
+                capacity.release();
+            }
+        });
+    }
+
+    private void process(Long transactionId, boolean alreadyProcessing) {
+        try {
+            if (!alreadyProcessing) {
+                var startedAt = System.nanoTime();
+                if (!transactionService.startProcessing(transactionId)) {
+                    log.info("Transaction: {} isn't PENDING anymore, skipping it", transactionId);
+                    return;
+                }
+                processingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+            var settled = settlementTimer.record(() -> transactionService.settleTransfer(transactionId));
+            log.debug("Transaction: {} {}", transactionId, Boolean.TRUE.equals(settled) ? "settled" : "was already settled");
+        } catch (BadRequestException e) {
+            log.debug("Transaction: {} failed: {}", transactionId, e.getMessage());
+            transactionService.failTransfer(transactionId);
+        } catch (RuntimeException e) {
+            log.error("Transaction: {} couldn't be processed and will be recovered on restart: {}", transactionId, e.getMessage());
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("omega.transfer.pipeline.stage")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
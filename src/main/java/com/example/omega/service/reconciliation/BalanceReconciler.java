@@ -0,0 +1,352 @@
+package com.example.omega.service.reconciliation;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.JournalEntryType;
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks that every stored account balance matches its journal: the latest snapshot of the account
+ * plus the entries posted since.
+ * <p>
+ * The user ID space is split into fixed ranges that a fork/join pool works through in parallel. Each range
+ * is read in its own short read-only transaction with repeatable-read isolation. Balances and journal
+ * entries are written in the same transaction, so the range sees both or neither of a concurrent transfer
+ * and transfers don't have to stop while the job runs. The journal entries of a range are streamed, so
+ * memory stays bounded by the accounts of one range. With a replica configured, the ranges are read from it.
+ * A range that fails is counted and skipped. Discrepancies are only reported;
+ * {@code POST /ledger/accounts/{userId}/{currency}/rebuild} repairs an account.
+ */
+@Slf4j
+@Service
+public class BalanceReconciler {
+
+    private static final String STORED_BALANCES_QUERY = "select user_id, currency, sum(balance) as balance, " +
+            "max(case when shard = 0 then id end) as primary_id from account_balance " +
+            "where user_id >= ? and user_id < ? group by user_id, currency";
+
+    private static final String LATEST_SNAPSHOTS_QUERY = "select s.account_balance_id, s.balance, s.covered_until " +
+            "from balance_snapshot s join account_balance a on a.id = s.account_balance_id " +
+            "where a.user_id >= ? and a.user_id < ? and a.shard = 0 and s.covered_until = " +
+            "(select max(l.covered_until) from balance_snapshot l where l.account_balance_id = s.account_balance_id)";
+
+    private static final String JOURNAL_ENTRIES_QUERY = "select e.account_balance_id, e.entry_type, e.amount, e.created_date " +
+            "from journal_entry e join account_balance a on a.id = e.account_balance_id " +
+            "where a.user_id >= ? and a.user_id < ? and a.shard = 0 and e.created_date >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long rangeSize;
+
+    private final int parallelism;
+
+    private final int maxReportedDiscrepancies;
+
+    private final Counter checkedAccounts;
+
+    private final Counter foundDiscrepancies;
+
+    private final Timer rangeTimer;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "balance-reconciliation"));
+
+    private final AtomicReference<Run> currentRun = new AtomicReference<>();
+
+    public BalanceReconciler(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${omega.reconciliation.range-size:10000}") long rangeSize,
+                             @Value("${omega.reconciliation.parallelism:4}") int parallelism,
+                             @Value("${omega.reconciliation.fetch-size:5000}") int fetchSize,
+                             @Value("${omega.reconciliation.range-timeout-seconds:60}") int rangeTimeoutSeconds,
+                             @Value("${omega.reconciliation.max-reported-discrepancies:1000}") int maxReportedDiscrepancies) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setTimeout(rangeTimeoutSeconds);
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.maxReportedDiscrepancies = maxReportedDiscrepancies;
+
+        this.checkedAccounts = meterRegistry.counter("omega.reconciliation.accounts");
+        this.foundDiscrepancies = meterRegistry.counter("omega.reconciliation.discrepancies");
+        this.rangeTimer = Timer.builder("omega.reconciliation.range")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("omega.reconciliation.progress", currentRun, run -> run.get() == null ? 0 : run.get().progress());
+    }
+
+    /**
+     * Starts a reconciliation run in the background.
+     *
+     * @return The report of the run that was just started.
+     * @throws BadRequestException If a run is in progress.
+     */
+    public ReconciliationReport start() {
+        var run = begin();
+        runner.execute(() -> execute(run));
+        return run.report();
+    }
+
+    /**
+     * Reconciles every account and waits for the result.
+     *
+     * @return The report of the finished run.
+     * @throws BadRequestException If a run is in progress.
+     */
+    public ReconciliationReport reconcile() {
+        var run = begin();
+        execute(run);
+        return run.report();
+    }
+
+    /**
+     * @return The report of the running or latest run, if there was one since this node started.
+     */
+    public Optional<ReconciliationReport> getLatestReport() {
+        return Optional.ofNullable(currentRun.get()).map(Run::report);
+    }
+
+    /**
+     * Scheduled run, for example in a nightly maintenance window. Disabled unless {@code omega.reconciliation.cron} is set.
+     */
+    @Scheduled(cron = "${omega.reconciliation.cron:-}")
+    public void scheduledRun() {
+        try {
+            reconcile();
+        } catch (BadRequestException e) {
+            log.info("Skipping the scheduled reconciliation: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private Run begin() {
+        var previous = currentRun.get();
+        if (previous != null && previous.status == ReconciliationReport.Status.RUNNING) {
+            throw new BadRequestException("A reconciliation is already running!", HttpStatus.CONFLICT);
+        }
+        var run = new Run();
+        if (!currentRun.compareAndSet(previous, run)) {
+            throw new BadRequestException("A reconciliation is already running!", HttpStatus.CONFLICT);
+        }
+        return run;
+    }
+
+    private void execute(Run run) {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            var bounds = jdbcTemplate.queryForMap("select min(user_id) as min_id, max(user_id) as max_id from account_balance");
+            if (bounds.get("min_id") != null) {
+                // Every account with entries before a snapshot round got a snapshot in it, so an account
+                // without one has no entries before the latest round that had finished when the run started
+                var lastRound = jdbcTemplate.queryForObject("select max(covered_until) from balance_snapshot", Timestamp.class);
+                run.lastSnapshotRound = lastRound == null ? Instant.EPOCH : lastRound.toInstant();
+                run.firstUserId = ((Number) bounds.get("min_id")).longValue();
+                var span = ((Number) bounds.get("max_id")).longValue() - run.firstUserId + 1;
+                run.totalRanges = (int) ((span + rangeSize - 1) / rangeSize);
+                log.info("Reconciling the account balances of users {} to {} in {} ranges",
+                        run.firstUserId, bounds.get("max_id"), run.totalRanges);
+                pool.invoke(new RangeTask(run, 0, run.totalRanges));
+            }
+            run.finish(ReconciliationReport.Status.COMPLETED);
+            log.info("Reconciled {} accounts in {} ranges, found {} discrepancies and {} failed ranges",
+                    run.accountsChecked.get(), run.completedRanges.get(), run.discrepancyCount.get(), run.failedRanges.get());
+        } catch (RuntimeException e) {
+            run.finish(ReconciliationReport.Status.FAILED);
+            log.error("Reconciliation failed: {}", e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void reconcileRange(Run run, long fromUserId, long toUserId) {
+        var startedAt = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> compareRange(run, fromUserId, toUserId));
+            run.completedRanges.incrementAndGet();
+        } catch (RuntimeException e) {
+            run.failedRanges.incrementAndGet();
+            log.warn("Couldn't reconcile the accounts of users {} to {}: {}", fromUserId, toUserId - 1, e.getMessage());
+        } finally {
+            rangeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void compareRange(Run run, long fromUserId, long toUserId) {
+        var accounts = new HashMap<Long, Account>();
+        jdbcTemplate.query(STORED_BALANCES_QUERY, resultSet -> {
+            var account = new Account(resultSet.getLong("user_id"), Currency.valueOf(resultSet.getString("currency")),
+                    resultSet.getBigDecimal("balance"));
+            accounts.put(resultSet.getLong("primary_id"), account);
+        }, fromUserId, toUserId);
+        if (accounts.isEmpty()) {
+            return;
+        }
+
+        var entriesFrom = run.lastSnapshotRound;
+        var snapshotsUntil = new HashMap<Long, Instant>();
+        jdbcTemplate.query(LATEST_SNAPSHOTS_QUERY, resultSet -> {
+            var account = accounts.get(resultSet.getLong("account_balance_id"));
+            if (account != null) {
+                account.journalBalance = resultSet.getBigDecimal("balance");
+                snapshotsUntil.put(resultSet.getLong("account_balance_id"), resultSet.getTimestamp("covered_until").toInstant());
+            }
+        }, fromUserId, toUserId);
+        for (var coveredUntil : snapshotsUntil.values()) {
+            if (coveredUntil.isBefore(entriesFrom)) {
+                entriesFrom = coveredUntil;
+            }
+        }
+
+        jdbcTemplate.query(JOURNAL_ENTRIES_QUERY, resultSet -> {
+            var accountBalanceId = resultSet.getLong("account_balance_id");
+            var account = accounts.get(accountBalanceId);
+            var coveredUntil = snapshotsUntil.get(accountBalanceId);
+            if (account == null || coveredUntil != null && resultSet.getTimestamp("created_date").toInstant().isBefore(coveredUntil)) {
+                return;
+            }
+            var amount = resultSet.getBigDecimal("amount");
+            account.journalBalance = JournalEntryType.CREDIT.name().equals(resultSet.getString("entry_type"))
+                    ? account.journalBalance.add(amount)
+                    : account.journalBalance.subtract(amount);
+        }, fromUserId, toUserId, Timestamp.from(entriesFrom));
+
+        accounts.forEach((accountBalanceId, account) -> {
+            if (account.storedBalance.compareTo(account.journalBalance) != 0) {
+                run.addDiscrepancy(new Discrepancy(account.userId, account.currency, accountBalanceId,
+                        account.storedBalance, account.journalBalance));
+            }
+        });
+        run.accountsChecked.addAndGet(accounts.size());
+        checkedAccounts.increment(accounts.size());
+    }
+
+    /**
+     * Reconciles the ranges with the given indexes, splitting them in halves down to single ranges.
+     */
+    @AllArgsConstructor
+    private final class RangeTask extends RecursiveAction {
+
+        private final transient Run run;
+
+        private final int fromRange;
+
+        private final int toRange;
+
+        @Override
+        protected void compute() {
+            if (toRange - fromRange == 1) {
+                var fromUserId = run.firstUserId + fromRange * rangeSize;
+                reconcileRange(run, fromUserId, fromUserId + rangeSize);
+                return;
+            }
+            var middle = fromRange + (toRange - fromRange) / 2;
+            invokeAll(new RangeTask(run, fromRange, middle), new RangeTask(run, middle, toRange));
+        }
+    }
+
+    private final class Run {
+
+        private final Instant startedAt = Instant.now();
+
+        private final AtomicInteger completedRanges = new AtomicInteger();
+
+        private final AtomicInteger failedRanges = new AtomicInteger();
+
+        private final AtomicLong accountsChecked = new AtomicLong();
+
+        private final AtomicLong discrepancyCount = new AtomicLong();
+
+        private final Queue<Discrepancy> discrepancies = new ConcurrentLinkedQueue<>();
+
+        private volatile ReconciliationReport.Status status = ReconciliationReport.Status.RUNNING;
+
+        private volatile Instant finishedAt;
+
+        private volatile long firstUserId;
+
+        private volatile Instant lastSnapshotRound = Instant.EPOCH;
+
+        private volatile int totalRanges;
+
+        private void addDiscrepancy(Discrepancy discrepancy) {
+            foundDiscrepancies.increment();
+            log.warn("Account balance: {} of User: {} is {} {} but the journal says {}", discrepancy.getAccountBalanceId(),
+                    discrepancy.getUserId(), discrepancy.getStoredBalance(), discrepancy.getCurrency(), discrepancy.getJournalBalance());
+            if (discrepancyCount.incrementAndGet() <= maxReportedDiscrepancies) {
+                discrepancies.add(discrepancy);
+            }
+        }
+
+        private void finish(ReconciliationReport.Status finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        private double progress() {
+            var total = totalRanges;
+            return total == 0 ? 0 : (double) (completedRanges.get() + failedRanges.get()) / total;
+        }
+
+        private ReconciliationReport report() {
+            return new ReconciliationReport(status, startedAt, finishedAt, totalRanges, completedRanges.get(), failedRanges.get(),
+                    accountsChecked.get(), discrepancyCount.get(), List.copyOf(discrepancies));
+        }
+    }
+
+    private static final class Account {
+
+        private final Long userId;
+
+        private final Currency currency;
+
+        private final BigDecimal storedBalance;
+
+        private BigDecimal journalBalance = BigDecimal.ZERO;
+
+        private Account(Long userId, Currency currency, BigDecimal storedBalance) {
+            this.userId = userId;
+            this.currency = currency;
+            this.storedBalance = storedBalance;
+        }
+    }
+}
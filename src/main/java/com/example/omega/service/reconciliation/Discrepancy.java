@@ -0,0 +1,31 @@
+package com.example.omega.service.reconciliation;
+
+import com.example.omega.domain.enumeration.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * An account whose stored balance, summed over its shards, differs from the balance its journal adds up to.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class Discrepancy {
+
+    private final Long userId;
+
+    private final Currency currency;
+
+    private final Long accountBalanceId;
+
+    private final BigDecimal storedBalance;
+
+    private final BigDecimal journalBalance;
+
+    public BigDecimal getDifference() {
+        return storedBalance.subtract(journalBalance);
+    }
+}
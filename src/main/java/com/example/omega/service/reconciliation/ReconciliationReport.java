@@ -0,0 +1,39 @@
+package com.example.omega.service.reconciliation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress and outcome of a reconciliation run. Only the first discrepancies are listed, all of them are counted.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class ReconciliationReport {
+
+    private final Status status;
+
+    private final Instant startedAt;
+
+    private final Instant finishedAt;
+
+    private final int totalRanges;
+
+    private final int completedRanges;
+
+    private final int failedRanges;
+
+    private final long accountsChecked;
+
+    private final long discrepancyCount;
+
+    private final List<Discrepancy> discrepancies;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+}
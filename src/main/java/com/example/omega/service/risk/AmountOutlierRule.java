@@ -0,0 +1,42 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.service.dto.TransactionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Scores a transfer whose amount is far above the median of the sender's recent amounts in the same currency.
+ */
+@Component
+public class AmountOutlierRule implements RiskRule {
+
+    private final int points;
+
+    private final BigDecimal multiplier;
+
+    private final int minSamples;
+
+    public AmountOutlierRule(@Value("${omega.risk.amount-outlier.points:50}") int points,
+                             @Value("${omega.risk.amount-outlier.multiplier:10}") BigDecimal multiplier,
+                             @Value("${omega.risk.amount-outlier.min-samples:5}") int minSamples) {
+        this.points = points;
+        this.multiplier = multiplier;
+        this.minSamples = minSamples;
+    }
+
+    @Override
+    public String getName() {
+        return "amount-outlier";
+    }
+
+    @Override
+    public int score(TransactionDTO transfer, UserRiskProfile profile, long now) {
+        if (profile.getAmountSamples(transfer.getCurrency()) < minSamples) {
+            return 0;
+        }
+        var median = profile.getMedianAmount(transfer.getCurrency());
+        return transfer.getAmount().compareTo(median.multiply(multiplier)) > 0 ? points : 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.service.dto.TransactionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores a transfer to a recipient the sender hasn't sent money to recently. Senders with too little
+ * history are skipped, since every recipient would be new to them.
+ */
+@Component
+public class NewRecipientRule implements RiskRule {
+
+    private final int points;
+
+    private final int minHistory;
+
+    public NewRecipientRule(@Value("${omega.risk.new-recipient.points:30}") int points,
+                            @Value("${omega.risk.new-recipient.min-history:3}") int minHistory) {
+        this.points = points;
+        this.minHistory = minHistory;
+    }
+
+    @Override
+    public String getName() {
+        return "new-recipient";
+    }
+
+    @Override
+    public int score(TransactionDTO transfer, UserRiskProfile profile, long now) {
+        if (profile.getTransferCount() < minHistory || profile.hasSentTo(transfer.getRecipientId())) {
+            return 0;
+        }
+        return points;
+    }
+}
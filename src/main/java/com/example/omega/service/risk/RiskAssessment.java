@@ -0,0 +1,22 @@
+package com.example.omega.service.risk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * The result of scoring a transfer: the total points, the rules that scored and whether the transfer is held for review.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class RiskAssessment {
+
+    private final int score;
+
+    private final List<String> triggeredRules;
+
+    private final boolean flagged;
+}
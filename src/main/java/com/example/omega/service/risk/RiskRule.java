@@ -0,0 +1,27 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.service.dto.TransactionDTO;
+
+/**
+ * A rule of the {@link RiskScorer}. Every rule bean is picked up automatically.
+ * <p>
+ * Rules run on the transfer path while the sender's profile is locked, so they must only read the
+ * profile and must not block.
+ */
+public interface RiskRule {
+
+    /**
+     * @return The name of the rule, used in assessments and as the {@code rule} tag of its timer.
+     */
+    String getName();
+
+    /**
+     * Scores a transfer against the sender's recent activity.
+     *
+     * @param transfer The transfer, already validated.
+     * @param profile  The rolling statistics of the sender, empty for a sender without committed transfers.
+     * @param now      The current time in milliseconds.
+     * @return The points the transfer scores, or 0 if the rule doesn't apply.
+     */
+    int score(TransactionDTO transfer, UserRiskProfile profile, long now);
+}
@@ -0,0 +1,153 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.ledger.LedgerTransfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores transfers with every {@link RiskRule} bean before any money moves. A transfer whose points
+ * reach the review threshold is held for review instead of being completed.
+ * <p>
+ * Rules only read a {@link UserRiskProfile} kept in memory per sender, so scoring never touches the
+ * database. Profiles are updated incrementally once a transfer commits and start empty on every node,
+ * which means a sender's first transfers after a restart are compared against less history.
+ * Every rule is timed on its own, next to the time of the whole assessment.
+ */
+@Slf4j
+@Service
+public class RiskScorer {
+
+    private final List<RiskRule> rules;
+
+    private final Timer[] ruleTimers;
+
+    private final Timer assessmentTimer;
+
+    private final Counter flaggedTransfers;
+
+    private final boolean enabled;
+
+    private final int reviewThreshold;
+
+    private final Duration profileIdleTime;
+
+    private final Map<Long, UserRiskProfile> profiles = new ConcurrentHashMap<>();
+
+    public RiskScorer(List<RiskRule> rules,
+                      MeterRegistry meterRegistry,
+                      @Value("${omega.risk.enabled:true}") boolean enabled,
+                      @Value("${omega.risk.review-threshold:70}") int reviewThreshold,
+                      @Value("${omega.risk.profile-idle-hours:720}") long profileIdleHours) {
+        this.rules = List.copyOf(rules);
+        this.enabled = enabled;
+        this.reviewThreshold = reviewThreshold;
+        this.profileIdleTime = Duration.ofHours(profileIdleHours);
+
+        this.ruleTimers = new Timer[this.rules.size()];
+        for (var i = 0; i < ruleTimers.length; i++) {
+            ruleTimers[i] = Timer.builder("omega.risk.rule")
+                    .tag("rule", this.rules.get(i).getName())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+        this.assessmentTimer = Timer.builder("omega.risk.assessment")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.flaggedTransfers = meterRegistry.counter("omega.risk.flagged");
+        meterRegistry.gaugeMapSize("omega.risk.profiles", Collections.emptyList(), profiles);
+    }
+
+    /**
+     * Scores a transfer against the sender's recent activity.
+     *
+     * @param transfer The transfer, already validated.
+     * @return The assessment, flagged if the transfer has to be reviewed.
+     */
+    public RiskAssessment assess(TransactionDTO transfer) {
+        if (!enabled || rules.isEmpty()) {
+            return new RiskAssessment(0, List.of(), false);
+        }
+
+        var startedAt = System.nanoTime();
+        var profile = profiles.get(transfer.getSenderId());
+        if (profile == null) {
+            profile = new UserRiskProfile();
+        }
+
+        var now = System.currentTimeMillis();
+        var score = 0;
+        List<String> triggeredRules = List.of();
+        synchronized (profile) {
+            for (var i = 0; i < rules.size(); i++) {
+                var ruleStartedAt = System.nanoTime();
+                var points = rules.get(i).score(transfer, profile, now);
+                ruleTimers[i].record(System.nanoTime() - ruleStartedAt, TimeUnit.NANOSECONDS);
+                if (points > 0) {
+                    if (triggeredRules.isEmpty()) {
+                        triggeredRules = new ArrayList<>();
+                    }
+                    triggeredRules.add(rules.get(i).getName());
+                    score += points;
+                }
+            }
+        }
+
+        var flagged = score >= reviewThreshold;
+        if (flagged) {
+            flaggedTransfers.increment();
+            log.info("Transfer of User: {} to User: {} scored {} by {} and is held for review",
+                    transfer.getSenderId(), transfer.getRecipientId(), score, triggeredRules);
+        }
+        assessmentTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return new RiskAssessment(score, triggeredRules, flagged);
+    }
+
+    /**
+     * Adds a transfer to the sender's profile once the current transaction commits.
+     *
+     * @param transfer The transfer that moved money.
+     */
+    public void record(LedgerTransfer transfer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(transfer);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(transfer);
+            }
+        });
+    }
+
+    /**
+     * Scheduled task dropping the profiles of users without transfers for the idle time.
+     */
+    @Scheduled(fixedDelayString = "${omega.risk.eviction-interval-ms:3600000}")
+    public void evictIdleProfiles() {
+        var idleSince = System.currentTimeMillis() - profileIdleTime.toMillis();
+        profiles.values().removeIf(profile -> profile.getLastTransferAt() < idleSince);
+    }
+
+    private void add(LedgerTransfer transfer) {
+        profiles.computeIfAbsent(transfer.getSenderId(), id -> new UserRiskProfile())
+                .record(transfer.getRecipientId(), transfer.getCurrency(), transfer.getAmount(), System.currentTimeMillis());
+    }
+}
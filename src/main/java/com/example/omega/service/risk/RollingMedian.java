@@ -0,0 +1,53 @@
+package com.example.omega.service.risk;
+
+import java.util.Arrays;
+
+/**
+ * Median of the last values added. The values are kept both in arrival order, to know which one leaves
+ * the window, and sorted, so adding a value is a binary search and an array copy and the median is a lookup.
+ */
+final class RollingMedian {
+
+    private final long[] arrivals;
+
+    private final long[] sorted;
+
+    private int size;
+
+    private int next;
+
+    RollingMedian(int capacity) {
+        this.arrivals = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    void add(long value) {
+        if (size == arrivals.length) {
+            var oldest = Arrays.binarySearch(sorted, 0, size, arrivals[next]);
+            System.arraycopy(sorted, oldest + 1, sorted, oldest, size - oldest - 1);
+            size--;
+        }
+        arrivals[next] = value;
+        next = (next + 1) % arrivals.length;
+
+        var index = Arrays.binarySearch(sorted, 0, size, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(sorted, index, sorted, index + 1, size - index);
+        sorted[index] = value;
+        size++;
+    }
+
+    long median() {
+        if (size == 0) {
+            return 0;
+        }
+        var middle = size / 2;
+        return size % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.service.dto.TransactionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores a transfer that follows a burst of transfers of the same sender in a short window.
+ */
+@Component
+public class TransferBurstRule implements RiskRule {
+
+    private final int points;
+
+    private final int count;
+
+    private final long windowMs;
+
+    public TransferBurstRule(@Value("${omega.risk.burst.points:40}") int points,
+                             @Value("${omega.risk.burst.count:10}") int count,
+                             @Value("${omega.risk.burst.window-ms:60000}") long windowMs) {
+        if (count < 1 || count > UserRiskProfile.RECENT_TRANSFERS) {
+            throw new IllegalArgumentException("omega.risk.burst.count must be between 1 and " + UserRiskProfile.RECENT_TRANSFERS);
+        }
+        this.points = points;
+        this.count = count;
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public String getName() {
+        return "burst";
+    }
+
+    @Override
+    public int score(TransactionDTO transfer, UserRiskProfile profile, long now) {
+        return profile.countTransfersSince(now - windowMs) >= count ? points : 0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.domain.enumeration.Currency;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling statistics of a sender's committed transfers, updated incrementally with every transfer:
+ * the recipients sent to recently, the median of the recent amounts per currency and the times of the
+ * most recent transfers. Memory per user is bounded, older activity is forgotten.
+ */
+public final class UserRiskProfile {
+
+    /**
+     * Number of transfer times kept, and so the largest burst that can be detected.
+     */
+    public static final int RECENT_TRANSFERS = 64;
+
+    private static final int KNOWN_RECIPIENTS = 256;
+
+    private static final int AMOUNT_SAMPLES = 64;
+
+    private final Map<Long, Boolean> recipients = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > KNOWN_RECIPIENTS;
+        }
+    };
+
+    private final Map<Currency, RollingMedian> amounts = new EnumMap<>(Currency.class);
+
+    private final long[] transferTimes = new long[RECENT_TRANSFERS];
+
+    private long transferCount;
+
+    private long lastTransferAt;
+
+    /**
+     * @return The number of transfers recorded since the profile was created.
+     */
+    public synchronized long getTransferCount() {
+        return transferCount;
+    }
+
+    /**
+     * @return The time of the latest recorded transfer in milliseconds, 0 if there is none.
+     */
+    public synchronized long getLastTransferAt() {
+        return lastTransferAt;
+    }
+
+    /**
+     * @return Whether the user sent money to the recipient recently.
+     */
+    public synchronized boolean hasSentTo(Long recipientId) {
+        return recipients.containsKey(recipientId);
+    }
+
+    /**
+     * @return The number of recent amounts the median in the currency is based on.
+     */
+    public synchronized int getAmountSamples(Currency currency) {
+        var median = amounts.get(currency);
+        return median == null ? 0 : median.size();
+    }
+
+    /**
+     * @return The median of the recent amounts in the currency, or {@code null} if there are none.
+     */
+    public synchronized BigDecimal getMedianAmount(Currency currency) {
+        var median = amounts.get(currency);
+        return median == null ? null : BigDecimal.valueOf(median.median(), currency.getMinorUnits());
+    }
+
+    /**
+     * @return The number of transfers since the given time, at most {@link #RECENT_TRANSFERS}.
+     */
+    public synchronized int countTransfersSince(long timeMs) {
+        var count = 0;
+        for (var transferTime : transferTimes) {
+            if (transferTime >= timeMs && transferTime != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    synchronized void record(Long recipientId, Currency currency, BigDecimal amount, long timeMs) {
+        recipients.put(recipientId, Boolean.TRUE);
+        amounts.computeIfAbsent(currency, key -> new RollingMedian(AMOUNT_SAMPLES))
+                .add(amount.movePointRight(currency.getMinorUnits()).longValue());
+        transferTimes[(int) (transferCount % RECENT_TRANSFERS)] = timeMs;
+        transferCount++;
+        lastTransferAt = timeMs;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.omega.service.schedule;
+
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import com.example.omega.repository.ScheduledTransferRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires the runs of scheduled transfers from an in-process {@link TimingWheel}, instead of polling every
+ * row on a cron. Only the runs due before the end of a sliding window are loaded, page by page along the
+ * {@code (status, next_run_at, id)} index, so millions of standing orders cost memory and reads only for
+ * the few that are due soon. A tick is O(1) however many runs are waiting.
+ * <p>
+ * The wheel is owned by a single ticker thread that also loads the window; runs are made by a bounded
+ * pool of workers. The window is reloaded with no lower bound, which picks up runs that were missed while
+ * the application was down, runs whose attempt failed unexpectedly, and transfers created on other nodes.
+ * Runs that are already waiting or running are recognized by their due time and not added twice.
+ */
+@Slf4j
+@Component
+public class ScheduledTransferScheduler {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final long loadIntervalMs;
+
+    private final long tickMs;
+
+    private final int pageSize;
+
+    private final TimingWheel<Run> wheel;
+
+    /**
+     * The due time of every run that is waiting in the wheel or running, by scheduled transfer.
+     */
+    private final Map<Long, Instant> scheduledRuns = new ConcurrentHashMap<>();
+
+    /**
+     * Runs added from other threads, moved into the wheel on the next tick.
+     */
+    private final Queue<Run> arrivals = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService ticker;
+
+    private final ExecutorService workers;
+
+    private final Timer startDelay;
+
+    private volatile Instant windowEnd = Instant.EPOCH;
+
+    public ScheduledTransferScheduler(ScheduledTransferRepository scheduledTransferRepository,
+                                      ScheduledTransferService scheduledTransferService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${omega.scheduled-transfers.enabled:true}") boolean enabled,
+                                      @Value("${omega.scheduled-transfers.window-minutes:10}") long windowMinutes,
+                                      @Value("${omega.scheduled-transfers.load-interval-ms:60000}") long loadIntervalMs,
+                                      @Value("${omega.scheduled-transfers.tick-ms:1000}") long tickMs,
+                                      @Value("${omega.scheduled-transfers.wheel-size:64}") int wheelSize,
+                                      @Value("${omega.scheduled-transfers.page-size:1000}") int pageSize,
+                                      @Value("${omega.scheduled-transfers.workers:4}") int workerCount) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.scheduledTransferService = scheduledTransferService;
+        this.enabled = enabled;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.loadIntervalMs = loadIntervalMs;
+        this.tickMs = tickMs;
+        this.pageSize = pageSize;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "scheduled-transfer-ticker"));
+        var threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "scheduled-transfer-" + threadNumber.incrementAndGet()));
+
+        this.startDelay = Timer.builder("omega.scheduled-transfers.delay")
+                .description("Time from when a run was due to when it started")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("omega.scheduled-transfers.scheduled", scheduledRuns, Map::size);
+    }
+
+    /**
+     * Loads the first window, including every run missed since the last shutdown, and starts ticking.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ticker.scheduleWithFixedDelay(this::loadWindow, 0, loadIntervalMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a new run to the wheel once the current transaction commits, if it's due inside the loaded
+     * window. Later runs are picked up by the window load.
+     *
+     * @param scheduledTransferId The id of the scheduled transfer.
+     * @param runAt               When the run is due.
+     */
+    public void scheduleAfterCommit(Long scheduledTransferId, Instant runAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(new Run(scheduledTransferId, runAt));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(new Run(scheduledTransferId, runAt));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ticker.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Scheduled transfers didn't finish in time, unfinished runs are resumed on restart");
+            workers.shutdownNow();
+        }
+    }
+
+    private void schedule(Run run) {
+        if (run.runAt.isBefore(windowEnd)) {
+            arrivals.add(run);
+        }
+    }
+
+    private void loadWindow() {
+        try {
+            var end = Instant.now().plus(window);
+            var afterRunAt = Instant.EPOCH;
+            var afterId = 0L;
+            var loaded = 0;
+            while (true) {
+                var page = scheduledTransferRepository.findDueRuns(ScheduledTransferStatus.ACTIVE, end, afterRunAt, afterId,
+                        PageRequest.of(0, pageSize));
+                for (var dueRun : page) {
+                    if (offer(new Run(dueRun.getId(), dueRun.getNextRunAt()))) {
+                        loaded++;
+                    }
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                var last = page.get(page.size() - 1);
+                afterRunAt = last.getNextRunAt();
+                afterId = last.getId();
+            }
+            windowEnd = end;
+            log.debug("Loaded {} scheduled transfer runs due before {}", loaded, end);
+        } catch (RuntimeException e) {
+            log.warn("Couldn't load the scheduled transfers, retrying in the next load: {}", e.getMessage());
+        }
+    }
+
+    private void tick() {
+        try {
+            Run run;
+            while ((run = arrivals.poll()) != null) {
+                offer(run);
+            }
+            wheel.advance(System.currentTimeMillis(), this::fire);
+        } catch (RuntimeException e) {
+            log.warn("Scheduled transfer tick failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a run to the wheel, or starts it right away if it's already due. Runs on the ticker thread only.
+     *
+     * @return {@code false} if the same run is already waiting or running.
+     */
+    private boolean offer(Run run) {
+        if (run.runAt.equals(scheduledRuns.put(run.scheduledTransferId, run.runAt))) {
+            return false;
+        }
+        if (!wheel.add(run.runAt.toEpochMilli(), run)) {
+            fire(run);
+        }
+        return true;
+    }
+
+    private void fire(Run run) {
+        // A run replaced by a later load, for example after a retry on another node, is dropped
+        if (!run.runAt.equals(scheduledRuns.get(run.scheduledTransferId))) {
+            return;
+        }
+        workers.execute(() -> execute(run));
+    }
+
+    private void execute(Run run) {
+        startDelay.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - run.runAt.toEpochMilli())));
+        Instant nextRunAt = null;
+        try {
+            nextRunAt = scheduledTransferService.executeRun(run.scheduledTransferId, run.runAt);
+        } catch (RuntimeException e) {
+            // Left due in the database, so the next window load retries it
+            log.warn("Run of ScheduledTransfer: {} due at {} failed: {}", run.scheduledTransferId, run.runAt, e.getMessage());
+        } finally {
+            scheduledRuns.remove(run.scheduledTransferId, run.runAt);
+        }
+
+        if (nextRunAt != null) {
+            schedule(new Run(run.scheduledTransferId, nextRunAt));
+        }
+    }
+
+    private static final class Run {
+
+        private final Long scheduledTransferId;
+
+        private final Instant runAt;
+
+        private Run(Long scheduledTransferId, Instant runAt) {
+            this.scheduledTransferId = scheduledTransferId;
+            this.runAt = runAt;
+        }
+    }
+}
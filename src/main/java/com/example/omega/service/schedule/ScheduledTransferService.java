@@ -0,0 +1,296 @@
+package com.example.omega.service.schedule;
+
+import com.example.omega.domain.ScheduledTransfer;
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import com.example.omega.repository.ScheduledTransferRepository;
+import com.example.omega.repository.UserRepository;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.ScheduledTransferDTO;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Creates, cancels and runs scheduled transfers. A run moves the money through
+ * {@link TransactionService#sendMoney(TransactionDTO, String)} with an idempotency key made of the
+ * scheduled transfer and the number of the run, so a run repeated after a crash, or by another node,
+ * returns the transaction of the first attempt instead of paying twice.
+ */
+@Slf4j
+@Service
+public class ScheduledTransferService {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+
+    private final UserRepository userRepository;
+
+    private final TransactionService transactionService;
+
+    private final ScheduledTransferScheduler scheduledTransferScheduler;
+
+    private final int maxAttempts;
+
+    private final Duration retryDelay;
+
+    private final Duration maxLateness;
+
+    private final Counter completedRuns;
+
+    private final Counter failedRuns;
+
+    private final Counter skippedRuns;
+
+    public ScheduledTransferService(ScheduledTransferRepository scheduledTransferRepository,
+                                    UserRepository userRepository,
+                                    TransactionService transactionService,
+                                    @Lazy ScheduledTransferScheduler scheduledTransferScheduler,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${omega.scheduled-transfers.max-attempts:3}") int maxAttempts,
+                                    @Value("${omega.scheduled-transfers.retry-delay-minutes:60}") long retryDelayMinutes,
+                                    @Value("${omega.scheduled-transfers.max-lateness-hours:72}") long maxLatenessHours) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.scheduledTransferScheduler = scheduledTransferScheduler;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMinutes(retryDelayMinutes);
+        this.maxLateness = Duration.ofHours(maxLatenessHours);
+        this.completedRuns = meterRegistry.counter("omega.scheduled-transfers.runs", "result", "completed");
+        this.failedRuns = meterRegistry.counter("omega.scheduled-transfers.runs", "result", "failed");
+        this.skippedRuns = meterRegistry.counter("omega.scheduled-transfers.runs", "result", "skipped");
+    }
+
+    /**
+     * Create a scheduled transfer. It's handed to the scheduler right away if its first run falls in the loaded window.
+     *
+     * @param scheduledTransferDTO The ScheduledTransferDTO describing the transfer.
+     * @return The created scheduled transfer.
+     * @throws BadRequestException If the transfer is invalid or one of the users doesn't exist.
+     */
+    @Transactional
+    public ScheduledTransferDTO createScheduledTransfer(ScheduledTransferDTO scheduledTransferDTO) {
+        log.debug("Request to schedule a transfer from User: {} to User: {}", scheduledTransferDTO.getSenderId(), scheduledTransferDTO.getRecipientId());
+        validate(scheduledTransferDTO);
+
+        var scheduledTransfer = ScheduledTransfer.builder()
+                .senderId(scheduledTransferDTO.getSenderId())
+                .recipientId(scheduledTransferDTO.getRecipientId())
+                .amount(scheduledTransferDTO.getAmount())
+                .currency(scheduledTransferDTO.getCurrency())
+                .recipientCurrency(scheduledTransferDTO.getRecipientCurrency())
+                .description(scheduledTransferDTO.getDescription())
+                .recurrence(scheduledTransferDTO.getRecurrence())
+                .firstRunAt(scheduledTransferDTO.getFirstRunAt())
+                .endAt(scheduledTransferDTO.getEndAt())
+                .nextRunAt(scheduledTransferDTO.getFirstRunAt())
+                .status(ScheduledTransferStatus.ACTIVE)
+                .build();
+        scheduledTransfer = scheduledTransferRepository.save(scheduledTransfer);
+
+        scheduledTransferScheduler.scheduleAfterCommit(scheduledTransfer.getId(), scheduledTransfer.getNextRunAt());
+        return ScheduledTransferDTO.of(scheduledTransfer);
+    }
+
+    /**
+     * Get a scheduled transfer by its id.
+     *
+     * @param id The id of the scheduled transfer.
+     * @return The scheduled transfer.
+     * @throws BadRequestException If the scheduled transfer doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    public ScheduledTransferDTO getScheduledTransferById(Long id) {
+        return ScheduledTransferDTO.of(findScheduledTransfer(id));
+    }
+
+    /**
+     * Get every scheduled transfer of a user, including the finished and cancelled ones.
+     *
+     * @param senderId The id of the sender.
+     * @return The scheduled transfers, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduledTransferDTO> getScheduledTransfers(Long senderId) {
+        return scheduledTransferRepository.findAllBySenderIdOrderByIdAsc(senderId).stream()
+                .map(ScheduledTransferDTO::of)
+                .toList();
+    }
+
+    /**
+     * Cancel a scheduled transfer. A run that already started still finishes.
+     *
+     * @param id The id of the scheduled transfer.
+     * @return The cancelled scheduled transfer.
+     * @throws BadRequestException If the scheduled transfer doesn't exist or isn't active.
+     */
+    @Transactional
+    public ScheduledTransferDTO cancelScheduledTransfer(Long id) {
+        log.debug("Request to cancel ScheduledTransfer: {}", id);
+        var scheduledTransfer = findScheduledTransfer(id);
+        if (scheduledTransfer.getStatus() != ScheduledTransferStatus.ACTIVE) {
+            throw new BadRequestException("Only an active scheduled transfer can be cancelled!");
+        }
+
+        // The entry left in the scheduler is dropped when it's due, as the transfer is no longer active
+        scheduledTransfer.setStatus(ScheduledTransferStatus.CANCELLED);
+        scheduledTransfer.setNextRunAt(null);
+        return ScheduledTransferDTO.of(scheduledTransferRepository.save(scheduledTransfer));
+    }
+
+    /**
+     * Make a due run of a scheduled transfer and move it to its next run. A run that fails with a
+     * {@link BadRequestException}, for example for insufficient funds, is retried after a delay and given up
+     * after the configured number of attempts. A run missed for longer than the allowed lateness, while the
+     * application was down, is skipped instead of paying late.
+     * <p>
+     * Not transactional: the transfer commits on its own, then the scheduled transfer is saved with an
+     * optimistic lock, so a node that lost the race for the same run leaves it alone.
+     *
+     * @param id    The id of the scheduled transfer.
+     * @param runAt The time the run was due, a run that no longer matches is ignored.
+     * @return The time of the next run, or {@code null} if there is none or the run was made elsewhere.
+     */
+    public Instant executeRun(Long id, Instant runAt) {
+        var scheduledTransfer = scheduledTransferRepository.findById(id).orElse(null);
+        if (scheduledTransfer == null || scheduledTransfer.getStatus() != ScheduledTransferStatus.ACTIVE
+                || !runAt.equals(scheduledTransfer.getNextRunAt())) {
+            log.debug("Run of ScheduledTransfer: {} at {} is no longer due", id, runAt);
+            return null;
+        }
+
+        var now = Instant.now();
+        if (runAt.isBefore(now.minus(maxLateness))) {
+            log.warn("Skipping run {} of ScheduledTransfer: {}, it was due at {}", scheduledTransfer.getRunCount(), id, runAt);
+            scheduledTransfer.setLastError(truncate("Skipped, the run was due at " + runAt));
+            advance(scheduledTransfer);
+            skippedRuns.increment();
+            return save(scheduledTransfer);
+        }
+
+        try {
+            var transaction = runAsSender(scheduledTransfer.getSenderId(), () ->
+                    transactionService.sendMoney(toTransactionDTO(scheduledTransfer), idempotencyKey(scheduledTransfer)));
+            scheduledTransfer.setLastTransactionId(transaction.getId());
+            scheduledTransfer.setLastRunAt(now);
+            scheduledTransfer.setLastError(null);
+            advance(scheduledTransfer);
+            completedRuns.increment();
+        } catch (BadRequestException e) {
+            log.debug("Run {} of ScheduledTransfer: {} failed: {}", scheduledTransfer.getRunCount(), id, e.getMessage());
+            scheduledTransfer.setLastError(truncate(e.getMessage()));
+            if (scheduledTransfer.getAttempts() + 1 < maxAttempts) {
+                scheduledTransfer.setAttempts(scheduledTransfer.getAttempts() + 1);
+                scheduledTransfer.setNextRunAt(now.plus(retryDelay));
+            } else {
+                advance(scheduledTransfer);
+            }
+            failedRuns.increment();
+        }
+        return save(scheduledTransfer);
+    }
+
+    private Instant save(ScheduledTransfer scheduledTransfer) {
+        try {
+            return scheduledTransferRepository.save(scheduledTransfer).getNextRunAt();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.debug("ScheduledTransfer: {} was changed during its run", scheduledTransfer.getId());
+            return null;
+        }
+    }
+
+    private void advance(ScheduledTransfer scheduledTransfer) {
+        scheduledTransfer.setRunCount(scheduledTransfer.getRunCount() + 1);
+        scheduledTransfer.setAttempts(0);
+
+        var nextRunAt = scheduledTransfer.getRecurrence().runAt(scheduledTransfer.getFirstRunAt(), scheduledTransfer.getRunCount());
+        if (nextRunAt == null || (scheduledTransfer.getEndAt() != null && nextRunAt.isAfter(scheduledTransfer.getEndAt()))) {
+            scheduledTransfer.setStatus(ScheduledTransferStatus.COMPLETED);
+            scheduledTransfer.setNextRunAt(null);
+        } else {
+            scheduledTransfer.setNextRunAt(nextRunAt);
+        }
+    }
+
+    /**
+     * Runs the transfer as its sender, so it's audited and limited like a transfer the sender made.
+     */
+    private <T> T runAsSender(Long senderId, Supplier<T> action) {
+        var sender = userRepository.findById(senderId)
+                .orElseThrow(() -> new BadRequestException("User with id: " + senderId + " not found!"));
+        var authorities = sender.getRole() == null ? List.<SimpleGrantedAuthority>of() : List.of(new SimpleGrantedAuthority(sender.getRole().name()));
+
+        var context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(sender.getUsername(), null, authorities));
+        SecurityContextHolder.setContext(context);
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private TransactionDTO toTransactionDTO(ScheduledTransfer scheduledTransfer) {
+        var transactionDTO = new TransactionDTO();
+        transactionDTO.setSenderId(scheduledTransfer.getSenderId());
+        transactionDTO.setRecipientId(scheduledTransfer.getRecipientId());
+        transactionDTO.setAmount(scheduledTransfer.getAmount());
+        transactionDTO.setCurrency(scheduledTransfer.getCurrency());
+        transactionDTO.setRecipientCurrency(scheduledTransfer.getRecipientCurrency());
+        transactionDTO.setDescription(scheduledTransfer.getDescription());
+        return transactionDTO;
+    }
+
+    private String idempotencyKey(ScheduledTransfer scheduledTransfer) {
+        return "scheduled-" + scheduledTransfer.getId() + "-" + scheduledTransfer.getRunCount();
+    }
+
+    private ScheduledTransfer findScheduledTransfer(Long id) {
+        return scheduledTransferRepository.findById(id)
+                .orElseThrow(() -> new BadRequestException("Scheduled transfer with id: " + id + " not found!"));
+    }
+
+    private void validate(ScheduledTransferDTO scheduledTransferDTO) {
+        if (scheduledTransferDTO.getSenderId().equals(scheduledTransferDTO.getRecipientId())) {
+            throw new BadRequestException("Sender and recipient must be different!");
+        }
+        if (scheduledTransferDTO.getCurrency() == null) {
+            throw new BadRequestException("Currency is required!");
+        }
+        if (scheduledTransferDTO.getAmount().stripTrailingZeros().scale() > scheduledTransferDTO.getCurrency().getMinorUnits()) {
+            throw new BadRequestException("Amount can't have more than " + scheduledTransferDTO.getCurrency().getMinorUnits() + " decimals in " + scheduledTransferDTO.getCurrency() + "!");
+        }
+        if (scheduledTransferDTO.getFirstRunAt().isBefore(Instant.now())) {
+            throw new BadRequestException("The first run can't be in the past!");
+        }
+        if (scheduledTransferDTO.getEndAt() != null && scheduledTransferDTO.getEndAt().isBefore(scheduledTransferDTO.getFirstRunAt())) {
+            throw new BadRequestException("The end can't be before the first run!");
+        }
+        if (!userRepository.existsById(scheduledTransferDTO.getSenderId()) || !userRepository.existsById(scheduledTransferDTO.getRecipientId())) {
+            throw new BadRequestException("Sender or recipient not found!");
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
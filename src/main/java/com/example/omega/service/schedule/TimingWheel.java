@@ -0,0 +1,151 @@
+package com.example.omega.service.schedule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Level 0 has one bucket per tick; each level above has buckets as wide as the
+ * whole level below, so a few levels cover years with a handful of buckets. Adding an entry and advancing
+ * by one tick are O(1); an entry is moved down at most once per level before it's due.
+ * <p>
+ * Deadlines are rounded up to the next tick, so an entry is never handed over early, and at most one tick
+ * late. Not thread safe, it's owned by a single thread.
+ *
+ * @param <T> The type of the entries.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    private long currentTick;
+
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMs / tickMs;
+        levels.add(new Level<>(1, wheelSize));
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param deadlineMs When the entry is due, in epoch milliseconds.
+     * @param item       The entry.
+     * @return {@code false} if the entry is already due and wasn't added.
+     */
+    boolean add(long deadlineMs, T item) {
+        var dueTick = Math.floorDiv(deadlineMs + tickMs - 1, tickMs);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(dueTick, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time.
+     *
+     * @param nowMs The current time, in epoch milliseconds.
+     * @param due   Receives every entry that became due, in deadline order per tick.
+     */
+    void advance(long nowMs, Consumer<T> due) {
+        var targetTick = Math.floorDiv(nowMs, tickMs);
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade top-down, an entry moved out of a level can land in the bucket of the level below that is due now
+            for (var index = levels.size() - 1; index > 0; index--) {
+                var level = levels.get(index);
+                if (currentTick % level.span == 0) {
+                    var bucket = level.bucket(currentTick / level.span);
+                    while (!bucket.isEmpty()) {
+                        var entry = bucket.poll();
+                        if (entry.dueTick <= currentTick) {
+                            size--;
+                            due.accept(entry.item);
+                        } else {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+
+            var bucket = levels.get(0).bucket(currentTick);
+            while (!bucket.isEmpty()) {
+                size--;
+                due.accept(bucket.poll().item);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries that aren't due yet.
+     */
+    int size() {
+        return size;
+    }
+
+    long getCurrentTimeMs() {
+        return currentTick * tickMs;
+    }
+
+    private void place(Entry<T> entry) {
+        for (var index = 0; ; index++) {
+            if (index == levels.size()) {
+                var top = levels.get(index - 1);
+                levels.add(new Level<>(Math.multiplyExact(top.span, (long) wheelSize), wheelSize));
+            }
+
+            var level = levels.get(index);
+            var slot = entry.dueTick / level.span;
+            if (slot - currentTick / level.span < wheelSize) {
+                level.bucket(slot).add(entry);
+                return;
+            }
+        }
+    }
+
+    private static final class Level<T> {
+
+        /**
+         * The number of ticks a bucket of this level covers.
+         */
+        private final long span;
+
+        private final ArrayDeque<Entry<T>>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        private Level(long span, int wheelSize) {
+            this.span = span;
+            this.buckets = new ArrayDeque[wheelSize];
+            for (var index = 0; index < wheelSize; index++) {
+                buckets[index] = new ArrayDeque<>();
+            }
+        }
+
+        private ArrayDeque<Entry<T>> bucket(long slot) {
+            return buckets[(int) (slot % buckets.length)];
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final long dueTick;
+
+        private final T item;
+
+        private Entry(long dueTick, T item) {
+            this.dueTick = dueTick;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.omega.service.statement;
+
+import com.example.omega.domain.enumeration.StatementFormat;
+import com.example.omega.service.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams account statements straight from forward-only JDBC cursors to an output stream.
+ * Rows are fetched in chunks of a fixed size and written out one by one, so memory use doesn't
+ * depend on the number of transactions in the statement.
+ * <p>
+ * Outgoing and incoming transactions are read with two cursors, each in the order of its keyset index, and
+ * merged on (created date, id) while writing. A single query over both directions would have to sort the
+ * whole statement before returning its first row.
+ * <p>
+ * An export holds a connection for as long as its cursor is open. The read-only transaction sends it to the
+ * replica when one is configured, and only a few exports may run at a time, so long exports can't take the
+ * connections transfers need.
+ */
+@Slf4j
+@Service
+public class StatementExportService {
+
+    private static final String OUTGOING_QUERY =
+            "select t.id, t.created_date, t.sender_id, t.recipient_id, t.amount, t.currency, " +
+                    "t.transaction_status, t.transaction_type, t.description " +
+                    "from transaction t where t.sender_id = ? and t.created_date >= ? and t.created_date < ? " +
+                    "order by t.created_date, t.id";
+
+    // The recipient sees what was credited to them, in their currency
+    private static final String INCOMING_QUERY =
+            "select t.id, t.created_date, t.sender_id, t.recipient_id, coalesce(t.converted_amount, t.amount) as amount, " +
+                    "coalesce(t.recipient_currency, t.currency) as currency, " +
+                    "t.transaction_status, t.transaction_type, t.description " +
+                    "from transaction t where t.recipient_id = ? and t.sender_id <> ? and t.created_date >= ? and t.created_date < ? " +
+                    "order by t.created_date, t.id";
+
+    private static final String CSV_HEADER = "id,created_date,direction,counterparty_id,amount,currency,status,type,description";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int fetchSize;
+
+    private final Semaphore exportSlots;
+
+    public StatementExportService(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${omega.statement.fetch-size:1000}") int fetchSize,
+                                  @Value("${omega.statement.max-concurrent-exports:4}") int maxConcurrentExports) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.exportSlots = new Semaphore(maxConcurrentExports);
+    }
+
+    /**
+     * Reserve one of the concurrent export slots. Every reserved slot must be released with
+     * {@link #releaseExportSlot()} once the export ends.
+     *
+     * @throws BadRequestException If every slot is taken.
+     */
+    public void acquireExportSlot() {
+        if (!exportSlots.tryAcquire()) {
+            throw new BadRequestException("Too many statements are being exported, try again later!", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    public void releaseExportSlot() {
+        exportSlots.release();
+    }
+
+    /**
+     * Write the statement of a user to the given output stream. The stream is flushed but not closed.
+     * If the client goes away the write fails, the cursor is closed and the export stops.
+     *
+     * @param userId The ID of the user.
+     * @param from   The start of the statement period, inclusive.
+     * @param to     The end of the statement period, exclusive.
+     * @param format The output format.
+     * @param out    The stream to write to.
+     */
+    public void exportStatement(Long userId, Instant from, Instant to, StatementFormat format, OutputStream out) {
+        log.debug("Request to export {} statement of User: {} from {} to {}", format, userId, from, to);
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        var rowWriter = format == StatementFormat.CSV ? new CsvRowWriter(writer, userId) : new NdjsonRowWriter(writer, userId);
+
+        // A cursor-based fetch only works inside a transaction (autocommit off) on PostgreSQL.
+        transactionTemplate.executeWithoutResult(status -> {
+            rowWriter.start();
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (var outgoing = cursor(connection, OUTGOING_QUERY, userId, Timestamp.from(from), Timestamp.from(to));
+                     var incoming = cursor(connection, INCOMING_QUERY, userId, userId, Timestamp.from(from), Timestamp.from(to));
+                     var outgoingRows = outgoing.executeQuery();
+                     var incomingRows = incoming.executeQuery()) {
+                    merge(outgoingRows, incomingRows, rowWriter);
+                }
+                return null;
+            });
+            rowWriter.finish();
+        });
+        log.debug("Exported {} rows of User: {}", rowWriter.rows, userId);
+    }
+
+    private PreparedStatement cursor(Connection connection, String query, Object... args) throws SQLException {
+        var statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+            for (var i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the rows of both cursors in (created date, id) order, advancing whichever is behind.
+     */
+    private static void merge(ResultSet outgoingRows, ResultSet incomingRows, RowWriter rowWriter) throws SQLException {
+        var hasOutgoing = outgoingRows.next();
+        var hasIncoming = incomingRows.next();
+        while (hasOutgoing || hasIncoming) {
+            if (hasIncoming && (!hasOutgoing || isBefore(incomingRows, outgoingRows))) {
+                rowWriter.processRow(incomingRows);
+                hasIncoming = incomingRows.next();
+            } else {
+                rowWriter.processRow(outgoingRows);
+                hasOutgoing = outgoingRows.next();
+            }
+        }
+    }
+
+    private static boolean isBefore(ResultSet row, ResultSet other) throws SQLException {
+        var order = row.getTimestamp("created_date").compareTo(other.getTimestamp("created_date"));
+        return order < 0 || order == 0 && row.getLong("id") < other.getLong("id");
+    }
+
+    /**
+     * Writes one row at a time. I/O failures are rethrown unchecked so they abort the JDBC query.
+     */
+    private abstract static class RowWriter implements RowCallbackHandler {
+
+        protected final Writer writer;
+
+        protected final Long userId;
+
+        private long rows;
+
+        RowWriter(Writer writer, Long userId) {
+            this.writer = writer;
+            this.userId = userId;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Statement export was cancelled");
+            }
+            try {
+                var outgoing = userId.equals(resultSet.getLong("sender_id"));
+                write(resultSet,
+                        outgoing ? "OUT" : "IN",
+                        outgoing ? resultSet.getLong("recipient_id") : resultSet.getLong("sender_id"));
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void start() {
+            try {
+                writeHeader();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        protected abstract void writeHeader() throws IOException;
+
+        protected abstract void write(ResultSet resultSet, String direction, long counterpartyId) throws SQLException, IOException;
+
+        protected static String createdDate(ResultSet resultSet) throws SQLException {
+            var createdDate = resultSet.getTimestamp("created_date");
+            return createdDate == null ? "" : createdDate.toInstant().toString();
+        }
+    }
+
+    private static class CsvRowWriter extends RowWriter {
+
+        CsvRowWriter(Writer writer, Long userId) {
+            super(writer, userId);
+        }
+
+        @Override
+        protected void writeHeader() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        protected void write(ResultSet resultSet, String direction, long counterpartyId) throws SQLException, IOException {
+            writer.write(Long.toString(resultSet.getLong("id")));
+            writer.write(',');
+            writer.write(createdDate(resultSet));
+            writer.write(',');
+            writer.write(direction);
+            writer.write(',');
+            writer.write(Long.toString(counterpartyId));
+            writer.write(',');
+            var amount = resultSet.getBigDecimal("amount");
+            writer.write(amount == null ? "" : amount.toPlainString());
+            writer.write(',');
+            writeEscaped(resultSet.getString("currency"));
+            writer.write(',');
+            writeEscaped(resultSet.getString("transaction_status"));
+            writer.write(',');
+            writeEscaped(resultSet.getString("transaction_type"));
+            writer.write(',');
+            writeEscaped(resultSet.getString("description"));
+            writer.write('\n');
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static class NdjsonRowWriter extends RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer, Long userId) {
+            super(writer, userId);
+            try {
+                this.generator = JSON_FACTORY.createGenerator(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.generator.setRootValueSeparator(null);
+            // Flushing the generator per row must not flush the underlying buffered writer.
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        protected void writeHeader() {
+            // NDJSON has no header
+        }
+
+        @Override
+        protected void write(ResultSet resultSet, String direction, long counterpartyId) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", resultSet.getLong("id"));
+            generator.writeStringField("createdDate", createdDate(resultSet));
+            generator.writeStringField("direction", direction);
+            generator.writeNumberField("counterpartyId", counterpartyId);
+            generator.writeNumberField("amount", resultSet.getBigDecimal("amount"));
+            generator.writeStringField("currency", resultSet.getString("currency"));
+            generator.writeStringField("status", resultSet.getString("transaction_status"));
+            generator.writeStringField("type", resultSet.getString("transaction_type"));
+            generator.writeStringField("description", resultSet.getString("description"));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+}
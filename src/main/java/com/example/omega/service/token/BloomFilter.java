@@ -0,0 +1,120 @@
+package com.example.omega.service.token;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings. It never reports an added value as missing; a value that wasn't added
+ * is reported as present with about the configured false-positive rate, as long as no more than the expected
+ * number of values were added. Values can't be removed, the owner rebuilds the filter instead.
+ * <p>
+ * The k bit positions are derived from two 64-bit hashes of the value (Kirsch-Mitzenmacher), so a lookup
+ * reads the value once and touches k words of the bit array.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final long expectedInsertions;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param expectedInsertions The number of values the filter is sized for.
+     * @param falsePositiveRate  The false-positive rate at the expected number of values.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The filter needs a positive size and a false-positive rate between 0 and 1");
+        }
+
+        var bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @return {@code false} if the value was already, or seemed to be, in the filter.
+     */
+    public boolean put(String value) {
+        var hash1 = hash(value, 0);
+        var hash2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        var changed = false;
+        for (var index = 0; index < hashCount; index++) {
+            var bit = Math.floorMod(hash1 + index * hash2, bitCount);
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            var current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            insertions.incrementAndGet();
+        }
+        return changed;
+    }
+
+    /**
+     * @return {@code false} if the value was certainly never added.
+     */
+    public boolean mightContain(String value) {
+        var hash1 = hash(value, 0);
+        var hash2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        for (var index = 0; index < hashCount; index++) {
+            var bit = Math.floorMod(hash1 + index * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of distinct values added, values added again aren't counted.
+     */
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return The false-positive rate expected for the values added so far.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+    }
+
+    /**
+     * FNV-1a over the characters, finished with the MurmurHash3 mixer so every bit depends on every character.
+     */
+    private static long hash(String value, long seed) {
+        var hash = 0xcbf29ce484222325L ^ seed;
+        for (var index = 0; index < value.length(); index++) {
+            hash ^= value.charAt(index);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.omega.service.token;
+
+import com.example.omega.config.security.jwt.JwtUtils;
+import com.example.omega.config.security.jwt.VerifiedToken;
+import com.example.omega.domain.RefreshToken;
+import com.example.omega.domain.UserDetailsImpl;
+import com.example.omega.repository.RefreshTokenRepository;
+import com.example.omega.repository.RevokedTokenRepository;
+import com.example.omega.service.UserDetailsServiceImpl;
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ * <p>
+ * Every refresh token is registered by its ID. A refresh exchanges it for a new access and refresh token
+ * and marks it as replaced; the chain of tokens refreshed from one sign-in forms a family. A refresh token
+ * that is presented again after it was replaced has leaked, so the whole family is revoked, together with
+ * the access tokens issued by it.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final JwtUtils jwtUtils;
+
+    private final UserDetailsServiceImpl userDetailsService;
+
+    private final Counter reusedTokens;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               RevokedTokenRepository revokedTokenRepository,
+                               TokenRevocationList tokenRevocationList,
+                               JwtUtils jwtUtils,
+                               UserDetailsServiceImpl userDetailsService,
+                               MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.reusedTokens = meterRegistry.counter("omega.auth.refresh-token-reuse");
+    }
+
+    /**
+     * Issue the tokens of a new sign-in, starting a new family.
+     *
+     * @param userDetails The signed in user.
+     * @return The access and refresh token.
+     */
+    @Transactional
+    public TokenPair issueTokens(UserDetailsImpl userDetails) {
+        var familyId = UUID.randomUUID().toString();
+        return issueTokens(userDetails, familyId, familyId);
+    }
+
+    /**
+     * Exchange a refresh token for a new access and refresh token.
+     *
+     * @param refreshToken The refresh token.
+     * @return The new tokens.
+     * @throws BadRequestException If the token is invalid, expired, revoked or was already used.
+     */
+    @Transactional(noRollbackFor = BadRequestException.class)
+    public TokenPair refresh(String refreshToken) {
+        var verifiedToken = jwtUtils.verifyJwtToken(refreshToken)
+                .filter(VerifiedToken::isRefresh)
+                .filter(token -> token.getTokenId() != null)
+                .orElseThrow(RefreshTokenService::invalidToken);
+
+        var registered = refreshTokenRepository.findByTokenIdForUpdate(verifiedToken.getTokenId())
+                .orElseThrow(RefreshTokenService::invalidToken);
+        if (registered.getReplacedBy() != null) {
+            // The token was already exchanged, whoever presents it again got a copy of it
+            log.warn("Refresh token of User: {} was reused, revoking its family", registered.getUserId());
+            reusedTokens.increment();
+            revokeFamily(registered.getFamilyId());
+            throw invalidToken();
+        }
+        if (registered.getRevokedAt() != null || !registered.getExpiresAt().isAfter(Instant.now())) {
+            throw invalidToken();
+        }
+
+        UserDetailsImpl userDetails;
+        try {
+            userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(verifiedToken.getUsername());
+        } catch (UsernameNotFoundException e) {
+            throw invalidToken();
+        }
+        var tokenEpoch = verifiedToken.getTokenEpoch() == null ? 0 : verifiedToken.getTokenEpoch();
+        if (!userDetails.isAccountNonLocked() || userDetails.getTokenEpoch() != tokenEpoch) {
+            throw invalidToken();
+        }
+
+        var newTokenId = UUID.randomUUID().toString();
+        registered.setReplacedBy(newTokenId);
+        registered.setRevokedAt(Instant.now());
+        refreshTokenRepository.save(registered);
+        return issueTokens(userDetails, registered.getFamilyId(), newTokenId);
+    }
+
+    /**
+     * Sign out: revoke the access token and the family of the refresh token.
+     *
+     * @param accessToken  The verified access token of the request, or {@code null}.
+     * @param refreshToken The refresh token, or {@code null}.
+     */
+    @Transactional
+    public void logout(VerifiedToken accessToken, String refreshToken) {
+        if (accessToken != null && !accessToken.isRefresh()) {
+            tokenRevocationList.revoke(accessToken.getTokenId(), accessToken.getExpiresAt());
+        }
+        if (refreshToken != null) {
+            jwtUtils.verifyJwtToken(refreshToken)
+                    .filter(VerifiedToken::isRefresh)
+                    .flatMap(token -> refreshTokenRepository.findByTokenIdForUpdate(token.getTokenId()))
+                    .ifPresent(registered -> revokeFamily(registered.getFamilyId()));
+        }
+    }
+
+    /**
+     * Revoke every refresh token of a user, and the access tokens issued with them.
+     *
+     * @param userId The ID of the user.
+     */
+    @Transactional
+    public void revokeAllTokens(Long userId) {
+        log.debug("Request to revoke every refresh token of User: {}", userId);
+        refreshTokenRepository.findAllByUserIdAndRevokedAtIsNull(userId).forEach(this::revoke);
+    }
+
+    /**
+     * Scheduled task deleting expired refresh tokens and revoked tokens that expired since.
+     */
+    @Scheduled(cron = "${omega.app.revocation.cleanup-cron:0 15 * * * *}")
+    public void deleteExpiredTokens() {
+        var now = Instant.now();
+        var refreshTokens = refreshTokenRepository.deleteByExpiresAtBefore(now);
+        var revokedTokens = revokedTokenRepository.deleteByExpiresAtBefore(now);
+        log.debug("Deleted {} expired refresh tokens and {} expired revoked tokens", refreshTokens, revokedTokens);
+    }
+
+    private TokenPair issueTokens(UserDetailsImpl userDetails, String familyId, String refreshTokenId) {
+        var issuedAt = new Date();
+        var accessTokenId = UUID.randomUUID().toString();
+        var accessToken = jwtUtils.generateJwtToken(userDetails, accessTokenId, issuedAt);
+        var refreshToken = jwtUtils.generateRefreshJwtToken(userDetails, refreshTokenId, issuedAt);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .userId(userDetails.getId())
+                .tokenId(refreshTokenId)
+                .familyId(familyId)
+                .expiresAt(issuedAt.toInstant().plus(jwtUtils.getRefreshTokenLifetime()))
+                .accessTokenId(accessTokenId)
+                .accessExpiresAt(issuedAt.toInstant().plus(jwtUtils.getAccessTokenLifetime()))
+                .createdDate(issuedAt.toInstant())
+                .build());
+        return new TokenPair(accessToken, refreshToken);
+    }
+
+    private void revokeFamily(String familyId) {
+        refreshTokenRepository.findAllByFamilyIdAndRevokedAtIsNull(familyId).forEach(this::revoke);
+    }
+
+    private void revoke(RefreshToken refreshToken) {
+        refreshToken.setRevokedAt(Instant.now());
+        refreshTokenRepository.save(refreshToken);
+        tokenRevocationList.revoke(refreshToken.getAccessTokenId(), refreshToken.getAccessExpiresAt());
+    }
+
+    private static BadRequestException invalidToken() {
+        return new BadRequestException("The refresh token is invalid or expired!", HttpStatus.UNAUTHORIZED);
+    }
+}
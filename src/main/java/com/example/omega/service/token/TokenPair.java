@@ -0,0 +1,18 @@
+package com.example.omega.service.token;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An access token together with the refresh token issued with it.
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@AllArgsConstructor
+public final class TokenPair {
+
+    private final String accessToken;
+
+    private final String refreshToken;
+}
@@ -0,0 +1,178 @@
+package com.example.omega.service.token;
+
+import com.example.omega.domain.RevokedToken;
+import com.example.omega.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The set of revoked access tokens, checked on every authenticated request.
+ * <p>
+ * The tokens are kept in the revoked_token table and mirrored into an in-memory {@link BloomFilter}. A token
+ * the filter has never seen, which is nearly every token, is accepted without touching the database; only
+ * on a filter hit is the exact table read. The filter is refreshed with the tokens revoked since its last
+ * load, reading a little further back so revocations that committed late on other nodes aren't missed. As
+ * values can't be removed from a Bloom filter, it's rebuilt from the unexpired tokens once it holds more
+ * values than it was sized for, which would push the false-positive rate over its bound, and on a fixed
+ * interval to drop the expired ones.
+ * <p>
+ * The filter is built before the application takes requests. Until a build succeeded, and again after a
+ * rebuild failed, every token is checked against the exact table instead.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long expectedRevocations;
+
+    private final double falsePositiveRate;
+
+    private final Duration overlap;
+
+    private final Duration rebuildInterval;
+
+    private final Counter filterHits;
+
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+
+    private volatile Instant loadedUntil;
+
+    private volatile Instant builtAt;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${omega.app.revocation.expected-revocations:100000}") long expectedRevocations,
+                               @Value("${omega.app.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${omega.app.revocation.overlap-ms:10000}") long overlapMs,
+                               @Value("${omega.app.revocation.rebuild-interval-ms:3600000}") long rebuildIntervalMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.overlap = Duration.ofMillis(overlapMs);
+        this.rebuildInterval = Duration.ofMillis(rebuildIntervalMs);
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+
+        this.filterHits = meterRegistry.counter("omega.auth.revocation.filter-hits");
+        this.falsePositives = meterRegistry.counter("omega.auth.revocation.false-positives");
+        meterRegistry.gauge("omega.auth.revocation.size", this, list -> list.filter.getInsertions());
+        meterRegistry.gauge("omega.auth.revocation.expected-fpp", this, list -> list.filter.getExpectedFalsePositiveRate());
+    }
+
+    /**
+     * Checks if a token was revoked.
+     *
+     * @param tokenId The unique ID of the token.
+     * @return True if the token was revoked.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (loadedUntil == null) {
+            return revokedTokenRepository.existsByTokenId(tokenId);
+        }
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+
+        filterHits.increment();
+        if (revokedTokenRepository.existsByTokenId(tokenId)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revoke a token. The token is stored in the current transaction and rejected by this node once it
+     * commits; other nodes reject it after their next refresh.
+     *
+     * @param tokenId   The unique ID of the token.
+     * @param expiresAt When the token expires, it's forgotten after that.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        if (revokedTokenRepository.existsByTokenId(tokenId)) {
+            return;
+        }
+
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(tokenId)
+                .expiresAt(expiresAt)
+                .createdDate(Instant.now())
+                .build());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            filter.put(tokenId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                filter.put(tokenId);
+            }
+        });
+    }
+
+    /**
+     * Builds the filter on startup, so the first requests don't have to wait for a refresh.
+     */
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Scheduled task adding the tokens revoked on any node since the last load, or building the filter
+     * from scratch when it was never loaded, is full or is old.
+     */
+    @Scheduled(fixedDelayString = "${omega.app.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        var current = filter;
+        if (loadedUntil == null || current.getInsertions() > current.getExpectedInsertions()
+                || Instant.now().isAfter(builtAt.plus(rebuildInterval))) {
+            rebuild();
+            return;
+        }
+
+        try {
+            var now = Instant.now();
+            var tokenIds = revokedTokenRepository.findTokenIdsRevokedSince(loadedUntil.minus(overlap), now);
+            tokenIds.forEach(current::put);
+            loadedUntil = now;
+        } catch (RuntimeException e) {
+            log.warn("Couldn't refresh the revoked tokens, retrying in the next round: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void rebuild() {
+        try {
+            var now = Instant.now();
+            var tokenIds = revokedTokenRepository.findTokenIdsRevokedSince(Instant.EPOCH, now);
+
+            // Sized for twice the current tokens, so the next rebuild isn't needed right away
+            var rebuilt = new BloomFilter(Math.max(expectedRevocations, tokenIds.size() * 2L), falsePositiveRate);
+            tokenIds.forEach(rebuilt::put);
+            filter = rebuilt;
+            loadedUntil = now;
+            builtAt = now;
+            log.debug("Rebuilt the revocation filter with {} tokens", tokenIds.size());
+        } catch (RuntimeException e) {
+            // The old filter isn't refreshed while the rebuild fails, so the exact table is checked until it succeeds
+            loadedUntil = null;
+            log.warn("Couldn't rebuild the revocation filter, checking the revoked tokens directly until the next round: {}", e.getMessage());
+        }
+    }
+}
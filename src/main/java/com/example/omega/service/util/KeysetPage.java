@@ -0,0 +1,69 @@
+package com.example.omega.service.util;
+
+import com.example.omega.service.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A page of results ordered by (created date, id) descending, together with the opaque cursor
+ * that points right after its last element. Fetching the next page seeks straight to the cursor,
+ * so it costs the same no matter how deep the client has scrolled.
+ *
+ * @param <T> The type of the page elements.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Encode the position of an element into an opaque cursor.
+     *
+     * @param createdDate The created date of the element.
+     * @param id          The ID of the element.
+     * @return The URL-safe cursor.
+     */
+    public static String encodeCursor(Instant createdDate, Long id) {
+        var position = createdDate.getEpochSecond() + ":" + createdDate.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor created by {@link #encodeCursor(Instant, Long)}.
+     *
+     * @param cursor The cursor.
+     * @return The created date and the ID of the element the cursor points after.
+     * @throws BadRequestException If the cursor is malformed.
+     */
+    public static Position decodeCursor(String cursor) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            var createdDate = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new Position(createdDate, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeException e) {
+            throw new BadRequestException("Invalid cursor!");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Position {
+
+        private final Instant createdDate;
+
+        private final Long id;
+    }
+}
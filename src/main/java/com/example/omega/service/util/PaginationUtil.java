@@ -49,6 +49,49 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate pagination headers for a {@link KeysetPage}. Unlike offset pagination there is no
+     * "last" link and no X-Total-Count header, so no count query is needed.
+     *
+     * @param uriBuilder The URI builder to construct pagination links.
+     * @param page       The KeysetPage object containing paginated data.
+     * @param pageSize   The page size.
+     * @param <T>        The type of object contained in the KeysetPage.
+     * @return HttpHeaders containing pagination information.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetPage<T> page, int pageSize) {
+        HttpHeaders headers = new HttpHeaders();
+        StringBuilder link = new StringBuilder();
+
+        // Append "next" link if there are more elements after this page
+        if (page.hasNext()) {
+            link.append(prepareCursorLink(uriBuilder, page.getNextCursor(), pageSize, "next")).append(",");
+        }
+
+        link.append(prepareCursorLink(uriBuilder, null, pageSize, "first"));
+
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    /**
+     * Prepare a pagination link with the specified cursor and page size.
+     *
+     * @param uriBuilder The URI builder to construct the link.
+     * @param cursor     The cursor, or null for the first page.
+     * @param pageSize   The page size.
+     * @param relType    The relationship type of the link (e.g., "next", "first").
+     * @return The formatted pagination link.
+     */
+    private static String prepareCursorLink(UriComponentsBuilder uriBuilder, String cursor, int pageSize, String relType) {
+        var uri = uriBuilder.replaceQueryParam("cursor", cursor == null ? new Object[0] : new Object[]{cursor})
+                .replaceQueryParam("size", Integer.toString(pageSize))
+                .toUriString()
+                .replace(",", "%2C")
+                .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+
     /**
      * Prepare a pagination link with the specified page number and page size.
      *
@@ -1,5 +1,6 @@
 package com.example.omega.service.util;
 
+import com.example.omega.domain.UserDetailsImpl;
 import com.example.omega.domain.enumeration.Roles;
 import com.example.omega.service.UserService;
 import com.example.omega.service.exception.BadRequestException;
@@ -75,6 +76,22 @@ public class SecurityUtils {
                 getAuthorities(authentication).noneMatch(Roles.ROLE_ANONYMOUS::equals);
     }
 
+    /**
+     * Get the highest role of the current user.
+     *
+     * @return The role, or empty if there is no authenticated user.
+     */
+    public static Optional<Roles> getCurrentUserRole() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        return getAuthorities(authentication)
+                .filter(authority -> Arrays.stream(Roles.values()).anyMatch(role -> role.name().equals(authority)))
+                .map(Roles::valueOf)
+                .min(Comparator.naturalOrder());
+    }
+
     /**
      * Get the authorities (roles) associated with the provided authentication.
      *
@@ -162,6 +179,14 @@ public class SecurityUtils {
      * @throws BadRequestException if no user is present in the principal.
      */
     public Long extractCurrentUserIdFromPrincipal(Principal principal) {
+        // The filter already put the user in the principal, no need to read it again
+        if (principal instanceof Authentication && ((Authentication) principal).getPrincipal() instanceof UserDetailsImpl) {
+            var userDetails = (UserDetailsImpl) ((Authentication) principal).getPrincipal();
+            if (userDetails.getId() != null) {
+                return userDetails.getId();
+            }
+        }
+
         var currentUserLogin = principal.getName();
         var currentUser = userService.getUserWithAuthoritiesByLogin(currentUserLogin);
         if (currentUser.isEmpty()) {
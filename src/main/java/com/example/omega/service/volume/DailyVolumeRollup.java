@@ -0,0 +1,167 @@
+package com.example.omega.service.volume;
+
+import com.example.omega.domain.DailyVolume;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.DailyVolumeRepository;
+import com.example.omega.service.ledger.LedgerTransfer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link DailyVolume} rollups up to date as transfers commit.
+ * <p>
+ * Committed transfers are added to in-memory deltas per user, currency and day, so the transfer path
+ * never touches the rollup table. The deltas are periodically written with one increment per row that
+ * moved, inserting the rows that don't exist yet. A failed flush keeps its deltas for the next round.
+ * Deltas that weren't flushed when a node dies are lost; a backfill of the affected days repairs them.
+ */
+@Slf4j
+@Component
+public class DailyVolumeRollup {
+
+    private final DailyVolumeRepository dailyVolumeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<VolumeKey, VolumeDelta> deltas = new ConcurrentHashMap<>();
+
+    public DailyVolumeRollup(DailyVolumeRepository dailyVolumeRepository, TransactionTemplate transactionTemplate) {
+        this.dailyVolumeRepository = dailyVolumeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Counts a transfer once the current transaction commits. A transfer is counted on the UTC day its
+     * transaction was created, as the sender's outgoing volume and the recipient's incoming volume.
+     *
+     * @param transfer The transfer.
+     */
+    public void record(LedgerTransfer transfer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(transfer);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(transfer);
+            }
+        });
+    }
+
+    /**
+     * Writes the pending deltas to the rollup table.
+     *
+     * @return The number of rollup rows that were written.
+     */
+    @Scheduled(fixedDelayString = "${omega.volume.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        var pending = new LinkedHashMap<VolumeKey, VolumeDelta>();
+        for (var key : deltas.keySet()) {
+            var delta = deltas.remove(key);
+            if (delta != null) {
+                pending.put(key, delta);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(pending));
+            log.debug("Flushed {} daily volume rollups", pending.size());
+            return pending.size();
+        } catch (RuntimeException e) {
+            // Another node may have inserted one of the rows first. The next round updates it instead.
+            pending.forEach((key, delta) -> deltas.merge(key, delta, VolumeDelta::plus));
+            log.warn("Couldn't flush {} daily volume rollups, retrying in the next round: {}", pending.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(Map<VolumeKey, VolumeDelta> pending) {
+        List<DailyVolume> created = new ArrayList<>();
+        pending.forEach((key, delta) -> {
+            var updated = dailyVolumeRepository.increment(key.getUserId(), key.getCurrency(), key.getDay(),
+                    delta.getSentCount(), delta.getSentAmount(), delta.getReceivedCount(), delta.getReceivedAmount());
+            if (updated == 0) {
+                created.add(DailyVolume.builder()
+                        .day(key.getDay())
+                        .userId(key.getUserId())
+                        .currency(key.getCurrency())
+                        .sentCount(delta.getSentCount())
+                        .sentAmount(delta.getSentAmount())
+                        .receivedCount(delta.getReceivedCount())
+                        .receivedAmount(delta.getReceivedAmount())
+                        .build());
+            }
+        });
+        dailyVolumeRepository.saveAllAndFlush(created);
+    }
+
+    private void add(LedgerTransfer transfer) {
+        var createdDate = transfer.getTransaction() == null ? Instant.now() : transfer.getTransaction().getCreatedDate();
+        var day = LocalDate.ofInstant(createdDate, ZoneOffset.UTC);
+        deltas.merge(new VolumeKey(transfer.getSenderId(), transfer.getCurrency(), day),
+                new VolumeDelta(1, transfer.getAmount(), 0, BigDecimal.ZERO), VolumeDelta::plus);
+        deltas.merge(new VolumeKey(transfer.getRecipientId(), transfer.getRecipientCurrency(), day),
+                new VolumeDelta(0, BigDecimal.ZERO, 1, transfer.getRecipientAmount()), VolumeDelta::plus);
+    }
+
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class VolumeKey {
+
+        private final Long userId;
+
+        private final Currency currency;
+
+        private final LocalDate day;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class VolumeDelta {
+
+        private final long sentCount;
+
+        private final BigDecimal sentAmount;
+
+        private final long receivedCount;
+
+        private final BigDecimal receivedAmount;
+
+        private VolumeDelta plus(VolumeDelta other) {
+            return new VolumeDelta(sentCount + other.sentCount, sentAmount.add(other.sentAmount),
+                    receivedCount + other.receivedCount, receivedAmount.add(other.receivedAmount));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.omega.service.volume;
+
+import com.example.omega.domain.DailyVolume;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.DailyVolumeRepository;
+import com.example.omega.service.dto.DailyVolumeDTO;
+import com.example.omega.service.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads the daily volume rollups and rebuilds them from the transaction table.
+ */
+@Slf4j
+@Service
+public class DailyVolumeService {
+
+    private final DailyVolumeRepository dailyVolumeRepository;
+
+    private final DailyVolumeRollup dailyVolumeRollup;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int backfillParallelism;
+
+    public DailyVolumeService(DailyVolumeRepository dailyVolumeRepository,
+                              DailyVolumeRollup dailyVolumeRollup,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${omega.volume.backfill.parallelism:4}") int backfillParallelism) {
+        this.dailyVolumeRepository = dailyVolumeRepository;
+        this.dailyVolumeRollup = dailyVolumeRollup;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillParallelism = backfillParallelism;
+    }
+
+    /**
+     * Get the daily volume of a user.
+     *
+     * @param userId   The ID of the user.
+     * @param currency The currency, or {@code null} for every currency.
+     * @param from     The first day, inclusive.
+     * @param to       The last day, inclusive.
+     * @return The rollups of the days on which the user had transfers.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyVolumeDTO> getUserVolume(Long userId, Currency currency, LocalDate from, LocalDate to) {
+        log.debug("Request to get the daily volume of User: {} from {} to {}", userId, from, to);
+        return dailyVolumeRepository.findByUser(userId, currency, from, to).stream()
+                .map(DailyVolumeDTO::of)
+                .toList();
+    }
+
+    /**
+     * Get the daily volume of all users.
+     *
+     * @param currency The currency, or {@code null} for every currency.
+     * @param from     The first day, inclusive.
+     * @param to       The last day, inclusive.
+     * @return The totals of every day and currency with transfers.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyVolumeDTO> getTotalVolume(Currency currency, LocalDate from, LocalDate to) {
+        log.debug("Request to get the daily volume of all users from {} to {}", from, to);
+        return dailyVolumeRepository.sumByDay(currency, from, to).stream()
+                .map(DailyVolumeDTO::of)
+                .toList();
+    }
+
+    /**
+     * Rebuild the rollups of finished days from the successful transactions. Each day is replaced in its own
+     * database transaction, and several days are rebuilt in parallel. Days that still receive transfers
+     * shouldn't be rebuilt, since a transfer committing during the rebuild could be counted twice.
+     *
+     * @param from The first day, inclusive.
+     * @param to   The last day, inclusive. Must be before today (UTC).
+     * @return The number of rollup rows that were written.
+     * @throws BadRequestException If the range is empty or not over yet.
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        log.debug("Request to backfill the daily volume from {} to {}", from, to);
+        if (from.isAfter(to)) {
+            throw new BadRequestException("The first day can't be after the last day!");
+        }
+        if (!to.isBefore(LocalDate.now(ZoneOffset.UTC))) {
+            throw new BadRequestException("Only days that are over can be backfilled!");
+        }
+
+        // Pending deltas of these days must not be added on top of the rebuilt rows
+        dailyVolumeRollup.flush();
+
+        var days = ChronoUnit.DAYS.between(from, to) + 1;
+        var executor = Executors.newFixedThreadPool((int) Math.min(backfillParallelism, days));
+        try {
+            var futures = new ArrayList<CompletableFuture<Integer>>();
+            for (var day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                var chunk = day;
+                futures.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> backfillDay(chunk)), executor));
+            }
+
+            var rows = 0;
+            for (var future : futures) {
+                rows += future.join();
+            }
+            log.info("Backfilled {} daily volume rollups from {} to {}", rows, from, to);
+            return rows;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int backfillDay(LocalDate day) {
+        var start = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        var end = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        var volumes = new HashMap<String, DailyVolume>();
+        for (var sent : dailyVolumeRepository.sumSentBetween(start, end)) {
+            var volume = volumes.computeIfAbsent(sent.getUserId() + ":" + sent.getCurrency(), key -> emptyVolume(day, sent));
+            volume.setSentCount(sent.getCount());
+            volume.setSentAmount(sent.getAmount());
+        }
+        for (var received : dailyVolumeRepository.sumReceivedBetween(start, end)) {
+            var volume = volumes.computeIfAbsent(received.getUserId() + ":" + received.getCurrency(), key -> emptyVolume(day, received));
+            volume.setReceivedCount(received.getCount());
+            volume.setReceivedAmount(received.getAmount());
+        }
+
+        dailyVolumeRepository.deleteByDay(day);
+        dailyVolumeRepository.flush();
+        dailyVolumeRepository.saveAll(volumes.values());
+        return volumes.size();
+    }
+
+    private static DailyVolume emptyVolume(LocalDate day, DailyVolumeRepository.UserTotal total) {
+        return DailyVolume.builder()
+                .day(day)
+                .userId(total.getUserId())
+                .currency(total.getCurrency())
+                .sentCount(0L)
+                .sentAmount(BigDecimal.ZERO)
+                .receivedCount(0L)
+                .receivedAmount(BigDecimal.ZERO)
+                .build();
+    }
+}
@@ -1,17 +1,23 @@
 package com.example.omega.web;
 
-import com.example.omega.config.security.jwt.JwtUtils;
+import com.example.omega.config.security.jwt.VerifiedTokenCache;
 import com.example.omega.config.security.payload.request.LoginRequest;
 import com.example.omega.config.security.payload.request.SignupRequest;
+import com.example.omega.config.security.payload.request.TokenRefreshRequest;
 import com.example.omega.config.security.payload.response.JwtResponse;
 import com.example.omega.config.security.payload.response.MessageResponse;
+import com.example.omega.config.security.payload.response.TokenRefreshResponse;
 import com.example.omega.domain.UserDetailsImpl;
 import com.example.omega.mapper.UserMapper;
 import com.example.omega.service.UserService;
 import com.example.omega.service.Views;
+import com.example.omega.service.token.RefreshTokenService;
 import com.fasterxml.jackson.annotation.JsonView;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,8 +25,6 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/auth")
@@ -30,7 +34,9 @@ public class AuthenticationController {
 
     private AuthenticationManager authenticationManager;
 
-    private JwtUtils jwtUtils;
+    private RefreshTokenService refreshTokenService;
+
+    private VerifiedTokenCache verifiedTokenCache;
 
     private UserMapper userMapper;
 
@@ -44,20 +50,14 @@ public class AuthenticationController {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        var jwt = jwtUtils.generateJwtToken(authentication);
-        var jwtRefresh = jwtUtils.generateRefreshJwtToken(authentication);
-
         var userDetailsImpl = (UserDetailsImpl) authentication.getPrincipal();
+        var tokens = refreshTokenService.issueTokens(userDetailsImpl);
 
         var roles = userDetailsImpl.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority).toList();
 
-        var tokens = new HashMap<String, String>();
-        tokens.put("TOKEN:", jwt);
-        tokens.put("REFRESH_TOKEN:", jwtRefresh);
-
         return ResponseEntity.ok(
-                new JwtResponse(jwt, jwtRefresh,
+                new JwtResponse(tokens.getAccessToken(), tokens.getRefreshToken(),
                         userDetailsImpl.getId(),
                         userDetailsImpl.getUsername(),
                         roles));
@@ -71,4 +71,22 @@ public class AuthenticationController {
         return ResponseEntity.ok(new MessageResponse("SUCCESSFUL_REGISTRATION"));
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "Exchange a refresh token for a new access and refresh token.")
+    public ResponseEntity<TokenRefreshResponse> refreshToken(@Valid @RequestBody TokenRefreshRequest request) {
+        var tokens = refreshTokenService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(new TokenRefreshResponse(tokens.getAccessToken(), tokens.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Revoke the access token of the request and the given refresh token.")
+    public ResponseEntity<MessageResponse> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                  @RequestBody(required = false) TokenRefreshRequest request) {
+        var accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? verifiedTokenCache.verify(authorization.substring(7)).orElse(null)
+                : null;
+        refreshTokenService.logout(accessToken, request == null ? null : request.getRefreshToken());
+        return ResponseEntity.ok(new MessageResponse("SUCCESSFUL_LOGOUT"));
+    }
+
 }
@@ -0,0 +1,66 @@
+package com.example.omega.web;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.AccountBalanceDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.reconciliation.BalanceReconciler;
+import com.example.omega.service.reconciliation.ReconciliationReport;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api")
+@Slf4j
+public class LedgerResource {
+
+    private static final int MAX_SHARDS = 64;
+
+    private final TransactionService transactionService;
+
+    private final BalanceReconciler balanceReconciler;
+
+    @PostMapping("/ledger/accounts/{userId}/{currency}/rebuild")
+    @Operation(summary = "Rebuild an account balance from the journal.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<AccountBalanceDTO> rebuildAccountBalance(Principal principal, @PathVariable Long userId, @PathVariable Currency currency) {
+        log.debug("User: {} is trying to rebuild the {} balance of User: {}!", principal.getName(), currency, userId);
+        return ResponseEntity.ok(AccountBalanceDTO.of(transactionService.rebuildAccountBalance(userId, currency)));
+    }
+
+    @PutMapping("/ledger/accounts/{userId}/{currency}/shards")
+    @Operation(summary = "Split a hot account balance into shards.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<AccountBalanceDTO> shardAccountBalance(Principal principal, @PathVariable Long userId, @PathVariable Currency currency,
+                                                                 @RequestParam int count) {
+        log.debug("User: {} is trying to split the {} balance of User: {} into {} shards!", principal.getName(), currency, userId, count);
+        if (count < 1 || count > MAX_SHARDS) {
+            throw new BadRequestException("The shard count must be between 1 and " + MAX_SHARDS + "!");
+        }
+        return ResponseEntity.ok(AccountBalanceDTO.of(transactionService.shardAccountBalance(userId, currency, count)));
+    }
+
+    @PostMapping("/ledger/reconciliation")
+    @Operation(summary = "Start reconciling every account balance with its journal.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<ReconciliationReport> startReconciliation(Principal principal) {
+        log.debug("User: {} is trying to start a reconciliation!", principal.getName());
+        return ResponseEntity.accepted().body(balanceReconciler.start());
+    }
+
+    @GetMapping("/ledger/reconciliation")
+    @Operation(summary = "Get the progress and discrepancies of the latest reconciliation.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<ReconciliationReport> getReconciliationReport(Principal principal) {
+        log.debug("User: {} is trying to read the reconciliation report!", principal.getName());
+        return ResponseEntity.ok(balanceReconciler.getLatestReport()
+                .orElseThrow(() -> new BadRequestException("No reconciliation has run since the last restart!")));
+    }
+}
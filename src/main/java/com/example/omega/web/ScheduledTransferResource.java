@@ -0,0 +1,51 @@
+package com.example.omega.web;
+
+import com.example.omega.service.dto.ScheduledTransferDTO;
+import com.example.omega.service.schedule.ScheduledTransferService;
+import com.example.omega.service.util.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api")
+@Slf4j
+public class ScheduledTransferResource {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    private final SecurityUtils securityUtils;
+
+    @PostMapping("/scheduled-transfers")
+    @Operation(summary = "Schedule a one-off or recurring transfer.")
+    public ResponseEntity<ScheduledTransferDTO> createScheduledTransfer(Principal principal, @Valid @RequestBody ScheduledTransferDTO scheduledTransferDTO) {
+        log.debug("User: {} is trying to schedule a transfer!", principal.getName());
+        securityUtils.canCurrentUserEditThisData(principal, scheduledTransferDTO.getSenderId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduledTransferService.createScheduledTransfer(scheduledTransferDTO));
+    }
+
+    @GetMapping("/scheduled-transfers")
+    @Operation(summary = "Retrieve the current user's scheduled transfers.")
+    public ResponseEntity<List<ScheduledTransferDTO>> getScheduledTransfers(Principal principal) {
+        log.debug("User: {} is trying to read their scheduled transfers!", principal.getName());
+        var currentUserId = securityUtils.extractCurrentUserIdFromPrincipal(principal);
+        return ResponseEntity.ok(scheduledTransferService.getScheduledTransfers(currentUserId));
+    }
+
+    @DeleteMapping("/scheduled-transfers/{id}")
+    @Operation(summary = "Cancel a scheduled transfer.")
+    public ResponseEntity<ScheduledTransferDTO> cancelScheduledTransfer(Principal principal, @PathVariable Long id) {
+        log.debug("User: {} is trying to cancel ScheduledTransfer: {}!", principal.getName(), id);
+        var scheduledTransfer = scheduledTransferService.getScheduledTransferById(id);
+        securityUtils.canCurrentUserEditThisData(principal, scheduledTransfer.getSenderId());
+        return ResponseEntity.ok(scheduledTransferService.cancelScheduledTransfer(id));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.omega.web;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Roles;
+import com.example.omega.domain.enumeration.StatementFormat;
+import com.example.omega.domain.enumeration.TransactionDirection;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.dto.TransferResultDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.pipeline.TransferPipeline;
+import com.example.omega.service.statement.StatementExportService;
+import com.example.omega.service.util.PaginationUtil;
+import com.example.omega.service.util.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api")
+@Slf4j
+public class TransactionResource {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final TransactionService transactionService;
+
+    private final TransferPipeline transferPipeline;
+
+    private final StatementExportService statementExportService;
+
+    private final SecurityUtils securityUtils;
+
+    @PostMapping("/transactions")
+    @Operation(summary = "Accept a transfer and settle it asynchronously.")
+    public ResponseEntity<TransactionDTO> submitTransfer(Principal principal, @Valid @RequestBody TransactionDTO transactionDTO,
+                                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        log.debug("User: {} is trying to send money!", principal.getName());
+        securityUtils.canCurrentUserEditThisData(principal, transactionDTO.getSenderId());
+        var pendingTransaction = transferPipeline.submit(transactionDTO, idempotencyKey);
+        return ResponseEntity.accepted().body(pendingTransaction);
+    }
+
+    @GetMapping("/transactions")
+    @Operation(summary = "Retrieve a page of the current user's transactions, newest first.")
+    public ResponseEntity<List<TransactionDTO>> getTransactionHistory(Principal principal,
+                                                                      @RequestParam(defaultValue = "ALL") TransactionDirection direction,
+                                                                      @RequestParam(required = false) Currency currency,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int size) {
+        log.debug("User: {} is trying to read their transaction history!", principal.getName());
+        var pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        var currentUserId = securityUtils.extractCurrentUserIdFromPrincipal(principal);
+        var page = transactionService.getTransactionHistory(currentUserId, direction, currency, cursor, pageSize);
+        var headers = PaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page, pageSize);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    @GetMapping("/transactions/statement")
+    @Operation(summary = "Stream the current user's account statement as CSV or NDJSON.")
+    public ResponseEntity<StreamingResponseBody> exportStatement(Principal principal,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 @RequestParam(defaultValue = "CSV") StatementFormat format,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("User: {} is trying to export their statement!", principal.getName());
+        var currentUserId = securityUtils.extractCurrentUserIdFromPrincipal(principal);
+        var periodStart = from != null ? from : LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        var periodEnd = to != null ? to : periodStart.plusMonths(1);
+        if (!periodEnd.isAfter(periodStart)) {
+            throw new BadRequestException("The statement period must end after it starts!");
+        }
+
+        var gzip = acceptsGzip(acceptEncoding);
+        statementExportService.acquireExportSlot();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                var out = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+                statementExportService.exportStatement(currentUserId,
+                        periodStart.atStartOfDay().toInstant(ZoneOffset.UTC),
+                        periodEnd.atStartOfDay().toInstant(ZoneOffset.UTC),
+                        format, out);
+                if (gzip) {
+                    ((GZIPOutputStream) out).finish();
+                }
+            } finally {
+                statementExportService.releaseExportSlot();
+            }
+        };
+
+        var response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("statement-" + periodStart + "-" + periodEnd + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/transactions/{transactionId}")
+    @Operation(summary = "Get a transaction by its unique ID.")
+    public ResponseEntity<TransactionDTO> getTransaction(Principal principal, @PathVariable Long transactionId) {
+        log.debug("User: {} is trying to read a transaction!", principal.getName());
+        var transaction = transactionService.getTransactionById(transactionId);
+        if (!securityUtils.isCurrentUserInRole(Roles.ROLE_ADMIN.name())) {
+            var currentUserId = securityUtils.extractCurrentUserIdFromPrincipal(principal);
+            if (!currentUserId.equals(transaction.getSenderId()) && !currentUserId.equals(transaction.getRecipientId())) {
+                throw new BadRequestException("You do not have permission to read this Entity!");
+            }
+        }
+        return ResponseEntity.ok().body(transaction);
+    }
+
+    @GetMapping("/transactions/review")
+    @Operation(summary = "Retrieve the transfers held for review, oldest first.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<TransactionDTO>> getTransactionsUnderReview(Principal principal, @RequestParam(defaultValue = "20") int size) {
+        log.debug("User: {} is trying to read the transfers held for review!", principal.getName());
+        return ResponseEntity.ok().body(transactionService.getTransactionsUnderReview(Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+    }
+
+    @PostMapping("/transactions/{transactionId}/approve")
+    @Operation(summary = "Approve a transfer held for review and move its money.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<TransactionDTO> approveTransfer(Principal principal, @PathVariable Long transactionId) {
+        log.debug("User: {} is trying to approve Transaction: {}!", principal.getName(), transactionId);
+        return ResponseEntity.ok().body(transactionService.approveTransfer(transactionId));
+    }
+
+    @PostMapping("/transactions/{transactionId}/reject")
+    @Operation(summary = "Reject a transfer held for review.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<TransactionDTO> rejectTransfer(Principal principal, @PathVariable Long transactionId) {
+        log.debug("User: {} is trying to reject Transaction: {}!", principal.getName(), transactionId);
+        return ResponseEntity.ok().body(transactionService.rejectTransfer(transactionId));
+    }
+
+    @PostMapping("/transactions/batch")
+    @Operation(summary = "Send a batch of transfers in one database transaction.")
+    public ResponseEntity<List<TransferResultDTO>> sendMoneyBatch(Principal principal, @RequestBody List<TransactionDTO> transactionDTOs) {
+        log.debug("User: {} is trying to send a batch of transfers!", principal.getName());
+        canCurrentUserSendFromAll(principal, transactionDTOs);
+        var results = transactionService.sendMoneyBatch(transactionDTOs);
+        return ResponseEntity.ok().body(results);
+    }
+
+    /**
+     * Checks that every transfer of the batch is sent from the current user's own accounts,
+     * looking the current user up only once per request.
+     *
+     * @param principal       The principal object representing the current user.
+     * @param transactionDTOs The transfers to check.
+     * @throws BadRequestException if one of the transfers is sent from another user's account.
+     */
+    private void canCurrentUserSendFromAll(Principal principal, List<TransactionDTO> transactionDTOs) {
+        if (securityUtils.isCurrentUserInRole(Roles.ROLE_ADMIN.name())) {
+            return;
+        }
+        var currentUserId = securityUtils.extractCurrentUserIdFromPrincipal(principal);
+        var foreignTransfer = transactionDTOs.stream()
+                .filter(Objects::nonNull)
+                .anyMatch(transactionDTO -> !currentUserId.equals(transactionDTO.getSenderId()));
+        if (foreignTransfer) {
+            throw new BadRequestException("You do not have permission to send money from this account!");
+        }
+    }
+
+    /**
+     * Checks if the client accepts a gzip response. Only an explicit gzip coding with a non-zero
+     * quality counts, so {@code gzip;q=0} refuses it.
+     *
+     * @param acceptEncoding The Accept-Encoding header, or {@code null}.
+     * @return {@code true} if the response may be gzip compressed.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (var coding : acceptEncoding.split(",")) {
+            var parameters = coding.split(";");
+            if (!"gzip".equalsIgnoreCase(parameters[0].trim())) {
+                continue;
+            }
+            var quality = 1.0;
+            for (var index = 1; index < parameters.length; index++) {
+                var parameter = parameters[index].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            return quality > 0;
+        }
+        return false;
+    }
+}
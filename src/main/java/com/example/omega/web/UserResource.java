@@ -83,6 +83,15 @@ public class UserResource {
         return ResponseEntity.ok().headers(headers).body(usersPage.getContent());
     }
 
+    @PutMapping("/users/{userId}/locked")
+    @Operation(summary = "Lock or unlock a user, locking revokes every token of the user.")
+    @JsonView(Views.AllUsersWithDetails.class)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<UserDTO> setUserLocked(Principal principal, @PathVariable Long userId, @RequestParam boolean locked) {
+        log.debug("User: {} is trying to {} User: {}!", principal.getName(), locked ? "lock" : "unlock", userId);
+        return ResponseEntity.ok().body(userService.setUserLocked(userId, locked));
+    }
+
     @DeleteMapping("/users/{userId}")
     @Operation(summary = "Delete a user by their unique user ID.")
     public ResponseEntity<Void> deleteUserById(Principal principal, @PathVariable Long userId) {
@@ -0,0 +1,73 @@
+package com.example.omega.web;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.dto.DailyVolumeDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.volume.DailyVolumeService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api")
+@Slf4j
+public class VolumeResource {
+
+    private static final int MAX_DAYS = 366;
+
+    private final DailyVolumeService dailyVolumeService;
+
+    @GetMapping("/volumes/daily")
+    @Operation(summary = "Get the daily transfer volume of all users.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<DailyVolumeDTO>> getTotalVolume(Principal principal,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(required = false) Currency currency) {
+        log.debug("User: {} is trying to get the daily volume from {} to {}!", principal.getName(), from, to);
+        validateRange(from, to);
+        return ResponseEntity.ok(dailyVolumeService.getTotalVolume(currency, from, to));
+    }
+
+    @GetMapping("/volumes/daily/{userId}")
+    @Operation(summary = "Get the daily transfer volume of a user.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<DailyVolumeDTO>> getUserVolume(Principal principal, @PathVariable Long userId,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) Currency currency) {
+        log.debug("User: {} is trying to get the daily volume of User: {} from {} to {}!", principal.getName(), userId, from, to);
+        validateRange(from, to);
+        return ResponseEntity.ok(dailyVolumeService.getUserVolume(userId, currency, from, to));
+    }
+
+    @PostMapping("/volumes/daily/backfill")
+    @Operation(summary = "Rebuild the daily transfer volume of past days from the transactions.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Integer> backfill(Principal principal,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("User: {} is trying to backfill the daily volume from {} to {}!", principal.getName(), from, to);
+        validateRange(from, to);
+        return ResponseEntity.ok(dailyVolumeService.backfill(from, to));
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("The first day can't be after the last day!");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BadRequestException("The range can't be longer than " + MAX_DAYS + " days!");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.omega.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a BCrypt hash at each cost, the numbers behind {@code omega.app.password.target-ms}: every
+ * step doubles the time, and a sign-in holds a hashing thread for one hash (two when the password is
+ * rehashed). The calibrated cost is the highest one within the target on the machine it runs on.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main BCryptWorkFactorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BCryptWorkFactorBenchmark {
+
+    @Param({"10", "11", "12", "13"})
+    private int strength;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hash = BCrypt.hashpw("benchmarkPassword", BCrypt.gensalt(strength));
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return BCrypt.checkpw("benchmarkPassword", hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BCryptWorkFactorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.fx.FxQuote;
+import com.example.omega.service.fx.FxService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting the amount of one transfer with the rates of {@code fx-rates.properties},
+ * from several threads at once while the rate table may be swapped by a reload.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main FxConversionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class FxConversionBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1234.56");
+
+    @Param({"USD", "JPY"})
+    private Currency recipientCurrency;
+
+    private FxService fxService;
+
+    @Setup
+    public void setUp() {
+        fxService = new FxService(new DefaultResourceLoader(), "classpath:fx-rates.properties");
+        fxService.reloadRates();
+    }
+
+    @Benchmark
+    public FxQuote convert() {
+        return fxService.quote(AMOUNT, Currency.EUR, recipientCurrency);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FxConversionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.domain.id.TimeOrderedId;
+import com.example.omega.domain.id.TimeOrderedIdGenerator;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Inserts per second through Hibernate into an in-memory H2 database, with the ID strategies the
+ * entities used before (a sequence call per row) and after (pooled-lo blocks of 50, or time-ordered
+ * IDs without any database call). Rows are inserted in JDBC batches of 50 in every case.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main IdGenerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 500;
+
+    @Param({"SEQUENCE_ALLOCATION_1", "SEQUENCE_POOLED_LO_50", "TIME_ORDERED"})
+    private String strategy;
+
+    private SessionFactory sessionFactory;
+
+    private Supplier<Object> rowFactory;
+
+    @Setup
+    public void setUp() {
+        var configuration = new Configuration()
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:" + strategy + ";DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setProperty(TimeOrderedIdGenerator.NODE_ID_SETTING, "1");
+
+        switch (strategy) {
+            case "SEQUENCE_ALLOCATION_1":
+                configuration.addAnnotatedClass(SequenceRow.class);
+                rowFactory = SequenceRow::new;
+                break;
+            case "SEQUENCE_POOLED_LO_50":
+                configuration.addAnnotatedClass(PooledLoRow.class);
+                rowFactory = PooledLoRow::new;
+                break;
+            default:
+                configuration.addAnnotatedClass(TimeOrderedRow.class);
+                rowFactory = TimeOrderedRow::new;
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insert() {
+        sessionFactory.inTransaction(session -> {
+            for (var i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(rowFactory.get());
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGenerationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @Entity
+    @Table(name = "sequence_row")
+    public static class SequenceRow {
+
+        @Id
+        @GeneratedValue(generator = "sequence_row_generator", strategy = GenerationType.SEQUENCE)
+        @SequenceGenerator(name = "sequence_row_generator", initialValue = 1000, allocationSize = 1)
+        private Long id;
+
+        @Column
+        private String payload = "payload";
+    }
+
+    @Entity
+    @Table(name = "pooled_lo_row")
+    public static class PooledLoRow {
+
+        @Id
+        @GeneratedValue(generator = "pooled_lo_row_generator", strategy = GenerationType.SEQUENCE)
+        @SequenceGenerator(name = "pooled_lo_row_generator", initialValue = 1000, allocationSize = 50)
+        private Long id;
+
+        @Column
+        private String payload = "payload";
+    }
+
+    @Entity
+    @Table(name = "time_ordered_row")
+    public static class TimeOrderedRow {
+
+        @Id
+        @TimeOrderedId
+        private Long id;
+
+        @Column
+        private String payload = "payload";
+    }
+}
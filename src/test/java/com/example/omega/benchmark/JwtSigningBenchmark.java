@@ -0,0 +1,112 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.config.security.jwt.JwtKeyProperties;
+import com.example.omega.config.security.jwt.JwtKeyRing;
+import com.example.omega.domain.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of issuing and verifying tokens with the key ring, against deriving the key from the Base64
+ * secret and building a parser on every call, as {@code signWith(algorithm, secret)} and
+ * {@code parser().setSigningKey(secret)} used to.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main JwtSigningBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    private static final String SECRET = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+
+    private static final UserDetailsImpl USER =
+            new UserDetailsImpl(1L, "alice", null, List.of(new SimpleGrantedAuthority("ROLE_USER")), 0, true);
+
+    private JwtKeyRing keyRing;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        var properties = new JwtKeyProperties();
+        properties.setActive("benchmark");
+        properties.setSecrets(Map.of("benchmark", SECRET));
+        keyRing = new JwtKeyRing(properties);
+        token = issueWithKeyRing();
+    }
+
+    @Benchmark
+    public String issuePerCallKey() {
+        return claims(Jwts.builder())
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    @Benchmark
+    public String issueWithKeyRing() {
+        return claims(keyRing.builder()).compact();
+    }
+
+    @Benchmark
+    public Claims verifyPerCallParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims verifyWithKeyRing() {
+        return keyRing.parser().parseClaimsJws(token).getBody();
+    }
+
+    private static JwtBuilder claims(JwtBuilder builder) {
+        var now = System.currentTimeMillis();
+        return builder
+                .setId(UUID.randomUUID().toString())
+                .setSubject(USER.getUsername())
+                .claim("uid", USER.getId())
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 600_000));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtSigningBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.config.security.jwt.JwtKeyProperties;
+import com.example.omega.config.security.jwt.JwtKeyRing;
+import com.example.omega.config.security.jwt.JwtUtils;
+import com.example.omega.config.security.jwt.VerifiedToken;
+import com.example.omega.config.security.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: the old path that validates the token and then parses
+ * it again for the username, a single verifying parse, and the verified-token cache. Requests draw from a
+ * pool of live tokens, so a large pool shows the cost of the digest and map lookup once the entries no longer
+ * sit in the CPU cache.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main JwtVerificationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final SecretKey KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    @Param({"1", "10000"})
+    private int tokens;
+
+    private JwtKeyRing keyRing;
+
+    private JwtUtils jwtUtils;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private String[] bearerTokens;
+
+    @Setup
+    public void setUp() {
+        var properties = new JwtKeyProperties();
+        properties.setActive("benchmark");
+        properties.setSecrets(Map.of("benchmark", Encoders.BASE64.encode(KEY.getEncoded())));
+        keyRing = new JwtKeyRing(properties);
+        jwtUtils = new JwtUtils(keyRing, 3_600_000, 3_600_000);
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, new SimpleMeterRegistry(), tokens * 2, 3_600_000);
+
+        var now = System.currentTimeMillis();
+        bearerTokens = new String[tokens];
+        for (var index = 0; index < tokens; index++) {
+            bearerTokens[index] = Jwts.builder()
+                    .setSubject("user" + index)
+                    .setIssuedAt(new Date(now))
+                    .setExpiration(new Date(now + 3_600_000))
+                    .signWith(KEY, SignatureAlgorithm.HS512)
+                    .compact();
+        }
+    }
+
+    /**
+     * The old path, kept here as the baseline: the token is validated with one parse, and parsed again for the username.
+     */
+    @Benchmark
+    public String validateThenParse() {
+        var token = nextToken();
+        try {
+            keyRing.parser().parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        return keyRing.parser()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> singleParse() {
+        return jwtUtils.verifyJwtToken(nextToken());
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> cached() {
+        return verifiedTokenCache.verify(nextToken());
+    }
+
+    private String nextToken() {
+        return bearerTokens[ThreadLocalRandom.current().nextInt(tokens)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
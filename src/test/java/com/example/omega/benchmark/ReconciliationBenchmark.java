@@ -0,0 +1,85 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.service.reconciliation.BalanceReconciler;
+import com.example.omega.service.reconciliation.ReconciliationReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a full reconciliation of an in-memory H2 database with one account per user, a snapshot for every
+ * account and two journal entries since. Divide the number of accounts by the score for the accounts per second.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main ReconciliationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReconciliationBenchmark {
+
+    @Param({"100000"})
+    private int accounts;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private BalanceReconciler balanceReconciler;
+
+    @Setup
+    public void setUp() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reconciliation" + parallelism + ";DB_CLOSE_DELAY=-1");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account_balance (id bigint primary key, user_id bigint, currency varchar(255), " +
+                "shard int not null, balance numeric)");
+        jdbcTemplate.execute("create index idx_account_balance_user_id on account_balance (user_id)");
+        jdbcTemplate.execute("create table balance_snapshot (id bigint primary key, account_balance_id bigint not null, " +
+                "balance numeric not null, covered_until timestamp not null)");
+        jdbcTemplate.execute("create index idx_balance_snapshot_account on balance_snapshot (account_balance_id, covered_until)");
+        jdbcTemplate.execute("create table journal_entry (id bigint auto_increment primary key, account_balance_id bigint not null, " +
+                "entry_type varchar(255) not null, amount numeric not null, created_date timestamp not null)");
+        jdbcTemplate.execute("create index idx_journal_entry_account on journal_entry (account_balance_id, created_date)");
+
+        jdbcTemplate.execute("insert into account_balance select x, x, 'EUR', 0, 125 from system_range(1, " + accounts + ")");
+        jdbcTemplate.execute("insert into balance_snapshot select x, x, 100, timestamp '2026-10-01 00:00:00' from system_range(1, " + accounts + ")");
+        jdbcTemplate.execute("insert into journal_entry (account_balance_id, entry_type, amount, created_date) " +
+                "select x, 'CREDIT', 50, timestamp '2026-10-02 00:00:00' from system_range(1, " + accounts + ")");
+        jdbcTemplate.execute("insert into journal_entry (account_balance_id, entry_type, amount, created_date) " +
+                "select x, 'DEBIT', 25, timestamp '2026-10-03 00:00:00' from system_range(1, " + accounts + ")");
+
+        balanceReconciler = new BalanceReconciler(dataSource, new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(),
+                10_000, parallelism, 5000, 60, 1000);
+    }
+
+    @Benchmark
+    public ReconciliationReport reconcile() {
+        return balanceReconciler.reconcile();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReconciliationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
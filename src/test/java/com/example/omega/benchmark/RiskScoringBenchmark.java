@@ -0,0 +1,87 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.ledger.LedgerTransfer;
+import com.example.omega.service.risk.AmountOutlierRule;
+import com.example.omega.service.risk.NewRecipientRule;
+import com.example.omega.service.risk.RiskAssessment;
+import com.example.omega.service.risk.RiskScorer;
+import com.example.omega.service.risk.TransferBurstRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of scoring a transfer with the default rules, including their timers, for senders
+ * whose profiles are full. The p0.99 of the sample-time mode is the number that has to stay below 1 ms.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main RiskScoringBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskScoringBenchmark {
+
+    @Param({"1000", "100000"})
+    private int users;
+
+    private RiskScorer riskScorer;
+
+    private TransactionDTO[] transfers;
+
+    @Setup
+    public void setUp() {
+        riskScorer = new RiskScorer(List.of(new NewRecipientRule(30, 3), new AmountOutlierRule(50, BigDecimal.TEN, 5),
+                new TransferBurstRule(40, 10, 60_000)), new SimpleMeterRegistry(), true, 70, 720);
+
+        var random = ThreadLocalRandom.current();
+        for (long user = 0; user < users; user++) {
+            for (var i = 0; i < 64; i++) {
+                riskScorer.record(LedgerTransfer.of(user, (long) random.nextInt(300), Currency.EUR, BigDecimal.valueOf(random.nextInt(1, 100_000), 2)));
+            }
+        }
+
+        transfers = new TransactionDTO[1024];
+        for (var i = 0; i < transfers.length; i++) {
+            var transactionDTO = new TransactionDTO();
+            transactionDTO.setSenderId((long) random.nextInt(users));
+            transactionDTO.setRecipientId((long) random.nextInt(300));
+            transactionDTO.setCurrency(Currency.EUR);
+            transactionDTO.setAmount(BigDecimal.valueOf(random.nextInt(1, 1_000_000), 2));
+            transfers[i] = transactionDTO;
+        }
+    }
+
+    @Benchmark
+    public RiskAssessment assess() {
+        return riskScorer.assess(transfers[ThreadLocalRandom.current().nextInt(transfers.length)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RiskScoringBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
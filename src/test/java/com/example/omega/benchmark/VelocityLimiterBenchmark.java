@@ -0,0 +1,68 @@
+package com.example.omega.benchmark;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.limits.VelocityLimitProperties;
+import com.example.omega.service.limits.VelocityLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a transfer against the velocity limits. Senders are drawn from a pool of users: one hot
+ * user keeps its windows in the CPU cache, a large pool mostly measures cache misses. Add {@code -t 4} to
+ * measure contention on the windows of the same user. The default profile has no limits, so no transfer is rejected.
+ * <p>
+ * Run the {@link #main} method, or {@code java -cp <test classpath> org.openjdk.jmh.Main VelocityLimiterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VelocityLimiterBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("12.34");
+
+    @Param({"1", "100000"})
+    private int users;
+
+    private VelocityLimiter velocityLimiter;
+
+    @Setup
+    public void setUp() {
+        velocityLimiter = new VelocityLimiter(new VelocityLimitProperties(), Mockito.mock(DataSource.class),
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1000);
+    }
+
+    @Benchmark
+    public VelocityLimiter.Reservation reserve() {
+        return velocityLimiter.reserve((long) ThreadLocalRandom.current().nextInt(users), Currency.EUR, AMOUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VelocityLimiterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.omega.config;
+
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+class BoundedBCryptPasswordEncoderTest {
+
+    @Test
+    void testUpgradeEncoding_WhenStoredCostDiffers() {
+        // Arrange
+        var encoder = new BoundedBCryptPasswordEncoder(5, 1, 4, new SimpleMeterRegistry());
+        var current = encoder.encode("password");
+        var weaker = BCrypt.hashpw("password", BCrypt.gensalt(4));
+        var stronger = BCrypt.hashpw("password", BCrypt.gensalt(6));
+
+        // Act & Assert (hashes of any other cost are rehashed, whatever the direction)
+        Assertions.assertTrue(encoder.matches("password", current));
+        Assertions.assertTrue(encoder.matches("password", weaker));
+        Assertions.assertFalse(encoder.upgradeEncoding(current));
+        Assertions.assertTrue(encoder.upgradeEncoding(weaker));
+        Assertions.assertTrue(encoder.upgradeEncoding(stronger));
+        Assertions.assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        encoder.shutdown();
+    }
+
+    @Test
+    void testMatches_WhenPoolIsSaturated() throws Exception {
+        // Arrange (a single slot, held by a slow hash)
+        var meterRegistry = new SimpleMeterRegistry();
+        var encoder = new BoundedBCryptPasswordEncoder(4, 1, 1, meterRegistry);
+        var slowHash = BCrypt.hashpw("password", BCrypt.gensalt(12));
+        var running = CompletableFuture.supplyAsync(() -> encoder.matches("password", slowHash));
+        var inFlight = meterRegistry.get("omega.auth.password-hash.in-flight").gauge();
+        while (inFlight.value() < 1 && !running.isDone()) {
+            Thread.sleep(1);
+        }
+
+        // Act
+        var exception = Assertions.assertThrows(BadRequestException.class, () -> encoder.matches("password", slowHash));
+
+        // Assert (rejected right away, the running hash still completes)
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        Assertions.assertTrue(running.get());
+        Assertions.assertEquals(1, meterRegistry.counter("omega.auth.password-hash.rejected").count());
+        encoder.shutdown();
+    }
+
+    @Test
+    void testCalibrateStrength_WhenTargetIsOutOfRange() {
+        // Act & Assert (the cost stays within its bounds)
+        Assertions.assertEquals(4, BoundedBCryptPasswordEncoder.calibrateStrength(Duration.ZERO, 4, 8));
+        Assertions.assertEquals(6, BoundedBCryptPasswordEncoder.calibrateStrength(Duration.ofMinutes(1), 4, 6));
+    }
+}
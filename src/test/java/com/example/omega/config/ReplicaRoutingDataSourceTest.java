@@ -0,0 +1,112 @@
+package com.example.omega.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate replica;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readTemplate;
+
+    private TransactionTemplate writeTemplate;
+
+    @BeforeEach
+    void setUp() {
+        var primary = database("primary");
+        replica = new JdbcTemplate(database("replica"));
+        replica.execute("create table replication (lag_ms bigint)");
+        replica.update("insert into replication values (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica.getDataSource(), "select lag_ms from replication", 1000, 60_000);
+        routingDataSource.afterPropertiesSet();
+        var dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRouting_WhenTransactionIsReadOnly() {
+        Assertions.assertEquals("replica", readTemplate.execute(status -> node()));
+        Assertions.assertEquals("primary", writeTemplate.execute(status -> node()));
+    }
+
+    @Test
+    void testRouting_WhenUserJustWrote() {
+        // Arrange
+        login("alice");
+        writeTemplate.execute(status -> node());
+
+        // Act
+        var alice = readTemplate.execute(status -> node());
+        login("bob");
+        var bob = readTemplate.execute(status -> node());
+
+        // Assert (only the writer reads from the primary during the read-your-writes window)
+        Assertions.assertEquals("primary", alice);
+        Assertions.assertEquals("replica", bob);
+    }
+
+    @Test
+    void testRouting_WhenReplicaLags() {
+        // Arrange
+        replica.update("update replication set lag_ms = 5000");
+
+        // Act
+        routingDataSource.checkReplicaLag();
+        var lagging = readTemplate.execute(status -> node());
+        replica.update("update replication set lag_ms = 10");
+        routingDataSource.checkReplicaLag();
+        var caughtUp = readTemplate.execute(status -> node());
+
+        // Assert
+        Assertions.assertEquals("primary", lagging);
+        Assertions.assertEquals("replica", caughtUp);
+    }
+
+    @Test
+    void testRouting_WhenPrimaryIsForced() {
+        Assertions.assertEquals("primary", ReplicaRoutingDataSource.onPrimary(() -> readTemplate.execute(status -> node())));
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static JdbcDataSource database(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing_" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(16))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
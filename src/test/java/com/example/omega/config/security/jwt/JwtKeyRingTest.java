@@ -0,0 +1,59 @@
+package com.example.omega.config.security.jwt;
+
+import com.example.omega.domain.UserDetailsImpl;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+class JwtKeyRingTest {
+
+    private static final String OLD_SECRET = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+
+    private static final String NEW_SECRET = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+
+    private static final UserDetailsImpl USER =
+            new UserDetailsImpl(1L, "alice", null, List.of(new SimpleGrantedAuthority("ROLE_USER")), 0, true);
+
+    @Test
+    void testVerifyJwtToken_WhenKeyWasRotated() {
+        // Arrange (a node on the old key, and one that already signs with the new key)
+        var before = jwtUtils("old", Map.of("old", OLD_SECRET, "new", NEW_SECRET));
+        var after = jwtUtils("new", Map.of("old", OLD_SECRET, "new", NEW_SECRET));
+        var retired = jwtUtils("new", Map.of("new", NEW_SECRET));
+
+        // Act
+        var oldToken = before.generateJwtToken(USER, "1", new Date());
+        var newToken = after.generateJwtToken(USER, "2", new Date());
+
+        // Assert (both keys verify on every node until the old one is dropped)
+        Assertions.assertEquals("alice", after.verifyJwtToken(oldToken).orElseThrow().getUsername());
+        Assertions.assertEquals("alice", before.verifyJwtToken(newToken).orElseThrow().getUsername());
+        Assertions.assertTrue(retired.verifyJwtToken(newToken).isPresent());
+        Assertions.assertTrue(retired.verifyJwtToken(oldToken).isEmpty());
+    }
+
+    @Test
+    void testJwtKeyRing_WhenKeyIsInvalid() {
+        // Act & Assert
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> jwtUtils("missing", Map.of("old", OLD_SECRET)));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> jwtUtils("weak", Map.of("weak", Encoders.BASE64.encode(new byte[32]))));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> jwtUtils("blank", Map.of("blank", " ")));
+    }
+
+    private static JwtUtils jwtUtils(String active, Map<String, String> secrets) {
+        var properties = new JwtKeyProperties();
+        properties.setActive(active);
+        properties.setSecrets(secrets);
+        return new JwtUtils(new JwtKeyRing(properties), 600_000, 60_000);
+    }
+}
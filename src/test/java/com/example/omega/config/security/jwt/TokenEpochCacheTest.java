@@ -0,0 +1,49 @@
+package com.example.omega.config.security.jwt;
+
+import com.example.omega.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+
+class TokenEpochCacheTest {
+
+    @Test
+    void testIsCurrent_WhenEpochIsCached() {
+        // Arrange
+        var userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenEpochById(1L)).thenReturn(Optional.of(2));
+        var cache = new TokenEpochCache(userRepository, new SimpleMeterRegistry(), 60_000, 100);
+
+        // Act
+        var current = cache.isCurrent(1L, 2);
+        var again = cache.isCurrent(1L, 2);
+        var stale = cache.isCurrent(1L, 1);
+
+        // Assert (the user is read once per TTL, not per request)
+        Assertions.assertTrue(current);
+        Assertions.assertTrue(again);
+        Assertions.assertFalse(stale);
+        Mockito.verify(userRepository, Mockito.times(1)).findTokenEpochById(1L);
+    }
+
+    @Test
+    void testIsCurrent_WhenTokensWereRevoked() {
+        // Arrange
+        var userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenEpochById(1L)).thenReturn(Optional.of(0));
+        Mockito.when(userRepository.findTokenEpochById(2L)).thenReturn(Optional.empty());
+        var cache = new TokenEpochCache(userRepository, new SimpleMeterRegistry(), 60_000, 100);
+        Assertions.assertTrue(cache.isCurrent(1L, 0));
+
+        // Act
+        cache.updateAfterCommit(1L, 1);
+
+        // Assert (deleted users have no current epoch)
+        Assertions.assertFalse(cache.isCurrent(1L, 0));
+        Assertions.assertTrue(cache.isCurrent(1L, 1));
+        Assertions.assertFalse(cache.isCurrent(2L, 0));
+    }
+}
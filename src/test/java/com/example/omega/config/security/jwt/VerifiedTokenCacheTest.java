@@ -0,0 +1,91 @@
+package com.example.omega.config.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+
+class VerifiedTokenCacheTest {
+
+    private static final SecretKey KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    private static final SecretKey OTHER_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    private JwtUtils jwtUtils;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new JwtKeyProperties();
+        properties.setActive("test");
+        properties.setSecrets(Map.of("test", Encoders.BASE64.encode(KEY.getEncoded())));
+        jwtUtils = Mockito.spy(new JwtUtils(new JwtKeyRing(properties), 600_000, 60_000));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testVerify_WhenTokenWasVerifiedBefore() {
+        // Arrange
+        var cache = new VerifiedTokenCache(jwtUtils, meterRegistry, 100, 60_000);
+        var token = token("alice", 60_000, KEY);
+
+        // Act
+        var first = cache.verify(token);
+        var second = cache.verify(token);
+
+        // Assert (the signature is checked only for the first request)
+        Assertions.assertEquals("alice", first.orElseThrow().getUsername());
+        Assertions.assertEquals("alice", second.orElseThrow().getUsername());
+        Mockito.verify(jwtUtils, Mockito.times(1)).verifyJwtToken(token);
+        Assertions.assertEquals(1, meterRegistry.counter("omega.auth.token-cache", "result", "hit").count());
+        Assertions.assertEquals(1, meterRegistry.counter("omega.auth.token-cache", "result", "miss").count());
+    }
+
+    @Test
+    void testVerify_WhenTokenIsInvalid() {
+        // Arrange
+        var cache = new VerifiedTokenCache(jwtUtils, meterRegistry, 100, 60_000);
+        var forged = token("alice", 60_000, OTHER_KEY);
+        var expired = token("alice", -1_000, KEY);
+
+        // Act & Assert (rejected tokens are never cached)
+        Assertions.assertTrue(cache.verify(forged).isEmpty());
+        Assertions.assertTrue(cache.verify(forged).isEmpty());
+        Assertions.assertTrue(cache.verify(expired).isEmpty());
+        Mockito.verify(jwtUtils, Mockito.times(2)).verifyJwtToken(forged);
+    }
+
+    @Test
+    void testVerify_WhenCachedTokenExpires() throws InterruptedException {
+        // Arrange (the entry can't outlive the token)
+        var cache = new VerifiedTokenCache(jwtUtils, meterRegistry, 100, 60_000);
+        var token = token("alice", 1_000, KEY);
+        Assertions.assertTrue(cache.verify(token).isPresent());
+
+        // Act
+        Thread.sleep(1_100);
+
+        // Assert
+        Assertions.assertTrue(cache.verify(token).isEmpty());
+    }
+
+    private static String token(String username, long expiresInMs, SecretKey key) {
+        var now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiresInMs))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
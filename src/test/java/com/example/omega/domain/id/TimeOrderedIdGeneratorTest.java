@@ -0,0 +1,57 @@
+package com.example.omega.domain.id;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void testNextId_WhenCalledRepeatedly() {
+        // Arrange
+        var generator = new TimeOrderedIdGenerator(5);
+
+        // Act
+        var previous = generator.nextId();
+        for (var i = 0; i < 100_000; i++) {
+            var next = generator.nextId();
+
+            // Assert (ids keep increasing even when a millisecond's sequence is used up)
+            Assertions.assertTrue(next > previous);
+            Assertions.assertEquals(5, (next >>> TimeOrderedIdGenerator.SEQUENCE_BITS) & TimeOrderedIdGenerator.MAX_NODE_ID);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testNextId_WhenCalledConcurrently() throws InterruptedException {
+        // Arrange
+        var generators = new TimeOrderedIdGenerator[]{new TimeOrderedIdGenerator(6), new TimeOrderedIdGenerator(6)};
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        var executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (var i = 0; i < 8; i++) {
+            var generator = generators[i % 2];
+            executor.execute(() -> {
+                for (var j = 0; j < 25_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+
+        // Assert (generators of the same node share their state)
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(200_000, ids.size());
+    }
+
+    @Test
+    void testConstructor_WhenNodeIdIsOutOfRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(1024));
+    }
+}
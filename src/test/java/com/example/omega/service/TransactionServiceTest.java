@@ -0,0 +1,212 @@
+package com.example.omega.service;
+
+import com.example.omega.domain.Transaction;
+import com.example.omega.domain.User;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.TransactionDirection;
+import com.example.omega.mapper.TransactionMapperImpl;
+import com.example.omega.repository.TransactionRepository;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.fx.FxService;
+import com.example.omega.service.history.StateHistoryWriter;
+import com.example.omega.service.idempotency.IdempotencyKeyStore;
+import com.example.omega.service.ledger.LedgerEngine;
+import com.example.omega.service.ledger.TransferRetryTemplate;
+import com.example.omega.service.limits.VelocityLimiter;
+import com.example.omega.service.outbox.TransactionOutbox;
+import com.example.omega.service.risk.RiskScorer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class TransactionServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+    // Every stored transaction, the repository queries are answered from it like the keyset queries are
+    private final List<Transaction> transactions = new ArrayList<>();
+
+    private TransactionRepository transactionRepository;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = Mockito.mock(TransactionRepository.class);
+        Mockito.when(transactionRepository.findOutgoingBefore(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> before(Transaction::getSender, Transaction::getCurrency,
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+        Mockito.when(transactionRepository.findIncomingBefore(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> before(Transaction::getRecipient, TransactionServiceTest::creditedCurrency,
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+
+        transactionService = new TransactionService(Mockito.mock(LedgerEngine.class), Mockito.mock(TransferRetryTemplate.class),
+                transactionRepository, Mockito.mock(StateHistoryWriter.class), Mockito.mock(VelocityLimiter.class),
+                Mockito.mock(RiskScorer.class), Mockito.mock(TransactionOutbox.class), new TransactionMapperImpl(),
+                Mockito.mock(IdempotencyKeyStore.class), Mockito.mock(FxService.class));
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenPagingThroughBothDirections() {
+        // Arrange (both directions interleave, and three transactions share the newest created date)
+        transaction(1L, NOW.minusSeconds(2), USER_ID, 2L, Currency.EUR);
+        transaction(2L, NOW.minusSeconds(2), 2L, USER_ID, Currency.EUR);
+        transaction(3L, NOW.minusSeconds(1), 2L, USER_ID, Currency.EUR);
+        transaction(4L, NOW.minusSeconds(1), USER_ID, 3L, Currency.EUR);
+        transaction(5L, NOW, USER_ID, 2L, Currency.EUR);
+        transaction(6L, NOW, 3L, USER_ID, Currency.EUR);
+        transaction(7L, NOW, USER_ID, 3L, Currency.EUR);
+        transaction(8L, NOW, 2L, 3L, Currency.EUR);
+
+        // Act
+        var pages = pages(TransactionDirection.ALL, null, 2);
+
+        // Assert (newest first, ties broken by the highest id, nothing repeated or skipped across the page boundaries)
+        Assertions.assertEquals(List.of(List.of(7L, 6L), List.of(5L, 4L), List.of(3L, 2L), List.of(1L)), pages);
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenLastPageIsFull() {
+        // Arrange
+        transaction(1L, NOW.minusSeconds(1), USER_ID, 2L, Currency.EUR);
+        transaction(2L, NOW, 2L, USER_ID, Currency.EUR);
+
+        // Act
+        var page = transactionService.getTransactionHistory(USER_ID, TransactionDirection.ALL, null, null, 2);
+
+        // Assert (no cursor pointing to an empty page)
+        Assertions.assertEquals(List.of(2L, 1L), ids(page.getContent()));
+        Assertions.assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenDirectionIsGiven() {
+        // Arrange
+        transaction(1L, NOW.minusSeconds(3), USER_ID, 2L, Currency.EUR);
+        transaction(2L, NOW.minusSeconds(2), 2L, USER_ID, Currency.EUR);
+        transaction(3L, NOW.minusSeconds(1), USER_ID, 3L, Currency.EUR);
+        transaction(4L, NOW, 3L, USER_ID, Currency.EUR);
+
+        // Act
+        var outgoing = pages(TransactionDirection.OUTGOING, null, 1);
+        var incoming = pages(TransactionDirection.INCOMING, null, 1);
+
+        // Assert (only the query of that direction runs)
+        Assertions.assertEquals(List.of(List.of(3L), List.of(1L)), outgoing);
+        Assertions.assertEquals(List.of(List.of(4L), List.of(2L)), incoming);
+        Mockito.verify(transactionRepository, Mockito.times(2)).findOutgoingBefore(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(transactionRepository, Mockito.times(2)).findIncomingBefore(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenCurrencyIsGiven() {
+        // Arrange
+        transaction(1L, NOW.minusSeconds(3), USER_ID, 2L, Currency.EUR);
+        transaction(2L, NOW.minusSeconds(2), 2L, USER_ID, Currency.USD);
+        transaction(3L, NOW.minusSeconds(1), USER_ID, 3L, Currency.USD);
+        transaction(4L, NOW, 3L, USER_ID, Currency.EUR);
+
+        // Act
+        var pages = pages(TransactionDirection.ALL, Currency.USD, 1);
+
+        // Assert (the currency is passed to both queries, and it keeps applying on the following pages)
+        Assertions.assertEquals(List.of(List.of(3L), List.of(2L)), pages);
+        Mockito.verify(transactionRepository, Mockito.never()).findOutgoingBefore(ArgumentMatchers.any(),
+                ArgumentMatchers.eq(Currency.EUR), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(transactionRepository, Mockito.never()).findIncomingBefore(ArgumentMatchers.any(),
+                ArgumentMatchers.isNull(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenTransferWasConverted() {
+        // Arrange (10 EUR sent to the user, credited as 11.50 USD)
+        var converted = transaction(1L, NOW, 2L, USER_ID, Currency.EUR);
+        converted.setRecipientCurrency(Currency.USD);
+        converted.setConvertedAmount(new BigDecimal("11.50"));
+
+        // Act
+        var inUsd = transactionService.getTransactionHistory(USER_ID, TransactionDirection.INCOMING, Currency.USD, null, 10);
+        var inEur = transactionService.getTransactionHistory(USER_ID, TransactionDirection.INCOMING, Currency.EUR, null, 10);
+        var sent = transactionService.getTransactionHistory(2L, TransactionDirection.OUTGOING, Currency.EUR, null, 10);
+
+        // Assert (the recipient sees and filters by what was credited to them, the sender by what they sent)
+        Assertions.assertEquals(List.of(1L), ids(inUsd.getContent()));
+        Assertions.assertEquals(new BigDecimal("11.50"), inUsd.getContent().get(0).getAmount());
+        Assertions.assertEquals(Currency.USD, inUsd.getContent().get(0).getCurrency());
+        Assertions.assertEquals(List.of(), ids(inEur.getContent()));
+        Assertions.assertEquals(BigDecimal.TEN, sent.getContent().get(0).getAmount());
+        Assertions.assertEquals(Currency.EUR, sent.getContent().get(0).getCurrency());
+    }
+
+    @Test
+    void testGetTransactionHistory_WhenCursorIsMalformed() {
+        // Act & Assert
+        Assertions.assertThrows(BadRequestException.class,
+                () -> transactionService.getTransactionHistory(USER_ID, TransactionDirection.ALL, null, "not a cursor!", 10));
+        Mockito.verifyNoInteractions(transactionRepository);
+    }
+
+    /**
+     * Follows the cursors from the first page to the last one and returns the ids of every page.
+     */
+    private List<List<Long>> pages(TransactionDirection direction, Currency currency, int size) {
+        var pages = new ArrayList<List<Long>>();
+        String cursor = null;
+        do {
+            var page = transactionService.getTransactionHistory(USER_ID, direction, currency, cursor, size);
+            pages.add(ids(page.getContent()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private List<Transaction> before(Function<Transaction, User> side, Function<Transaction, Currency> sideCurrency, Long userId,
+                                     Currency currency, Instant createdDate, Long id, Pageable pageable) {
+        return transactions.stream()
+                .filter(transaction -> side.apply(transaction).getId().equals(userId))
+                .filter(transaction -> currency == null || sideCurrency.apply(transaction) == currency)
+                .filter(transaction -> transaction.getCreatedDate().isBefore(createdDate)
+                        || transaction.getCreatedDate().equals(createdDate) && transaction.getId() < id)
+                .sorted(Comparator.comparing(Transaction::getCreatedDate).thenComparing(Transaction::getId).reversed())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    private Transaction transaction(Long id, Instant createdDate, Long senderId, Long recipientId, Currency currency) {
+        var transaction = Transaction.builder()
+                .id(id)
+                .sender(User.builder().id(senderId).build())
+                .recipient(User.builder().id(recipientId).build())
+                .amount(BigDecimal.TEN)
+                .currency(currency)
+                .build();
+        ReflectionTestUtils.setField(transaction, "createdDate", createdDate);
+        transactions.add(transaction);
+        return transaction;
+    }
+
+    private static Currency creditedCurrency(Transaction transaction) {
+        return transaction.getRecipientCurrency() == null ? transaction.getCurrency() : transaction.getRecipientCurrency();
+    }
+
+    private static List<Long> ids(List<TransactionDTO> page) {
+        return page.stream().map(TransactionDTO::getId).collect(Collectors.toList());
+    }
+}
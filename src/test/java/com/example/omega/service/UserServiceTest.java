@@ -0,0 +1,72 @@
+package com.example.omega.service;
+
+import com.example.omega.config.security.jwt.TokenEpochCache;
+import com.example.omega.domain.User;
+import com.example.omega.mapper.UserMapper;
+import com.example.omega.repository.UserRepository;
+import com.example.omega.service.dto.UserDTO;
+import com.example.omega.service.token.RefreshTokenService;
+import com.example.omega.service.util.UserServiceUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class UserServiceTest {
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private User user;
+
+    private TokenEpochCache tokenEpochCache;
+
+    private RefreshTokenService refreshTokenService;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(1L).password(passwordEncoder.encode("old-password")).locked(false).tokenEpoch(3).build();
+        var userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.save(ArgumentMatchers.any())).thenAnswer(invocation -> invocation.getArgument(0));
+        var userServiceUtil = Mockito.mock(UserServiceUtil.class);
+        Mockito.when(userServiceUtil.validateAndGetUser(1L)).thenReturn(user);
+        tokenEpochCache = Mockito.mock(TokenEpochCache.class);
+        refreshTokenService = Mockito.mock(RefreshTokenService.class);
+
+        userService = new UserService(userRepository, Mockito.mock(UserMapper.class), passwordEncoder, userServiceUtil,
+                Mockito.mock(VerificationCodeService.class), tokenEpochCache, refreshTokenService);
+    }
+
+    @Test
+    void testChangePassword_WhenOldPasswordMatches() {
+        // Arrange
+        var userDTO = new UserDTO();
+        userDTO.setId(1L);
+        userDTO.setPassword("old-password");
+        userDTO.setNewPassword("new-password");
+
+        // Act
+        userService.changePassword(userDTO);
+
+        // Assert (every token issued with the old password is revoked)
+        Assertions.assertTrue(passwordEncoder.matches("new-password", user.getPassword()));
+        Assertions.assertEquals(4, user.getTokenEpoch());
+        Mockito.verify(tokenEpochCache).updateAfterCommit(1L, 4);
+        Mockito.verify(refreshTokenService).revokeAllTokens(1L);
+    }
+
+    @Test
+    void testSetUserLocked_WhenUserIsLockedAndUnlocked() {
+        // Act
+        userService.setUserLocked(1L, true);
+        userService.setUserLocked(1L, false);
+
+        // Assert (only locking revokes the tokens)
+        Assertions.assertFalse(user.getLocked());
+        Assertions.assertEquals(4, user.getTokenEpoch());
+        Mockito.verify(refreshTokenService, Mockito.times(1)).revokeAllTokens(1L);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.omega.service.fx;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.exception.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+class FxRateTableTest {
+
+    private final FxRateTable rateTable = FxRateTable.of(Map.of(
+            Currency.EUR, BigDecimal.ONE,
+            Currency.USD, new BigDecimal("1.0825"),
+            Currency.JPY, new BigDecimal("161.92")));
+
+    @Test
+    void testConvert_WhenTargetHasNoMinorUnits() {
+        // Act
+        var quote = rateTable.convert(new BigDecimal("10.00"), Currency.EUR, Currency.JPY);
+
+        // Assert
+        Assertions.assertEquals(new BigDecimal("1619"), quote.getAmount());
+        Assertions.assertEquals(0, new BigDecimal("161.92").compareTo(quote.getRate()));
+    }
+
+    @Test
+    void testConvert_WhenBothCurrenciesAreQuotedAgainstTheBase() {
+        // Act
+        var quote = rateTable.convert(new BigDecimal("1000"), Currency.JPY, Currency.USD);
+
+        // Assert (1000 / 161.92 * 1.0825 = 6.6854, rounded to cents)
+        Assertions.assertEquals(new BigDecimal("6.69"), quote.getAmount());
+    }
+
+    @Test
+    void testConvert_WhenAmountRoundsToZero() {
+        Assertions.assertThrows(BadRequestException.class,
+                () -> rateTable.convert(new BigDecimal("0.001"), Currency.JPY, Currency.EUR));
+    }
+
+    @Test
+    void testConvert_WhenRateIsMissing() {
+        Assertions.assertThrows(BadRequestException.class,
+                () -> rateTable.convert(BigDecimal.TEN, Currency.EUR, Currency.GBP));
+    }
+}
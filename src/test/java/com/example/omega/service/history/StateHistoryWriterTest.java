@@ -0,0 +1,323 @@
+package com.example.omega.service.history;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StateHistoryWriterTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    private JdbcDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + spoolDirectory.getFileName() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table transaction_state_history (id bigint primary key, transaction_id bigint not null, " +
+                "previous_state varchar(255), new_state varchar(255), created_by varchar(255), created_date timestamp, " +
+                "last_modified_by varchar(255), last_modified_date timestamp)");
+        jdbcTemplate.execute("create table transaction (id bigint primary key, transaction_status varchar(255))");
+        jdbcTemplate.update("insert into transaction (id, transaction_status) values (1, 'SUCCESSFUL'), (2, 'PENDING')");
+    }
+
+    @Test
+    void testFlush_WhenRowsAreBuffered() throws IOException {
+        // Arrange
+        var writer = writer();
+        writer.append(1L, null, TransactionStatus.PENDING);
+        writer.append(1L, TransactionStatus.PENDING, TransactionStatus.SUCCESSFUL);
+        writer.append(2L, null, TransactionStatus.PENDING);
+
+        // Act
+        var written = writer.flush();
+
+        // Assert
+        Assertions.assertEquals(3, written);
+        Assertions.assertEquals(3, count());
+        Assertions.assertEquals(0, writer.flush());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenPreviousRunLeftRowsBehind() throws IOException {
+        // Arrange (the previous run crashed after writing its first row, but before deleting the segment)
+        var crashed = writer();
+        crashed.append(1L, null, TransactionStatus.PENDING);
+        crashed.append(2L, null, TransactionStatus.PENDING);
+        try (var files = Files.list(spoolDirectory)) {
+            var segment = files.findFirst().orElseThrow();
+            var first = Files.readAllLines(segment).get(0).split("\t");
+            jdbcTemplate.update("insert into transaction_state_history (id, transaction_id, new_state, created_date) values (?, 1, 'PENDING', ?)",
+                    Long.parseLong(first[0]), Timestamp.from(Instant.parse(first[4])));
+        }
+
+        // Act
+        var restarted = writer();
+        var written = restarted.flush();
+
+        // Assert (every spooled row is written exactly once)
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(2, count());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenDatabaseIsUnavailable() throws IOException {
+        // Arrange
+        var writer = writer();
+        writer.append(1L, null, TransactionStatus.PENDING);
+        jdbcTemplate.execute("alter table transaction_state_history rename to unavailable");
+
+        // Act
+        var failed = writer.flush();
+        jdbcTemplate.execute("alter table unavailable rename to transaction_state_history");
+        var retried = writer.flush();
+
+        // Assert (the rows stay in the spool until they are written)
+        Assertions.assertEquals(0, failed);
+        Assertions.assertEquals(1, retried);
+        Assertions.assertEquals(1, count());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenTransactionRolledBack() throws IOException {
+        // Arrange
+        var writer = writer();
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.append(1L, null, TransactionStatus.PENDING);
+            status.setRollbackOnly();
+        });
+        var written = writer.flush();
+
+        // Assert
+        Assertions.assertEquals(0, written);
+        Assertions.assertEquals(0, count());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenTransactionIsStillCompleting() throws IOException {
+        // Arrange
+        var writer = writer();
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        var flushedBeforeCommit = new AtomicInteger(-1);
+
+        // Act (a flush runs after the row was spooled, but before the transaction committed)
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.append(1L, null, TransactionStatus.PENDING);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    flushedBeforeCommit.set(writer.flush());
+                }
+            });
+        });
+        var spooledAfterCommit = spoolFiles();
+        var written = writer.flush();
+
+        // Assert (the segment is kept until the row of the completed transaction is written)
+        Assertions.assertEquals(0, flushedBeforeCommit.get());
+        Assertions.assertEquals(1, spooledAfterCommit);
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(1, count());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenLeftoverRowsDidNotCommit() throws IOException {
+        // Arrange (the previous run stopped with a rolled back row and a row of a transfer that never committed)
+        var spool = new StateHistorySpool(spoolDirectory);
+        var committed = new StateHistoryRow(1L, 1L, null, TransactionStatus.PENDING, Instant.now(), null);
+        var rolledBack = new StateHistoryRow(2L, 2L, TransactionStatus.PENDING, TransactionStatus.FAILED, Instant.now(), null);
+        var uncommitted = new StateHistoryRow(3L, 99L, null, TransactionStatus.PENDING, Instant.now(), null);
+        var segment = spool.append(List.of(committed, rolledBack, uncommitted), false);
+        spool.commit(segment, List.of(committed));
+        spool.discard(segment, List.of(rolledBack));
+        spool.close();
+
+        // Act
+        var written = writer().flush();
+
+        // Assert
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(List.of(1L), jdbcTemplate.queryForList("select id from transaction_state_history", Long.class));
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenRowIdIsTakenByAnotherNode() throws IOException {
+        // Arrange (another node with the same node ID wrote a different row under the ID of a spooled one)
+        var spool = new StateHistorySpool(spoolDirectory);
+        var row = new StateHistoryRow(1L, 1L, null, TransactionStatus.PENDING, Instant.now(), null);
+        spool.commit(spool.append(List.of(row), false), List.of(row));
+        spool.close();
+        jdbcTemplate.update("insert into transaction_state_history (id, transaction_id, new_state, created_date) values (1, 2, 'PENDING', ?)",
+                Timestamp.from(Instant.now()));
+
+        // Act
+        var written = writer().flush();
+
+        // Assert (the spooled row is written under a new ID, the other row stays as it is)
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(List.of(2L, 1L), jdbcTemplate.queryForList("select transaction_id from transaction_state_history order by id",
+                Long.class));
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenLeftoverRowsAreNotMarked() throws IOException {
+        // Arrange (the previous run crashed after forcing the rows, but before their transactions completed;
+        // transfer 1 committed both transitions and is SUCCESSFUL, the transition of transfer 2 rolled back)
+        var spool = new StateHistorySpool(spoolDirectory);
+        var processing = new StateHistoryRow(1L, 1L, TransactionStatus.PENDING, TransactionStatus.PROCESSING, Instant.now(), null);
+        var successful = new StateHistoryRow(2L, 1L, TransactionStatus.PROCESSING, TransactionStatus.SUCCESSFUL, Instant.now(), null);
+        var rolledBack = new StateHistoryRow(3L, 2L, TransactionStatus.PENDING, TransactionStatus.PROCESSING, Instant.now(), null);
+        spool.append(List.of(processing, successful, rolledBack), false);
+        spool.close();
+
+        // Act
+        var written = writer().flush();
+
+        // Assert (only the transitions that led to the current status of their transfer are written)
+        Assertions.assertEquals(2, written);
+        Assertions.assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList("select id from transaction_state_history order by id", Long.class));
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testFlush_WhenTransactionOutcomeIsUnknown() throws IOException {
+        // Arrange (the commit failed in a way that leaves it open whether the transaction committed)
+        var writer = writer();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.append(1L, TransactionStatus.PENDING, TransactionStatus.SUCCESSFUL);
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_UNKNOWN));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act
+        var flushed = writer.flush();
+        var replayed = writer.flush();
+
+        // Assert (the row isn't dropped, the replay finds that the transfer is in its new state)
+        Assertions.assertEquals(0, flushed);
+        Assertions.assertEquals(1, replayed);
+        Assertions.assertEquals(1, count());
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testAppend_WhenTransactionsCommitConcurrently() throws Exception {
+        // Arrange (the first force blocks until the other committers appended their rows and wait for it)
+        var firstForce = new CountDownLatch(1);
+        var releaseForce = new CountDownLatch(1);
+        var appends = new AtomicInteger();
+        var forces = new AtomicInteger();
+        var spool = new StateHistorySpool(spoolDirectory) {
+            @Override
+            long append(List<StateHistoryRow> rows, boolean committed) throws IOException {
+                var segment = super.append(rows, committed);
+                appends.incrementAndGet();
+                return segment;
+            }
+
+            @Override
+            void force() throws IOException {
+                if (forces.incrementAndGet() == 1) {
+                    firstForce.countDown();
+                    await(releaseForce);
+                }
+                super.force();
+            }
+        };
+        var writer = new StateHistoryWriter(dataSource, new SimpleMeterRegistry(), 3, spool, 100, 200);
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        var committers = Executors.newFixedThreadPool(5);
+
+        // Act
+        try {
+            var futures = new ArrayList<Future<?>>();
+            futures.add(committers.submit(() -> commit(transactionTemplate, writer)));
+            await(firstForce);
+            for (var i = 0; i < 4; i++) {
+                futures.add(committers.submit(() -> commit(transactionTemplate, writer)));
+            }
+            while (appends.get() < 5) {
+                Thread.sleep(10);
+            }
+            releaseForce.countDown();
+            for (var future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            committers.shutdownNow();
+        }
+        var written = writer.flush();
+
+        // Assert (the four committers that waited for the first force share the second one)
+        Assertions.assertEquals(2, forces.get());
+        Assertions.assertEquals(5, written);
+        Assertions.assertEquals(0, spoolFiles());
+    }
+
+    private static void commit(TransactionTemplate transactionTemplate, StateHistoryWriter writer) {
+        transactionTemplate.executeWithoutResult(status -> writer.append(1L, TransactionStatus.PENDING, TransactionStatus.PROCESSING));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private StateHistoryWriter writer() {
+        return new StateHistoryWriter(dataSource, new SimpleMeterRegistry(), 3, spoolDirectory.toString(), 2, 200);
+    }
+
+    private Integer count() {
+        return jdbcTemplate.queryForObject("select count(*) from transaction_state_history", Integer.class);
+    }
+
+    private long spoolFiles() throws IOException {
+        try (var files = Files.list(spoolDirectory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.omega.service.idempotency;
+
+import com.example.omega.domain.IdempotencyKey;
+import com.example.omega.repository.IdempotencyKeyRepository;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class IdempotencyKeyStoreTest {
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyKeyStore idempotencyKeyStore;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyRepository = Mockito.mock(IdempotencyKeyRepository.class);
+        idempotencyKeyStore = new IdempotencyKeyStore(idempotencyKeyRepository, 60_000, 100, 24);
+    }
+
+    @Test
+    void testExecute_WhenKeyIsRepeated() {
+        // Arrange
+        var executions = new AtomicInteger();
+
+        // Act
+        var first = idempotencyKeyStore.execute(1L, "key", () -> transaction(executions.incrementAndGet()), id -> null);
+        var second = idempotencyKeyStore.execute(1L, "key", () -> transaction(executions.incrementAndGet()), id -> null);
+
+        // Assert
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertSame(first, second);
+        Mockito.verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    void testExecute_WhenFirstAttemptFailed() {
+        // Arrange
+        Assertions.assertThrows(BadRequestException.class, () -> idempotencyKeyStore.execute(1L, "key", () -> {
+            throw new BadRequestException("Insufficient funds");
+        }, id -> null));
+
+        // Act
+        var result = idempotencyKeyStore.execute(1L, "key", () -> transaction(7L), id -> null);
+
+        // Assert (a failed attempt doesn't consume the key)
+        Assertions.assertEquals(7L, result.getId());
+    }
+
+    @Test
+    void testExecute_WhenKeyWasRecordedByAnotherNode() {
+        // Arrange
+        Mockito.when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key"))
+                .thenReturn(Optional.of(IdempotencyKey.builder().transactionId(42L).build()));
+
+        // Act
+        var result = idempotencyKeyStore.execute(1L, "key", () -> {
+            throw new DataIntegrityViolationException("uc_idempotency_key_user_key");
+        }, this::transaction);
+
+        // Assert
+        Assertions.assertEquals(42L, result.getId());
+    }
+
+    private TransactionDTO transaction(long id) {
+        var transactionDTO = new TransactionDTO();
+        transactionDTO.setId(id);
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.omega.service.ledger;
+
+import com.example.omega.domain.AccountBalance;
+import com.example.omega.domain.User;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.AccountBalanceRepository;
+import com.example.omega.service.exception.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class LedgerEngineTest {
+
+    private AccountBalanceRepository accountBalanceRepository;
+
+    private LedgerJournal ledgerJournal;
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        accountBalanceRepository = Mockito.mock(AccountBalanceRepository.class);
+        ledgerJournal = Mockito.mock(LedgerJournal.class);
+        ledgerEngine = new LedgerEngine(accountBalanceRepository, ledgerJournal, 16, 5000, 1000, 60_000);
+
+        mockAccount(1L, 1L, "1000");
+        mockAccount(2L, 2L, "1000");
+        Mockito.when(accountBalanceRepository.debit(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyLong())).thenReturn(1);
+        Mockito.when(accountBalanceRepository.credit(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyLong())).thenReturn(1);
+    }
+
+    @Test
+    void testTransfer_WhenFundsAreSufficient() {
+        // Act
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                () -> ledgerEngine.transfer(LedgerTransfer.of(1L, 2L, Currency.USD, new BigDecimal("250"))));
+
+        // Assert
+        Assertions.assertEquals(0, new BigDecimal("750").compareTo(ledgerEngine.getAccountBalance(1L, Currency.USD).getBalance()));
+        Assertions.assertEquals(0, new BigDecimal("1250").compareTo(ledgerEngine.getAccountBalance(2L, Currency.USD).getBalance()));
+        Mockito.verify(accountBalanceRepository).debit(1L, new BigDecimal("250"), 0L);
+        Mockito.verify(accountBalanceRepository).credit(2L, new BigDecimal("250"), 0L);
+    }
+
+    @Test
+    void testTransfer_WhenFundsAreInsufficient() {
+        var exception = Assertions.assertThrows(BadRequestException.class, () -> inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK,
+                () -> ledgerEngine.transfer(LedgerTransfer.of(1L, 2L, Currency.USD, new BigDecimal("1000.01")))));
+        Assertions.assertEquals("Insufficient funds", exception.getMessage());
+    }
+
+    @Test
+    void testTransfer_WhenAccountWasChangedByAnotherWriter() {
+        // Arrange
+        Mockito.when(accountBalanceRepository.credit(ArgumentMatchers.eq(2L), ArgumentMatchers.any(), ArgumentMatchers.anyLong()))
+                .thenReturn(0);
+
+        // Act
+        Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK,
+                () -> ledgerEngine.transfer(LedgerTransfer.of(1L, 2L, Currency.USD, new BigDecimal("100")))));
+
+        // Assert (the debit is discarded together with the rolled back transaction)
+        Assertions.assertEquals(0, new BigDecimal("1000").compareTo(ledgerEngine.getAccountBalance(1L, Currency.USD).getBalance()));
+    }
+
+    @Test
+    void testTransferAll_WhenOneTransferIsRejected() {
+        // Arrange
+        var transfers = List.of(
+                LedgerTransfer.of(1L, 2L, Currency.USD, new BigDecimal("600")),
+                LedgerTransfer.of(1L, 2L, Currency.USD, new BigDecimal("600")),
+                LedgerTransfer.of(2L, 1L, Currency.USD, new BigDecimal("100")),
+                LedgerTransfer.of(1L, 3L, Currency.USD, new BigDecimal("1")));
+
+        // Act
+        var rejections = new ArrayList<String>();
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> rejections.addAll(ledgerEngine.transferAll(transfers)));
+
+        // Assert (rejected items don't stop the others and every account is written once with its net change)
+        Assertions.assertEquals(Arrays.asList(null, "Insufficient funds", null, "Account balance not found"), rejections);
+        Mockito.verify(accountBalanceRepository).debit(1L, new BigDecimal("500"), 0L);
+        Mockito.verify(accountBalanceRepository).credit(2L, new BigDecimal("500"), 0L);
+        Mockito.verify(ledgerJournal).post(transfers.get(0), 1L, 2L);
+        Mockito.verify(ledgerJournal).post(transfers.get(2), 2L, 1L);
+        Mockito.verifyNoMoreInteractions(ledgerJournal);
+    }
+
+    @Test
+    void testTransfer_WhenAccountsAreSharded() {
+        // Arrange
+        mockAccount(5L, 5L, "100", "50", "25");
+        mockAccount(6L, 6L, "0", "0", "0", "0");
+
+        // Act
+        for (var i = 0; i < 40; i++) {
+            inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                    () -> ledgerEngine.transfer(LedgerTransfer.of(5L, 6L, Currency.USD, new BigDecimal("4"))));
+        }
+
+        // Assert (debits drain shard 0 first, credits are spread over the recipient's shards, reads see the sum)
+        Assertions.assertEquals(0, new BigDecimal("15").compareTo(ledgerEngine.getAccountBalance(5L, Currency.USD).getBalance()));
+        Assertions.assertEquals(0, new BigDecimal("160").compareTo(ledgerEngine.getAccountBalance(6L, Currency.USD).getBalance()));
+        Mockito.verify(accountBalanceRepository, Mockito.times(25)).debit(ArgumentMatchers.eq(5L), ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+        Mockito.verify(accountBalanceRepository, Mockito.atLeast(2)).credit(ArgumentMatchers.longThat(id -> id != 6L), ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+        Mockito.verify(ledgerJournal, Mockito.times(40)).post(ArgumentMatchers.any(), ArgumentMatchers.eq(5L), ArgumentMatchers.eq(6L));
+    }
+
+    @Test
+    void testRebuild_WhenBalanceDriftedFromJournal() {
+        // Arrange
+        Mockito.when(ledgerJournal.replayBalance(1L)).thenReturn(new BigDecimal("900"));
+        Mockito.when(accountBalanceRepository.overwrite(1L, new BigDecimal("900"), 0L)).thenReturn(1);
+
+        // Act
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> ledgerEngine.rebuild(1L, Currency.USD));
+
+        // Assert
+        Mockito.verify(accountBalanceRepository).overwrite(1L, new BigDecimal("900"), 0L);
+        Assertions.assertEquals(0, new BigDecimal("900").compareTo(ledgerEngine.getAccountBalance(1L, Currency.USD).getBalance()));
+    }
+
+    @Test
+    void testTransfer_WhenTransfersRunConcurrentlyInBothDirections() throws InterruptedException {
+        // Arrange
+        var executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (var i = 0; i < 2000; i++) {
+            var forward = i % 2 == 0;
+            executor.execute(() -> inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                    () -> ledgerEngine.transfer(LedgerTransfer.of(forward ? 1L : 2L, forward ? 2L : 1L, Currency.USD, BigDecimal.ONE))));
+        }
+        executor.shutdown();
+
+        // Assert (no deadlock and no lost update)
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, new BigDecimal("1000").compareTo(ledgerEngine.getAccountBalance(1L, Currency.USD).getBalance()));
+        Assertions.assertEquals(0, new BigDecimal("1000").compareTo(ledgerEngine.getAccountBalance(2L, Currency.USD).getBalance()));
+    }
+
+    private void mockAccount(Long id, Long userId, String... shardBalances) {
+        var user = new User();
+        user.setId(userId);
+        var shards = new ArrayList<AccountBalance>();
+        for (var shard = 0; shard < shardBalances.length; shard++) {
+            var accountBalance = AccountBalance.builder()
+                    .id(id + shard * 100)
+                    .user(user)
+                    .currency(Currency.USD)
+                    .shard(shard)
+                    .balance(new BigDecimal(shardBalances[shard]))
+                    .version(0L)
+                    .build();
+            shards.add(accountBalance);
+            Mockito.when(accountBalanceRepository.findByUserIdAndCurrencyAndShard(userId, Currency.USD, shard)).thenReturn(Optional.of(accountBalance));
+        }
+        Mockito.when(accountBalanceRepository.findAllByUserIdAndCurrencyOrderByShard(userId, Currency.USD)).thenReturn(shards);
+    }
+
+    private void inTransaction(int completionStatus, Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(completionStatus));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
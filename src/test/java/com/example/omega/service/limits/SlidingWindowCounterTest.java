@@ -0,0 +1,106 @@
+package com.example.omega.service.limits;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void testAdd_WhenWindowSlides() {
+        // Arrange (a minute of one-second buckets)
+        var counter = new SlidingWindowCounter(60_000, 60);
+
+        // Act
+        counter.add(1_000, 1);
+        counter.add(30_500, 1);
+        var total = counter.add(60_999, 1);
+
+        // Assert (the first value leaves the window once its bucket is a minute old)
+        Assertions.assertEquals(3, total);
+        Assertions.assertEquals(2, counter.sum(61_000));
+        Assertions.assertEquals(1, counter.sum(90_999));
+        Assertions.assertEquals(0, counter.sum(121_000));
+    }
+
+    @Test
+    void testAdd_WhenValueIsOlderThanWindow() {
+        // Arrange
+        var counter = new SlidingWindowCounter(60_000, 60);
+        counter.add(120_000, 5);
+
+        // Act (the slot of 60 000 was reused by 120 000)
+        counter.add(60_000, 7);
+
+        // Assert (the late value is dropped instead of resetting the newer bucket)
+        Assertions.assertEquals(5, counter.sum(120_000));
+    }
+
+    @Test
+    void testSubtract_WhenBucketWasReused() {
+        // Arrange
+        var counter = new SlidingWindowCounter(60_000, 60);
+        counter.add(1_000, 4);
+        counter.add(61_000, 2);
+
+        // Act
+        counter.subtract(1_000, 4);
+
+        // Assert (the newer round isn't touched)
+        Assertions.assertEquals(2, counter.sum(61_000));
+    }
+
+    @Test
+    void testSum_WhenCounterWasIdleLongerThanWindow() {
+        // Arrange
+        var counter = new SlidingWindowCounter(60_000, 60);
+        counter.add(1_000, 3);
+        counter.add(59_000, 4);
+
+        // Act
+        var total = counter.add(1_000_000, 1);
+
+        // Assert (the whole ring expired at once, only the new value is left)
+        Assertions.assertEquals(1, total);
+        Assertions.assertEquals(1, counter.sum(1_059_999));
+        Assertions.assertEquals(0, counter.sum(1_060_000));
+    }
+
+    @Test
+    void testAdd_WhenCalledConcurrently() throws Exception {
+        // Arrange (threads adding and subtracting while the window slides under them)
+        var counter = new SlidingWindowCounter(60_000, 60);
+        var threads = new Thread[4];
+        for (var i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (var timeMs = 0L; timeMs < 120_000; timeMs += 10) {
+                    counter.add(timeMs, 2);
+                    counter.subtract(timeMs, 1);
+                }
+            });
+        }
+
+        // Act
+        for (var thread : threads) {
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // Assert (the running total matches the buckets left in the window)
+        Assertions.assertEquals(threads.length * 6_000L, counter.sum(119_999));
+        Assertions.assertEquals(0, counter.sum(300_000));
+    }
+
+    @Test
+    void testAdd_WhenBucketWouldOverflow() {
+        // Arrange
+        var counter = new SlidingWindowCounter(60_000, 60);
+        counter.add(1_000, SlidingWindowCounter.MAX_VALUE);
+
+        // Act & Assert (the bucket and the total stay as they were)
+        Assertions.assertThrows(ArithmeticException.class, () -> counter.add(1_000, 1));
+        Assertions.assertEquals(SlidingWindowCounter.MAX_VALUE, counter.sum(1_000));
+        Assertions.assertEquals(SlidingWindowCounter.MAX_VALUE - 5, counter.add(1_000, -5));
+    }
+}
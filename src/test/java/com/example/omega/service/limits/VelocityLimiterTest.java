@@ -0,0 +1,88 @@
+package com.example.omega.service.limits;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Roles;
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+class VelocityLimiterTest {
+
+    private VelocityLimiter velocityLimiter;
+
+    @BeforeEach
+    void setUp() {
+        var profile = new VelocityLimitProperties.Profile();
+        profile.setTransfersPerMinute(3);
+        profile.setAmountPerDay(Map.of(Currency.EUR, new BigDecimal("100.00"), Currency.JPY, new BigDecimal("10000")));
+        var properties = new VelocityLimitProperties();
+        properties.setProfiles(Map.of(Roles.ROLE_USER, profile));
+
+        velocityLimiter = new VelocityLimiter(properties, Mockito.mock(DataSource.class), Mockito.mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 1000);
+    }
+
+    @Test
+    void testReserve_WhenTransfersPerMinuteAreExceeded() {
+        // Arrange
+        for (var i = 0; i < 3; i++) {
+            velocityLimiter.reserve(1L, Currency.USD, BigDecimal.ONE, Roles.ROLE_USER);
+        }
+
+        // Act
+        var exception = Assertions.assertThrows(BadRequestException.class,
+                () -> velocityLimiter.reserve(1L, Currency.USD, BigDecimal.ONE, Roles.ROLE_USER));
+
+        // Assert (other users, currencies and roles have their own windows and limits)
+        Assertions.assertTrue(exception.getMessage().contains("3 transfers"));
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(2L, Currency.USD, BigDecimal.ONE, Roles.ROLE_USER));
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(1L, Currency.EUR, BigDecimal.ONE, Roles.ROLE_USER));
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(1L, Currency.USD, BigDecimal.ONE, Roles.ROLE_ADMIN));
+    }
+
+    @Test
+    void testReserve_WhenAmountPerDayIsExceeded() {
+        // Arrange
+        velocityLimiter.reserve(1L, Currency.JPY, new BigDecimal("9000"), Roles.ROLE_USER);
+
+        // Act & Assert (the rejected transfer doesn't count, so a smaller one still fits)
+        Assertions.assertThrows(BadRequestException.class,
+                () -> velocityLimiter.reserve(1L, Currency.JPY, new BigDecimal("1001"), Roles.ROLE_USER));
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(1L, Currency.JPY, new BigDecimal("1000"), Roles.ROLE_USER));
+    }
+
+    @Test
+    void testRelease_WhenTransferDidNotHappen() {
+        // Arrange
+        var reservation = velocityLimiter.reserve(1L, Currency.EUR, new BigDecimal("100.00"), Roles.ROLE_USER);
+
+        // Act
+        reservation.release();
+        reservation.release();
+
+        // Assert
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(1L, Currency.EUR, new BigDecimal("100.00"), Roles.ROLE_USER));
+    }
+
+    @Test
+    void testRelease_WhenTransferFailed() {
+        // Arrange
+        var createdAt = Instant.now();
+        velocityLimiter.reserve(1L, Currency.EUR, new BigDecimal("60.00"), Roles.ROLE_USER);
+
+        // Act (the transfer ended FAILED, for example because settling it didn't work)
+        velocityLimiter.release(1L, Currency.EUR, new BigDecimal("60.00"), createdAt);
+
+        // Assert
+        Assertions.assertDoesNotThrow(() -> velocityLimiter.reserve(1L, Currency.EUR, new BigDecimal("100.00"), Roles.ROLE_USER));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.omega.service.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+class OutboxRelayTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private StandInSink sink;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table outbox_event (id bigint primary key, aggregate_id bigint not null, " +
+                "event_type varchar(64) not null, payload varchar(4000) not null, created_date timestamp not null)");
+
+        sink = new StandInSink();
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(dataSource, new DataSourceTransactionManager(dataSource), sink, meterRegistry, 2, 4, 1000);
+    }
+
+    @Test
+    void testRelay_WhenEventsAreSettled() {
+        // Arrange (IDs of one account don't follow the order the events were written in)
+        var past = Instant.now().minusSeconds(60);
+        insert(12L, 5L, past);
+        insert(3L, 5L, past.plusMillis(1));
+        insert(7L, 6L, past.plusMillis(2));
+        insert(1L, 5L, past.plusMillis(3));
+        insert(20L, 5L, Instant.now().plusSeconds(60));
+
+        // Act
+        var published = relay.relay();
+
+        // Assert (the event that isn't settled yet stays in the outbox)
+        Assertions.assertEquals(4, published);
+        Assertions.assertEquals(List.of(12L, 3L, 1L), sink.idsOf(5L));
+        Assertions.assertEquals(List.of(7L), sink.idsOf(6L));
+        Assertions.assertEquals(List.of(20L), jdbcTemplate.queryForList("select id from outbox_event", Long.class));
+        Assertions.assertEquals(4, meterRegistry.get("omega.outbox.lag").timer().count());
+    }
+
+    @Test
+    void testRelay_WhenSinkFails() {
+        // Arrange
+        var past = Instant.now().minusSeconds(60);
+        insert(1L, 5L, past);
+        insert(2L, 5L, past.plusMillis(1));
+        sink.failures = 1;
+
+        // Act
+        var failed = relay.relay();
+        var retried = relay.relay();
+
+        // Assert (the failed batch was received in part and is delivered again as a whole)
+        Assertions.assertEquals(0, failed);
+        Assertions.assertEquals(2, retried);
+        Assertions.assertEquals(List.of(1L, 1L, 2L), sink.idsOf(5L));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("select count(*) from outbox_event", Integer.class));
+        Assertions.assertEquals(1, meterRegistry.counter("omega.outbox.failed").count());
+    }
+
+    private void insert(Long id, Long aggregateId, Instant createdDate) {
+        jdbcTemplate.update("insert into outbox_event (id, aggregate_id, event_type, payload, created_date) values (?, ?, ?, ?, ?)",
+                id, aggregateId, "transaction.successful", "{\"id\":" + id + "}", Timestamp.from(createdDate));
+    }
+
+    /**
+     * Receives every message it's given, and fails a batch after its first message while failures are left.
+     */
+    private static final class StandInSink implements OutboxSink {
+
+        private final List<OutboxMessage> received = new ArrayList<>();
+
+        private int failures;
+
+        @Override
+        public void publish(List<OutboxMessage> messages) throws IOException {
+            if (failures > 0) {
+                failures--;
+                received.add(messages.get(0));
+                throw new IOException("Connection reset");
+            }
+            received.addAll(messages);
+        }
+
+        private List<Long> idsOf(Long aggregateId) {
+            return received.stream()
+                    .filter(message -> message.getAggregateId().equals(aggregateId))
+                    .map(OutboxMessage::getId)
+                    .collect(Collectors.toList());
+        }
+    }
+}
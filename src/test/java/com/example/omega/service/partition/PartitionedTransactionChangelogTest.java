@@ -0,0 +1,84 @@
+package com.example.omega.service.partition;
+
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+class PartitionedTransactionChangelogTest {
+
+    private static final String CHANGELOG = "liquibase/20261710/20261710190000_partitioned_Transaction.xml";
+
+    private Connection connection;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Liquibase liquibase;
+
+    @BeforeEach
+    void setUp() throws SQLException, LiquibaseException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table transaction (id bigint primary key, created_date timestamp)");
+        jdbcTemplate.execute("create table transaction_state_history (id bigint primary key, transaction_id bigint, created_date timestamp)");
+        liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), new JdbcConnection(connection));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void testChangelog_WhenDatabaseIsNotPostgres() throws LiquibaseException {
+        // Act
+        liquibase.update("");
+
+        // Assert (the tables stay as they are and only get the history index)
+        var applied = jdbcTemplate.queryForList("select id from databasechangelog", String.class);
+        Assertions.assertEquals(Set.of("add-transaction-state-history-transaction-index"), Set.copyOf(applied));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from information_schema.indexes " +
+                "where index_name = 'IDX_TRANSACTION_STATE_HISTORY_TRANSACTION_ID'", Integer.class));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.schemata " +
+                "where schema_name = 'ARCHIVE'", Integer.class));
+    }
+
+    @Test
+    void testChangelog_WhenChangesAreOnlyForPostgres() throws LiquibaseException {
+        // Act
+        var resourceAccessor = new ClassLoaderResourceAccessor();
+        var changeSets = ChangeLogParserFactory.getInstance().getParser(CHANGELOG, resourceAccessor)
+                .parse(CHANGELOG, new ChangeLogParameters(), resourceAccessor)
+                .getChangeSets();
+
+        // Assert (everything except the fallback index runs on PostgreSQL only, and the fallback never runs there)
+        var postgresOnly = changeSets.stream()
+                .filter(changeSet -> Set.of("postgresql").equals(changeSet.getDbmsSet()))
+                .map(ChangeSet::getId)
+                .collect(Collectors.toSet());
+        Assertions.assertEquals(Set.of("create-monthly-partition-function", "drop-transaction-foreign-keys",
+                "partition-transaction-table", "partition-transaction-state-history-table"), postgresOnly);
+        var fallback = changeSets.stream()
+                .filter(changeSet -> changeSet.getId().equals("add-transaction-state-history-transaction-index"))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertEquals(Set.of("!postgresql"), fallback.getDbmsSet());
+    }
+}
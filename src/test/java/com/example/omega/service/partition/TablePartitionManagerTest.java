@@ -0,0 +1,126 @@
+package com.example.omega.service.partition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+class TablePartitionManagerTest {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // A PostgreSQL database on which both tables are partitioned
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any())).thenReturn(true);
+        Mockito.when(jdbcTemplate.queryForObject(ArgumentMatchers.contains("pg_partitioned_table"), ArgumentMatchers.eq(Long.class),
+                ArgumentMatchers.<Object>any())).thenReturn(1L);
+        Mockito.when(jdbcTemplate.queryForObject(ArgumentMatchers.contains("create_monthly_partition"), ArgumentMatchers.eq(Boolean.class),
+                ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(jdbcTemplate.queryForList(ArgumentMatchers.anyString(), ArgumentMatchers.eq(String.class),
+                ArgumentMatchers.<Object>any())).thenReturn(List.of());
+    }
+
+    @Test
+    void testMonthOf_WhenPartitionIsMonthly() {
+        // Act & Assert
+        Assertions.assertEquals(YearMonth.of(2026, 10), TablePartitionManager.monthOf("transaction", "transaction_2026_10"));
+        Assertions.assertEquals(YearMonth.of(2024, 1),
+                TablePartitionManager.monthOf("transaction_state_history", "transaction_state_history_2024_01"));
+    }
+
+    @Test
+    void testMonthOf_WhenPartitionIsNotMonthly() {
+        // Act & Assert (the default partition, a partition of another table sharing the prefix, and a name that isn't a month)
+        Assertions.assertNull(TablePartitionManager.monthOf("transaction", "transaction_default"));
+        Assertions.assertNull(TablePartitionManager.monthOf("transaction", "transaction_state_history_2026_10"));
+        Assertions.assertNull(TablePartitionManager.monthOf("transaction", "transaction_2026_13"));
+        Assertions.assertNull(TablePartitionManager.monthOf("transaction", "transaction_2026_10_old"));
+    }
+
+    @Test
+    void testMaintainPartitions_WhenMonthsAreMissing() {
+        // Arrange
+        var currentMonth = YearMonth.now(ZoneOffset.UTC);
+        var manager = new TablePartitionManager(jdbcTemplate, true, 2, 0, "archive");
+
+        // Act
+        manager.maintainPartitions();
+
+        // Assert (the current month and the two after it, for both tables)
+        for (var table : List.of("transaction", "transaction_state_history")) {
+            for (var month = 0; month <= 2; month++) {
+                Mockito.verify(jdbcTemplate).queryForObject("select create_monthly_partition(?, ?)", Boolean.class,
+                        table, currentMonth.plusMonths(month).atDay(1));
+            }
+        }
+        Mockito.verify(jdbcTemplate, Mockito.times(6)).queryForObject(ArgumentMatchers.contains("create_monthly_partition"),
+                ArgumentMatchers.eq(Boolean.class), ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(jdbcTemplate, Mockito.never()).queryForList(ArgumentMatchers.anyString(), ArgumentMatchers.eq(String.class),
+                ArgumentMatchers.<Object>any());
+    }
+
+    @Test
+    void testMaintainPartitions_WhenPartitionsAreCold() {
+        // Arrange (twelve months are kept live)
+        var oldestLiveMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(12);
+        var cold = "transaction_" + oldestLiveMonth.minusMonths(1).atDay(1).format(PARTITION_SUFFIX);
+        var live = "transaction_" + oldestLiveMonth.atDay(1).format(PARTITION_SUFFIX);
+        Mockito.when(jdbcTemplate.queryForList(ArgumentMatchers.anyString(), ArgumentMatchers.eq(String.class), ArgumentMatchers.eq("transaction")))
+                .thenReturn(List.of(cold, live, "transaction_default"));
+        var manager = new TablePartitionManager(jdbcTemplate, true, 0, 12, "archive");
+
+        // Act
+        manager.maintainPartitions();
+
+        // Assert (only the month before the oldest live one is moved to the archive)
+        Mockito.verify(jdbcTemplate).execute("alter table transaction detach partition " + cold);
+        Mockito.verify(jdbcTemplate).execute("alter table " + cold + " set schema archive");
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).execute(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    void testMaintainPartitions_WhenPartitionWasCreatedElsewhere() {
+        // Arrange (another node creates the same partition first)
+        Mockito.when(jdbcTemplate.queryForObject(ArgumentMatchers.contains("create_monthly_partition"), ArgumentMatchers.eq(Boolean.class),
+                        ArgumentMatchers.eq("transaction"), ArgumentMatchers.any()))
+                .thenThrow(new DataIntegrityViolationException("relation already exists"));
+        var manager = new TablePartitionManager(jdbcTemplate, true, 1, 0, "archive");
+
+        // Act
+        manager.maintainPartitions();
+
+        // Assert (every month is still tried, and the other table is still maintained)
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).queryForObject(ArgumentMatchers.contains("create_monthly_partition"),
+                ArgumentMatchers.eq(Boolean.class), ArgumentMatchers.eq("transaction"), ArgumentMatchers.any());
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).queryForObject(ArgumentMatchers.contains("create_monthly_partition"),
+                ArgumentMatchers.eq(Boolean.class), ArgumentMatchers.eq("transaction_state_history"), ArgumentMatchers.any());
+    }
+
+    @Test
+    void testMaintainPartitions_WhenDatabaseIsNotPostgres() {
+        // Arrange
+        Mockito.when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any())).thenReturn(false);
+        var manager = new TablePartitionManager(jdbcTemplate, true, 3, 24, "archive");
+
+        // Act
+        manager.maintainPartitions();
+        manager.maintainPartitions();
+
+        // Assert (the product is checked once and nothing else runs)
+        Mockito.verify(jdbcTemplate, Mockito.times(1)).execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any());
+        Mockito.verifyNoMoreInteractions(jdbcTemplate);
+    }
+}
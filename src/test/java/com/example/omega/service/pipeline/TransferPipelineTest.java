@@ -0,0 +1,203 @@
+package com.example.omega.service.pipeline;
+
+import com.example.omega.domain.enumeration.TransactionStatus;
+import com.example.omega.repository.IdempotencyKeyRepository;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import com.example.omega.service.idempotency.IdempotencyKeyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class TransferPipelineTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private TransactionService transactionService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransferPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = Mockito.mock(TransactionService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        Mockito.when(transactionService.acceptTransfer(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> transaction(1L, TransactionStatus.PENDING));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void testSubmit_WhenTransferIsSettled() {
+        // Arrange
+        pipeline = pipeline(1);
+        Mockito.when(transactionService.startProcessing(1L)).thenReturn(true);
+        Mockito.when(transactionService.settleTransfer(1L)).thenReturn(true);
+
+        // Act
+        var accepted = pipeline.submit(transfer(), null);
+
+        // Assert (acknowledged as PENDING, then moved through PROCESSING to SUCCESSFUL)
+        Assertions.assertEquals(TransactionStatus.PENDING, accepted.getTransactionStatus());
+        InOrder inOrder = Mockito.inOrder(transactionService);
+        inOrder.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).startProcessing(1L);
+        inOrder.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).settleTransfer(1L);
+        Mockito.verify(transactionService, Mockito.never()).failTransfer(ArgumentMatchers.any());
+        Assertions.assertEquals(1, processingTimerCount());
+    }
+
+    @Test
+    void testSubmit_WhenSettlementFails() {
+        // Arrange
+        pipeline = pipeline(1);
+        Mockito.when(transactionService.startProcessing(1L)).thenReturn(true);
+        Mockito.when(transactionService.settleTransfer(1L)).thenThrow(new BadRequestException("Insufficient funds!"));
+
+        // Act
+        pipeline.submit(transfer(), null);
+
+        // Assert
+        Mockito.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).failTransfer(1L);
+    }
+
+    @Test
+    void testSubmit_WhenTransferIsNotPendingAnymore() throws InterruptedException {
+        // Arrange (another worker or node already took the transfer)
+        pipeline = pipeline(1);
+        Mockito.when(transactionService.startProcessing(1L)).thenReturn(false);
+
+        // Act
+        pipeline.submit(transfer(), null);
+        Mockito.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).startProcessing(1L);
+        pipeline.shutdown();
+
+        // Assert (neither settled nor counted as processed)
+        Mockito.verify(transactionService, Mockito.never()).settleTransfer(ArgumentMatchers.any());
+        Mockito.verify(transactionService, Mockito.never()).failTransfer(ArgumentMatchers.any());
+        Assertions.assertEquals(0, processingTimerCount());
+    }
+
+    @Test
+    void testSubmit_WhenTransferIsHeldForReview() throws InterruptedException {
+        // Arrange
+        pipeline = pipeline(1);
+        Mockito.when(transactionService.acceptTransfer(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> transaction(1L, TransactionStatus.UNDER_REVIEW));
+
+        // Act
+        pipeline.submit(transfer(), null);
+        var next = pipeline.submit(transfer(), null);
+        pipeline.shutdown();
+
+        // Assert (nothing is queued and the capacity is given back)
+        Assertions.assertEquals(TransactionStatus.UNDER_REVIEW, next.getTransactionStatus());
+        Mockito.verify(transactionService, Mockito.never()).startProcessing(ArgumentMatchers.any());
+    }
+
+    @Test
+    void testSubmit_WhenPipelineIsFull() {
+        // Arrange (a single slot, held by a transfer whose settlement hangs)
+        pipeline = pipeline(1);
+        var settling = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Mockito.when(transactionService.startProcessing(1L)).thenReturn(true);
+        Mockito.when(transactionService.settleTransfer(1L)).thenAnswer(invocation -> {
+            settling.countDown();
+            return release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        });
+        pipeline.submit(transfer(), null);
+
+        // Act
+        var exception = Assertions.assertThrows(BadRequestException.class, () -> pipeline.submit(transfer(), null));
+        release.countDown();
+
+        // Assert (rejected before the transfer was accepted)
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        Mockito.verify(transactionService, Mockito.times(1)).acceptTransfer(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void testSubmit_WhenPipelineIsShuttingDown() throws InterruptedException {
+        // Arrange (the workers no longer take tasks)
+        pipeline = pipeline(1);
+        pipeline.shutdown();
+
+        // Act
+        var accepted = pipeline.submit(transfer(), null);
+
+        // Assert (the committed transfer is acknowledged, left to recovery, and its capacity is given back)
+        Assertions.assertEquals(TransactionStatus.PENDING, accepted.getTransactionStatus());
+        Assertions.assertEquals(0, meterRegistry.get("omega.transfer.pipeline.in-flight").gauge().value());
+        Mockito.verify(transactionService, Mockito.never()).startProcessing(ArgumentMatchers.any());
+    }
+
+    @Test
+    void testRecoverUnfinishedTransfers_WhenPipelineIsFull() throws InterruptedException {
+        // Arrange (more unfinished transfers than capacity, with the first settlement hanging)
+        pipeline = pipeline(1);
+        var release = new CountDownLatch(1);
+        Mockito.when(transactionService.findTransactionIds(TransactionStatus.PENDING)).thenReturn(List.of(3L, 4L));
+        Mockito.when(transactionService.findTransactionIds(TransactionStatus.PROCESSING)).thenReturn(List.of(2L));
+        Mockito.when(transactionService.startProcessing(ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(transactionService.settleTransfer(ArgumentMatchers.any())).thenAnswer(invocation ->
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        // Act
+        var startedAt = System.nanoTime();
+        pipeline.recoverUnfinishedTransfers();
+        var recoveryCallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        release.countDown();
+
+        // Assert (startup isn't held up, the PROCESSING transfer is settled without being started again)
+        Assertions.assertTrue(recoveryCallMs < TIMEOUT_MS, "Recovery blocked the caller for " + recoveryCallMs + " ms");
+        Mockito.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).settleTransfer(2L);
+        Mockito.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).settleTransfer(3L);
+        Mockito.verify(transactionService, Mockito.timeout(TIMEOUT_MS)).settleTransfer(4L);
+        Mockito.verify(transactionService, Mockito.never()).startProcessing(2L);
+        Mockito.verify(transactionService).startProcessing(3L);
+        Mockito.verify(transactionService).startProcessing(4L);
+    }
+
+    private TransferPipeline pipeline(int capacity) {
+        var idempotencyKeyStore = new IdempotencyKeyStore(Mockito.mock(IdempotencyKeyRepository.class), 60_000, 100, 24);
+        return new TransferPipeline(transactionService, idempotencyKeyStore, meterRegistry, 1, capacity);
+    }
+
+    private long processingTimerCount() {
+        return meterRegistry.get("omega.transfer.pipeline.stage").tag("stage", "processing").timer().count();
+    }
+
+    private static TransactionDTO transfer() {
+        var transactionDTO = new TransactionDTO();
+        transactionDTO.setSenderId(10L);
+        transactionDTO.setRecipientId(20L);
+        transactionDTO.setAmount(BigDecimal.TEN);
+        return transactionDTO;
+    }
+
+    private static TransactionDTO transaction(Long id, TransactionStatus status) {
+        var transactionDTO = transfer();
+        transactionDTO.setId(id);
+        transactionDTO.setTransactionStatus(status);
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.omega.service.reconciliation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+class BalanceReconcilerTest {
+
+    private static final Instant SNAPSHOT_ROUND = Instant.parse("2026-10-01T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BalanceReconciler balanceReconciler;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account_balance (id bigint primary key, user_id bigint, currency varchar(255), " +
+                "shard int not null, balance numeric)");
+        jdbcTemplate.execute("create table balance_snapshot (id bigint auto_increment primary key, account_balance_id bigint not null, " +
+                "balance numeric not null, covered_until timestamp not null)");
+        jdbcTemplate.execute("create table journal_entry (id bigint auto_increment primary key, account_balance_id bigint not null, " +
+                "entry_type varchar(255) not null, amount numeric not null, created_date timestamp not null)");
+
+        meterRegistry = new SimpleMeterRegistry();
+        // Ranges of 2 users, so users 1 to 7 are reconciled in 4 ranges
+        balanceReconciler = new BalanceReconciler(dataSource, new DataSourceTransactionManager(dataSource), meterRegistry,
+                2, 2, 100, 10, 10);
+    }
+
+    @Test
+    void testReconcile_WhenBalancesMatchTheirJournal() {
+        // Arrange (an account without a snapshot, one with a snapshot and a sharded one)
+        account(10L, 1L, 0, "70.00");
+        entry(10L, "CREDIT", "100.00", SNAPSHOT_ROUND.plusSeconds(10));
+        entry(10L, "DEBIT", "30.00", SNAPSHOT_ROUND.plusSeconds(20));
+
+        account(20L, 4L, 0, "55.00");
+        snapshot(20L, "50.00", SNAPSHOT_ROUND);
+        entry(20L, "CREDIT", "999.00", SNAPSHOT_ROUND.minusSeconds(10));
+        entry(20L, "CREDIT", "5.00", SNAPSHOT_ROUND.plusSeconds(10));
+
+        account(30L, 7L, 0, "10.00");
+        account(31L, 7L, 1, "15.00");
+        snapshot(30L, "20.00", SNAPSHOT_ROUND);
+        entry(30L, "CREDIT", "5.00", SNAPSHOT_ROUND.plusSeconds(10));
+
+        // Act
+        var report = balanceReconciler.reconcile();
+
+        // Assert (entries the snapshot already covers aren't counted again)
+        Assertions.assertEquals(ReconciliationReport.Status.COMPLETED, report.getStatus());
+        Assertions.assertEquals(4, report.getTotalRanges());
+        Assertions.assertEquals(4, report.getCompletedRanges());
+        Assertions.assertEquals(3, report.getAccountsChecked());
+        Assertions.assertEquals(0, report.getDiscrepancyCount());
+        Assertions.assertEquals(3, meterRegistry.counter("omega.reconciliation.accounts").count());
+    }
+
+    @Test
+    void testReconcile_WhenBalanceDriftedFromItsJournal() {
+        // Arrange
+        account(10L, 1L, 0, "100.00");
+        account(11L, 1L, 1, "25.00");
+        snapshot(10L, "100.00", SNAPSHOT_ROUND);
+        entry(10L, "DEBIT", "10.00", SNAPSHOT_ROUND.plusSeconds(10));
+        account(20L, 3L, 0, "0.00");
+
+        // Act
+        var report = balanceReconciler.reconcile();
+
+        // Assert
+        Assertions.assertEquals(1, report.getDiscrepancyCount());
+        var discrepancy = report.getDiscrepancies().get(0);
+        Assertions.assertEquals(1L, discrepancy.getUserId());
+        Assertions.assertEquals(10L, discrepancy.getAccountBalanceId());
+        Assertions.assertEquals(0, new BigDecimal("125.00").compareTo(discrepancy.getStoredBalance()));
+        Assertions.assertEquals(0, new BigDecimal("90.00").compareTo(discrepancy.getJournalBalance()));
+        Assertions.assertEquals(0, new BigDecimal("35.00").compareTo(discrepancy.getDifference()));
+        Assertions.assertSame(ReconciliationReport.Status.COMPLETED, balanceReconciler.getLatestReport().orElseThrow().getStatus());
+    }
+
+    private void account(Long id, Long userId, int shard, String balance) {
+        jdbcTemplate.update("insert into account_balance (id, user_id, currency, shard, balance) values (?, ?, 'EUR', ?, ?)",
+                id, userId, shard, new BigDecimal(balance));
+    }
+
+    private void snapshot(Long accountBalanceId, String balance, Instant coveredUntil) {
+        jdbcTemplate.update("insert into balance_snapshot (account_balance_id, balance, covered_until) values (?, ?, ?)",
+                accountBalanceId, new BigDecimal(balance), Timestamp.from(coveredUntil));
+    }
+
+    private void entry(Long accountBalanceId, String entryType, String amount, Instant createdDate) {
+        jdbcTemplate.update("insert into journal_entry (account_balance_id, entry_type, amount, created_date) values (?, ?, ?, ?)",
+                accountBalanceId, entryType, new BigDecimal(amount), Timestamp.from(createdDate));
+    }
+}
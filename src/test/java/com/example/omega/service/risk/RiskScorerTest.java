@@ -0,0 +1,98 @@
+package com.example.omega.service.risk;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.ledger.LedgerTransfer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+class RiskScorerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RiskScorer riskScorer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        riskScorer = new RiskScorer(List.of(new NewRecipientRule(30, 3), new AmountOutlierRule(50, BigDecimal.TEN, 5),
+                new TransferBurstRule(40, 10, 60_000)), meterRegistry, true, 70, 720);
+    }
+
+    @Test
+    void testAssess_WhenSenderHasNoHistory() {
+        // Act
+        var assessment = riskScorer.assess(transfer(2L, "1000000.00"));
+
+        // Assert (no rule has anything to compare against yet)
+        Assertions.assertEquals(0, assessment.getScore());
+        Assertions.assertFalse(assessment.isFlagged());
+    }
+
+    @Test
+    void testAssess_WhenLargeTransferGoesToNewRecipient() {
+        // Arrange
+        for (var i = 0; i < 5; i++) {
+            riskScorer.record(LedgerTransfer.of(1L, 2L, Currency.EUR, new BigDecimal("20.00")));
+        }
+
+        // Act
+        var usual = riskScorer.assess(transfer(2L, "150.00"));
+        var newRecipient = riskScorer.assess(transfer(3L, "150.00"));
+        var outlier = riskScorer.assess(transfer(3L, "250.00"));
+
+        // Assert
+        Assertions.assertFalse(usual.isFlagged());
+        Assertions.assertEquals(List.of("new-recipient"), newRecipient.getTriggeredRules());
+        Assertions.assertFalse(newRecipient.isFlagged());
+        Assertions.assertEquals(List.of("new-recipient", "amount-outlier"), outlier.getTriggeredRules());
+        Assertions.assertEquals(80, outlier.getScore());
+        Assertions.assertTrue(outlier.isFlagged());
+        Assertions.assertEquals(1, meterRegistry.counter("omega.risk.flagged").count());
+        Assertions.assertEquals(3, meterRegistry.get("omega.risk.rule").tag("rule", "burst").timer().count());
+    }
+
+    @Test
+    void testAssess_WhenSenderSendsABurst() {
+        // Arrange
+        for (var i = 0; i < 10; i++) {
+            riskScorer.record(LedgerTransfer.of(1L, 2L, Currency.EUR, new BigDecimal("20.00")));
+        }
+
+        // Act
+        var assessment = riskScorer.assess(transfer(3L, "20.00"));
+
+        // Assert
+        Assertions.assertEquals(List.of("new-recipient", "burst"), assessment.getTriggeredRules());
+        Assertions.assertTrue(assessment.isFlagged());
+    }
+
+    @Test
+    void testMedian_WhenOldestValuesLeaveTheWindow() {
+        // Arrange
+        var median = new RollingMedian(4);
+
+        // Act
+        for (var value : new long[]{100, 1, 50, 7, 9, 8}) {
+            median.add(value);
+        }
+
+        // Assert (only 50, 7, 9 and 8 are left)
+        Assertions.assertEquals(4, median.size());
+        Assertions.assertEquals(8, median.median());
+    }
+
+    private TransactionDTO transfer(Long recipientId, String amount) {
+        var transactionDTO = new TransactionDTO();
+        transactionDTO.setSenderId(1L);
+        transactionDTO.setRecipientId(recipientId);
+        transactionDTO.setCurrency(Currency.EUR);
+        transactionDTO.setAmount(new BigDecimal(amount));
+        return transactionDTO;
+    }
+}
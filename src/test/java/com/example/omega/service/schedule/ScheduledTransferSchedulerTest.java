@@ -0,0 +1,150 @@
+package com.example.omega.service.schedule;
+
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import com.example.omega.repository.ScheduledTransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class ScheduledTransferSchedulerTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    private ScheduledTransferService scheduledTransferService;
+
+    private ScheduledTransferScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduledTransferRepository = Mockito.mock(ScheduledTransferRepository.class);
+        scheduledTransferService = Mockito.mock(ScheduledTransferService.class);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testStart_WhenRunsWereMissed() {
+        // Arrange (runs missed while the application was down, loaded one per page)
+        var missedAt = Instant.now().minus(Duration.ofHours(5));
+        dueRuns(dueRun(1L, missedAt), dueRun(2L, missedAt.plusSeconds(60)));
+        scheduler = scheduler(60_000, 1);
+
+        // Act
+        scheduler.start();
+
+        // Assert (both are handed to the service with their original due time, the second page continues after the first)
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS)).executeRun(1L, missedAt);
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS)).executeRun(2L, missedAt.plusSeconds(60));
+        Mockito.verify(scheduledTransferRepository).findDueRuns(ArgumentMatchers.eq(ScheduledTransferStatus.ACTIVE),
+                ArgumentMatchers.any(), ArgumentMatchers.eq(missedAt), ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+    }
+
+    @Test
+    void testStart_WhenFirstLoadFails() {
+        // Arrange (the database isn't reachable at startup)
+        var missedAt = Instant.now().minus(Duration.ofHours(5));
+        var run = dueRun(1L, missedAt);
+        Mockito.when(scheduledTransferRepository.findDueRuns(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                        ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenThrow(new IllegalStateException("Connection refused"))
+                .thenReturn(List.of(run), List.of());
+        scheduler = scheduler(50, 10);
+
+        // Act
+        scheduler.start();
+
+        // Assert (the missed run is recovered by the next load)
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS)).executeRun(1L, missedAt);
+    }
+
+    @Test
+    void testExecute_WhenRunFailsUnexpectedly() {
+        // Arrange (the run stays due in the database until it's made)
+        var dueAt = Instant.now().minusSeconds(1);
+        dueRuns(dueRun(1L, dueAt));
+        Mockito.when(scheduledTransferService.executeRun(1L, dueAt))
+                .thenThrow(new IllegalStateException("Deadlock"))
+                .thenReturn(null);
+        scheduler = scheduler(50, 10);
+
+        // Act
+        scheduler.start();
+
+        // Assert (tried again on a later load)
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS).atLeast(2)).executeRun(1L, dueAt);
+    }
+
+    @Test
+    void testScheduleAfterCommit_WhenRunIsInWindow() {
+        // Arrange (a transfer created after the window was loaded, whose run schedules the next one)
+        dueRuns();
+        var runAt = Instant.now().plusMillis(100);
+        var nextRunAt = runAt.plusMillis(100);
+        Mockito.when(scheduledTransferService.executeRun(1L, runAt)).thenReturn(nextRunAt);
+        scheduler = scheduler(60_000, 10);
+        scheduler.start();
+        Mockito.verify(scheduledTransferRepository, Mockito.timeout(TIMEOUT_MS)).findDueRuns(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        // Act
+        scheduler.scheduleAfterCommit(1L, runAt);
+
+        // Assert (both runs fire without waiting for the next load)
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS)).executeRun(1L, runAt);
+        Mockito.verify(scheduledTransferService, Mockito.timeout(TIMEOUT_MS)).executeRun(1L, nextRunAt);
+    }
+
+    private ScheduledTransferScheduler scheduler(long loadIntervalMs, int pageSize) {
+        return new ScheduledTransferScheduler(scheduledTransferRepository, scheduledTransferService, new SimpleMeterRegistry(),
+                true, 10, loadIntervalMs, 10, 64, pageSize, 1);
+    }
+
+    /**
+     * Serves the given runs, ordered by due time and id, in pages like the index range scan does.
+     */
+    private void dueRuns(ScheduledTransferRepository.DueRun... runs) {
+        Mockito.when(scheduledTransferRepository.findDueRuns(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Instant windowEnd = invocation.getArgument(1);
+            Instant afterRunAt = invocation.getArgument(2);
+            Long afterId = invocation.getArgument(3);
+            Pageable pageable = invocation.getArgument(4);
+            return List.of(runs).stream()
+                    .filter(run -> run.getNextRunAt().isBefore(windowEnd))
+                    .filter(run -> run.getNextRunAt().isAfter(afterRunAt)
+                            || run.getNextRunAt().equals(afterRunAt) && run.getId() > afterId)
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private static ScheduledTransferRepository.DueRun dueRun(Long id, Instant nextRunAt) {
+        return new ScheduledTransferRepository.DueRun() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Instant getNextRunAt() {
+                return nextRunAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.omega.service.schedule;
+
+import com.example.omega.domain.ScheduledTransfer;
+import com.example.omega.domain.User;
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.domain.enumeration.Recurrence;
+import com.example.omega.domain.enumeration.ScheduledTransferStatus;
+import com.example.omega.repository.ScheduledTransferRepository;
+import com.example.omega.repository.UserRepository;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.dto.TransactionDTO;
+import com.example.omega.service.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ScheduledTransferServiceTest {
+
+    private static final Long ID = 1L;
+
+    // The row as committed, every node reads its own copy and saves it with an optimistic lock
+    private final AtomicReference<ScheduledTransfer> stored = new AtomicReference<>();
+
+    private final List<String> idempotencyKeys = new ArrayList<>();
+
+    private TransactionService transactionService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ScheduledTransferService scheduledTransferService;
+
+    @BeforeEach
+    void setUp() {
+        var scheduledTransferRepository = Mockito.mock(ScheduledTransferRepository.class);
+        Mockito.when(scheduledTransferRepository.findById(ID)).thenAnswer(invocation -> Optional.ofNullable(copy(stored.get())));
+        Mockito.when(scheduledTransferRepository.save(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            ScheduledTransfer scheduledTransfer = invocation.getArgument(0);
+            if (!scheduledTransfer.getVersion().equals(stored.get().getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(ScheduledTransfer.class, scheduledTransfer.getId());
+            }
+            scheduledTransfer.setVersion(scheduledTransfer.getVersion() + 1);
+            stored.set(copy(scheduledTransfer));
+            return scheduledTransfer;
+        });
+
+        var userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findById(10L)).thenReturn(Optional.of(User.builder().id(10L).username("alice").build()));
+
+        transactionService = Mockito.mock(TransactionService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduledTransferService = new ScheduledTransferService(scheduledTransferRepository, userRepository, transactionService,
+                Mockito.mock(ScheduledTransferScheduler.class), meterRegistry, 3, 60, 72);
+    }
+
+    @Test
+    void testExecuteRun_WhenRunSucceeds() {
+        // Arrange
+        var runAt = Instant.now().minusSeconds(1);
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+        sendMoneySucceeds(100L);
+
+        // Act
+        var nextRunAt = scheduledTransferService.executeRun(ID, runAt);
+
+        // Assert (the next run follows the recurrence)
+        Assertions.assertEquals(runAt.plus(Duration.ofDays(1)), nextRunAt);
+        Assertions.assertEquals(List.of("scheduled-1-0"), idempotencyKeys);
+        Assertions.assertEquals(1, stored.get().getRunCount());
+        Assertions.assertEquals(100L, stored.get().getLastTransactionId());
+        Assertions.assertEquals(1, runs("completed"));
+    }
+
+    @Test
+    void testExecuteRun_WhenRunIsRetried() {
+        // Arrange (the first attempt fails for insufficient funds)
+        var runAt = Instant.now().minusSeconds(1);
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+        Mockito.when(transactionService.sendMoney(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    idempotencyKeys.add(invocation.getArgument(1));
+                    throw new BadRequestException("Insufficient funds!");
+                })
+                .thenAnswer(invocation -> {
+                    idempotencyKeys.add(invocation.getArgument(1));
+                    return transaction(100L);
+                });
+
+        // Act
+        var retryAt = scheduledTransferService.executeRun(ID, runAt);
+        var nextRunAt = scheduledTransferService.executeRun(ID, retryAt);
+
+        // Assert (the retry is the same run, so it reuses the key of the first attempt)
+        Assertions.assertTrue(retryAt.isAfter(runAt.plus(Duration.ofMinutes(59))));
+        Assertions.assertEquals(List.of("scheduled-1-0", "scheduled-1-0"), idempotencyKeys);
+        Assertions.assertEquals(runAt.plus(Duration.ofDays(1)), nextRunAt);
+        Assertions.assertEquals(0, stored.get().getAttempts());
+        Assertions.assertNull(stored.get().getLastError());
+    }
+
+    @Test
+    void testExecuteRun_WhenEveryAttemptFails() {
+        // Arrange
+        var runAt = Instant.now().minusSeconds(1);
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+        Mockito.when(transactionService.sendMoney(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenThrow(new BadRequestException("Insufficient funds!"));
+
+        // Act
+        var firstRetryAt = scheduledTransferService.executeRun(ID, runAt);
+        var attemptsAfterFirst = stored.get().getAttempts();
+        var secondRetryAt = scheduledTransferService.executeRun(ID, firstRetryAt);
+        var attemptsAfterSecond = stored.get().getAttempts();
+        var nextRunAt = scheduledTransferService.executeRun(ID, secondRetryAt);
+
+        // Assert (given up after the third attempt, the next run is still made)
+        Assertions.assertEquals(1, attemptsAfterFirst);
+        Assertions.assertEquals(2, attemptsAfterSecond);
+        Assertions.assertEquals(runAt.plus(Duration.ofDays(1)), nextRunAt);
+        Assertions.assertEquals(1, stored.get().getRunCount());
+        Assertions.assertEquals(0, stored.get().getAttempts());
+        Assertions.assertEquals("Insufficient funds!", stored.get().getLastError());
+        Assertions.assertEquals(ScheduledTransferStatus.ACTIVE, stored.get().getStatus());
+        Assertions.assertEquals(3, runs("failed"));
+    }
+
+    @Test
+    void testExecuteRun_WhenRunIsLaterThanMaxLateness() {
+        // Arrange (missed while the application was down)
+        var runAt = Instant.now().minus(Duration.ofHours(73));
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+
+        // Act
+        var nextRunAt = scheduledTransferService.executeRun(ID, runAt);
+
+        // Assert (no money moved, the schedule moves to the run after it)
+        Mockito.verifyNoInteractions(transactionService);
+        Assertions.assertEquals(runAt.plus(Duration.ofDays(1)), nextRunAt);
+        Assertions.assertEquals(1, stored.get().getRunCount());
+        Assertions.assertTrue(stored.get().getLastError().startsWith("Skipped"));
+        Assertions.assertEquals(1, runs("skipped"));
+    }
+
+    @Test
+    void testExecuteRun_WhenLastRunIsSkipped() {
+        // Arrange
+        var runAt = Instant.now().minus(Duration.ofHours(73));
+        stored.set(scheduledTransfer(Recurrence.ONCE, runAt));
+
+        // Act
+        var nextRunAt = scheduledTransferService.executeRun(ID, runAt);
+
+        // Assert
+        Assertions.assertNull(nextRunAt);
+        Assertions.assertEquals(ScheduledTransferStatus.COMPLETED, stored.get().getStatus());
+        Assertions.assertNull(stored.get().getNextRunAt());
+    }
+
+    @Test
+    void testExecuteRun_WhenAnotherNodeMakesTheSameRun() {
+        // Arrange (both nodes read the run, the other one saves first while this one is sending the money)
+        var runAt = Instant.now().minusSeconds(1);
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+        var otherNextRunAt = new AtomicReference<Instant>();
+        Mockito.when(transactionService.sendMoney(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    idempotencyKeys.add(invocation.getArgument(1));
+                    otherNextRunAt.set(scheduledTransferService.executeRun(ID, runAt));
+                    return transaction(100L);
+                })
+                .thenAnswer(invocation -> {
+                    idempotencyKeys.add(invocation.getArgument(1));
+                    return transaction(100L);
+                });
+
+        // Act
+        var nextRunAt = scheduledTransferService.executeRun(ID, runAt);
+
+        // Assert (both used the same key, so the transfer is made once, and only the first save counts)
+        Assertions.assertNull(nextRunAt);
+        Assertions.assertEquals(runAt.plus(Duration.ofDays(1)), otherNextRunAt.get());
+        Assertions.assertEquals(List.of("scheduled-1-0", "scheduled-1-0"), idempotencyKeys);
+        Assertions.assertEquals(1, stored.get().getRunCount());
+    }
+
+    @Test
+    void testExecuteRun_WhenRunWasAlreadyMade() {
+        // Arrange (a late duplicate of a run that moved on)
+        var runAt = Instant.now().minusSeconds(1);
+        stored.set(scheduledTransfer(Recurrence.DAILY, runAt));
+        sendMoneySucceeds(100L);
+        scheduledTransferService.executeRun(ID, runAt);
+
+        // Act
+        var nextRunAt = scheduledTransferService.executeRun(ID, runAt);
+
+        // Assert
+        Assertions.assertNull(nextRunAt);
+        Mockito.verify(transactionService, Mockito.times(1)).sendMoney(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    private void sendMoneySucceeds(Long transactionId) {
+        Mockito.when(transactionService.sendMoney(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    idempotencyKeys.add(invocation.getArgument(1));
+                    return transaction(transactionId);
+                });
+    }
+
+    private double runs(String result) {
+        return meterRegistry.counter("omega.scheduled-transfers.runs", "result", result).count();
+    }
+
+    private static TransactionDTO transaction(Long id) {
+        var transactionDTO = new TransactionDTO();
+        transactionDTO.setId(id);
+        return transactionDTO;
+    }
+
+    private static ScheduledTransfer scheduledTransfer(Recurrence recurrence, Instant firstRunAt) {
+        return ScheduledTransfer.builder()
+                .id(ID)
+                .senderId(10L)
+                .recipientId(20L)
+                .amount(BigDecimal.TEN)
+                .currency(Currency.EUR)
+                .recurrence(recurrence)
+                .firstRunAt(firstRunAt)
+                .nextRunAt(firstRunAt)
+                .status(ScheduledTransferStatus.ACTIVE)
+                .version(0L)
+                .build();
+    }
+
+    private static ScheduledTransfer copy(ScheduledTransfer scheduledTransfer) {
+        if (scheduledTransfer == null) {
+            return null;
+        }
+        return ScheduledTransfer.builder()
+                .id(scheduledTransfer.getId())
+                .senderId(scheduledTransfer.getSenderId())
+                .recipientId(scheduledTransfer.getRecipientId())
+                .amount(scheduledTransfer.getAmount())
+                .currency(scheduledTransfer.getCurrency())
+                .recurrence(scheduledTransfer.getRecurrence())
+                .firstRunAt(scheduledTransfer.getFirstRunAt())
+                .endAt(scheduledTransfer.getEndAt())
+                .nextRunAt(scheduledTransfer.getNextRunAt())
+                .status(scheduledTransfer.getStatus())
+                .runCount(scheduledTransfer.getRunCount())
+                .attempts(scheduledTransfer.getAttempts())
+                .lastRunAt(scheduledTransfer.getLastRunAt())
+                .lastTransactionId(scheduledTransfer.getLastTransactionId())
+                .lastError(scheduledTransfer.getLastError())
+                .version(scheduledTransfer.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.omega.service.schedule;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class TimingWheelTest {
+
+    @Test
+    void testAdvance_WhenEntriesAreInLevelZero() {
+        // Arrange (eight one-second buckets)
+        var wheel = new TimingWheel<String>(1_000, 8, 0);
+        wheel.add(2_500, "b");
+        wheel.add(1_000, "a");
+        var due = new ArrayList<String>();
+
+        // Act
+        wheel.advance(2_999, due::add);
+
+        // Assert (a deadline is rounded up to the next tick, so "b" isn't handed over early)
+        Assertions.assertEquals(List.of("a"), due);
+        Assertions.assertEquals(1, wheel.size());
+
+        wheel.advance(3_000, due::add);
+        Assertions.assertEquals(List.of("a", "b"), due);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdd_WhenEntryIsAlreadyDue() {
+        // Arrange
+        var wheel = new TimingWheel<String>(1_000, 8, 10_000);
+
+        // Act & Assert
+        Assertions.assertFalse(wheel.add(9_000, "late"));
+        Assertions.assertFalse(wheel.add(10_000, "now"));
+        Assertions.assertTrue(wheel.add(10_001, "next"));
+    }
+
+    @Test
+    void testAdvance_WhenEntriesCascadeFromHigherLevels() {
+        // Arrange (four buckets per level, so deadlines up to 100 ticks need three levels)
+        var wheel = new TimingWheel<Long>(1, 4, 0);
+        var random = new Random(42);
+        var deadlines = new ArrayList<Long>();
+        for (var index = 0; index < 1_000; index++) {
+            var deadline = 1 + (long) random.nextInt(100);
+            deadlines.add(deadline);
+            wheel.add(deadline, deadline);
+        }
+        var due = new ArrayList<Long>();
+
+        // Act
+        for (var now = 1L; now <= 100; now++) {
+            var firedAt = now;
+            wheel.advance(now, deadline -> {
+                // Assert (every entry is handed over exactly on its tick)
+                Assertions.assertEquals(firedAt, deadline);
+                due.add(deadline);
+            });
+        }
+
+        // Assert
+        deadlines.sort(Long::compare);
+        Assertions.assertEquals(deadlines, due);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_WhenTicksWereMissed() {
+        // Arrange
+        var wheel = new TimingWheel<String>(1_000, 8, 0);
+        wheel.add(5_000, "soon");
+        wheel.add(3_600_000, "in an hour");
+        var due = new ArrayList<String>();
+
+        // Act (the ticker fell behind by two hours)
+        wheel.advance(7_200_000, due::add);
+
+        // Assert
+        Assertions.assertEquals(List.of("soon", "in an hour"), due);
+        Assertions.assertEquals(7_200_000, wheel.getCurrentTimeMs());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.omega.service.statement;
+
+import com.example.omega.domain.enumeration.StatementFormat;
+import com.example.omega.service.exception.BadRequestException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+class StatementExportServiceTest {
+
+    private static final Instant FROM = Instant.parse("2026-10-01T00:00:00Z");
+
+    private static final Instant TO = Instant.parse("2026-11-01T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+
+    private StatementExportService statementExportService;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table transaction (id bigint primary key, created_date timestamp not null, " +
+                "sender_id bigint not null, recipient_id bigint not null, amount numeric(19, 2) not null, currency varchar(255), " +
+                "converted_amount numeric(19, 2), recipient_currency varchar(255), transaction_status varchar(255), " +
+                "transaction_type varchar(255), description varchar(255))");
+        // A fetch size of 2, so the rows come in several chunks
+        statementExportService = new StatementExportService(dataSource, new DataSourceTransactionManager(dataSource), 2, 1);
+    }
+
+    @Test
+    void testExportStatement_WhenFormatIsCsv() {
+        // Arrange (rows of both directions, one outside the period and a description that needs quoting)
+        transaction(3L, FROM.plusSeconds(30), 2L, 1L, "5.00", "EUR", "rent, \"October\"");
+        transaction(1L, FROM.plusSeconds(10), 1L, 2L, "10.00", "EUR", "lunch");
+        transaction(2L, FROM.plusSeconds(10), 1L, 3L, "20.00", "EUR", null);
+        transaction(4L, TO, 1L, 2L, "99.00", "EUR", "next month");
+        var out = new ByteArrayOutputStream();
+
+        // Act
+        statementExportService.exportStatement(1L, FROM, TO, StatementFormat.CSV, out);
+
+        // Assert (ordered by date, then ID)
+        Assertions.assertEquals("id,created_date,direction,counterparty_id,amount,currency,status,type,description\n" +
+                        "1,2026-10-01T00:00:10Z,OUT,2,10.00,EUR,COMPLETED,TRANSFER,lunch\n" +
+                        "2,2026-10-01T00:00:10Z,OUT,3,20.00,EUR,COMPLETED,TRANSFER,\n" +
+                        "3,2026-10-01T00:00:30Z,IN,2,5.00,EUR,COMPLETED,TRANSFER,\"rent, \"\"October\"\"\"\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportStatement_WhenFormatIsNdjson() {
+        // Arrange
+        transaction(1L, FROM.plusSeconds(10), 1L, 2L, "10.00", "EUR", "lunch");
+        transaction(2L, FROM.plusSeconds(20), 2L, 1L, "5.00", "EUR", null);
+        var out = new ByteArrayOutputStream();
+
+        // Act
+        statementExportService.exportStatement(1L, FROM, TO, StatementFormat.NDJSON, out);
+
+        // Assert (one object per line)
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{\"id\":1,") && lines[0].contains("\"direction\":\"OUT\""), lines[0]);
+        Assertions.assertTrue(lines[1].startsWith("{\"id\":2,") && lines[1].contains("\"direction\":\"IN\""), lines[1]);
+    }
+
+    @Test
+    void testExportStatement_WhenDirectionsInterleave() {
+        // Arrange (ties on the created date across both directions and chunk boundaries, and a transfer to oneself)
+        transaction(5L, FROM.plusSeconds(20), 3L, 1L, "5.00", "EUR", null);
+        transaction(1L, FROM.plusSeconds(10), 1L, 2L, "1.00", "EUR", null);
+        transaction(6L, FROM.plusSeconds(30), 1L, 1L, "6.00", "EUR", null);
+        transaction(2L, FROM.plusSeconds(10), 2L, 1L, "2.00", "EUR", null);
+        transaction(4L, FROM.plusSeconds(20), 2L, 1L, "4.00", "EUR", null);
+        transaction(3L, FROM.plusSeconds(10), 1L, 3L, "3.00", "EUR", null);
+        var out = new ByteArrayOutputStream();
+
+        // Act
+        statementExportService.exportStatement(1L, FROM, TO, StatementFormat.CSV, out);
+
+        // Assert (both cursors merged by date, then ID, the transfer to oneself once as outgoing)
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertArrayEquals(new String[]{"1,OUT", "2,IN", "3,OUT", "4,IN", "5,IN", "6,OUT"},
+                Arrays.stream(lines).skip(1).map(line -> line.split(",")[0] + "," + line.split(",")[2]).toArray(String[]::new));
+    }
+
+    @Test
+    void testExportStatement_WhenTransferWasConverted() {
+        // Arrange (100 EUR sent by user 2 and credited to user 1 as 108.50 USD)
+        transaction(1L, FROM.plusSeconds(10), 2L, 1L, "100.00", "EUR", "invoice");
+        jdbcTemplate.update("update transaction set converted_amount = 108.50, recipient_currency = 'USD' where id = 1");
+        var recipientStatement = new ByteArrayOutputStream();
+        var senderStatement = new ByteArrayOutputStream();
+
+        // Act
+        statementExportService.exportStatement(1L, FROM, TO, StatementFormat.CSV, recipientStatement);
+        statementExportService.exportStatement(2L, FROM, TO, StatementFormat.CSV, senderStatement);
+
+        // Assert (each side sees the amount in its own currency)
+        Assertions.assertTrue(recipientStatement.toString(StandardCharsets.UTF_8)
+                .endsWith("1,2026-10-01T00:00:10Z,IN,2,108.50,USD,COMPLETED,TRANSFER,invoice\n"));
+        Assertions.assertTrue(senderStatement.toString(StandardCharsets.UTF_8)
+                .endsWith("1,2026-10-01T00:00:10Z,OUT,1,100.00,EUR,COMPLETED,TRANSFER,invoice\n"));
+    }
+
+    @Test
+    void testExportStatement_WhenClientGoesAway() {
+        // Arrange (rows are written while the cursor is read, so the failed write stops the query)
+        for (var id = 1L; id <= 10_000; id++) {
+            transaction(id, FROM.plusSeconds(id), 1L, 2L, "1.00", "EUR", "row " + id);
+        }
+        var closed = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 16_384) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        // Act & Assert
+        Assertions.assertThrows(UncheckedIOException.class,
+                () -> statementExportService.exportStatement(1L, FROM, TO, StatementFormat.CSV, closed));
+    }
+
+    @Test
+    void testExportStatement_WhenCancelled() {
+        // Arrange
+        transaction(1L, FROM.plusSeconds(10), 1L, 2L, "10.00", "EUR", "lunch");
+        var out = new ByteArrayOutputStream();
+
+        // Act (a timed out request interrupts the export thread)
+        Thread.currentThread().interrupt();
+        try {
+            Assertions.assertThrows(CancellationException.class,
+                    () -> statementExportService.exportStatement(1L, FROM, TO, StatementFormat.CSV, out));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Assert (only the header was written)
+        Assertions.assertFalse(out.toString(StandardCharsets.UTF_8).contains("lunch"));
+    }
+
+    @Test
+    void testAcquireExportSlot_WhenEverySlotIsTaken() {
+        // Arrange
+        statementExportService.acquireExportSlot();
+
+        // Act
+        var exception = Assertions.assertThrows(BadRequestException.class, () -> statementExportService.acquireExportSlot());
+        statementExportService.releaseExportSlot();
+
+        // Assert
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        Assertions.assertDoesNotThrow(() -> statementExportService.acquireExportSlot());
+    }
+
+    private void transaction(Long id, Instant createdDate, Long senderId, Long recipientId, String amount, String currency, String description) {
+        jdbcTemplate.update("insert into transaction (id, created_date, sender_id, recipient_id, amount, currency, " +
+                        "transaction_status, transaction_type, description) values (?, ?, ?, ?, ?, ?, 'COMPLETED', 'TRANSFER', ?)",
+                id, Timestamp.from(createdDate), senderId, recipientId, new BigDecimal(amount), currency, description);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.omega.service.token;
+
+import com.example.omega.domain.RevokedToken;
+import com.example.omega.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.UUID;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_WhenValuesWereAdded() {
+        // Arrange
+        var filter = new BloomFilter(10_000, 0.01);
+        var values = new String[10_000];
+        for (var index = 0; index < values.length; index++) {
+            values[index] = UUID.randomUUID().toString();
+            filter.put(values[index]);
+        }
+
+        // Act & Assert (no false negatives)
+        for (var value : values) {
+            Assertions.assertTrue(filter.mightContain(value));
+        }
+        Assertions.assertEquals(values.length, filter.getInsertions(), values.length * 0.01);
+        Assertions.assertFalse(filter.put(values[0]));
+    }
+
+    @Test
+    void testMightContain_WhenFilterIsFull() {
+        // Arrange
+        var filter = new BloomFilter(10_000, 0.01);
+        for (var index = 0; index < 10_000; index++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        // Act
+        var falsePositives = 0;
+        var lookups = 100_000;
+        for (var index = 0; index < lookups; index++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert (the measured rate stays near the configured one)
+        var rate = (double) falsePositives / lookups;
+        Assertions.assertTrue(rate < 0.015, "False-positive rate was " + rate);
+        Assertions.assertTrue(filter.getExpectedFalsePositiveRate() < 0.015);
+    }
+
+    @Test
+    void testIsRevoked_WhenOnlyFilterHitsReadTheTable() {
+        // Arrange
+        var repository = Mockito.mock(RevokedTokenRepository.class);
+        Mockito.when(repository.existsByTokenId("revoked")).thenReturn(false, true);
+        var revocationList = new TokenRevocationList(repository, new SimpleMeterRegistry(), 1_000, 0.001, 10_000, 3_600_000);
+        revocationList.load();
+
+        // Act
+        revocationList.revoke("revoked", Instant.now().plusSeconds(60));
+        var revoked = revocationList.isRevoked("revoked");
+        var notRevoked = revocationList.isRevoked("not-revoked");
+
+        // Assert
+        Assertions.assertTrue(revoked);
+        Assertions.assertFalse(notRevoked);
+        Mockito.verify(repository).save(ArgumentMatchers.any(RevokedToken.class));
+        Mockito.verify(repository, Mockito.never()).existsByTokenId("not-revoked");
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.omega.service.token;
+
+import com.example.omega.config.security.jwt.JwtKeyProperties;
+import com.example.omega.config.security.jwt.JwtKeyRing;
+import com.example.omega.config.security.jwt.JwtUtils;
+import com.example.omega.domain.RefreshToken;
+import com.example.omega.domain.UserDetailsImpl;
+import com.example.omega.repository.RefreshTokenRepository;
+import com.example.omega.repository.RevokedTokenRepository;
+import com.example.omega.service.UserDetailsServiceImpl;
+import com.example.omega.service.exception.BadRequestException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+class RefreshTokenServiceTest {
+
+    private static final UserDetailsImpl USER =
+            new UserDetailsImpl(1L, "alice", null, List.of(new SimpleGrantedAuthority("ROLE_USER")), 0, true);
+
+    // The refresh token registry, by token ID
+    private final Map<String, RefreshToken> registered = new ConcurrentHashMap<>();
+
+    private JwtUtils jwtUtils;
+
+    private TokenRevocationList tokenRevocationList;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new JwtKeyProperties();
+        properties.setActive("primary");
+        properties.setSecrets(Map.of("primary", Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded())));
+        jwtUtils = new JwtUtils(new JwtKeyRing(properties), 600_000, 60_000);
+
+        var refreshTokenRepository = Mockito.mock(RefreshTokenRepository.class);
+        Mockito.when(refreshTokenRepository.save(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            RefreshToken refreshToken = invocation.getArgument(0);
+            registered.put(refreshToken.getTokenId(), refreshToken);
+            return refreshToken;
+        });
+        Mockito.when(refreshTokenRepository.findByTokenIdForUpdate(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> Optional.ofNullable(registered.get(invocation.<String>getArgument(0))));
+        Mockito.when(refreshTokenRepository.findAllByFamilyIdAndRevokedAtIsNull(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> active(token -> token.getFamilyId().equals(invocation.getArgument(0))));
+        Mockito.when(refreshTokenRepository.findAllByUserIdAndRevokedAtIsNull(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> active(token -> token.getUserId().equals(invocation.getArgument(0))));
+
+        var userDetailsService = Mockito.mock(UserDetailsServiceImpl.class);
+        Mockito.when(userDetailsService.loadUserByUsername("alice")).thenReturn(USER);
+        tokenRevocationList = Mockito.mock(TokenRevocationList.class);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, Mockito.mock(RevokedTokenRepository.class),
+                tokenRevocationList, jwtUtils, userDetailsService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testRefresh_WhenTokenIsRotated() {
+        // Arrange
+        var signIn = refreshTokenService.issueTokens(USER);
+        var signInTokenId = tokenId(signIn.getRefreshToken());
+
+        // Act
+        var refreshed = refreshTokenService.refresh(signIn.getRefreshToken());
+
+        // Assert (the old token points to its replacement, which stays in the same family)
+        var refreshedTokenId = tokenId(refreshed.getRefreshToken());
+        Assertions.assertNotEquals(signInTokenId, refreshedTokenId);
+        Assertions.assertEquals(refreshedTokenId, registered.get(signInTokenId).getReplacedBy());
+        Assertions.assertNotNull(registered.get(signInTokenId).getRevokedAt());
+        Assertions.assertEquals(registered.get(signInTokenId).getFamilyId(), registered.get(refreshedTokenId).getFamilyId());
+        Assertions.assertNull(registered.get(refreshedTokenId).getRevokedAt());
+        Mockito.verifyNoInteractions(tokenRevocationList);
+    }
+
+    @Test
+    void testRefresh_WhenReplacedTokenIsReused() {
+        // Arrange (the first token was copied before its owner refreshed it)
+        var signIn = refreshTokenService.issueTokens(USER);
+        var otherSignIn = refreshTokenService.issueTokens(USER);
+        var refreshed = refreshTokenService.refresh(signIn.getRefreshToken());
+
+        // Act
+        var exception = Assertions.assertThrows(BadRequestException.class, () -> refreshTokenService.refresh(signIn.getRefreshToken()));
+
+        // Assert (the whole family and its access tokens are revoked, other sign-ins keep working)
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatus());
+        var current = registered.get(tokenId(refreshed.getRefreshToken()));
+        Assertions.assertNotNull(current.getRevokedAt());
+        Mockito.verify(tokenRevocationList).revoke(current.getAccessTokenId(), current.getAccessExpiresAt());
+        Assertions.assertThrows(BadRequestException.class, () -> refreshTokenService.refresh(refreshed.getRefreshToken()));
+        Assertions.assertDoesNotThrow(() -> refreshTokenService.refresh(otherSignIn.getRefreshToken()));
+    }
+
+    @Test
+    void testRevokeAllTokens_WhenUserHasSeveralSignIns() {
+        // Arrange
+        var first = refreshTokenService.issueTokens(USER);
+        var second = refreshTokenService.issueTokens(USER);
+
+        // Act
+        refreshTokenService.revokeAllTokens(USER.getId());
+
+        // Assert
+        Assertions.assertTrue(registered.values().stream().allMatch(token -> token.getRevokedAt() != null));
+        Mockito.verify(tokenRevocationList, Mockito.times(2)).revoke(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertThrows(BadRequestException.class, () -> refreshTokenService.refresh(first.getRefreshToken()));
+        Assertions.assertThrows(BadRequestException.class, () -> refreshTokenService.refresh(second.getRefreshToken()));
+    }
+
+    private List<RefreshToken> active(Predicate<RefreshToken> filter) {
+        return registered.values().stream()
+                .filter(token -> token.getRevokedAt() == null)
+                .filter(filter)
+                .collect(Collectors.toList());
+    }
+
+    private String tokenId(String token) {
+        return jwtUtils.verifyJwtToken(token).orElseThrow().getTokenId();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.omega.service.token;
+
+import com.example.omega.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+
+class TokenRevocationListTest {
+
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository = Mockito.mock(RevokedTokenRepository.class);
+        Mockito.when(revokedTokenRepository.existsByTokenId("revoked")).thenReturn(true);
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, new SimpleMeterRegistry(), 1000, 0.001, 10_000, 3_600_000);
+    }
+
+    @Test
+    void testIsRevoked_WhenFilterIsLoaded() {
+        // Arrange
+        Mockito.when(revokedTokenRepository.findTokenIdsRevokedSince(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(List.of("revoked"));
+
+        // Act
+        tokenRevocationList.load();
+
+        // Assert (only the filter hit reads the table)
+        Assertions.assertTrue(tokenRevocationList.isRevoked("revoked"));
+        Assertions.assertFalse(tokenRevocationList.isRevoked("valid"));
+        Mockito.verify(revokedTokenRepository, Mockito.never()).existsByTokenId("valid");
+    }
+
+    @Test
+    void testIsRevoked_WhenFilterWasNeverLoaded() {
+        // Act & Assert (an empty filter would accept every token, so the table is read)
+        Assertions.assertTrue(tokenRevocationList.isRevoked("revoked"));
+        Assertions.assertFalse(tokenRevocationList.isRevoked("valid"));
+        Mockito.verify(revokedTokenRepository).existsByTokenId("valid");
+    }
+
+    @Test
+    void testIsRevoked_WhenRebuildFailed() {
+        // Arrange (loaded once, then the database went away for the rebuild)
+        Mockito.when(revokedTokenRepository.findTokenIdsRevokedSince(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(List.of())
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        tokenRevocationList.load();
+
+        // Act
+        tokenRevocationList.load();
+
+        // Assert (the stale filter isn't trusted, a token revoked on another node is still rejected)
+        Assertions.assertTrue(tokenRevocationList.isRevoked("revoked"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.omega.service.util;
+
+import com.example.omega.service.exception.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+class KeysetPageTest {
+
+    @Test
+    void testDecodeCursor_WhenCursorWasEncoded() {
+        // Arrange (a created date with nanoseconds, so nothing is lost by rounding)
+        var createdDate = Instant.parse("2026-10-17T08:30:15.123456789Z");
+
+        // Act
+        var cursor = KeysetPage.encodeCursor(createdDate, 1234L);
+        var position = KeysetPage.decodeCursor(cursor);
+
+        // Assert (the cursor can go in a query string as it is)
+        Assertions.assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        Assertions.assertEquals(createdDate, position.getCreatedDate());
+        Assertions.assertEquals(1234L, position.getId());
+    }
+
+    @Test
+    void testDecodeCursor_WhenCursorIsMalformed() {
+        // Act & Assert
+        Assertions.assertThrows(BadRequestException.class, () -> KeysetPage.decodeCursor("not a cursor!"));
+        Assertions.assertThrows(BadRequestException.class, () -> KeysetPage.decodeCursor(encode("1792222215:0")));
+        Assertions.assertThrows(BadRequestException.class, () -> KeysetPage.decodeCursor(encode("1792222215:0:abc")));
+        Assertions.assertThrows(BadRequestException.class, () -> KeysetPage.decodeCursor(encode("99999999999999999:0:5")));
+    }
+
+    @Test
+    void testHasNext_WhenPageHasCursor() {
+        // Act & Assert
+        Assertions.assertTrue(new KeysetPage<>(List.of(1), "cursor").hasNext());
+        Assertions.assertFalse(new KeysetPage<>(List.of(1), null).hasNext());
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
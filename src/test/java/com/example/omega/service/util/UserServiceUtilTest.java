@@ -10,8 +10,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest(classes = OmegaApplication.class)
+@ActiveProfiles("test")
 class UserServiceUtilTest {
 
     @Autowired
@@ -0,0 +1,66 @@
+package com.example.omega.service.volume;
+
+import com.example.omega.domain.enumeration.Currency;
+import com.example.omega.repository.DailyVolumeRepository;
+import com.example.omega.service.ledger.LedgerTransfer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+class DailyVolumeRollupTest {
+
+    private DailyVolumeRepository dailyVolumeRepository;
+
+    private DailyVolumeRollup dailyVolumeRollup;
+
+    @BeforeEach
+    void setUp() {
+        dailyVolumeRepository = Mockito.mock(DailyVolumeRepository.class);
+        var transactionTemplate = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        dailyVolumeRollup = new DailyVolumeRollup(dailyVolumeRepository, transactionTemplate);
+    }
+
+    @Test
+    void testFlush_WhenTransfersShareAnAccount() {
+        // Arrange
+        Mockito.when(dailyVolumeRepository.increment(ArgumentMatchers.eq(1L), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                        ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(1);
+        dailyVolumeRollup.record(LedgerTransfer.of(1L, 2L, Currency.EUR, new BigDecimal("10.00")));
+        dailyVolumeRollup.record(LedgerTransfer.of(1L, 3L, Currency.EUR, new BigDecimal("5.50")));
+
+        // Act
+        var flushed = dailyVolumeRollup.flush();
+
+        // Assert (both transfers of the sender are written as one increment)
+        Assertions.assertEquals(3, flushed);
+        Mockito.verify(dailyVolumeRepository).increment(ArgumentMatchers.eq(1L), ArgumentMatchers.eq(Currency.EUR), ArgumentMatchers.any(),
+                ArgumentMatchers.eq(2L), ArgumentMatchers.eq(new BigDecimal("15.50")), ArgumentMatchers.eq(0L), ArgumentMatchers.eq(BigDecimal.ZERO));
+        Mockito.verify(dailyVolumeRepository).saveAllAndFlush(ArgumentMatchers.argThat(rows -> rows.spliterator().getExactSizeIfKnown() == 2));
+        Assertions.assertEquals(0, dailyVolumeRollup.flush());
+    }
+
+    @Test
+    void testFlush_WhenWriteFails() {
+        // Arrange
+        dailyVolumeRollup.record(LedgerTransfer.of(1L, 2L, Currency.EUR, BigDecimal.TEN));
+        Mockito.when(dailyVolumeRepository.saveAllAndFlush(ArgumentMatchers.any()))
+                .thenThrow(new DataIntegrityViolationException("uc_daily_volume_user_currency_day"))
+                .thenReturn(null);
+
+        // Act
+        var failed = dailyVolumeRollup.flush();
+        var retried = dailyVolumeRollup.flush();
+
+        // Assert (the deltas of a failed flush are kept for the next round)
+        Assertions.assertEquals(0, failed);
+        Assertions.assertEquals(2, retried);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.omega.web;
+
+import com.example.omega.domain.enumeration.StatementFormat;
+import com.example.omega.service.TransactionService;
+import com.example.omega.service.pipeline.TransferPipeline;
+import com.example.omega.service.statement.StatementExportService;
+import com.example.omega.service.util.SecurityUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+class TransactionResourceTest {
+
+    private StatementExportService statementExportService;
+
+    private TransactionResource transactionResource;
+
+    private Principal principal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        statementExportService = Mockito.mock(StatementExportService.class);
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(4, OutputStream.class).write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(statementExportService).exportStatement(ArgumentMatchers.eq(1L), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        var securityUtils = Mockito.mock(SecurityUtils.class);
+        principal = () -> "alice";
+        Mockito.when(securityUtils.extractCurrentUserIdFromPrincipal(principal)).thenReturn(1L);
+        transactionResource = new TransactionResource(Mockito.mock(TransactionService.class), Mockito.mock(TransferPipeline.class),
+                statementExportService, securityUtils);
+    }
+
+    @Test
+    void testAcceptsGzip_WhenQualityIsGiven() {
+        // Act & Assert
+        Assertions.assertTrue(TransactionResource.acceptsGzip("gzip"));
+        Assertions.assertTrue(TransactionResource.acceptsGzip("deflate, GZIP;q=0.5"));
+        Assertions.assertFalse(TransactionResource.acceptsGzip("gzip;q=0"));
+        Assertions.assertFalse(TransactionResource.acceptsGzip("br, gzip ; q=0.0"));
+        Assertions.assertFalse(TransactionResource.acceptsGzip("x-gzip-like, identity"));
+        Assertions.assertFalse(TransactionResource.acceptsGzip(null));
+    }
+
+    @Test
+    void testExportStatement_WhenClientAcceptsGzip() throws IOException {
+        // Act
+        var response = transactionResource.exportStatement(principal, LocalDate.of(2026, 10, 1), null, StatementFormat.CSV, "gzip, br");
+        var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Assert (the slot is released once the body has been streamed)
+        Assertions.assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            Assertions.assertEquals("id\n1\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        var order = Mockito.inOrder(statementExportService);
+        order.verify(statementExportService).acquireExportSlot();
+        order.verify(statementExportService).exportStatement(ArgumentMatchers.eq(1L), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.eq(StatementFormat.CSV), ArgumentMatchers.any());
+        order.verify(statementExportService).releaseExportSlot();
+    }
+
+    @Test
+    void testExportStatement_WhenGzipIsRefused() throws IOException {
+        // Act
+        var response = transactionResource.exportStatement(principal, null, null, StatementFormat.CSV, "gzip;q=0, identity");
+        var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Assert
+        Assertions.assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("id\n1\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportStatement_WhenExportFails() {
+        // Arrange
+        Mockito.doThrow(new IllegalStateException("Connection lost")).when(statementExportService).exportStatement(
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        var response = transactionResource.exportStatement(principal, null, null, StatementFormat.NDJSON, null);
+
+        // Act & Assert (the slot is released either way)
+        Assertions.assertThrows(IllegalStateException.class, () -> response.getBody().writeTo(new ByteArrayOutputStream()));
+        Mockito.verify(statementExportService).releaseExportSlot();
+    }
+}